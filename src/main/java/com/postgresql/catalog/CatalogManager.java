@@ -1,22 +1,32 @@
 package com.postgresql.catalog;
 
-import com.postgresql.cli.ConsoleUI;
 import com.postgresql.exception.InvalidSyntaxException;
 import com.postgresql.model.Table;
-import com.postgresql.model.Tuple;
+import com.postgresql.storage.AutoVacuum;
+import com.postgresql.storage.Checkpointer;
+import com.postgresql.storage.HeapFile;
+import com.postgresql.storage.LogRecord;
+import com.postgresql.storage.RecoveryManager;
 import com.postgresql.storage.TableHeap;
 import com.postgresql.storage.TableSerializer;
+import com.postgresql.storage.WriteAheadLog;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CatalogManager {
     private static final CatalogManager INSTANCE = new CatalogManager();
     private static final String DB_PATH = "./data/";
-    private final Map<String, Table> tables = new HashMap<>();
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final Checkpointer checkpointer = new Checkpointer();
+    private final AutoVacuum autoVacuum = new AutoVacuum(this::tableHeaps);
 
     private CatalogManager() {
         loadTablesFromDisk(); // 🔁 Load tables on startup
+        recover(); // 🔁 Replay the log written since the last checkpoint
+        checkpointer.start(); // 💾 Write dirty pages in the background
+        autoVacuum.start(); // 🧹 Reclaim space left by deleted rows
     }
 
     public static CatalogManager getInstance() {
@@ -24,17 +34,34 @@ public class CatalogManager {
     }
 
     public void createTable(String name, List<ColumnMetadata> columns) {
+        createTable(name, columns, StorageMode.HEAP);
+    }
+
+    public void createTable(String name, List<ColumnMetadata> columns, StorageMode storageMode) {
         if (tables.containsKey(name)) {
             throw new RuntimeException("Table already exists: " + name);
         }
 
-        TableMetadata metadata = new TableMetadata(name, columns);
-        TableHeap heap = new TableHeap();
+        TableMetadata metadata = new TableMetadata(name, columns, storageMode);
+        HeapFile file = HeapFile.open(TableSerializer.heapFile(name));
+        file.truncate(); // drop leftovers from an earlier table with the same name
+        WriteAheadLog wal = WriteAheadLog.getInstance();
+        wal.append(LogRecord.create(name)); // ✅ Recovery must not replay the old table's rows
+        wal.commit();
+        TableHeap heap = new TableHeap(metadata, file);
         Table table = new Table(name, metadata, heap);
         tables.put(name, table);
         saveTable(table); // 💾 Persist to disk
     }
 
+    private List<TableHeap> tableHeaps() {
+        List<TableHeap> heaps = new ArrayList<>();
+        for (Table table : tables.values()) {
+            heaps.add(table.getTableHeap());
+        }
+        return heaps;
+    }
+
     public List<String> listTables() {
         return new ArrayList<>(tables.keySet());
     }
@@ -49,14 +76,7 @@ public class CatalogManager {
 
     public void saveTable(Table table) {
         try {
-            File dir = new File(DB_PATH);
-            if (!dir.exists())
-                dir.mkdirs();
-
-            FileOutputStream fos = new FileOutputStream(DB_PATH + table.getName() + ".table");
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(table);
-            oos.close();
+            TableSerializer.writeMetadata(table.getMetadata());
         } catch (IOException e) {
             throw new RuntimeException("Failed to save table: " + table.getName(), e);
         }
@@ -72,44 +92,85 @@ public class CatalogManager {
             return;
 
         for (File file : files) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                Table table = (Table) ois.readObject();
+            String name = file.getName().substring(0, file.getName().length() - ".table".length());
+            try {
+                Table table = TableSerializer.readFromDisk(name);
                 tables.put(table.getName(), table);
-            } catch (IOException | ClassNotFoundException e) {
+            } catch (IOException | RuntimeException e) {
                 System.err.println("Failed to load table from file: " + file.getName());
                 e.printStackTrace();
             }
         }
     }
 
-    public void addColumn(String tableName, ColumnMetadata newColumn) throws IOException {
-        Table table = tables.get(tableName);
+    private void recover() {
+        Map<String, HeapFile> files = new HashMap<>();
+        for (Table table : tables.values()) {
+            files.put(table.getName(), table.getTableHeap().getFile());
+        }
+        try {
+            Map<String, Integer> replayed = RecoveryManager.recover(files);
+            int total = replayed.values().stream().mapToInt(Integer::intValue).sum();
+            if (total > 0) {
+                System.out.println("🔁 Replayed " + total + " log records since the last checkpoint");
+            }
+            for (Table table : tables.values()) {
+                // 🔁 Index pages are not logged, so a table that needed redo gets its indexes rebuilt
+                table.getTableHeap().rebuildIndexes(replayed.containsKey(table.getName()));
+            }
+            checkpointer.checkpoint(); // 💾 Start the next run from a clean redo point
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Recovery failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 
+    /** Creates an index on one column and builds it from the table's rows; a null name picks one. */
+    public void createIndex(String tableName, String indexName, String columnName) {
+        createIndex(tableName, indexName, columnName, List.of());
+    }
+
+    /** Like {@link #createIndex(String, String, String)}, also storing the {@code included} columns' values. */
+    public void createIndex(String tableName, String indexName, String columnName, List<String> included) {
+        Table table = tables.get(tableName);
         if (table == null) {
             throw new InvalidSyntaxException("Table not found: " + tableName);
         }
 
+        IndexMetadata index;
         try {
-            // ✅ Add to metadata (updates column list and maps)
-            table.getMetadata().addColumn(newColumn);
+            String column = table.getMetadata().getColumnByName(columnName).getName();
+            String name = indexName != null ? indexName : tableName + "_" + column + "_idx";
+            List<String> includedNames = new ArrayList<>();
+            for (String includedColumn : included) {
+                includedNames.add(table.getMetadata().getColumnByName(includedColumn).getName());
+            }
+            index = new IndexMetadata(name.toLowerCase(), column, includedNames);
+            table.getMetadata().addIndex(index);
         } catch (IllegalArgumentException e) {
             throw new InvalidSyntaxException(e.getMessage());
         }
 
-        // ✅ Add null to each existing row to match the new column
-        for (Tuple tuple : table.getAllTuples()) {
-            tuple.getValues().add(null);
-        }
+        table.getTableHeap().createIndex(index); // ✅ Built and flushed before the catalog lists it
+        saveTable(table); // 💾 Persist to disk
+    }
+
+    public void addColumn(String tableName, ColumnMetadata newColumn) throws IOException {
+        Table table = tables.get(tableName);
 
-        // ✅ Save updated table
-        TableSerializer.writeToDisk(table);
+        if (table == null) {
+            throw new InvalidSyntaxException("Table not found: " + tableName);
+        }
 
         try {
-            Table updatedTable = TableSerializer.readFromDisk(tableName);
-            tables.put(tableName, updatedTable);
-        } catch (IOException | ClassNotFoundException e) {
-            ConsoleUI.printError("❌ Failed to reload updated table: " + e.getMessage());
+            // ✅ Add to metadata (updates column list and maps)
+            table.getMetadata().addColumn(newColumn);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSyntaxException(e.getMessage());
         }
+
+        // ✅ Save updated schema; existing rows read the new column as null
+        TableSerializer.writeMetadata(table.getMetadata());
     }
 
 }
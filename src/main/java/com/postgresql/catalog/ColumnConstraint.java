@@ -0,0 +1,14 @@
+package com.postgresql.catalog;
+
+/** Column-level constraint declared in CREATE TABLE. */
+public enum ColumnConstraint {
+    NONE,
+    /** No two rows may hold the same non-null value. */
+    UNIQUE,
+    /** Unique and never null; at most one per table. */
+    PRIMARY_KEY;
+
+    public boolean isUnique() {
+        return this != NONE;
+    }
+}
@@ -2,17 +2,20 @@ package com.postgresql.catalog;
 
 import com.postgresql.common.DataType;
 
-import java.io.Serializable;
-
-public class ColumnMetadata implements Serializable {
-    private static final long serialVersionUID = 1L;
 
+public class ColumnMetadata {
     private final String name;
     private final DataType type;
+    private final ColumnConstraint constraint;
 
     public ColumnMetadata(String name, DataType type) {
+        this(name, type, ColumnConstraint.NONE);
+    }
+
+    public ColumnMetadata(String name, DataType type, ColumnConstraint constraint) {
         this.name = name;
         this.type = type;
+        this.constraint = constraint;
     }
 
     public String getName() {
@@ -22,4 +25,8 @@ public class ColumnMetadata implements Serializable {
     public DataType getType() {
         return type;
     }
+
+    public ColumnConstraint getConstraint() {
+        return constraint;
+    }
 }
@@ -0,0 +1,36 @@
+package com.postgresql.catalog;
+
+import java.util.List;
+
+/**
+ * A secondary index on one column of a table. Columns listed with INCLUDE are stored in the
+ * index's leaf entries as well, so queries that need only those columns and the key can be
+ * answered from the index alone.
+ */
+public class IndexMetadata {
+    private final String name;
+    private final String columnName;
+    private final List<String> includedColumns;
+
+    public IndexMetadata(String name, String columnName) {
+        this(name, columnName, List.of());
+    }
+
+    public IndexMetadata(String name, String columnName, List<String> includedColumns) {
+        this.name = name;
+        this.columnName = columnName;
+        this.includedColumns = List.copyOf(includedColumns);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public List<String> getIncludedColumns() {
+        return includedColumns;
+    }
+}
@@ -0,0 +1,15 @@
+package com.postgresql.catalog;
+
+/**
+ * Where a table keeps the in-memory copy of its rows that SELECT reads from. The rows
+ * themselves always live in the table's heap file.
+ */
+public enum StorageMode {
+    /** Column vectors on the Java heap. */
+    HEAP,
+    /**
+     * Encoded rows in direct memory outside the Java heap, so the garbage collector never
+     * walks over them. Meant for large tables that are mostly read.
+     */
+    OFF_HEAP
+}
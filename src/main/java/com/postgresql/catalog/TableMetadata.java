@@ -1,23 +1,30 @@
 package com.postgresql.catalog;
 
-import java.io.Serializable;
 import java.util.*;
 
-public class TableMetadata implements Serializable {
-    private static final long serialVersionUID = 1L;
-
+public class TableMetadata {
     private final String tableName;
     private final List<ColumnMetadata> columns;
+    private final StorageMode storageMode;
+    private final List<IndexMetadata> indexes = new ArrayList<>();
 
     private final Map<String, Integer> columnIndexMap;
     private final Map<String, ColumnMetadata> columnMetadataMap;
 
     public TableMetadata(String tableName, List<ColumnMetadata> columns) {
+        this(tableName, columns, StorageMode.HEAP);
+    }
+
+    public TableMetadata(String tableName, List<ColumnMetadata> columns, StorageMode storageMode) {
         this.tableName = tableName;
-        this.columns = columns;
+        this.columns = new ArrayList<>(columns);
+        this.storageMode = storageMode;
         this.columnIndexMap = new HashMap<>();
         this.columnMetadataMap = new HashMap<>();
 
+        if (columns.stream().filter(c -> c.getConstraint() == ColumnConstraint.PRIMARY_KEY).count() > 1) {
+            throw new IllegalArgumentException("Table " + tableName + " has more than one PRIMARY KEY");
+        }
         for (int i = 0; i < columns.size(); i++) {
             String nameLower = columns.get(i).getName().toLowerCase();
             columnIndexMap.put(nameLower, i);
@@ -33,6 +40,38 @@ public class TableMetadata implements Serializable {
         return columns;
     }
 
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    public List<IndexMetadata> getIndexes() {
+        return Collections.unmodifiableList(indexes);
+    }
+
+    public IndexMetadata getIndex(String name) {
+        for (IndexMetadata index : indexes) {
+            if (index.getName().equalsIgnoreCase(name)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    public void addIndex(IndexMetadata index) {
+        if (getIndex(index.getName()) != null) {
+            throw new IllegalArgumentException("Index already exists: " + index.getName());
+        }
+        int key = getColumnIndex(index.getColumnName()); // the column must exist
+        Set<Integer> included = new HashSet<>();
+        for (String column : index.getIncludedColumns()) {
+            int position = getColumnIndex(column);
+            if (position == key || !included.add(position)) {
+                throw new IllegalArgumentException("Column listed twice in index " + index.getName() + ": " + column);
+            }
+        }
+        indexes.add(index);
+    }
+
     public int getColumnIndex(String columnName) {
         Integer index = columnIndexMap.get(columnName.toLowerCase());
         if (index == null) {
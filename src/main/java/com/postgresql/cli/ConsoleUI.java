@@ -1,5 +1,6 @@
 package com.postgresql.cli;
 
+import com.postgresql.catalog.ColumnConstraint;
 import com.postgresql.catalog.ColumnMetadata;
 
 import java.util.List;
@@ -53,7 +54,8 @@ public class ConsoleUI {
     public static void printSchema(String tableName, List<ColumnMetadata> columns) {
         System.out.println(CYAN + BOLD + "\n📦 Table Schema for '" + tableName + "':" + RESET);
         for (ColumnMetadata col : columns) {
-            System.out.println("  - " + MAGENTA + col.getName() + RESET + " : " + YELLOW + col.getType().name() + RESET);
+            String constraint = col.getConstraint() == ColumnConstraint.NONE ? "" : " " + col.getConstraint().name().replace('_', ' ');
+            System.out.println("  - " + MAGENTA + col.getName() + RESET + " : " + YELLOW + col.getType().name() + constraint + RESET);
         }
         System.out.println(); // spacing
     }
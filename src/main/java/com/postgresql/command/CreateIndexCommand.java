@@ -0,0 +1,36 @@
+package com.postgresql.command;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.cli.ConsoleUI;
+
+import java.util.List;
+
+public class CreateIndexCommand implements Command {
+    private final String indexName;
+    private final String tableName;
+    private final String columnName;
+    private final List<String> includedColumns;
+
+    /** Indexes one column of a table; a null {@code indexName} names it after the table and column. */
+    public CreateIndexCommand(String indexName, String tableName, String columnName) {
+        this(indexName, tableName, columnName, List.of());
+    }
+
+    /** Like the three-argument form, also storing the {@code includedColumns} in the index. */
+    public CreateIndexCommand(String indexName, String tableName, String columnName, List<String> includedColumns) {
+        this.indexName = indexName;
+        this.tableName = tableName;
+        this.columnName = columnName;
+        this.includedColumns = includedColumns;
+    }
+
+    @Override
+    public void execute() {
+        try {
+            CatalogManager.getInstance().createIndex(tableName, indexName, columnName, includedColumns);
+            ConsoleUI.printSuccess("📇 Index on '" + tableName + "(" + columnName + ")' created.");
+        } catch (RuntimeException e) {
+            ConsoleUI.printError("❌ Failed to create index: " + e.getMessage());
+        }
+    }
+}
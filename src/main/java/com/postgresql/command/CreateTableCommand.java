@@ -2,6 +2,7 @@ package com.postgresql.command;
 
 import com.postgresql.catalog.CatalogManager;
 import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.StorageMode;
 import com.postgresql.cli.ConsoleUI;
 import com.postgresql.common.DataType;
 
@@ -10,15 +11,21 @@ import java.util.List;
 public class CreateTableCommand implements Command {
     private final String tableName;
     private final List<ColumnMetadata> columns;
+    private final StorageMode storageMode;
 
     public CreateTableCommand(String tableName, List<ColumnMetadata> columns) {
+        this(tableName, columns, StorageMode.HEAP);
+    }
+
+    public CreateTableCommand(String tableName, List<ColumnMetadata> columns, StorageMode storageMode) {
         this.tableName = tableName;
         this.columns = columns;
+        this.storageMode = storageMode;
     }
 
     @Override
     public void execute() {
-        CatalogManager.getInstance().createTable(tableName, columns);
+        CatalogManager.getInstance().createTable(tableName, columns, storageMode);
         ConsoleUI.printSuccess("🎉 Table '" + tableName + "' created successfully!");
 
         // Pretty print schema
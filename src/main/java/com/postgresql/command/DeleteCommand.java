@@ -1,22 +1,24 @@
 package com.postgresql.command;
 
 import com.postgresql.catalog.CatalogManager;
+import com.postgresql.expression.Expression;
 import com.postgresql.model.Table;
-import com.postgresql.storage.TableSerializer;
 import com.postgresql.model.Tuple;
+import com.postgresql.storage.WriteAheadLog;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class DeleteCommand implements Command {
     private final String tableName;
-    private final String whereColumn;
-    private final String whereValue;
+    private final Expression where;
 
     public DeleteCommand(String tableName, String whereColumn, String whereValue) {
+        this(tableName, Expression.of(whereColumn, "=", whereValue, null));
+    }
+
+    public DeleteCommand(String tableName, Expression where) {
         this.tableName = tableName;
-        this.whereColumn = whereColumn;
-        this.whereValue = whereValue;
+        this.where = where;
     }
 
     @Override
@@ -27,29 +29,17 @@ public class DeleteCommand implements Command {
             return;
         }
 
-        int deletedCount = 0;
-        List<Tuple> toRemove = new ArrayList<>();
-        for (Tuple tuple : table.getTableHeap().scanAllTuples()) {
-            tuple.acquireWriteLock();
-            try {
-                Object actualValue = tuple.getValue(whereColumn, table.getMetadata());
-                if (actualValue != null && actualValue.toString().equalsIgnoreCase(whereValue)) {
-                    toRemove.add(tuple);
-                    deletedCount++;
-                }
-            } finally {
-                tuple.releaseWriteLock();
-            }
-        }
-        table.getTableHeap().deleteTuples(toRemove);
-
-        // ✅ Persist updated table data to disk
+        // ✅ An index on a column the condition requires to be equal to a value narrows the search to the rows it lists
+        List<Tuple> toRemove;
         try {
-            TableSerializer.writeToDisk(table); // Save actual data
-            CatalogManager.getInstance().saveTable(table); // Save metadata if needed
-        } catch (Exception e) {
-            throw new RuntimeException("❌ Failed to persist table: " + e.getMessage(), e);
+            toRemove = table.findTuples(where.bind(table.getMetadata().getColumns(), table.getMetadata()::getColumnIndex));
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
         }
+        int deletedCount = toRemove.size();
+        table.getTableHeap().deleteTuples(toRemove);
+        WriteAheadLog.getInstance().commit(); // ✅ Durable once the log records are flushed
 
         System.out.println("✅ Deleted " + deletedCount + " rows.");
     }
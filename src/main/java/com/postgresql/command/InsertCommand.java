@@ -5,7 +5,7 @@ import com.postgresql.catalog.ColumnMetadata;
 import com.postgresql.common.DataType;
 import com.postgresql.model.Table;
 import com.postgresql.model.Tuple;
-import com.postgresql.storage.TableSerializer;
+import com.postgresql.storage.WriteAheadLog;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -46,12 +46,7 @@ public class InsertCommand implements Command {
         } finally {
             newTuple.releaseWriteLock();
         }
-
-        try {
-            TableSerializer.writeToDisk(table);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to persist table: " + e.getMessage(), e);
-        }
+        WriteAheadLog.getInstance().commit(); // ✅ Durable once the log record is flushed
 
         System.out.println("✅ Row inserted into '" + tableName + "'");
     }
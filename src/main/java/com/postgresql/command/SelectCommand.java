@@ -1,24 +1,82 @@
 package com.postgresql.command;
 
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.AggregateFunction;
+import com.postgresql.execution.HashAggregation;
+import com.postgresql.execution.JoinOrderPlanner;
+import com.postgresql.execution.JoinType;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.execution.operator.BatchOperator;
+import com.postgresql.execution.operator.Filter;
+import com.postgresql.execution.operator.HashAggregate;
+import com.postgresql.execution.operator.IndexScan;
+import com.postgresql.execution.operator.Join;
+import com.postgresql.execution.operator.Limit;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.ParallelScan;
+import com.postgresql.execution.operator.Project;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.execution.operator.Sort;
+import com.postgresql.execution.operator.TopN;
+import com.postgresql.execution.operator.Unbatch;
+import com.postgresql.execution.operator.VectorFilter;
+import com.postgresql.execution.operator.VectorScan;
+import com.postgresql.expression.BoundExpression;
+import com.postgresql.expression.Expression;
+import com.postgresql.model.Range;
+import com.postgresql.model.RowBuilder;
 import com.postgresql.model.Table;
-import com.postgresql.model.Tuple;
 import com.postgresql.storage.TableSerializer;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class SelectCommand implements Command {
     private final String tableName;
-    private final String whereColumn;
-    private final String whereValue;
+    private final List<SelectItem> items;
+    private final Expression where;
+    private final List<String> groupBy;
     private final String orderByColumn;
     private final boolean orderByAsc;
     private final Integer limit;
     private final Integer offset;
-    private final String joinType;
-    private final String joinTable;
-    private final String joinLeftCol;
-    private final String joinRightCol;
+    private final List<JoinClause> joins;
+
+    /**
+     * A JOIN of {@code table} ON {@code table.column = otherTable.otherColumn}, where
+     * {@code otherTable} is the FROM table or one joined before it.
+     */
+    public record JoinClause(String type, String table, String column, String otherTable, String otherColumn) {
+    }
+
+    /**
+     * An entry of the select list: a column when {@code function} is null, otherwise the
+     * aggregate {@code function} of a column, or of {@code *} for COUNT(*).
+     */
+    public record SelectItem(String function, String column) {
+        /** The item as its output column is headed, such as {@code count(*)}. */
+        public String label() {
+            return function == null ? column : function.toLowerCase(Locale.ROOT) + "(" + column + ")";
+        }
+
+        boolean isCountOfRows() {
+            return "*".equals(column) && AggregateFunction.parse(function) == AggregateFunction.COUNT;
+        }
+    }
+
+    // The plan of an aggregating SELECT and the columns of the rows it returns
+    private record Aggregated(Operator plan, List<ColumnMetadata> columns) {
+    }
 
     public SelectCommand(String tableName) {
         this(tableName, null, null);
@@ -34,207 +92,114 @@ public class SelectCommand implements Command {
 
     public SelectCommand(String tableName, String whereColumn, String whereValue, String orderByColumn, boolean orderByAsc, Integer limit, Integer offset,
                         String joinType, String joinTable, String joinLeftCol, String joinRightCol) {
+        this(tableName, whereColumn, "=", whereValue, null, orderByColumn, orderByAsc, limit, offset,
+                joinType, joinTable, joinLeftCol, joinRightCol);
+    }
+
+    /**
+     * {@code whereOperator} is {@code =} (with "IS NULL" and "IS NOT NULL" passed as the
+     * value), or one of {@code <, <=, >, >=, BETWEEN}; only BETWEEN uses {@code whereUpperValue}.
+     */
+    public SelectCommand(String tableName, String whereColumn, String whereOperator, String whereValue, String whereUpperValue,
+                        String orderByColumn, boolean orderByAsc, Integer limit, Integer offset,
+                        String joinType, String joinTable, String joinLeftCol, String joinRightCol) {
+        this(tableName, whereColumn, whereOperator, whereValue, whereUpperValue, orderByColumn, orderByAsc, limit, offset,
+                joinType == null ? List.of() : List.of(new JoinClause(joinType, joinTable, joinRightCol, tableName, joinLeftCol)));
+    }
+
+    /** Like the constructor above, with any number of {@code joins} in the order they are written. */
+    public SelectCommand(String tableName, String whereColumn, String whereOperator, String whereValue, String whereUpperValue,
+                        String orderByColumn, boolean orderByAsc, Integer limit, Integer offset, List<JoinClause> joins) {
+        this(tableName, List.of(), whereColumn != null && whereValue != null
+                        ? Expression.of(whereColumn, whereOperator, whereValue, whereUpperValue) : null,
+                List.of(), orderByColumn, orderByAsc, limit, offset, joins);
+    }
+
+    /**
+     * A SELECT of the {@code items} listed, or of every column when there are none. With
+     * aggregates or {@code groupBy} columns, each group of rows is returned as one row, and
+     * ORDER BY names one of the items. Only rows that meet {@code where}, unless it is null,
+     * are selected.
+     */
+    public SelectCommand(String tableName, List<SelectItem> items, Expression where, List<String> groupBy,
+                        String orderByColumn, boolean orderByAsc, Integer limit, Integer offset, List<JoinClause> joins) {
         this.tableName = tableName;
-        this.whereColumn = whereColumn;
-        this.whereValue = whereValue;
+        this.items = List.copyOf(items);
+        this.where = where;
+        this.groupBy = List.copyOf(groupBy);
         this.orderByColumn = orderByColumn;
         this.orderByAsc = orderByAsc;
         this.limit = limit;
         this.offset = offset;
-        this.joinType = joinType;
-        this.joinTable = joinTable;
-        this.joinLeftCol = joinLeftCol;
-        this.joinRightCol = joinRightCol;
+        this.joins = List.copyOf(joins);
     }
 
     @Override
     public void execute() {
         try {
-            if (joinType == null) {
-                Table table = TableSerializer.readFromDisk(tableName);
+            List<String> names = new ArrayList<>();
+            names.add(tableName);
+            joins.forEach(join -> names.add(join.table()));
+            List<Table> tables = new ArrayList<>();
+            for (String name : names) {
+                Table table = resolveTable(name);
                 if (table == null) {
-                    System.out.println("❌ Table not found on disk: " + tableName);
+                    System.out.println("❌ Table not found: " + name);
                     return;
                 }
-                printHeader(table.getMetadata().getColumns(), null);
-                List<Tuple> tuples = table.getTableHeap().scanAllTuples();
-                // Enhanced WHERE filter with qualified column support
-                if (whereColumn != null && whereValue != null) {
-                    int whereIdx = getQualifiedColumnIndex(whereColumn, table, null);
-                    if (whereValue.equalsIgnoreCase("IS NULL")) {
-                        tuples = tuples.stream()
-                                .filter(tuple -> tuple.getValues().get(whereIdx) == null)
-                                .collect(Collectors.toList());
-                    } else if (whereValue.equalsIgnoreCase("IS NOT NULL")) {
-                        tuples = tuples.stream()
-                                .filter(tuple -> tuple.getValues().get(whereIdx) != null)
-                                .collect(Collectors.toList());
-                    } else {
-                        tuples = tuples.stream()
-                                .filter(tuple -> {
-                                    Object value = tuple.getValues().get(whereIdx);
-                                    return value != null && value.toString().equalsIgnoreCase(whereValue);
-                                })
-                                .collect(Collectors.toList());
-                    }
-                }
-                // ORDER BY with qualified column support
-                if (orderByColumn != null) {
-                    int colIdx = getQualifiedColumnIndex(orderByColumn, table, null);
-                    tuples = tuples.stream()
-                            .sorted((a, b) -> {
-                                Comparable va = (Comparable) a.getValues().get(colIdx);
-                                Comparable vb = (Comparable) b.getValues().get(colIdx);
-                                int cmp = 0;
-                                if (va == null && vb == null) cmp = 0;
-                                else if (va == null) cmp = -1;
-                                else if (vb == null) cmp = 1;
-                                else cmp = va.compareTo(vb);
-                                return orderByAsc ? cmp : -cmp;
-                            })
-                            .collect(Collectors.toList());
-                }
-                if (offset != null && offset > 0) {
-                    if (offset < tuples.size()) {
-                        tuples = tuples.subList(offset, tuples.size());
-                    } else {
-                        tuples = List.of();
-                    }
-                }
-                if (limit != null && limit >= 0 && limit < tuples.size()) {
-                    tuples = tuples.subList(0, limit);
-                }
-                for (Tuple tuple : tuples) {
-                    tuple.acquireReadLock();
-                    try {
-                        printRow(tuple);
-                    } finally {
-                        tuple.releaseReadLock();
-                    }
-                }
-            } else {
-                Table leftTable = TableSerializer.readFromDisk(tableName);
-                Table rightTable = TableSerializer.readFromDisk(joinTable);
-                if (leftTable == null || rightTable == null) {
-                    System.out.println("❌ One or both tables not found on disk: " + tableName + ", " + joinTable);
+                tables.add(table);
+            }
+            boolean aggregated = isAggregated();
+            if (aggregated && countsRowsOnly()) {
+                // COUNT(*) of a whole table is the heap's live row count, kept without a scan
+                printLabels(items.stream().map(SelectItem::label).toList());
+                printRow(items.stream().map(item -> (Object) tables.get(0).getRowCount()).toList());
+                return;
+            }
+            List<ColumnMetadata> columns = tables.stream()
+                    .flatMap(table -> table.getMetadata().getColumns().stream())
+                    .toList();
+            BoundExpression condition;
+            BitSet referenced;
+            try {
+                condition = where != null ? where.bind(columns, col -> getQualifiedColumnIndex(col, tables)) : null;
+                referenced = referencedColumns(tables, condition);
+            } catch (IllegalArgumentException e) {
+                System.out.println("❌ " + e.getMessage());
+                return;
+            }
+            Operator rows = joins.isEmpty()
+                    ? planScan(tables.get(0), condition, referenced, aggregated)
+                    : planJoin(names, tables, condition, referenced, aggregated);
+            if (rows == null) {
+                return;
+            }
+            Operator plan;
+            if (aggregated) {
+                Aggregated grouped = aggregate(rows, columns, tables);
+                if (grouped == null) {
                     return;
                 }
-                printHeader(leftTable.getMetadata().getColumns(), rightTable.getMetadata().getColumns());
-                List<Tuple> leftTuples = leftTable.getTableHeap().scanAllTuples();
-                List<Tuple> rightTuples = rightTable.getTableHeap().scanAllTuples();
-                int leftIdx = leftTable.getMetadata().getColumnIndex(joinLeftCol);
-                int rightIdx = rightTable.getMetadata().getColumnIndex(joinRightCol);
-                List<List<Object>> joinedRows = new java.util.ArrayList<>();
-                if ("INNER".equalsIgnoreCase(joinType)) {
-                    for (Tuple l : leftTuples) {
-                        Object lval = l.getValues().get(leftIdx);
-                        for (Tuple r : rightTuples) {
-                            Object rval = r.getValues().get(rightIdx);
-                            if (lval != null && lval.equals(rval)) {
-                                List<Object> row = new java.util.ArrayList<>();
-                                row.addAll(l.getValues());
-                                row.addAll(r.getValues());
-                                joinedRows.add(row);
-                            }
-                        }
-                    }
-                } else if ("LEFT".equalsIgnoreCase(joinType)) {
-                    for (Tuple l : leftTuples) {
-                        Object lval = l.getValues().get(leftIdx);
-                        boolean matched = false;
-                        for (Tuple r : rightTuples) {
-                            Object rval = r.getValues().get(rightIdx);
-                            if (lval != null && lval.equals(rval)) {
-                                List<Object> row = new java.util.ArrayList<>();
-                                row.addAll(l.getValues());
-                                row.addAll(r.getValues());
-                                joinedRows.add(row);
-                                matched = true;
-                            }
-                        }
-                        if (!matched) {
-                            List<Object> row = new java.util.ArrayList<>();
-                            row.addAll(l.getValues());
-                            for (int i = 0; i < rightTable.getMetadata().getColumns().size(); i++) row.add(null);
-                            joinedRows.add(row);
-                        }
-                    }
-                } else if ("RIGHT".equalsIgnoreCase(joinType)) {
-                    for (Tuple r : rightTuples) {
-                        Object rval = r.getValues().get(rightIdx);
-                        boolean matched = false;
-                        for (Tuple l : leftTuples) {
-                            Object lval = l.getValues().get(leftIdx);
-                            if (lval != null && lval.equals(rval)) {
-                                List<Object> row = new java.util.ArrayList<>();
-                                row.addAll(l.getValues());
-                                row.addAll(r.getValues());
-                                joinedRows.add(row);
-                                matched = true;
-                            }
-                        }
-                        if (!matched) {
-                            List<Object> row = new java.util.ArrayList<>();
-                            for (int i = 0; i < leftTable.getMetadata().getColumns().size(); i++) row.add(null);
-                            row.addAll(r.getValues());
-                            joinedRows.add(row);
-                        }
-                    }
+                int orderIdx = orderByColumn != null ? getItemIndex(orderByColumn, tables) : -1;
+                plan = sortAndLimit(grouped.plan(), grouped.columns(), orderIdx);
+                printLabels(items.stream().map(SelectItem::label).toList());
+            } else {
+                int orderIdx = orderByColumn != null ? getQualifiedColumnIndex(orderByColumn, tables) : -1;
+                Operator limited = sortAndLimit(rows, columns, orderIdx);
+                if (items.isEmpty()) {
+                    plan = limited;
+                    printHeader(tables);
                 } else {
-                    System.out.println("❌ Unsupported JOIN type: " + joinType);
-                    return;
-                }
-                // Enhanced WHERE on joined result (if present)
-                if (whereColumn != null && whereValue != null) {
-                    int whereIdx = getQualifiedColumnIndex(whereColumn, leftTable, rightTable);
-                    if (whereValue.equalsIgnoreCase("IS NULL")) {
-                        joinedRows = joinedRows.stream()
-                                .filter(row -> row.get(whereIdx) == null)
-                                .collect(Collectors.toList());
-                    } else if (whereValue.equalsIgnoreCase("IS NOT NULL")) {
-                        joinedRows = joinedRows.stream()
-                                .filter(row -> row.get(whereIdx) != null)
-                                .collect(Collectors.toList());
-                    } else {
-                        joinedRows = joinedRows.stream()
-                                .filter(row -> {
-                                    Object value = row.get(whereIdx);
-                                    return value != null && value.toString().equalsIgnoreCase(whereValue);
-                                })
-                                .collect(Collectors.toList());
-                    }
-                }
-                // ORDER BY with qualified column support
-                if (orderByColumn != null) {
-                    int orderIdx = getQualifiedColumnIndex(orderByColumn, leftTable, rightTable);
-                    joinedRows = joinedRows.stream()
-                            .sorted((a, b) -> {
-                                Comparable va = (Comparable) a.get(orderIdx);
-                                Comparable vb = (Comparable) b.get(orderIdx);
-                                int cmp = 0;
-                                if (va == null && vb == null) cmp = 0;
-                                else if (va == null) cmp = -1;
-                                else if (vb == null) cmp = 1;
-                                else cmp = va.compareTo(vb);
-                                return orderByAsc ? cmp : -cmp;
-                            })
-                            .collect(Collectors.toList());
+                    // The select list is taken last, from the rows that made it past LIMIT
+                    plan = new Project(limited, items.stream().mapToInt(item -> getQualifiedColumnIndex(item.column(), tables)).toArray());
+                    printLabels(items.stream().map(SelectItem::label).toList());
                 }
-                if (offset != null && offset > 0) {
-                    if (offset < joinedRows.size()) {
-                        joinedRows = joinedRows.subList(offset, joinedRows.size());
-                    } else {
-                        joinedRows = List.of();
-                    }
-                }
-                if (limit != null && limit >= 0 && limit < joinedRows.size()) {
-                    joinedRows = joinedRows.subList(0, limit);
-                }
-                for (List<Object> row : joinedRows) {
-                    // For joined rows, acquire read locks on both tuples if possible
-                    // (Assume leftTuples and rightTuples are not mutated during SELECT)
-                    // Not locking here as we only have List<Object>, but in a real system, track source tuples and lock both.
-                    printJoinedRow(row);
+            }
+            // Rows stream through the plan and are printed as they arrive
+            try (plan) {
+                plan.open();
+                for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                    printRow(row);
                 }
             }
         } catch (Exception e) {
@@ -243,15 +208,236 @@ public class SelectCommand implements Command {
         }
     }
 
-    // Helper: print header for joined tables
-    private void printHeader(List<com.postgresql.catalog.ColumnMetadata> leftCols, List<com.postgresql.catalog.ColumnMetadata> rightCols) {
-        StringBuilder sb = new StringBuilder();
-        for (com.postgresql.catalog.ColumnMetadata col : leftCols) {
-            sb.append(tableName).append(".").append(col.getName()).append(" | ");
+    // Single table: one test of the WHERE condition is looked up in an index when one fits,
+    // and otherwise checked while scanning, so only matching rows are built; the rest of the
+    // condition is checked on those rows once the columns it reads are built, and the other
+    // referenced columns are built only for rows that pass. Heap tables held in memory are
+    // scanned and filtered a batch of column values at a time. Tables of more than one
+    // morsel are split among the session's parallel workers instead.
+    private Operator planScan(Table table, BoundExpression condition, BitSet referenced, boolean aggregated) {
+        BoundExpression.ColumnTest access = null;
+        BoundExpression residual = null;
+        if (condition != null) {
+            List<BoundExpression> conjuncts = condition.conjuncts();
+            access = accessTest(table, conjuncts);
+            List<BoundExpression> others = new ArrayList<>(conjuncts);
+            others.remove(access);
+            residual = BoundExpression.and(others);
+        }
+        int width = table.getMetadata().getColumns().size();
+        int[] needed = referenced != null ? referenced.stream().toArray() : IntStream.range(0, width).toArray();
+        if (access != null) {
+            // An index answers the query alone when its key and INCLUDE columns cover every
+            // column the query reads
+            Operator plan = null;
+            if (access.test() instanceof Range range && table.getTableHeap().getIndex(access.column()) != null) {
+                plan = IndexScan.ofRange(table, needed, access.column(), range);
+            } else if (access.key() != null && table.getTableHeap().hasIndex(access.column())) {
+                plan = IndexScan.ofKey(table, needed, access.column(), access.key(), access.test());
+            }
+            if (plan != null) {
+                return residual != null ? new Filter(plan, residual.compile()) : plan;
+            }
+        }
+        RowBuilder rows = residual != null
+                ? new RowBuilder(width, needed, residual.compile(), residual.columns())
+                : new RowBuilder(width, needed, null, null);
+        int whereIdx = access != null ? access.column() : -1;
+        Predicate<Object> test = access != null ? access.test() : null;
+        int workers = Parallelism.getWorkers();
+        // A LIMIT without ORDER BY stops after offset + limit matches, so nothing is read ahead
+        // in parallel, and no snapshot is built just to read its first rows
+        boolean stopsEarly = !aggregated && orderByColumn == null && limit != null && limit >= 0;
+        boolean vectorized = Boolean.parseBoolean(System.getProperty("postgreslite.execution.vectorized", "true"))
+                && table.fitsInBufferPool() && table.getMetadata().getStorageMode() == StorageMode.HEAP
+                && (!stopsEarly || table.hasCurrentSnapshot());
+        if (!stopsEarly && workers > 1 && ParallelScan.isWorthSplitting(table)) {
+            return new ParallelScan(table, whereIdx, test, rows, workers);
+        } else if (vectorized) {
+            BatchOperator batches = new VectorScan(table);
+            return new Unbatch(whereIdx >= 0 ? new VectorFilter(batches, whereIdx, test) : batches, rows);
+        }
+        return new SeqScan(table, whereIdx, test, rows, stopsEarly);
+    }
+
+    // The test of one column, among the conditions that must all hold, that narrows the scan
+    // most: a range an ordered index can search, a value any index can look up, then a range
+    // or any other test the scan checks before building rows; null when there is none
+    private static BoundExpression.ColumnTest accessTest(Table table, List<BoundExpression> conjuncts) {
+        List<BoundExpression.ColumnTest> tests = conjuncts.stream()
+                .filter(BoundExpression.ColumnTest.class::isInstance)
+                .map(BoundExpression.ColumnTest.class::cast)
+                .toList();
+        return tests.stream()
+                .filter(test -> test.test() instanceof Range && table.getTableHeap().getIndex(test.column()) != null)
+                .findFirst()
+                .or(() -> tests.stream().filter(test -> test.key() != null && table.getTableHeap().hasIndex(test.column())).findFirst())
+                .or(() -> tests.stream().filter(test -> test.test() instanceof Range).findFirst())
+                .or(() -> tests.stream().findFirst())
+                .orElse(null);
+    }
+
+    // Joins: the joins are ordered by estimated size, and each step picks an index
+    // nested-loop, merge or hash join; WHERE is checked on the joined rows
+    private Operator planJoin(List<String> names, List<Table> tables, BoundExpression condition, BitSet referenced,
+                              boolean aggregated) {
+        List<JoinOrderPlanner.Join> conditions = new ArrayList<>();
+        for (int i = 0; i < joins.size(); i++) {
+            JoinClause join = joins.get(i);
+            JoinType type = JoinType.parse(join.type());
+            if (type == null) {
+                System.out.println("❌ Unsupported JOIN type: " + join.type());
+                return null;
+            }
+            int other = indexOfTable(names.subList(0, i + 1), join.otherTable());
+            if (other < 0) {
+                System.out.println("❌ Table " + join.otherTable() + " is not joined before " + join.table());
+                return null;
+            }
+            conditions.add(new JoinOrderPlanner.Join(type, i + 1,
+                    tables.get(i + 1).getMetadata().getColumnIndex(join.column()),
+                    other, tables.get(other).getMetadata().getColumnIndex(join.otherColumn())));
+        }
+        // Aggregated rows are ordered after grouping, so the join need not keep any order
+        int orderIdx = orderByColumn != null && !aggregated ? getQualifiedColumnIndex(orderByColumn, tables) : -1;
+        // Each table's rows hold only the columns the query reads and the ones it is joined on
+        List<int[]> needed = null;
+        if (referenced != null) {
+            needed = new ArrayList<>();
+            int start = 0;
+            for (int i = 0; i < tables.size(); i++) {
+                int width = tables.get(i).getMetadata().getColumns().size();
+                BitSet columns = referenced.get(start, start + width);
+                for (JoinOrderPlanner.Join join : conditions) {
+                    if (join.table() == i) {
+                        columns.set(join.column());
+                    }
+                    if (join.otherTable() == i) {
+                        columns.set(join.otherColumn());
+                    }
+                }
+                needed.add(columns.stream().toArray());
+                start += width;
+            }
+        }
+        JoinOrderPlanner planner = new JoinOrderPlanner(tables, conditions, orderIdx, needed);
+        Operator plan = new Join(planner);
+        int[] writtenColumns = planner.getWrittenColumns();
+        if (!IntStream.range(0, writtenColumns.length).allMatch(i -> writtenColumns[i] == i)) {
+            plan = new Project(plan, writtenColumns);
+        }
+        if (condition != null) {
+            plan = new Filter(plan, condition.compile());
+        }
+        return plan;
+    }
+
+    // GROUP BY and aggregates: rows are grouped on the GROUP BY columns, then each item is
+    // taken from its group's values or aggregates, in the order of the select list
+    private Aggregated aggregate(Operator plan, List<ColumnMetadata> columns, List<Table> tables) {
+        int[] groupColumns = groupBy.stream().mapToInt(col -> getQualifiedColumnIndex(col, tables)).toArray();
+        List<HashAggregation.Aggregate> aggregates = new ArrayList<>();
+        List<ColumnMetadata> outputColumns = new ArrayList<>();
+        int[] output = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            SelectItem item = items.get(i);
+            int column = item.column().equals("*") ? -1 : getQualifiedColumnIndex(item.column(), tables);
+            DataType type = column >= 0 ? columns.get(column).getType() : null;
+            if (item.function() == null) {
+                int group = IntStream.range(0, groupColumns.length).filter(g -> groupColumns[g] == column).findFirst().orElse(-1);
+                if (group < 0) {
+                    System.out.println("❌ Column " + item.column() + " must appear in GROUP BY or be used in an aggregate function");
+                    return null;
+                }
+                output[i] = group;
+                outputColumns.add(new ColumnMetadata(item.label(), type));
+                continue;
+            }
+            AggregateFunction function = AggregateFunction.parse(item.function());
+            if (function == null || (column < 0 && function != AggregateFunction.COUNT)) {
+                System.out.println("❌ Unsupported aggregate: " + item.label());
+                return null;
+            }
+            try {
+                outputColumns.add(new ColumnMetadata(item.label(), function.resultType(type)));
+            } catch (IllegalArgumentException e) {
+                System.out.println("❌ " + e.getMessage());
+                return null;
+            }
+            output[i] = groupColumns.length + aggregates.size();
+            aggregates.add(new HashAggregation.Aggregate(function, column));
+        }
+        plan = new HashAggregate(plan, columns, groupColumns, aggregates);
+        if (output.length != groupColumns.length + aggregates.size()
+                || !IntStream.range(0, output.length).allMatch(i -> output[i] == i)) {
+            plan = new Project(plan, output);
         }
-        if (rightCols != null) {
-            for (com.postgresql.catalog.ColumnMetadata col : rightCols) {
-                sb.append(joinTable).append(".").append(col.getName()).append(" | ");
+        return new Aggregated(plan, outputColumns);
+    }
+
+    // The columns of the tables' joined row that the select list, WHERE, GROUP BY and ORDER BY
+    // read, or null for SELECT *, which reads them all
+    private BitSet referencedColumns(List<Table> tables, BoundExpression condition) {
+        if (items.isEmpty()) {
+            return null;
+        }
+        BitSet referenced = new BitSet();
+        for (SelectItem item : items) {
+            if (!item.column().equals("*")) {
+                referenced.set(getQualifiedColumnIndex(item.column(), tables));
+            }
+        }
+        groupBy.forEach(col -> referenced.set(getQualifiedColumnIndex(col, tables)));
+        // An aggregate in ORDER BY is an item of the select list, already counted
+        if (orderByColumn != null && !orderByColumn.contains("(")) {
+            referenced.set(getQualifiedColumnIndex(orderByColumn, tables));
+        }
+        if (condition != null) {
+            Arrays.stream(condition.columns()).forEach(referenced::set);
+        }
+        return referenced;
+    }
+
+    // Whether the select list has aggregates, or the rows are grouped
+    private boolean isAggregated() {
+        return !groupBy.isEmpty() || items.stream().anyMatch(item -> item.function() != null);
+    }
+
+    // Whether the SELECT only counts every row of one table
+    private boolean countsRowsOnly() {
+        return joins.isEmpty() && where == null && groupBy.isEmpty()
+                && items.stream().allMatch(SelectItem::isCountOfRows);
+    }
+
+    // ORDER BY column, unless it is -1, then OFFSET and LIMIT; columns describe the rows
+    private Operator sortAndLimit(Operator plan, List<ColumnMetadata> columns, int column) {
+        boolean skips = offset != null && offset > 0;
+        boolean limited = limit != null && limit >= 0;
+        if (column >= 0) {
+            // With a LIMIT only the first offset + limit rows in order are ever kept
+            plan = limited
+                    ? new TopN(plan, columns, column, orderByAsc, (long) limit + (skips ? offset : 0))
+                    : new Sort(plan, columns, column, orderByAsc);
+        }
+        if (skips || limited) {
+            plan = new Limit(plan, skips ? offset : 0, limited ? limit : -1);
+        }
+        return plan;
+    }
+
+    // Helper: the catalog's in-memory table; disk is only read for tables it does not hold
+    private Table resolveTable(String name) throws IOException {
+        Table table = CatalogManager.getInstance().getTable(name);
+        return table != null ? table : TableSerializer.readFromDisk(name);
+    }
+
+    // Helper: print header for the tables, each column qualified with the table name as written
+    private void printHeader(List<Table> tables) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < tables.size(); i++) {
+            String name = i == 0 ? tableName : joins.get(i - 1).table();
+            for (ColumnMetadata col : tables.get(i).getMetadata().getColumns()) {
+                sb.append(name).append(".").append(col.getName()).append(" | ");
             }
         }
         if (sb.length() > 3) sb.setLength(sb.length() - 3); // remove last ' | '
@@ -259,74 +445,78 @@ public class SelectCommand implements Command {
         System.out.println("-".repeat(sb.length()));
     }
 
-    // Helper: print joined row
-    private void printJoinedRow(List<Object> row) {
+    // Helper: print a header of the given column names
+    private void printLabels(List<String> labels) {
+        String header = String.join(" | ", labels);
+        System.out.println(header);
+        System.out.println("-".repeat(header.length()));
+    }
+
+    // Helper: print one row
+    private void printRow(List<Object> row) {
         String out = row.stream().map(val -> val == null ? "null" : val.toString()).collect(Collectors.joining(" | "));
         System.out.println(out);
     }
 
-    // Helper: get column index for qualified or unqualified column name
-    private int getQualifiedColumnIndex(String col, Table left, Table right) {
+    // Helper: get column index for qualified or unqualified column name in the tables' joined row
+    private int getQualifiedColumnIndex(String col, List<Table> tables) {
         // If qualified (table.column), use table name to resolve
         if (col.contains(".")) {
             String[] parts = col.split("\\.", 2);
             String table = parts[0];
             String column = parts[1];
-            if (right == null || table.equalsIgnoreCase(left.getName())) {
-                return left.getMetadata().getColumnIndex(column);
-            } else if (right != null && table.equalsIgnoreCase(right.getName())) {
-                return left.getMetadata().getColumns().size() + right.getMetadata().getColumnIndex(column);
-            } else {
-                throw new IllegalArgumentException("Unknown table in qualified column: " + col);
+            if (tables.size() == 1) {
+                return tables.get(0).getMetadata().getColumnIndex(column);
             }
+            int offset = 0;
+            for (Table candidate : tables) {
+                if (table.equalsIgnoreCase(candidate.getName())) {
+                    return offset + candidate.getMetadata().getColumnIndex(column);
+                }
+                offset += candidate.getMetadata().getColumns().size();
+            }
+            throw new IllegalArgumentException("Unknown table in qualified column: " + col);
         } else {
-            // Unqualified: try left, then right (if present)
-            try {
-                return left.getMetadata().getColumnIndex(col);
-            } catch (Exception ignore) {}
-            if (right != null) {
+            // Unqualified: the first table that has the column
+            int offset = 0;
+            for (Table candidate : tables) {
                 try {
-                    return left.getMetadata().getColumns().size() + right.getMetadata().getColumnIndex(col);
+                    return offset + candidate.getMetadata().getColumnIndex(col);
                 } catch (Exception ignore) {}
+                offset += candidate.getMetadata().getColumns().size();
             }
             throw new IllegalArgumentException("Column not found: " + col);
         }
     }
 
-    // Helper: sort, offset, limit for single-table SELECT
-    private List<Tuple> sortOffsetLimit(List<Tuple> tuples, Table table, String orderByColumn, boolean orderByAsc, Integer limit, Integer offset) {
-        if (orderByColumn != null) {
-            int colIdx = table.getMetadata().getColumnIndex(orderByColumn);
-            tuples = tuples.stream()
-                    .sorted((a, b) -> {
-                        Comparable va = (Comparable) a.getValues().get(colIdx);
-                        Comparable vb = (Comparable) b.getValues().get(colIdx);
-                        int cmp = 0;
-                        if (va == null && vb == null) cmp = 0;
-                        else if (va == null) cmp = -1;
-                        else if (vb == null) cmp = 1;
-                        else cmp = va.compareTo(vb);
-                        return orderByAsc ? cmp : -cmp;
-                    })
-                    .collect(Collectors.toList());
-        }
-        if (offset != null && offset > 0) {
-            if (offset < tuples.size()) {
-                tuples = tuples.subList(offset, tuples.size());
-            } else {
-                tuples = List.of();
+    // Helper: position in the select list of the item that col names, by its label, or for a
+    // column by the column it resolves to
+    private int getItemIndex(String col, List<Table> tables) {
+        String written = col.replaceAll("\\s+", "");
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).label().equalsIgnoreCase(written)) {
+                return i;
             }
         }
-        if (limit != null && limit >= 0 && limit < tuples.size()) {
-            tuples = tuples.subList(0, limit);
+        if (!written.contains("(")) {
+            int column = getQualifiedColumnIndex(written, tables);
+            for (int i = 0; i < items.size(); i++) {
+                SelectItem item = items.get(i);
+                if (item.function() == null && getQualifiedColumnIndex(item.column(), tables) == column) {
+                    return i;
+                }
+            }
         }
-        return tuples;
+        throw new IllegalArgumentException("ORDER BY must name an item of the select list: " + col);
     }
 
-    private void printRow(Tuple tuple) {
-        String row = tuple.getValues().stream()
-                .map(val -> val == null ? "null" : val.toString())
-                .collect(Collectors.joining(" | "));
-        System.out.println(row);
+    // Helper: position of the table named name, ignoring case, or -1
+    private static int indexOfTable(List<String> names, String name) {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
@@ -0,0 +1,37 @@
+package com.postgresql.command;
+
+import com.postgresql.execution.Parallelism;
+
+import java.util.Locale;
+
+/** Changes a setting for the rest of the session: {@code SET parallel_workers = <n>}. */
+public class SetCommand implements Command {
+    private final String name;
+    private final String value;
+
+    public SetCommand(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public void execute() {
+        if (!name.toLowerCase(Locale.ROOT).equals("parallel_workers")) {
+            System.out.println("❌ Unknown setting: " + name);
+            return;
+        }
+        int workers;
+        try {
+            workers = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println("❌ parallel_workers must be a number: " + value);
+            return;
+        }
+        if (workers < 1) {
+            System.out.println("❌ parallel_workers must be at least 1: " + value);
+            return;
+        }
+        Parallelism.setWorkers(workers);
+        System.out.println("✅ parallel_workers = " + workers);
+    }
+}
@@ -1,25 +1,29 @@
 package com.postgresql.command;
 
 import com.postgresql.catalog.CatalogManager;
+import com.postgresql.expression.Expression;
 import com.postgresql.model.Table;
-import com.postgresql.storage.TableSerializer;
 import com.postgresql.model.Tuple;
-import java.util.Objects;
+import com.postgresql.storage.WriteAheadLog;
+
+import java.util.List;
 
 public class UpdateCommand implements Command {
     private final String tableName;
     private final String targetColumn;
     private final String newValue;
-    private final String whereColumn;
-    private final String whereValue;
+    private final Expression where;
 
     public UpdateCommand(String tableName, String targetColumn, String newValue, String whereColumn,
             String whereValue) {
+        this(tableName, targetColumn, newValue, Expression.of(whereColumn, "=", whereValue, null));
+    }
+
+    public UpdateCommand(String tableName, String targetColumn, String newValue, Expression where) {
         this.tableName = tableName;
         this.targetColumn = targetColumn;
         this.newValue = newValue;
-        this.whereColumn = whereColumn;
-        this.whereValue = whereValue;
+        this.where = where;
     }
 
     @Override
@@ -30,30 +34,34 @@ public class UpdateCommand implements Command {
             return;
         }
 
+        // ✅ Find the matches first: an update that moves a row must not visit it again
+        List<Tuple> matches;
+        int targetIndex;
+        Object parsedNewValue;
+        try {
+            matches = table.findTuples(where.bind(table.getMetadata().getColumns(), table.getMetadata()::getColumnIndex));
+            targetIndex = table.getMetadata().getColumnIndex(targetColumn);
+            parsedNewValue = parseValue(table, targetColumn, newValue);
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+        // ✅ Check the new key against every match before any row changes, so a violation writes nothing
+        table.getTableHeap().checkUniqueUpdate(matches, targetIndex, parsedNewValue);
+
         int updated = 0;
-        for (Tuple tuple : table.getAllTuples()) {
+        for (Tuple tuple : matches) {
             tuple.acquireWriteLock();
             try {
-                int targetIndex = table.getMetadata().getColumnIndex(targetColumn);
-                int whereIndex = table.getMetadata().getColumnIndex(whereColumn);
-                Object parsedNewValue = parseValue(table, targetColumn, newValue);
-                Object parsedWhereValue = parseValue(table, whereColumn, whereValue);
-                if (Objects.equals(tuple.getValues().get(whereIndex), parsedWhereValue)) {
-                    tuple.getValues().set(targetIndex, parsedNewValue);
-                    updated++;
-                }
+                tuple.getValues().set(targetIndex, parsedNewValue);
+                table.getTableHeap().updateTuple(tuple);
+                updated++;
             } finally {
                 tuple.releaseWriteLock();
             }
         }
 
-        // ✅ Persist updated table data to disk
-        try {
-            TableSerializer.writeToDisk(table); // Save actual data
-            CatalogManager.getInstance().saveTable(table); // Save metadata if needed
-        } catch (Exception e) {
-            throw new RuntimeException("❌ Failed to persist table: " + e.getMessage(), e);
-        }
+        WriteAheadLog.getInstance().commit(); // ✅ Durable once the log records are flushed
 
         System.out.println("✅ Updated " + updated + " rows.");
     }
@@ -0,0 +1,39 @@
+package com.postgresql.command;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.model.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class VacuumCommand implements Command {
+    private final String tableName;
+
+    /** Vacuums one table, or every table when {@code tableName} is null. */
+    public VacuumCommand(String tableName) {
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void execute() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        List<Table> tables = new ArrayList<>();
+        if (tableName == null) {
+            for (String name : catalog.listTables()) {
+                tables.add(catalog.getTable(name));
+            }
+        } else {
+            Table table = catalog.getTable(tableName);
+            if (table == null) {
+                System.out.println("❌ Table not found: " + tableName);
+                return;
+            }
+            tables.add(table);
+        }
+
+        for (Table table : tables) {
+            long reclaimed = table.getTableHeap().vacuum();
+            System.out.println("✅ Vacuumed " + table.getName() + ": reclaimed " + reclaimed + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.postgresql.execution;
+
+import com.postgresql.common.DataType;
+
+import java.util.Locale;
+
+/** The aggregate functions a SELECT can compute over each group of rows. */
+public enum AggregateFunction {
+    /** The number of rows, or of non-NULL values of a column. */
+    COUNT,
+    /** The sum of the non-NULL values of an INT or FLOAT column. */
+    SUM,
+    /** The mean of the non-NULL values of an INT or FLOAT column, as a FLOAT. */
+    AVG,
+    /** The smallest non-NULL value. */
+    MIN,
+    /** The largest non-NULL value. */
+    MAX;
+
+    /** The function named by {@code name}, ignoring case, or null if there is none. */
+    public static AggregateFunction parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The type of the function's result over values of {@code input}. COUNT is an INT and SUM
+     * keeps its column's type, so either fails with "integer out of range" past an INT.
+     */
+    public DataType resultType(DataType input) {
+        boolean numeric = input == DataType.INT || input == DataType.FLOAT;
+        if ((this == SUM || this == AVG) && !numeric) {
+            throw new IllegalArgumentException(name().toLowerCase(Locale.ROOT) + " needs an INT or FLOAT column, not " + input);
+        }
+        return switch (this) {
+            case COUNT -> DataType.INT;
+            case AVG -> DataType.FLOAT;
+            case SUM, MIN, MAX -> input;
+        };
+    }
+}
@@ -0,0 +1,721 @@
+package com.postgresql.execution;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.storage.TupleCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * GROUP BY with aggregate functions: each row is hashed on its group columns to the group it
+ * belongs to, and its values are added to that group's accumulators. Without group columns
+ * every row belongs to one group, which is returned even when no rows were added.
+ *
+ * Accumulators keep their state in arrays indexed by group: a count of the values added, and a
+ * {@code long} or {@code double} sum, or the smallest or largest {@code int} or {@code float}
+ * so far, so adding a row allocates nothing for INT and FLOAT columns. NULLs are skipped, as
+ * in SQL, and group values are compared with {@code equals}, so NULLs form a group of their own.
+ *
+ * Partial aggregations of different rows, each built by one worker, are combined with
+ * {@link #merge}, which folds a partial group's state into the group of the same values here.
+ *
+ * When the groups are estimated to need more memory than the budget, rows and partial states of
+ * groups not held yet are written by the hash of their group values to one of
+ * {@value #PARTITIONS} partitions in {@code data/tmp}, and each partition is aggregated on its
+ * own once the groups held have been returned. A partition that still does not fit is split
+ * again on other bits of the hash, up to {@value #MAX_DEPTH} times.
+ *
+ * Groups are returned in the order their first row was added, those held in memory before
+ * those read back from partitions. The budget can be changed with
+ * {@code -Dpostgreslite.aggregate.memory.bytes=<bytes>}.
+ */
+public final class HashAggregation {
+    private static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_DEPTH = 4;
+    private static final int INITIAL_GROUPS = 16;
+    // Rough heap cost of a group besides its values: its hash and slot, and each accumulator's state
+    private static final int GROUP_BYTES = 24;
+    private static final int ACCUMULATOR_BYTES = 16;
+
+    /** {@code function} over the input column {@code column}; COUNT(*) counts column -1. */
+    public record Aggregate(AggregateFunction function, int column) {
+    }
+
+    private final int[] groupColumns;
+    private final List<ColumnMetadata> groupMetadata;
+    private final List<Aggregate> aggregates;
+    private final List<DataType> inputTypes;
+    private final long memoryBytes;
+    // One group's state on its way to or from a partition
+    private final Accumulator[] scratch;
+    private final ArrayDeque<Partition> pending = new ArrayDeque<>();
+    private Groups groups;
+    private boolean finished;
+    private int returned;
+    private int spilledPartitions;
+
+    /** {@code columns} describe the rows that will be added. */
+    public HashAggregation(List<ColumnMetadata> columns, int[] groupColumns, List<Aggregate> aggregates) {
+        this(columns, groupColumns, aggregates, memoryBudget());
+    }
+
+    public HashAggregation(List<ColumnMetadata> columns, int[] groupColumns, List<Aggregate> aggregates, long memoryBytes) {
+        this.groupColumns = groupColumns.clone();
+        this.groupMetadata = Arrays.stream(groupColumns).mapToObj(columns::get).toList();
+        this.aggregates = List.copyOf(aggregates);
+        this.inputTypes = this.aggregates.stream()
+                .map(aggregate -> aggregate.column() < 0 ? null : columns.get(aggregate.column()).getType())
+                .toList();
+        this.memoryBytes = memoryBytes;
+        this.scratch = newAccumulators(1);
+        this.groups = new Groups(0);
+    }
+
+    /** The memory budget of an aggregation, in bytes. */
+    public static long memoryBudget() {
+        return Long.getLong("postgreslite.aggregate.memory.bytes", DEFAULT_MEMORY_BYTES);
+    }
+
+    /** Adds {@code row} to its group. */
+    public void add(List<Object> row) {
+        Object[] values = new Object[groupColumns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(groupColumns[i]);
+        }
+        List<Object> key = Arrays.asList(values);
+        int hash = hash(key);
+        int group = groups.find(key, hash);
+        Accumulator[] target = group >= 0 ? groups.accumulators : scratch;
+        int slot = Math.max(group, 0);
+        for (int i = 0; i < target.length; i++) {
+            if (group < 0) {
+                target[i].counts[0] = 0;
+            }
+            int column = aggregates.get(i).column();
+            // COUNT(*) counts a value that is never NULL
+            target[i].add(slot, column < 0 ? Boolean.TRUE : row.get(column));
+        }
+        if (group < 0) {
+            groups.spill(key, hash, scratch, 0);
+        }
+    }
+
+    /**
+     * Adds the groups of {@code partial}, which aggregated other rows of the same columns the same
+     * way, as if its rows had been added here. {@code partial} must not have spilled.
+     */
+    public void merge(HashAggregation partial) {
+        Groups from = partial.groups;
+        if (from.partitions != null) {
+            throw new IllegalStateException("Cannot merge an aggregation that spilled");
+        }
+        for (int group = 0; group < from.keys.size(); group++) {
+            groups.accept(from.keys.get(group), from.hashes[group], from.accumulators, group);
+        }
+    }
+
+    /**
+     * The next group: its group values followed by each aggregate's result, or null after the
+     * last one. No rows may be added once it is called.
+     */
+    public List<Object> next() {
+        if (!finished) {
+            finished = true;
+            if (groupColumns.length == 0 && groups.keys.isEmpty()) {
+                groups.find(List.of(), hash(List.of()));
+            }
+            queuePartitions(groups);
+        }
+        while (returned == groups.keys.size()) {
+            Partition partition = pending.poll();
+            if (partition == null) {
+                return null;
+            }
+            groups = read(partition);
+            returned = 0;
+        }
+        int group = returned++;
+        Object[] row = new Object[groupColumns.length + aggregates.size()];
+        List<Object> key = groups.keys.get(group);
+        for (int i = 0; i < key.size(); i++) {
+            row[i] = key.get(i);
+        }
+        for (int i = 0; i < aggregates.size(); i++) {
+            row[key.size() + i] = groups.accumulators[i].result(group);
+        }
+        return Arrays.asList(row);
+    }
+
+    /** Number of non-empty partitions written to disk so far. */
+    public int getSpilledPartitions() {
+        return spilledPartitions;
+    }
+
+    /** Removes any partitions not read yet. */
+    public void close() {
+        if (groups.partitions != null) {
+            Arrays.stream(groups.partitions).forEach(Partition::delete);
+        }
+        pending.forEach(Partition::delete);
+        pending.clear();
+    }
+
+    private Accumulator[] newAccumulators(int capacity) {
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = Accumulator.of(aggregates.get(i).function(), inputTypes.get(i), capacity);
+        }
+        return accumulators;
+    }
+
+    // Queues the non-empty partitions of done ahead of the others, so they are read next
+    private void queuePartitions(Groups done) {
+        if (done.partitions == null) {
+            return;
+        }
+        try {
+            for (int i = PARTITIONS - 1; i >= 0; i--) {
+                Partition partition = done.partitions[i];
+                if (partition.size == 0) {
+                    partition.delete();
+                } else {
+                    partition.finish();
+                    pending.addFirst(partition);
+                    spilledPartitions++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill aggregate partitions", e);
+        }
+    }
+
+    private Groups read(Partition partition) {
+        Groups read = new Groups(partition.depth + 1);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(partition.file)))) {
+            for (long i = 0; i < partition.size; i++) {
+                byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                List<Object> key = TupleCodec.decode(ByteBuffer.wrap(record), groupMetadata);
+                for (Accumulator accumulator : scratch) {
+                    accumulator.read(in, 0);
+                }
+                read.accept(key, hash(key), scratch, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read aggregate partition", e);
+        } finally {
+            partition.delete();
+        }
+        queuePartitions(read);
+        return read;
+    }
+
+    private static int hash(List<Object> key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** The groups held in memory, found by open addressing on the hash of their values. */
+    private final class Groups {
+        private final int depth;
+        private final List<List<Object>> keys = new ArrayList<>();
+        private Accumulator[] accumulators = newAccumulators(INITIAL_GROUPS);
+        private int[] hashes = new int[INITIAL_GROUPS];
+        // Each slot holds a group plus one, or 0 when empty
+        private int[] slots = new int[2 * INITIAL_GROUPS];
+        private long bytes;
+        private Partition[] partitions;
+
+        Groups(int depth) {
+            this.depth = depth;
+        }
+
+        // The group of key, added if it is new; -1 if it is new and there is no room for it
+        int find(List<Object> key, int hash) {
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            for (int group = slots[slot] - 1; group >= 0; group = slots[slot] - 1) {
+                if (hashes[group] == hash && keys.get(group).equals(key)) {
+                    return group;
+                }
+                slot = (slot + 1) & mask;
+            }
+            long groupBytes = SpillFile.estimate(key) + GROUP_BYTES + (long) ACCUMULATOR_BYTES * accumulators.length;
+            if (bytes + groupBytes > memoryBytes && depth < MAX_DEPTH && !keys.isEmpty()) {
+                return -1;
+            }
+            int group = keys.size();
+            if (group == hashes.length) {
+                hashes = Arrays.copyOf(hashes, 2 * group);
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.grow(2 * group);
+                }
+            }
+            keys.add(key);
+            hashes[group] = hash;
+            slots[slot] = group + 1;
+            bytes += groupBytes;
+            if (2 * keys.size() > slots.length) {
+                rehash();
+            }
+            return group;
+        }
+
+        // Folds the state of group from of source into key's group, or spills it
+        void accept(List<Object> key, int hash, Accumulator[] source, int from) {
+            int group = find(key, hash);
+            if (group < 0) {
+                spill(key, hash, source, from);
+                return;
+            }
+            for (int i = 0; i < accumulators.length; i++) {
+                accumulators[i].merge(group, source[i], from);
+            }
+        }
+
+        // Each level of partitioning uses the next highest bits of the hash.
+        void spill(List<Object> key, int hash, Accumulator[] source, int from) {
+            if (partitions == null) {
+                partitions = new Partition[PARTITIONS];
+                for (int i = 0; i < PARTITIONS; i++) {
+                    partitions[i] = new Partition(depth);
+                }
+            }
+            int partition = (hash >>> (Integer.SIZE - PARTITION_BITS * (depth + 1))) & (PARTITIONS - 1);
+            try {
+                partitions[partition].write(key, source, from);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to spill aggregate partitions", e);
+            }
+        }
+
+        private void rehash() {
+            slots = new int[2 * slots.length];
+            int mask = slots.length - 1;
+            for (int group = 0; group < keys.size(); group++) {
+                int slot = hashes[group] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = group + 1;
+            }
+        }
+    }
+
+    /** Group states spilled by the groups of one depth, each its values then its accumulators. */
+    private final class Partition {
+        private final int depth;
+        private File file;
+        private DataOutputStream out;
+        private long size;
+
+        Partition(int depth) {
+            this.depth = depth;
+        }
+
+        void write(List<Object> key, Accumulator[] source, int group) throws IOException {
+            if (out == null) {
+                file = SpillFile.createFile("aggregate");
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            }
+            byte[] record = TupleCodec.encode(key, groupMetadata);
+            out.writeInt(record.length);
+            out.write(record);
+            for (Accumulator accumulator : source) {
+                accumulator.write(out, group);
+            }
+            size++;
+        }
+
+        void finish() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+
+        void delete() {
+            try {
+                finish();
+            } catch (IOException ignored) {
+                // the file is deleted anyway
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * One aggregate's state for every group. A group's count is the number of non-NULL values
+     * added to it; the rest of its state is only meaningful once the count is above zero.
+     */
+    private abstract static class Accumulator {
+        long[] counts;
+
+        Accumulator(int capacity) {
+            counts = new long[capacity];
+        }
+
+        static Accumulator of(AggregateFunction function, DataType type, int capacity) {
+            boolean max = function == AggregateFunction.MAX;
+            return switch (function) {
+                case COUNT -> new Count(capacity);
+                case SUM, AVG -> type == DataType.INT
+                        ? new IntSum(capacity, function == AggregateFunction.AVG)
+                        : new FloatSum(capacity, function == AggregateFunction.AVG);
+                case MIN, MAX -> switch (type) {
+                    case INT -> new IntExtreme(capacity, max);
+                    case FLOAT -> new FloatExtreme(capacity, max);
+                    case STRING, BOOLEAN -> new ObjectExtreme(capacity, type, max);
+                };
+            };
+        }
+
+        void add(int group, Object value) {
+            if (value != null) {
+                addValue(group, value, counts[group] == 0);
+                counts[group]++;
+            }
+        }
+
+        void merge(int group, Accumulator other, int from) {
+            if (other.counts[from] > 0) {
+                mergeValue(group, other, from, counts[group] == 0);
+                counts[group] += other.counts[from];
+            }
+        }
+
+        void write(DataOutput out, int group) throws IOException {
+            out.writeLong(counts[group]);
+            if (counts[group] > 0) {
+                writeValue(out, group);
+            }
+        }
+
+        // Replaces the group's state with one written by write
+        void read(DataInput in, int group) throws IOException {
+            counts[group] = in.readLong();
+            if (counts[group] > 0) {
+                readValue(in, group);
+            }
+        }
+
+        void grow(int capacity) {
+            counts = Arrays.copyOf(counts, capacity);
+            growValues(capacity);
+        }
+
+        // first is set when the group has no value yet, so its state is replaced rather than combined
+        abstract void addValue(int group, Object value, boolean first);
+
+        abstract void mergeValue(int group, Accumulator other, int from, boolean first);
+
+        abstract void writeValue(DataOutput out, int group) throws IOException;
+
+        abstract void readValue(DataInput in, int group) throws IOException;
+
+        abstract void growValues(int capacity);
+
+        abstract Object result(int group);
+
+        static int toInt(long value) {
+            if (value != (int) value) {
+                throw new ArithmeticException("integer out of range");
+            }
+            return (int) value;
+        }
+    }
+
+    private static final class Count extends Accumulator {
+        Count(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) {
+        }
+
+        @Override
+        void readValue(DataInput in, int group) {
+        }
+
+        @Override
+        void growValues(int capacity) {
+        }
+
+        @Override
+        Object result(int group) {
+            return toInt(counts[group]);
+        }
+    }
+
+    private static final class IntSum extends Accumulator {
+        private final boolean average;
+        private long[] sums;
+
+        IntSum(int capacity, boolean average) {
+            super(capacity);
+            this.average = average;
+            this.sums = new long[capacity];
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+            int v = (Integer) value;
+            sums[group] = first ? v : sums[group] + v;
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+            long v = ((IntSum) other).sums[from];
+            sums[group] = first ? v : sums[group] + v;
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) throws IOException {
+            out.writeLong(sums[group]);
+        }
+
+        @Override
+        void readValue(DataInput in, int group) throws IOException {
+            sums[group] = in.readLong();
+        }
+
+        @Override
+        void growValues(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            if (counts[group] == 0) {
+                return null;
+            }
+            return average ? (Object) (float) ((double) sums[group] / counts[group]) : (Object) toInt(sums[group]);
+        }
+    }
+
+    private static final class FloatSum extends Accumulator {
+        private final boolean average;
+        private double[] sums;
+
+        FloatSum(int capacity, boolean average) {
+            super(capacity);
+            this.average = average;
+            this.sums = new double[capacity];
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+            float v = (Float) value;
+            sums[group] = first ? v : sums[group] + v;
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+            double v = ((FloatSum) other).sums[from];
+            sums[group] = first ? v : sums[group] + v;
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) throws IOException {
+            out.writeDouble(sums[group]);
+        }
+
+        @Override
+        void readValue(DataInput in, int group) throws IOException {
+            sums[group] = in.readDouble();
+        }
+
+        @Override
+        void growValues(int capacity) {
+            sums = Arrays.copyOf(sums, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            if (counts[group] == 0) {
+                return null;
+            }
+            return (float) (average ? sums[group] / counts[group] : sums[group]);
+        }
+    }
+
+    private static final class IntExtreme extends Accumulator {
+        private final boolean max;
+        private int[] values;
+
+        IntExtreme(int capacity, boolean max) {
+            super(capacity);
+            this.max = max;
+            this.values = new int[capacity];
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+            keep(group, (Integer) value, first);
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+            keep(group, ((IntExtreme) other).values[from], first);
+        }
+
+        private void keep(int group, int v, boolean first) {
+            if (first || (max ? v > values[group] : v < values[group])) {
+                values[group] = v;
+            }
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) throws IOException {
+            out.writeInt(values[group]);
+        }
+
+        @Override
+        void readValue(DataInput in, int group) throws IOException {
+            values[group] = in.readInt();
+        }
+
+        @Override
+        void growValues(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : values[group];
+        }
+    }
+
+    private static final class FloatExtreme extends Accumulator {
+        private final boolean max;
+        private float[] values;
+
+        FloatExtreme(int capacity, boolean max) {
+            super(capacity);
+            this.max = max;
+            this.values = new float[capacity];
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+            keep(group, (Float) value, first);
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+            keep(group, ((FloatExtreme) other).values[from], first);
+        }
+
+        // Float.compare orders values as ORDER BY does
+        private void keep(int group, float v, boolean first) {
+            int order = Float.compare(v, values[group]);
+            if (first || (max ? order > 0 : order < 0)) {
+                values[group] = v;
+            }
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) throws IOException {
+            out.writeFloat(values[group]);
+        }
+
+        @Override
+        void readValue(DataInput in, int group) throws IOException {
+            values[group] = in.readFloat();
+        }
+
+        @Override
+        void growValues(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : values[group];
+        }
+    }
+
+    /** MIN and MAX of STRING and BOOLEAN columns, whose values are kept as they are. */
+    private static final class ObjectExtreme extends Accumulator {
+        private final List<ColumnMetadata> column;
+        private final boolean max;
+        private Object[] values;
+
+        ObjectExtreme(int capacity, DataType type, boolean max) {
+            super(capacity);
+            this.column = List.of(new ColumnMetadata("value", type));
+            this.max = max;
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        void addValue(int group, Object value, boolean first) {
+            keep(group, value, first);
+        }
+
+        @Override
+        void mergeValue(int group, Accumulator other, int from, boolean first) {
+            keep(group, ((ObjectExtreme) other).values[from], first);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void keep(int group, Object v, boolean first) {
+            int order = first ? 0 : ((Comparable<Object>) v).compareTo(values[group]);
+            if (first || (max ? order > 0 : order < 0)) {
+                values[group] = v;
+            }
+        }
+
+        @Override
+        void writeValue(DataOutput out, int group) throws IOException {
+            byte[] record = TupleCodec.encode(Arrays.asList(values[group]), column);
+            out.writeInt(record.length);
+            out.write(record);
+        }
+
+        @Override
+        void readValue(DataInput in, int group) throws IOException {
+            byte[] record = new byte[in.readInt()];
+            in.readFully(record);
+            values[group] = TupleCodec.decode(ByteBuffer.wrap(record), column).get(0);
+        }
+
+        @Override
+        void growValues(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : values[group];
+        }
+    }
+}
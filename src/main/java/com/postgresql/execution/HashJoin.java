@@ -0,0 +1,338 @@
+package com.postgresql.execution;
+
+import com.postgresql.catalog.ColumnMetadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An equi-join that hashes one input and looks each row of the other up in it, so the
+ * work grows with the sum of the input sizes rather than their product.
+ *
+ * The smaller input is hashed (the build side) and the larger one is streamed past it (the
+ * probe side). Either side may be the outer side of a LEFT or RIGHT join: unmatched probe
+ * rows are emitted as they are seen, and build rows are marked as they match so the unmarked
+ * ones can be emitted once the probe side is done. Join values are compared with
+ * {@code equals}, and NULLs never match.
+ *
+ * When the build side is estimated to need more memory than the budget, both inputs are
+ * split by the hash of their join value into partitions written to {@code data/tmp}, and
+ * each pair of partitions is then joined on its own (a grace hash join). A partition that is
+ * still too large is split again on other bits of the hash, up to {@value #MAX_DEPTH} times.
+ * Inputs are only read row by row, so the budget holds when they are views that build each
+ * row as it is read, such as the snapshot rows a {@link JoinPlanner} passes; rows of an input
+ * collected in memory stay there however the join runs.
+ *
+ * The budget can be changed with {@code -Dpostgreslite.join.memory.bytes=<bytes>}.
+ *
+ * A probe side held in memory that spans more than one morsel is probed by the session's
+ * parallel workers (see {@link Parallelism}), each looking up a morsel of rows in the shared
+ * hash table; their output is passed on in probe order.
+ */
+public final class HashJoin {
+    private static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITIONS = 1 << PARTITION_BITS;
+    private static final int MAX_DEPTH = 4;
+
+    private final Side left;
+    private final Side right;
+    private final long memoryBytes;
+    private final int workers;
+    private int spilledPartitions;
+
+    private record Side(List<ColumnMetadata> columns, int key, boolean outer, boolean isLeft) {
+    }
+
+    private record Probed(List<List<Object>> rows, BitSet matched) {
+    }
+
+    /** An input that can be read more than once: a list, or view of one, or a spilled partition. */
+    private interface Rows {
+        void forEach(Consumer<List<Object>> action) throws IOException;
+
+        long size();
+
+        long estimatedBytes();
+    }
+
+    public HashJoin(JoinType type, List<ColumnMetadata> leftColumns, int leftKey,
+                    List<ColumnMetadata> rightColumns, int rightKey) {
+        this(type, leftColumns, leftKey, rightColumns, rightKey,
+                Long.getLong("postgreslite.join.memory.bytes", DEFAULT_MEMORY_BYTES));
+    }
+
+    public HashJoin(JoinType type, List<ColumnMetadata> leftColumns, int leftKey,
+                    List<ColumnMetadata> rightColumns, int rightKey, long memoryBytes) {
+        this.left = new Side(List.copyOf(leftColumns), leftKey, type == JoinType.LEFT, true);
+        this.right = new Side(List.copyOf(rightColumns), rightKey, type == JoinType.RIGHT, false);
+        this.memoryBytes = memoryBytes;
+        this.workers = Parallelism.getWorkers();
+    }
+
+    /**
+     * Joins the two inputs, passing each joined row (the left values followed by the right
+     * values) to {@code output}. The order of the rows is not defined.
+     */
+    public void execute(List<List<Object>> leftRows, List<List<Object>> rightRows, Consumer<List<Object>> output) {
+        spilledPartitions = 0;
+        try {
+            join(inMemory(leftRows), left, inMemory(rightRows), right, 0, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill join partitions", e);
+        }
+    }
+
+    /** Number of non-empty partitions the last {@link #execute} wrote to disk. */
+    public int getSpilledPartitions() {
+        return spilledPartitions;
+    }
+
+    private void join(Rows build, Side buildSide, Rows probe, Side probeSide, int depth,
+                      Consumer<List<Object>> output) throws IOException {
+        if (probe.size() < build.size()) {
+            join(probe, probeSide, build, buildSide, depth, output);
+            return;
+        }
+        if (build.size() == 0 && !probeSide.outer()) {
+            return;
+        }
+        if (depth < MAX_DEPTH && build.estimatedBytes() > memoryBytes) {
+            joinPartitions(build, buildSide, probe, probeSide, depth, output);
+            return;
+        }
+
+        HashTable table = new HashTable(build, buildSide.key());
+        if (workers > 1 && probe instanceof InMemory rows && rows.size() >= 2L * Parallelism.MORSEL_ROWS) {
+            probeInParallel(table, buildSide, rows.rows(), probeSide, output);
+        } else {
+            probe.forEach(row -> probeRow(table, table.matched, buildSide, row, probeSide, output));
+        }
+        if (buildSide.outer()) {
+            table.forEachUnmatched(buildRow -> output.accept(combine(buildSide, buildRow, null)));
+        }
+    }
+
+    private void probeRow(HashTable table, BitSet matched, Side buildSide, List<Object> row, Side probeSide,
+                          Consumer<List<Object>> output) {
+        boolean found = table.forEachMatch(row.get(probeSide.key()), matched,
+                buildRow -> output.accept(combine(buildSide, buildRow, row)));
+        if (!found && probeSide.outer()) {
+            output.accept(combine(buildSide, null, row));
+        }
+    }
+
+    // Each morsel collects its joined rows and the build rows it matched; both are merged
+    // on this thread, in morsel order.
+    private void probeInParallel(HashTable table, Side buildSide, List<List<Object>> rows, Side probeSide,
+                                 Consumer<List<Object>> output) {
+        int morsels = Parallelism.morsels(rows.size(), Parallelism.MORSEL_ROWS);
+        try (MorselQueue<Probed> queue = new MorselQueue<>(morsels, workers, morsel -> {
+            int from = morsel * Parallelism.MORSEL_ROWS;
+            List<List<Object>> joined = new ArrayList<>();
+            BitSet matched = new BitSet();
+            for (List<Object> row : rows.subList(from, Math.min(rows.size(), from + Parallelism.MORSEL_ROWS))) {
+                probeRow(table, matched, buildSide, row, probeSide, joined::add);
+            }
+            return new Probed(joined, matched);
+        })) {
+            while (queue.hasNext()) {
+                Probed probed = queue.next();
+                table.matched.or(probed.matched());
+                probed.rows().forEach(output);
+            }
+        }
+    }
+
+    // Grace hash join: rows with equal join values land in the same pair of partitions.
+    private void joinPartitions(Rows build, Side buildSide, Rows probe, Side probeSide, int depth,
+                                Consumer<List<Object>> output) throws IOException {
+        Partition[] buildParts = partition(build, buildSide, depth);
+        try {
+            Partition[] probeParts = partition(probe, probeSide, depth);
+            try {
+                for (int i = 0; i < PARTITIONS; i++) {
+                    join(buildParts[i], buildSide, probeParts[i], probeSide, depth + 1, output);
+                }
+            } finally {
+                delete(probeParts);
+            }
+        } finally {
+            delete(buildParts);
+        }
+    }
+
+    private Partition[] partition(Rows rows, Side side, int depth) throws IOException {
+        Partition[] parts = new Partition[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            parts[i] = new Partition(side.columns());
+        }
+        try {
+            try {
+                rows.forEach(row -> parts[partitionOf(row.get(side.key()), depth)].add(row));
+            } finally {
+                for (Partition part : parts) {
+                    part.finish();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(parts);
+            throw e;
+        }
+        for (Partition part : parts) {
+            if (part.size() > 0) {
+                spilledPartitions++;
+            }
+        }
+        return parts;
+    }
+
+    private List<Object> combine(Side buildSide, List<Object> buildRow, List<Object> probeRow) {
+        return buildSide.isLeft()
+                ? Joins.combine(buildRow, left.columns().size(), probeRow, right.columns().size())
+                : Joins.combine(probeRow, left.columns().size(), buildRow, right.columns().size());
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Each level of partitioning uses the next highest bits of the hash; NULLs go to partition 0.
+    private static int partitionOf(Object key, int depth) {
+        if (key == null) {
+            return 0;
+        }
+        return (hash(key) >>> (Integer.SIZE - PARTITION_BITS * (depth + 1))) & (PARTITIONS - 1);
+    }
+
+    private static Rows inMemory(List<List<Object>> rows) {
+        return new InMemory(rows);
+    }
+
+    private static void delete(Partition[] parts) {
+        for (Partition part : parts) {
+            part.delete();
+        }
+    }
+
+    private record InMemory(List<List<Object>> rows) implements Rows {
+        @Override
+        public void forEach(Consumer<List<Object>> action) {
+            rows.forEach(action);
+        }
+
+        @Override
+        public long size() {
+            return rows.size();
+        }
+
+        @Override
+        public long estimatedBytes() {
+            long bytes = 0;
+            for (List<Object> row : rows) {
+                bytes += SpillFile.estimate(row);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * The build side's rows chained by the hash of their join value. Rows are chained in
+     * input order, so matches come out in the order the build side was read.
+     */
+    private static final class HashTable {
+        private final List<List<Object>> rows = new ArrayList<>();
+        private final int key;
+        private final int[] heads;
+        private final int[] next;
+        private final int[] hashes;
+        private final BitSet matched = new BitSet();
+
+        HashTable(Rows build, int key) throws IOException {
+            this.key = key;
+            build.forEach(rows::add);
+            int capacity = 2;
+            while (capacity < 2 * rows.size()) {
+                capacity <<= 1;
+            }
+            heads = new int[capacity];
+            Arrays.fill(heads, -1);
+            next = new int[rows.size()];
+            hashes = new int[rows.size()];
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                Object value = rows.get(i).get(key);
+                next[i] = -1;
+                if (value != null) {
+                    hashes[i] = hash(value);
+                    int bucket = hashes[i] & (capacity - 1);
+                    next[i] = heads[bucket];
+                    heads[bucket] = i;
+                }
+            }
+        }
+
+        // Passes each row holding value to action and marks it in matched; returns whether there was one.
+        boolean forEachMatch(Object value, BitSet matched, Consumer<List<Object>> action) {
+            if (value == null) {
+                return false;
+            }
+            int h = hash(value);
+            boolean found = false;
+            for (int i = heads[h & (heads.length - 1)]; i >= 0; i = next[i]) {
+                List<Object> row = rows.get(i);
+                if (hashes[i] == h && value.equals(row.get(key))) {
+                    matched.set(i);
+                    action.accept(row);
+                    found = true;
+                }
+            }
+            return found;
+        }
+
+        void forEachUnmatched(Consumer<List<Object>> action) {
+            for (int i = matched.nextClearBit(0); i < rows.size(); i = matched.nextClearBit(i + 1)) {
+                action.accept(rows.get(i));
+            }
+        }
+    }
+
+    /** One partition's rows, spilled to disk. */
+    private record Partition(SpillFile file) implements Rows {
+        Partition(List<ColumnMetadata> columns) {
+            this(new SpillFile("join", columns));
+        }
+
+        void add(List<Object> row) {
+            file.add(row);
+        }
+
+        void finish() throws IOException {
+            file.finish();
+        }
+
+        @Override
+        public void forEach(Consumer<List<Object>> action) throws IOException {
+            file.forEach(action);
+        }
+
+        @Override
+        public long size() {
+            return file.size();
+        }
+
+        @Override
+        public long estimatedBytes() {
+            return file.estimatedBytes();
+        }
+
+        void delete() {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.postgresql.execution;
+
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.storage.RecordId;
+import com.postgresql.storage.TableHeap;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An equi-join that looks each row of the outer input up in an index on the inner table's
+ * join column, so only the inner rows that match are ever read. Index matches are rechecked
+ * with {@code equals}, like the other joins, since string lookups ignore case.
+ *
+ * The inner table is the right one for INNER and LEFT joins, or the left one for INNER and
+ * RIGHT joins; the outer side of an outer join is always the side that is scanned.
+ */
+public final class IndexNestedLoopJoin {
+    private final Table inner;
+    private final int innerKey;
+    private final boolean innerIsLeft;
+    private final boolean outerJoin;
+    private final int leftWidth;
+    private final int rightWidth;
+
+    public IndexNestedLoopJoin(JoinType type, Table inner, int innerKey, boolean innerIsLeft, int leftWidth, int rightWidth) {
+        if (type == (innerIsLeft ? JoinType.LEFT : JoinType.RIGHT)) {
+            throw new IllegalArgumentException("The outer side of a " + type + " join cannot be the indexed side");
+        }
+        this.inner = inner;
+        this.innerKey = innerKey;
+        this.innerIsLeft = innerIsLeft;
+        this.outerJoin = type != JoinType.INNER;
+        this.leftWidth = leftWidth;
+        this.rightWidth = rightWidth;
+    }
+
+    /** Joins each of {@code outerRows} on its {@code outerKey} value, passing joined rows to {@code output}. */
+    public void execute(List<List<Object>> outerRows, int outerKey, Consumer<List<Object>> output) {
+        TableHeap heap = inner.getTableHeap();
+        for (List<Object> outer : outerRows) {
+            Object key = outer.get(outerKey);
+            boolean matched = false;
+            if (key != null) {
+                List<RecordId> rids = heap.lookup(innerKey, key);
+                if (rids == null) {
+                    throw new IllegalStateException("No index on column " + innerKey + " of " + inner.getName());
+                }
+                for (Tuple match : heap.fetchTuples(rids)) {
+                    if (key.equals(match.getValues().get(innerKey))) {
+                        output.accept(combine(outer, match.getValues()));
+                        matched = true;
+                    }
+                }
+            }
+            if (!matched && outerJoin) {
+                output.accept(combine(outer, null));
+            }
+        }
+    }
+
+    private List<Object> combine(List<Object> outer, List<Object> innerRow) {
+        return innerIsLeft
+                ? Joins.combine(innerRow, leftWidth, outer, rightWidth)
+                : Joins.combine(outer, leftWidth, innerRow, rightWidth);
+    }
+}
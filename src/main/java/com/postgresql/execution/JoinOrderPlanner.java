@@ -0,0 +1,245 @@
+package com.postgresql.execution;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableStatistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs a SELECT over any number of tables joined on equal column values, two at a time.
+ * Each step joins the rows produced so far with one more table, through a
+ * {@link JoinPlanner} that picks the algorithm for that step.
+ *
+ * When every join is INNER the tables may be joined in any order, and the order is chosen
+ * to keep the intermediate results small. The size of a join is estimated from
+ * {@link TableStatistics} as the product of the tables' row counts, divided for each join
+ * condition by the larger number of distinct values of its two columns. Every left-deep
+ * order that never joins two tables without a condition between them is considered, and the
+ * one with the smallest sum of intermediate sizes wins; ties keep the written order. Outer
+ * joins are run in the written order, since moving them changes the result, and so are
+ * joins of more than {@value #MAX_REORDERED_TABLES} tables, where the search grows too large.
+ *
+ * Joined rows hold the tables' columns in the order the tables were joined;
+ * {@link #getWrittenColumns()} lists the columns that put them back in the written order.
+ * Each table's rows may be limited to the columns the query reads, the others left null.
+ */
+public final class JoinOrderPlanner {
+    /** A join of {@code table} on its {@code column} with {@code otherColumn} of an earlier {@code otherTable}. */
+    public record Join(JoinType type, int table, int column, int otherTable, int otherColumn) {
+    }
+
+    private static final int MAX_REORDERED_TABLES = 12;
+
+    private final List<Table> tables;
+    private final List<Join> joins;
+    private final int orderByColumn;
+    private final List<int[]> needed;
+    private int[] order;
+
+    /**
+     * {@code joins} holds one entry for each table after the first, in table order, and each
+     * joins its table with one before it. {@code orderByColumn} is the joined row's column
+     * the query is ordered by, or -1.
+     */
+    public JoinOrderPlanner(List<Table> tables, List<Join> joins, int orderByColumn) {
+        this(tables, joins, orderByColumn, null);
+    }
+
+    /**
+     * Like the constructor above, reading only the columns of each table listed in
+     * {@code needed}, in table order, unless it is null; each list must hold the table's
+     * join columns.
+     */
+    public JoinOrderPlanner(List<Table> tables, List<Join> joins, int orderByColumn, List<int[]> needed) {
+        if (joins.size() != tables.size() - 1) {
+            throw new IllegalArgumentException("Expected " + (tables.size() - 1) + " joins, got " + joins.size());
+        }
+        for (int i = 0; i < joins.size(); i++) {
+            Join join = joins.get(i);
+            if (join.table() != i + 1 || join.otherTable() < 0 || join.otherTable() > i) {
+                throw new IllegalArgumentException("Join " + i + " must join table " + (i + 1) + " with an earlier table");
+            }
+        }
+        this.tables = List.copyOf(tables);
+        this.joins = List.copyOf(joins);
+        this.orderByColumn = orderByColumn;
+        this.needed = needed;
+    }
+
+    /** The tables' positions in the order they are joined, planned on first use. */
+    public int[] getOrder() {
+        if (order == null) {
+            order = joins.stream().allMatch(join -> join.type() == JoinType.INNER) ? cheapestOrder() : writtenOrder();
+        }
+        return order.clone();
+    }
+
+    /** For each column of the tables as written, its position in the joined rows. */
+    public int[] getWrittenColumns() {
+        int[] layout = writtenLayout();
+        int[] columns = new int[layout.length];
+        for (int i = 0; i < layout.length; i++) {
+            columns[layout[i]] = i;
+        }
+        return columns;
+    }
+
+    /** Joins the tables, passing each joined row to {@code output}. */
+    public void execute(Consumer<List<Object>> output) {
+        int[] plan = getOrder();
+
+        // Where each table's columns start in the rows joined so far
+        int[] offsets = new int[tables.size()];
+        Arrays.fill(offsets, -1);
+        List<ColumnMetadata> columns = new ArrayList<>(tables.get(plan[0]).getMetadata().getColumns());
+        offsets[plan[0]] = 0;
+        List<List<Object>> rows = null;
+        int[] layout = writtenLayout();
+        for (int step = 1; step < plan.length; step++) {
+            int next = plan[step];
+            Join join = joinOf(next, offsets);
+            boolean nextIsJoined = join.table() == next;
+            int key = nextIsJoined ? join.column() : join.otherColumn();
+            int joinedKey = offsets[nextIsJoined ? join.otherTable() : join.table()]
+                    + (nextIsJoined ? join.otherColumn() : join.column());
+            Table right = tables.get(next);
+            int width = columns.size();
+            boolean last = step == plan.length - 1;
+            boolean orderedByKey = last && orderByColumn >= 0
+                    && (orderByColumn == layout[joinedKey] || orderByColumn == offsetInWrittenRow(next) + key);
+
+            JoinPlanner planner = rows == null
+                    ? new JoinPlanner(join.type(), tables.get(plan[0]), joinedKey, right, key, orderedByKey)
+                    : new JoinPlanner(join.type(), columns, rows, joinedKey, right, key, orderedByKey);
+            if (needed != null) {
+                planner.readingColumns(needed.get(plan[0]), needed.get(next));
+            }
+            List<List<Object>> joined = new ArrayList<>();
+            planner.execute(last ? output : joined::add);
+
+            columns.addAll(right.getMetadata().getColumns());
+            offsets[next] = width;
+            rows = joined;
+        }
+    }
+
+    // The join that connects table to the ones already joined.
+    private Join joinOf(int table, int[] offsets) {
+        for (Join join : joins) {
+            if ((join.table() == table && offsets[join.otherTable()] >= 0)
+                    || (join.otherTable() == table && offsets[join.table()] >= 0)) {
+                return join;
+            }
+        }
+        throw new IllegalStateException("Table " + table + " has no join with the tables before it");
+    }
+
+    private int[] writtenOrder() {
+        int[] written = new int[tables.size()];
+        for (int i = 0; i < written.length; i++) {
+            written[i] = i;
+        }
+        return written;
+    }
+
+    // Left-deep dynamic programming over the sets of tables, cheapest prefix first.
+    private int[] cheapestOrder() {
+        int n = tables.size();
+        if (n <= 2 || n > MAX_REORDERED_TABLES) {
+            return writtenOrder();
+        }
+        double[] rowCounts = new double[n];
+        TableStatistics[] statistics = new TableStatistics[n];
+        for (int i = 0; i < n; i++) {
+            statistics[i] = tables.get(i).getStatistics();
+            rowCounts[i] = statistics[i].getRowCount();
+        }
+        double[] selectivity = new double[joins.size()];
+        int[] neighbours = new int[n];
+        for (int i = 0; i < joins.size(); i++) {
+            Join join = joins.get(i);
+            long distinct = Math.max(statistics[join.table()].getDistinctCount(join.column()),
+                    statistics[join.otherTable()].getDistinctCount(join.otherColumn()));
+            selectivity[i] = 1.0 / Math.max(1, distinct);
+            neighbours[join.table()] |= 1 << join.otherTable();
+            neighbours[join.otherTable()] |= 1 << join.table();
+        }
+
+        int sets = 1 << n;
+        double[] cost = new double[sets];
+        int[] lastTable = new int[sets];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            cost[1 << i] = 0;
+            lastTable[1 << i] = i;
+        }
+        for (int set = 1; set < sets; set++) {
+            if (Integer.bitCount(set) < 2) {
+                continue;
+            }
+            double size = estimate(set, rowCounts, selectivity);
+            // Later tables are tried first, so that on a tie they stay last, as written
+            for (int table = n - 1; table >= 0; table--) {
+                int rest = set & ~(1 << table);
+                if (rest == set || (neighbours[table] & rest) == 0 || cost[rest] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double candidate = cost[rest] + size;
+                if (candidate < cost[set]) {
+                    cost[set] = candidate;
+                    lastTable[set] = table;
+                }
+            }
+        }
+
+        int[] cheapest = new int[n];
+        int set = sets - 1;
+        for (int step = n - 1; step >= 0; step--) {
+            cheapest[step] = lastTable[set];
+            set &= ~(1 << cheapest[step]);
+        }
+        return cheapest;
+    }
+
+    // Estimated rows of joining the tables in set on every condition between them.
+    private double estimate(int set, double[] rowCounts, double[] selectivity) {
+        double size = 1;
+        for (int i = 0; i < rowCounts.length; i++) {
+            if ((set & (1 << i)) != 0) {
+                size *= rowCounts[i];
+            }
+        }
+        for (int i = 0; i < joins.size(); i++) {
+            Join join = joins.get(i);
+            if ((set & (1 << join.table())) != 0 && (set & (1 << join.otherTable())) != 0) {
+                size *= selectivity[i];
+            }
+        }
+        return size;
+    }
+
+    // For each column of the joined rows, its column in the written order.
+    private int[] writtenLayout() {
+        List<Integer> layout = new ArrayList<>();
+        for (int table : getOrder()) {
+            int start = offsetInWrittenRow(table);
+            int width = tables.get(table).getMetadata().getColumns().size();
+            for (int i = 0; i < width; i++) {
+                layout.add(start + i);
+            }
+        }
+        return layout.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int offsetInWrittenRow(int table) {
+        int offset = 0;
+        for (int i = 0; i < table; i++) {
+            offset += tables.get(i).getMetadata().getColumns().size();
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,182 @@
+package com.postgresql.execution;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableSnapshot;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * Picks the algorithm for a join of two tables on equal column values, and runs it.
+ * <ul>
+ *   <li>{@link JoinStrategy#INDEX_NESTED_LOOP} when a table that may be the inner side has an
+ *       index on its join column and the other table is small enough that one index probe
+ *       per row costs less than reading the indexed table. The indexed table is never scanned.</li>
+ *   <li>{@link JoinStrategy#MERGE} when both tables are already ordered on their join
+ *       columns, or the query is ordered by a join column so the sort has to happen anyway.</li>
+ *   <li>{@link JoinStrategy#HASH} otherwise.</li>
+ * </ul>
+ * The first two need join columns of the same type, since they compare keys by value.
+ *
+ * The left input may also be rows already joined by an earlier step of a
+ * {@link JoinOrderPlanner}; only the right table can then be probed through its index.
+ *
+ * Rows read from a table's snapshot can be limited to the columns the query reads, with the
+ * others left null, so a join of wide tables does not box every column of every row. They are
+ * built each time they are read rather than collected up front, so a {@link HashJoin} that
+ * spills its inputs to disk holds no copy of them in memory.
+ */
+public final class JoinPlanner {
+    // One index probe and row fetch costs about as much as scanning this many rows.
+    private static final int INDEX_PROBE_COST = 4;
+
+    private final JoinType type;
+    private final Table left; // null when joining rows that are already in memory
+    private final List<ColumnMetadata> leftColumns;
+    private final List<List<Object>> leftRows;
+    private final int leftKey;
+    private final Table right;
+    private final int rightKey;
+    private final boolean orderedByKey;
+    private int[] leftNeeded;
+    private int[] rightNeeded;
+    private JoinStrategy strategy;
+
+    /** {@code orderedByKey} is set when the query's ORDER BY is one of the join columns. */
+    public JoinPlanner(JoinType type, Table left, int leftKey, Table right, int rightKey, boolean orderedByKey) {
+        this(type, left, left.getMetadata().getColumns(), null, leftKey, right, rightKey, orderedByKey);
+    }
+
+    /** Joins {@code leftRows}, laid out as {@code leftColumns}, with the {@code right} table. */
+    public JoinPlanner(JoinType type, List<ColumnMetadata> leftColumns, List<List<Object>> leftRows, int leftKey,
+                       Table right, int rightKey, boolean orderedByKey) {
+        this(type, null, leftColumns, leftRows, leftKey, right, rightKey, orderedByKey);
+    }
+
+    private JoinPlanner(JoinType type, Table left, List<ColumnMetadata> leftColumns, List<List<Object>> leftRows,
+                        int leftKey, Table right, int rightKey, boolean orderedByKey) {
+        this.type = type;
+        this.left = left;
+        this.leftColumns = leftColumns;
+        this.leftRows = leftRows;
+        this.leftKey = leftKey;
+        this.right = right;
+        this.rightKey = rightKey;
+        this.orderedByKey = orderedByKey;
+    }
+
+    /**
+     * Reads only the {@code leftNeeded} and {@code rightNeeded} columns of rows read from
+     * the tables' snapshots; null reads every column. Both must hold the table's join column.
+     */
+    public JoinPlanner readingColumns(int[] leftNeeded, int[] rightNeeded) {
+        this.leftNeeded = leftNeeded;
+        this.rightNeeded = rightNeeded;
+        return this;
+    }
+
+    /** The algorithm the last {@link #execute} used. */
+    public JoinStrategy getStrategy() {
+        return strategy;
+    }
+
+    /** Joins the tables, passing each joined row (left values, then right values) to {@code output}. */
+    public void execute(Consumer<List<Object>> output) {
+        int leftWidth = leftColumns.size();
+        int rightWidth = right.getMetadata().getColumns().size();
+        boolean sameType = leftColumns.get(leftKey).getType()
+                == right.getMetadata().getColumns().get(rightKey).getType();
+
+        Table inner = sameType ? indexedInner() : null;
+        if (inner != null) {
+            strategy = JoinStrategy.INDEX_NESTED_LOOP;
+            boolean innerIsLeft = inner != right;
+            IndexNestedLoopJoin join = new IndexNestedLoopJoin(type, inner, innerIsLeft ? leftKey : rightKey,
+                    innerIsLeft, leftWidth, rightWidth);
+            if (!innerIsLeft && leftRows != null) {
+                join.execute(leftRows, leftKey, output);
+                return;
+            }
+            Table outer = innerIsLeft ? right : left;
+            TableSnapshot snapshot = outer.snapshot();
+            try {
+                join.execute(values(snapshot, innerIsLeft ? rightNeeded : leftNeeded), innerIsLeft ? rightKey : leftKey, output);
+            } finally {
+                snapshot.release();
+            }
+            return;
+        }
+
+        TableSnapshot leftSnapshot = left != null ? left.snapshot() : null;
+        TableSnapshot rightSnapshot = right.snapshot();
+        try {
+            List<List<Object>> lefts = leftSnapshot != null ? values(leftSnapshot, leftNeeded) : leftRows;
+            List<List<Object>> rights = values(rightSnapshot, rightNeeded);
+            if (sameType && (orderedByKey
+                    || (MergeJoin.isSorted(lefts, leftKey) && MergeJoin.isSorted(rights, rightKey)))) {
+                strategy = JoinStrategy.MERGE;
+                new MergeJoin(type, leftKey, leftWidth, rightKey, rightWidth).execute(lefts, rights, output);
+            } else {
+                strategy = JoinStrategy.HASH;
+                new HashJoin(type, leftColumns, leftKey, right.getMetadata().getColumns(), rightKey)
+                        .execute(lefts, rights, output);
+            }
+        } finally {
+            if (leftSnapshot != null) {
+                leftSnapshot.release();
+            }
+            rightSnapshot.release();
+        }
+    }
+
+    // The table to probe through its index, or null when scanning both is cheaper. The outer
+    // side of an outer join must be scanned. At most one table can be that much larger.
+    private Table indexedInner() {
+        long leftCount = left != null ? left.getRowCount() : leftRows.size();
+        long rightCount = right.getRowCount();
+        if (type != JoinType.RIGHT && right.getTableHeap().hasIndex(rightKey) && leftCount * INDEX_PROBE_COST < rightCount) {
+            return right;
+        }
+        if (type != JoinType.LEFT && left != null && left.getTableHeap().hasIndex(leftKey)
+                && rightCount * INDEX_PROBE_COST < leftCount) {
+            return left;
+        }
+        return null;
+    }
+
+    // The rows of snapshot, built on access with only the needed columns unless it is null
+    private static List<List<Object>> values(TableSnapshot snapshot, int[] needed) {
+        RowBuilder rows = needed != null
+                ? new RowBuilder(snapshot.getColumnCount(), needed, null, null)
+                : RowBuilder.all(snapshot.getColumnCount());
+        return new SnapshotRows(snapshot, rows);
+    }
+
+    /** A read-only view of a snapshot's rows that builds each row when it is read. */
+    private static final class SnapshotRows extends AbstractList<List<Object>> implements RandomAccess {
+        private final TableSnapshot snapshot;
+        private final RowBuilder rows;
+
+        SnapshotRows(TableSnapshot snapshot, RowBuilder rows) {
+            this.snapshot = snapshot;
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Object> get(int index) {
+            if (index < 0 || index >= snapshot.size()) {
+                throw new IndexOutOfBoundsException("Row " + index + " out of range for " + snapshot.size() + " rows");
+            }
+            return rows.build(snapshot, index);
+        }
+
+        @Override
+        public int size() {
+            return snapshot.size();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.postgresql.execution;
+
+/** The algorithms a join can run with; {@link JoinPlanner} picks one per query. */
+public enum JoinStrategy {
+    /** {@link HashJoin}: hash the smaller input and probe it with the larger. */
+    HASH,
+    /** {@link MergeJoin}: walk both inputs in join key order. */
+    MERGE,
+    /** {@link IndexNestedLoopJoin}: look each outer row up in the inner table's index. */
+    INDEX_NESTED_LOOP
+}
@@ -0,0 +1,22 @@
+package com.postgresql.execution;
+
+import java.util.Locale;
+
+/** The kinds of JOIN a SELECT can ask for. */
+public enum JoinType {
+    /** Only pairs of rows whose join columns are equal. */
+    INNER,
+    /** Every left row, with NULLs for the right columns when nothing matches. */
+    LEFT,
+    /** Every right row, with NULLs for the left columns when nothing matches. */
+    RIGHT;
+
+    /** The join type named by {@code name}, ignoring case, or null if there is none. */
+    public static JoinType parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
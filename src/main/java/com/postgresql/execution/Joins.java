@@ -0,0 +1,27 @@
+package com.postgresql.execution;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Helpers shared by the join operators. */
+final class Joins {
+    private Joins() {
+        // prevent instantiation
+    }
+
+    /** The left values followed by the right values in one array, with NULLs for a missing side. */
+    static List<Object> combine(List<Object> leftRow, int leftWidth, List<Object> rightRow, int rightWidth) {
+        Object[] joined = new Object[leftWidth + rightWidth];
+        if (leftRow != null) {
+            for (int i = 0; i < leftRow.size(); i++) {
+                joined[i] = leftRow.get(i);
+            }
+        }
+        if (rightRow != null) {
+            for (int i = 0; i < rightRow.size(); i++) {
+                joined[leftWidth + i] = rightRow.get(i);
+            }
+        }
+        return Arrays.asList(joined);
+    }
+}
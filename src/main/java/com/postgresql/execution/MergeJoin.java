@@ -0,0 +1,123 @@
+package com.postgresql.execution;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An equi-join of two inputs ordered on their join columns, walking both in step. Each group
+ * of equal keys is joined with the matching group of the other side, so the work is linear
+ * once the inputs are in order, and the output comes out ordered on the join key.
+ *
+ * Inputs that are not already in order are sorted first. Both join columns must hold the
+ * same type, since keys are compared with {@code compareTo}. Rows with a NULL key never
+ * match; an outer side's are emitted after the others.
+ */
+public final class MergeJoin {
+    private final JoinType type;
+    private final int leftKey;
+    private final int leftWidth;
+    private final int rightKey;
+    private final int rightWidth;
+
+    public MergeJoin(JoinType type, int leftKey, int leftWidth, int rightKey, int rightWidth) {
+        this.type = type;
+        this.leftKey = leftKey;
+        this.leftWidth = leftWidth;
+        this.rightKey = rightKey;
+        this.rightWidth = rightWidth;
+    }
+
+    /** Whether the rows' non-null {@code key} values never decrease, so a merge needs no sort. */
+    public static boolean isSorted(List<List<Object>> rows, int key) {
+        Object previous = null;
+        for (List<Object> row : rows) {
+            Object value = row.get(key);
+            if (value == null) {
+                continue;
+            }
+            if (previous != null && compare(previous, value) > 0) {
+                return false;
+            }
+            previous = value;
+        }
+        return true;
+    }
+
+    /** Joins the inputs, passing each joined row to {@code output} in join key order. */
+    public void execute(List<List<Object>> leftRows, List<List<Object>> rightRows, Consumer<List<Object>> output) {
+        List<List<Object>> leftNulls = new ArrayList<>();
+        List<List<Object>> rightNulls = new ArrayList<>();
+        List<List<Object>> lefts = ordered(leftRows, leftKey, leftNulls);
+        List<List<Object>> rights = ordered(rightRows, rightKey, rightNulls);
+        boolean leftOuter = type == JoinType.LEFT;
+        boolean rightOuter = type == JoinType.RIGHT;
+
+        int i = 0;
+        int j = 0;
+        while (i < lefts.size() && j < rights.size()) {
+            Object key = lefts.get(i).get(leftKey);
+            int cmp = compare(key, rights.get(j).get(rightKey));
+            if (cmp < 0) {
+                if (leftOuter) {
+                    output.accept(Joins.combine(lefts.get(i), leftWidth, null, rightWidth));
+                }
+                i++;
+            } else if (cmp > 0) {
+                if (rightOuter) {
+                    output.accept(Joins.combine(null, leftWidth, rights.get(j), rightWidth));
+                }
+                j++;
+            } else {
+                int leftEnd = groupEnd(lefts, i, leftKey);
+                int rightEnd = groupEnd(rights, j, rightKey);
+                for (int l = i; l < leftEnd; l++) {
+                    for (int r = j; r < rightEnd; r++) {
+                        output.accept(Joins.combine(lefts.get(l), leftWidth, rights.get(r), rightWidth));
+                    }
+                }
+                i = leftEnd;
+                j = rightEnd;
+            }
+        }
+        if (leftOuter) {
+            for (; i < lefts.size(); i++) {
+                output.accept(Joins.combine(lefts.get(i), leftWidth, null, rightWidth));
+            }
+            leftNulls.forEach(row -> output.accept(Joins.combine(row, leftWidth, null, rightWidth)));
+        }
+        if (rightOuter) {
+            for (; j < rights.size(); j++) {
+                output.accept(Joins.combine(null, leftWidth, rights.get(j), rightWidth));
+            }
+            rightNulls.forEach(row -> output.accept(Joins.combine(null, leftWidth, row, rightWidth)));
+        }
+    }
+
+    // The rows with a non-null key, sorted on it if they are not already; the others go to nulls.
+    private static List<List<Object>> ordered(List<List<Object>> rows, int key, List<List<Object>> nulls) {
+        List<List<Object>> keyed = new ArrayList<>(rows.size());
+        for (List<Object> row : rows) {
+            (row.get(key) == null ? nulls : keyed).add(row);
+        }
+        if (!isSorted(keyed, key)) {
+            keyed.sort(Comparator.comparing(row -> row.get(key), MergeJoin::compare));
+        }
+        return keyed;
+    }
+
+    private static int groupEnd(List<List<Object>> rows, int start, int key) {
+        Object value = rows.get(start).get(key);
+        int end = start + 1;
+        while (end < rows.size() && compare(value, rows.get(end).get(key)) == 0) {
+            end++;
+        }
+        return end;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
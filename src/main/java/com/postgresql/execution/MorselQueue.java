@@ -0,0 +1,69 @@
+package com.postgresql.execution;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a task for each of {@code count} morsels on the {@link Parallelism} pool, at most
+ * {@code workers} at a time, and hands their results out in morsel order, so parallel work
+ * comes out in the same order as serial work. A morsel's task only starts once an earlier
+ * result has been taken, so a consumer that stops early, as under a LIMIT, leaves the rest
+ * of the input unread.
+ *
+ * Closing the queue cancels the morsels not yet started and waits for the running ones, so
+ * the caller may release what they read. A task that fails rethrows from {@link #next()}.
+ */
+public final class MorselQueue<R> implements AutoCloseable {
+    private final int count;
+    private final int workers;
+    private final IntFunction<R> task;
+    private final ArrayDeque<ForkJoinTask<R>> running = new ArrayDeque<>();
+    private int nextMorsel;
+
+    /** {@code task} computes the result of the morsel numbered from 0 to {@code count - 1}. */
+    public MorselQueue(int count, int workers, IntFunction<R> task) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker, got " + workers);
+        }
+        this.count = count;
+        this.workers = workers;
+        this.task = task;
+    }
+
+    public boolean hasNext() {
+        return nextMorsel < count || !running.isEmpty();
+    }
+
+    /** The next morsel's result, waiting for its task to finish. */
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        start();
+        ForkJoinTask<R> head = running.poll();
+        R result = head.join();
+        start();
+        return result;
+    }
+
+    @Override
+    public void close() {
+        nextMorsel = count;
+        for (ForkJoinTask<R> pending : running) {
+            pending.cancel(false);
+        }
+        for (ForkJoinTask<R> pending : running) {
+            pending.quietlyJoin();
+        }
+        running.clear();
+    }
+
+    private void start() {
+        while (running.size() < workers && nextMorsel < count) {
+            int morsel = nextMorsel++;
+            running.add(Parallelism.pool().submit(() -> task.apply(morsel)));
+        }
+    }
+}
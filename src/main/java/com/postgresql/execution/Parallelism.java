@@ -0,0 +1,58 @@
+package com.postgresql.execution;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Intra-query parallelism: the {@link ForkJoinPool} that scans, UPDATE and DELETE searches
+ * and hash join probes split their work across, and how many tasks each session may run on it.
+ *
+ * Work is split into morsels of {@value #MORSEL_ROWS} rows or {@value #MORSEL_PAGES} pages and
+ * handed out by a {@link MorselQueue}. The pool has a thread per core, or
+ * {@code -Dpostgreslite.parallel.pool.threads}. A session runs at most {@link #getWorkers()}
+ * morsels at a time: the number of cores by default, or {@code -Dpostgreslite.parallel.workers},
+ * and {@code SET parallel_workers = <n>} changes it. A session is the thread that runs its
+ * statements; threads it starts, such as a join's producer, inherit its setting. With one
+ * worker every statement runs on the calling thread.
+ */
+public final class Parallelism {
+    /** Rows of a snapshot or an in-memory input in one morsel. */
+    public static final int MORSEL_ROWS = 16384;
+    /** Heap pages in one morsel. */
+    public static final int MORSEL_PAGES = 64;
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final ForkJoinPool POOL =
+            new ForkJoinPool(Math.max(1, Integer.getInteger("postgreslite.parallel.pool.threads", CORES)));
+    private static final int DEFAULT_WORKERS = Math.max(1, Integer.getInteger("postgreslite.parallel.workers", CORES));
+    private static final InheritableThreadLocal<Integer> WORKERS = new InheritableThreadLocal<>() {
+        @Override
+        protected Integer initialValue() {
+            return DEFAULT_WORKERS;
+        }
+    };
+
+    private Parallelism() {
+    }
+
+    static ForkJoinPool pool() {
+        return POOL;
+    }
+
+    /** The most morsels the current session runs at once. */
+    public static int getWorkers() {
+        return WORKERS.get();
+    }
+
+    /** Sets the current session's degree of parallelism; 1 turns parallel execution off. */
+    public static void setWorkers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("parallel_workers must be at least 1, got " + workers);
+        }
+        WORKERS.set(workers);
+    }
+
+    /** Number of morsels of {@code morselSize} that {@code total} items split into. */
+    public static int morsels(long total, int morselSize) {
+        return (int) ((total + morselSize - 1) / morselSize);
+    }
+}
@@ -0,0 +1,149 @@
+package com.postgresql.execution;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.storage.TupleCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rows written to a temporary file under {@code data/tmp} by an operator that has run out of
+ * memory, encoded as in a heap page and prefixed by their length. The file is created on the
+ * first row, written once, then read back in order as often as needed; {@link #delete()}
+ * removes it.
+ */
+public final class SpillFile {
+    private static final File SPILL_DIR = new File("data", "tmp");
+    // Rough heap cost of a row and of each value in it, for memory budgets.
+    private static final int ROW_BYTES = 64;
+    private static final int VALUE_BYTES = 16;
+
+    private final String prefix;
+    private final List<ColumnMetadata> columns;
+    private File file;
+    private DataOutputStream out;
+    private long size;
+    private long bytes;
+
+    /** {@code prefix} starts the temporary file's name; {@code columns} describe the rows. */
+    public SpillFile(String prefix, List<ColumnMetadata> columns) {
+        this.prefix = prefix;
+        this.columns = columns;
+    }
+
+    /** A rough estimate of the heap memory {@code row} takes, in bytes. */
+    public static long estimate(List<Object> row) {
+        long bytes = ROW_BYTES;
+        for (Object value : row) {
+            bytes += VALUE_BYTES;
+            if (value instanceof String s) {
+                bytes += 2L * s.length();
+            }
+        }
+        return bytes;
+    }
+
+    // A new empty file under data/tmp whose name starts with prefix.
+    static File createFile(String prefix) throws IOException {
+        SPILL_DIR.mkdirs();
+        return File.createTempFile(prefix, ".spill", SPILL_DIR);
+    }
+
+    public void add(List<Object> row) {
+        byte[] record = TupleCodec.encode(row, columns);
+        try {
+            if (out == null) {
+                file = createFile(prefix);
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            }
+            out.writeInt(record.length);
+            out.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size++;
+        bytes += estimate(row);
+    }
+
+    /** Ends writing; the rows may be read from now on. */
+    public void finish() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    public void forEach(Consumer<List<Object>> action) throws IOException {
+        try (Reader reader = openReader()) {
+            for (List<Object> row = reader.next(); row != null; row = reader.next()) {
+                action.accept(row);
+            }
+        }
+    }
+
+    /** Reads the rows back one at a time, in the order they were added. */
+    public Reader openReader() throws IOException {
+        return new Reader();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /** The estimated heap memory of the rows written, by {@link #estimate}. */
+    public long estimatedBytes() {
+        return bytes;
+    }
+
+    public void delete() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // the file is deleted anyway
+            }
+            out = null;
+        }
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /** A cursor over the rows of a finished spill file. */
+    public final class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private long read;
+
+        private Reader() throws IOException {
+            in = size == 0 ? null : new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        /** The next row, or null after the last one. */
+        public List<Object> next() throws IOException {
+            if (read == size) {
+                return null;
+            }
+            byte[] record = new byte[in.readInt()];
+            in.readFully(record);
+            read++;
+            return TupleCodec.decode(ByteBuffer.wrap(record), columns);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+}
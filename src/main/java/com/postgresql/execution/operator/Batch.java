@@ -0,0 +1,85 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.model.ColumnVector;
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.TableSnapshot;
+
+import java.util.List;
+
+/**
+ * Up to {@link #MAX_ROWS} rows of a heap {@link TableSnapshot}, as the positions of the rows
+ * in its column vectors: either every row from {@link #getFrom()} up to {@link #getTo()}, or
+ * just those listed in a selection vector. Nothing is copied; operators read the snapshot's
+ * primitive arrays through {@link #getColumn} and narrow the selection as they filter.
+ *
+ * A batch is only valid until the operator that returned it is asked for the next one.
+ */
+public final class Batch {
+    /** Rows a scan puts in one batch. */
+    public static final int MAX_ROWS = 1024;
+
+    private final TableSnapshot snapshot;
+    private final int from;
+    private final int to;
+    private final int[] selection;
+    private final int size;
+
+    /** Every row from {@code from} up to {@code to}. */
+    Batch(TableSnapshot snapshot, int from, int to) {
+        this(snapshot, from, to, null, to - from);
+    }
+
+    private Batch(TableSnapshot snapshot, int from, int to, int[] selection, int size) {
+        this.snapshot = snapshot;
+        this.from = from;
+        this.to = to;
+        this.selection = selection;
+        this.size = size;
+    }
+
+    /** The same range narrowed to the first {@code size} rows listed in {@code selection}. */
+    Batch select(int[] selection, int size) {
+        return new Batch(snapshot, from, to, selection, size);
+    }
+
+    public ColumnVector getColumn(int column) {
+        return snapshot.getColumn(column);
+    }
+
+    /** Whether every row in the range is in the batch, so no selection vector is needed. */
+    public boolean isDense() {
+        return selection == null;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    /** The selection vector of a batch that is not dense; the first {@link #size()} entries are used. */
+    public int[] getSelection() {
+        return selection;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The position in the snapshot of the batch's {@code index}th row. */
+    public int rowAt(int index) {
+        return selection == null ? from + index : selection[index];
+    }
+
+    /** The values of the batch's {@code index}th row, built on demand. */
+    public List<Object> getRow(int index) {
+        return snapshot.getRows().get(rowAt(index)).getValues();
+    }
+
+    /** The batch's {@code index}th row as {@code rows} builds it, or null when it rejects the row. */
+    public List<Object> getRow(int index, RowBuilder rows) {
+        return rows.build(snapshot, rowAt(index));
+    }
+}
@@ -0,0 +1,15 @@
+package com.postgresql.execution.operator;
+
+/**
+ * Like an {@link Operator}, but passes a {@link Batch} of rows at a time instead of one row, so
+ * filters run as loops over a column's primitive values rather than a call per row.
+ */
+public interface BatchOperator extends AutoCloseable {
+    void open();
+
+    /** The next batch, never empty, or null when there are no more. */
+    Batch nextBatch();
+
+    @Override
+    void close();
+}
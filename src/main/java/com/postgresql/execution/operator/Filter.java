@@ -0,0 +1,42 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.expression.RowPredicate;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/** Returns the rows of its child that pass {@code test}. */
+public final class Filter implements Operator {
+    private final Operator child;
+    private final RowPredicate test;
+
+    public Filter(Operator child, RowPredicate test) {
+        this.child = child;
+        this.test = test;
+    }
+
+    /** Keeps the rows whose {@code column} value passes {@code test}. */
+    public Filter(Operator child, int column, Predicate<Object> test) {
+        this(child, row -> test.test(row.get(column)));
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public List<Object> next() {
+        for (List<Object> row = child.next(); row != null; row = child.next()) {
+            if (test.test(row)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.execution.HashAggregation;
+import com.postgresql.execution.MorselQueue;
+
+import java.util.List;
+
+/**
+ * GROUP BY and aggregate functions over the rows of its child, by a {@link HashAggregation}.
+ * Each row it returns is a group's values in the order of {@code groupColumns}, followed by
+ * the result of each aggregate. Every row of the child is read when it is opened.
+ *
+ * Over a {@link ParallelScan}, each morsel is aggregated on its own by the worker that read it,
+ * and the partial groups are merged in table order, so the groups come out as from a serial scan.
+ */
+public final class HashAggregate implements Operator {
+    private final Operator child;
+    private final List<ColumnMetadata> columns;
+    private final int[] groupColumns;
+    private final List<HashAggregation.Aggregate> aggregates;
+    private final long memoryBytes;
+    private HashAggregation aggregation;
+
+    /** {@code columns} describe the child's rows. */
+    public HashAggregate(Operator child, List<ColumnMetadata> columns, int[] groupColumns,
+                         List<HashAggregation.Aggregate> aggregates) {
+        this(child, columns, groupColumns, aggregates, HashAggregation.memoryBudget());
+    }
+
+    public HashAggregate(Operator child, List<ColumnMetadata> columns, int[] groupColumns,
+                         List<HashAggregation.Aggregate> aggregates, long memoryBytes) {
+        this.child = child;
+        this.columns = List.copyOf(columns);
+        this.groupColumns = groupColumns.clone();
+        this.aggregates = List.copyOf(aggregates);
+        this.memoryBytes = memoryBytes;
+    }
+
+    /** Number of partitions the last {@link #open()} wrote to disk so far. */
+    public int getSpilledPartitions() {
+        return aggregation.getSpilledPartitions();
+    }
+
+    @Override
+    public void open() {
+        aggregation = new HashAggregation(columns, groupColumns, aggregates, memoryBytes);
+        if (child instanceof ParallelScan scan) {
+            // A morsel holds at most MORSEL_ROWS groups, so partials need no budget of their own
+            try (MorselQueue<HashAggregation> partials = scan.openMorsels(rows -> {
+                HashAggregation partial = new HashAggregation(columns, groupColumns, aggregates, Long.MAX_VALUE);
+                rows.forEach(partial::add);
+                return partial;
+            })) {
+                while (partials.hasNext()) {
+                    aggregation.merge(partials.next());
+                }
+            }
+            return;
+        }
+        child.open();
+        for (List<Object> row = child.next(); row != null; row = child.next()) {
+            aggregation.add(row);
+        }
+    }
+
+    @Override
+    public List<Object> next() {
+        return aggregation.next();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (aggregation != null) {
+                aggregation.close();
+            }
+        } finally {
+            child.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Returns the rows an index finds for a WHERE condition on one column: the rows holding a
+ * key, or those whose value lies in a range. When a covering index stores every
+ * {@code needed} column the rows come from the index alone, with the other columns NULL; see
+ * {@link Table#forEachMatch(int[], int, Object, Predicate, java.util.function.Consumer)}.
+ *
+ * The matching rows are collected when the scan is opened, since the index returns their
+ * record ids together, so this is meant for conditions an index narrows down.
+ */
+public final class IndexScan implements Operator {
+    private final Table table;
+    private final int[] needed;
+    private final int column;
+    private final Object key;
+    private final Range range;
+    private final Predicate<Object> test;
+    private Iterator<List<Object>> rows;
+
+    /** Rows whose {@code column} equals {@code key}; {@code test} must accept only such values, ignoring case. */
+    public static IndexScan ofKey(Table table, int[] needed, int column, Object key, Predicate<Object> test) {
+        return new IndexScan(table, needed, column, key, null, test);
+    }
+
+    /** Rows whose {@code column} value lies in {@code range}. */
+    public static IndexScan ofRange(Table table, int[] needed, int column, Range range) {
+        return new IndexScan(table, needed, column, null, range, range);
+    }
+
+    private IndexScan(Table table, int[] needed, int column, Object key, Range range, Predicate<Object> test) {
+        this.table = table;
+        this.needed = needed;
+        this.column = column;
+        this.key = key;
+        this.range = range;
+        this.test = test;
+    }
+
+    @Override
+    public void open() {
+        List<List<Object>> matches = new ArrayList<>();
+        if (range != null) {
+            table.forEachInRange(needed, column, range, tuple -> matches.add(tuple.getValues()));
+        } else {
+            table.forEachMatch(needed, column, key, test, tuple -> matches.add(tuple.getValues()));
+        }
+        rows = matches.iterator();
+    }
+
+    @Override
+    public List<Object> next() {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    @Override
+    public void close() {
+        rows = null;
+    }
+}
@@ -0,0 +1,132 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.execution.JoinOrderPlanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Returns the rows of a {@link JoinOrderPlanner}'s join, in the order its tables were joined.
+ *
+ * The join algorithms push their output, so the join runs on its own thread and hands its
+ * rows over in batches through a small bounded queue, like the exchange operator of the
+ * Volcano design. The join thread waits whenever the queue is full, so only a few batches
+ * are held beyond what the algorithms themselves need, and closing the operator stops the
+ * join at its next row, so a LIMIT does not wait for the whole join.
+ */
+public final class Join implements Operator {
+    private static final int BATCH_ROWS = 1024;
+    private static final int QUEUED_BATCHES = 4;
+    private static final long WAIT_MILLIS = 10;
+    private static final List<List<Object>> END = Collections.unmodifiableList(new ArrayList<>()); // compared by identity
+
+    private final JoinOrderPlanner planner;
+    private BlockingQueue<List<List<Object>>> batches;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private List<List<Object>> batch = END;
+    private int position;
+    private Thread producer;
+
+    /** Thrown on the join thread to stop the join once the operator is closed. */
+    private static final class Stopped extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Stopped() {
+            super(null, null, false, false);
+        }
+    }
+
+    public Join(JoinOrderPlanner planner) {
+        this.planner = planner;
+    }
+
+    @Override
+    public void open() {
+        batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        closed = false;
+        producer = new Thread(this::produce, "join");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @Override
+    public List<Object> next() {
+        while (position == batch.size()) {
+            if (batch == END && producer == null) {
+                return null;
+            }
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for joined rows", e);
+            }
+            position = 0;
+            if (batch == END) {
+                producer = null;
+                if (failure instanceof RuntimeException e) {
+                    throw e;
+                } else if (failure != null) {
+                    throw new IllegalStateException("Join failed", failure);
+                }
+                return null;
+            }
+        }
+        return batch.get(position++);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (batches != null) {
+            batches.clear(); // lets a waiting join thread see that it should stop
+        }
+    }
+
+    private void produce() {
+        List<List<Object>> pending = new ArrayList<>(BATCH_ROWS);
+        try {
+            planner.execute(row -> {
+                pending.add(row);
+                if (pending.size() == BATCH_ROWS) {
+                    hand(new ArrayList<>(pending));
+                    pending.clear();
+                }
+            });
+            if (!pending.isEmpty()) {
+                hand(pending);
+            }
+        } catch (Stopped e) {
+            return;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        try {
+            hand(END);
+        } catch (Stopped e) {
+            // closed before the end was read
+        }
+    }
+
+    // Waits for room in the queue, giving up once the operator is closed.
+    private void hand(List<List<Object>> rows) {
+        try {
+            while (!batches.offer(rows, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new Stopped();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Stopped();
+        }
+        if (closed) {
+            throw new Stopped();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.postgresql.execution.operator;
+
+import java.util.List;
+
+/**
+ * Skips the first {@code offset} rows of its child and returns at most {@code limit} of the
+ * rest. Once the limit is reached the child is not asked for any more rows.
+ */
+public final class Limit implements Operator {
+    private final Operator child;
+    private final long offset;
+    private final long limit;
+    private long returned;
+    private boolean exhausted;
+
+    /** {@code limit} is negative for no limit. */
+    public Limit(Operator child, long offset, long limit) {
+        this.child = child;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        returned = 0;
+        exhausted = false;
+        for (long skipped = 0; skipped < offset && !exhausted; skipped++) {
+            exhausted = child.next() == null;
+        }
+    }
+
+    @Override
+    public List<Object> next() {
+        if (exhausted || (limit >= 0 && returned >= limit)) {
+            return null;
+        }
+        List<Object> row = child.next();
+        if (row == null) {
+            exhausted = true;
+        } else {
+            returned++;
+        }
+        return row;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
@@ -0,0 +1,24 @@
+package com.postgresql.execution.operator;
+
+import java.util.List;
+
+/**
+ * A node of a query plan in the iterator model. {@link #open} gets it ready, every
+ * {@link #next} returns one row, and {@link #close} frees whatever it holds. A parent pulls
+ * rows from its children only as it needs them, so rows stream through the plan one at a
+ * time, and a plan that stops asking early never reads the rest of its input. Only operators
+ * that must see all their input before returning a row, such as {@link Sort}, keep it.
+ *
+ * Rows are the values of a table row, or of several tables' rows side by side, and must not
+ * be changed by the caller. An operator is used by one thread and run once.
+ */
+public interface Operator extends AutoCloseable {
+    void open();
+
+    /** The next row, or null when there are no more. */
+    List<Object> next();
+
+    /** Releases what the operator holds, and closes its children; may be called before the last row. */
+    @Override
+    void close();
+}
@@ -0,0 +1,140 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.execution.MorselQueue;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.model.Range;
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reads a table like {@link SeqScan}, with the table split into morsels that are filtered on
+ * the shared pool by up to {@code workers} tasks at once. Each task also builds the rows that
+ * pass with a {@link RowBuilder}, which may check the rest of the WHERE condition on them,
+ * and rows come out in table order, as from a serial scan.
+ *
+ * A table that fits in the buffer pool is split into morsels of its snapshot's rows; a
+ * {@link Range} over a heap snapshot is checked with the column vector's branch-free loop.
+ * Larger tables are split into ranges of pages copied out of the mapped file.
+ */
+public final class ParallelScan implements Operator {
+    private final Table table;
+    private final int column;
+    private final Predicate<Object> test;
+    private final RowBuilder builder;
+    private final int workers;
+    private TableSnapshot snapshot;
+    private MorselQueue<?> queue;
+    private MorselQueue<List<List<Object>>> morsels;
+    private List<List<Object>> rows = List.of();
+    private int position;
+
+    /** {@code column} is -1 to return every row. */
+    public ParallelScan(Table table, int column, Predicate<Object> test, int workers) {
+        this(table, column, test, RowBuilder.all(table.getMetadata().getColumns().size()), workers);
+    }
+
+    /** Like the constructor above, with the rows that pass {@code test} built by {@code builder}. */
+    public ParallelScan(Table table, int column, Predicate<Object> test, RowBuilder builder, int workers) {
+        this.table = table;
+        this.column = column;
+        this.test = test;
+        this.builder = builder;
+        this.workers = workers;
+    }
+
+    /** Whether {@code table} is large enough to split into at least two morsels. */
+    public static boolean isWorthSplitting(Table table) {
+        return table.fitsInBufferPool()
+                ? table.getRowCount() >= 2L * Parallelism.MORSEL_ROWS
+                : table.getTableHeap().getFile().getPageCount() >= 2 * Parallelism.MORSEL_PAGES;
+    }
+
+    @Override
+    public void open() {
+        morsels = openMorsels(Function.identity());
+        rows = List.of();
+        position = 0;
+    }
+
+    /**
+     * Opens the scan for a consumer of whole morsels instead of rows: each morsel's matching
+     * rows are passed to {@code reduce} by the task that read them, and the queue hands out
+     * what it returns, in table order. {@link #close()} closes the queue.
+     */
+    public <R> MorselQueue<R> openMorsels(Function<List<List<Object>>, R> reduce) {
+        MorselQueue<R> reduced;
+        if (table.fitsInBufferPool()) {
+            snapshot = table.snapshot();
+            reduced = new MorselQueue<>(Parallelism.morsels(snapshot.size(), Parallelism.MORSEL_ROWS), workers,
+                    morsel -> reduce.apply(selectRows(morsel)));
+        } else {
+            int pageCount = table.getTableHeap().getFile().getPageCount();
+            reduced = new MorselQueue<>(Parallelism.morsels(pageCount, Parallelism.MORSEL_PAGES), workers,
+                    morsel -> reduce.apply(readPages(morsel)));
+        }
+        queue = reduced;
+        return reduced;
+    }
+
+    @Override
+    public List<Object> next() {
+        while (position == rows.size()) {
+            if (!morsels.hasNext()) {
+                return null;
+            }
+            rows = morsels.next();
+            position = 0;
+        }
+        return rows.get(position++);
+    }
+
+    @Override
+    public void close() {
+        if (queue != null) {
+            queue.close();
+            queue = null;
+            morsels = null;
+        }
+        if (snapshot != null) {
+            snapshot.release();
+            snapshot = null;
+        }
+        rows = List.of();
+    }
+
+    private List<List<Object>> selectRows(int morsel) {
+        int from = morsel * Parallelism.MORSEL_ROWS;
+        int to = Math.min(snapshot.size(), from + Parallelism.MORSEL_ROWS);
+        int[] selected = new int[to - from];
+        int count;
+        if (column >= 0 && test instanceof Range range && snapshot.getStorageMode() == StorageMode.HEAP) {
+            count = snapshot.getColumn(column).filterRange(range, from, to, selected);
+        } else {
+            int[] found = new int[1];
+            snapshot.select(column, test, from, to, row -> selected[found[0]++] = row);
+            count = found[0];
+        }
+        List<List<Object>> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Object> row = builder.build(snapshot, selected[i]);
+            if (row != null) {
+                matches.add(row);
+            }
+        }
+        return matches;
+    }
+
+    private List<List<Object>> readPages(int morsel) {
+        List<List<Object>> matches = new ArrayList<>();
+        table.getTableHeap().scanCopied(morsel * Parallelism.MORSEL_PAGES, Parallelism.MORSEL_PAGES, column, test,
+                builder, matches::add);
+        return matches;
+    }
+}
@@ -0,0 +1,38 @@
+package com.postgresql.execution.operator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Returns, for each row of its child, the values of {@code columns} in that order. */
+public final class Project implements Operator {
+    private final Operator child;
+    private final int[] columns;
+
+    public Project(Operator child, int[] columns) {
+        this.child = child;
+        this.columns = columns.clone();
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public List<Object> next() {
+        List<Object> row = child.next();
+        if (row == null) {
+            return null;
+        }
+        Object[] projected = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            projected[i] = row.get(columns[i]);
+        }
+        return Arrays.asList(projected);
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+}
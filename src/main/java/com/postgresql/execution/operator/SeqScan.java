@@ -0,0 +1,138 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads a table's rows in order, returning those whose {@code column} value passes
+ * {@code test}. A table that fits in the buffer pool is read from its snapshot a block of
+ * rows at a time: the filtered column is checked for the whole block first, with typed
+ * comparisons for a {@link com.postgresql.model.Range}, and rows are only built for the
+ * positions that pass. Larger tables are read from the memory-mapped file a few pages at a
+ * time, so only those pages' matching rows are held at once.
+ *
+ * A {@link RowBuilder} restricts the rows to the columns a query reads, and may check the
+ * rest of its WHERE condition on those rows before their other columns are built.
+ *
+ * A scan expected to stop after a few rows, as under a LIMIT, does not copy a table without
+ * a current snapshot into a new one; it reads the table through the buffer pool a page at a
+ * time instead, so it reads only the pages before the last row it returns.
+ */
+public final class SeqScan implements Operator {
+    private static final int BLOCK_ROWS = 1024;
+    private static final int BLOCK_PAGES = 64;
+
+    private final Table table;
+    private final int column;
+    private final Predicate<Object> test;
+    private final RowBuilder rows;
+    private final boolean fewRows;
+    private TableSnapshot snapshot;
+    private boolean pooled;
+    private int nextRow;
+    private final int[] selected = new int[BLOCK_ROWS];
+    private int selectedCount;
+    private int selectedPosition;
+    private int nextPage;
+    private final ArrayDeque<List<Object>> pageRows = new ArrayDeque<>();
+
+    /** {@code column} is -1 to return every row. */
+    public SeqScan(Table table, int column, Predicate<Object> test) {
+        this(table, column, test, false);
+    }
+
+    /** {@code fewRows} says the caller will likely stop long before the last row. */
+    public SeqScan(Table table, int column, Predicate<Object> test, boolean fewRows) {
+        this(table, column, test, RowBuilder.all(table.getMetadata().getColumns().size()), fewRows);
+    }
+
+    /** Like the constructor above, with the rows that pass {@code test} built by {@code rows}. */
+    public SeqScan(Table table, int column, Predicate<Object> test, RowBuilder rows, boolean fewRows) {
+        this.table = table;
+        this.column = column;
+        this.test = test;
+        this.rows = rows;
+        this.fewRows = fewRows;
+    }
+
+    @Override
+    public void open() {
+        pooled = fewRows && table.fitsInBufferPool() && !table.hasCurrentSnapshot();
+        if (pooled) {
+            snapshot = null;
+        } else if (table.fitsInBufferPool()) {
+            snapshot = table.snapshot();
+        }
+        nextRow = 0;
+        nextPage = 0;
+    }
+
+    @Override
+    public List<Object> next() {
+        if (snapshot != null) {
+            return nextFromSnapshot();
+        }
+        return pooled ? nextFromPool() : nextFromPages();
+    }
+
+    @Override
+    public void close() {
+        if (snapshot != null) {
+            snapshot.release();
+            snapshot = null;
+        }
+        pageRows.clear();
+    }
+
+    private List<Object> nextFromSnapshot() {
+        while (true) {
+            while (selectedPosition == selectedCount) {
+                if (nextRow >= snapshot.size()) {
+                    return null;
+                }
+                int end = Math.min(snapshot.size(), nextRow + BLOCK_ROWS);
+                selectedCount = 0;
+                selectedPosition = 0;
+                snapshot.select(column, test, nextRow, end, row -> selected[selectedCount++] = row);
+                nextRow = end;
+            }
+            List<Object> row = rows.build(snapshot, selected[selectedPosition++]);
+            if (row != null) {
+                return row;
+            }
+        }
+    }
+
+    private List<Object> nextFromPool() {
+        while (pageRows.isEmpty()) {
+            if (nextPage >= table.getTableHeap().getFile().getPageCount()) {
+                return null;
+            }
+            table.getTableHeap().forEachTuple(nextPage++, 1, tuple -> {
+                List<Object> values = tuple.getValues();
+                if ((column < 0 || test.test(values.get(column))) && rows.accepts(values)) {
+                    pageRows.add(Collections.unmodifiableList(values));
+                }
+            });
+        }
+        return pageRows.poll();
+    }
+
+    private List<Object> nextFromPages() {
+        while (pageRows.isEmpty()) {
+            int pageCount = table.getTableHeap().getFile().getPageCount();
+            if (nextPage >= pageCount) {
+                return null;
+            }
+            table.getTableHeap().scanMapped(nextPage, BLOCK_PAGES, column, test, rows, pageRows::add);
+            nextPage += BLOCK_PAGES;
+        }
+        return pageRows.poll();
+    }
+}
@@ -0,0 +1,229 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.SpillFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Returns the rows of its child ordered on one column, NULLs first when ascending, with rows
+ * that tie in the order the child returned them. Values are compared as the column's
+ * {@link DataType}. Every row of the child is read when the sort is opened.
+ *
+ * Rows are sorted in memory while they fit in the budget. Past it, the rows held so far are
+ * sorted and written to a {@link SpillFile} as a run, and the next rows start over in an
+ * empty buffer. The runs are then merged by keeping the head row of each in a heap, up to
+ * {@value #MERGE_FAN_IN} runs at a time, so a table larger than memory is sorted while
+ * holding about a budget's worth of rows.
+ *
+ * The budget can be changed with {@code -Dpostgreslite.sort.memory.bytes=<bytes>}.
+ */
+public final class Sort implements Operator {
+    private static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+    private static final int MERGE_FAN_IN = 64;
+
+    private final Operator child;
+    private final List<ColumnMetadata> columns;
+    private final Comparator<List<Object>> order;
+    private final long memoryBytes;
+    private Iterator<List<Object>> sorted;
+    private final List<SpillFile> runs = new ArrayList<>();
+    private Merge merge;
+    private int spilledRuns;
+
+    /** {@code columns} describe the child's rows. */
+    public Sort(Operator child, List<ColumnMetadata> columns, int column, boolean ascending) {
+        this(child, columns, column, ascending, Long.getLong("postgreslite.sort.memory.bytes", DEFAULT_MEMORY_BYTES));
+    }
+
+    public Sort(Operator child, List<ColumnMetadata> columns, int column, boolean ascending, long memoryBytes) {
+        this.child = child;
+        this.columns = List.copyOf(columns);
+        this.order = comparator(column, this.columns.get(column).getType(), ascending);
+        this.memoryBytes = memoryBytes;
+    }
+
+    /** The ORDER BY ordering of rows on {@code column}, whose values are of {@code type}. */
+    public static Comparator<List<Object>> comparator(int column, DataType type, boolean ascending) {
+        Comparator<Object> values = switch (type) {
+            case INT -> (a, b) -> Integer.compare((Integer) a, (Integer) b);
+            case FLOAT -> (a, b) -> Float.compare((Float) a, (Float) b);
+            case BOOLEAN -> (a, b) -> Boolean.compare((Boolean) a, (Boolean) b);
+            case STRING -> (a, b) -> ((String) a).compareTo((String) b);
+        };
+        Comparator<List<Object>> rows = Comparator.comparing(row -> row.get(column), Comparator.nullsFirst(values));
+        return ascending ? rows : rows.reversed();
+    }
+
+    /** Number of runs the last {@link #open()} wrote to disk before merging. */
+    public int getSpilledRuns() {
+        return spilledRuns;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        List<List<Object>> rows = new ArrayList<>();
+        long bytes = 0;
+        try {
+            for (List<Object> row = child.next(); row != null; row = child.next()) {
+                rows.add(row);
+                bytes += SpillFile.estimate(row);
+                if (bytes > memoryBytes) {
+                    runs.add(writeRun(rows));
+                    rows.clear();
+                    bytes = 0;
+                }
+            }
+            spilledRuns = runs.size();
+            if (runs.isEmpty()) {
+                rows.sort(order);
+                sorted = rows.iterator();
+                return;
+            }
+            if (!rows.isEmpty()) {
+                runs.add(writeRun(rows));
+                rows.clear();
+            }
+            while (runs.size() > MERGE_FAN_IN) {
+                mergePass();
+            }
+            merge = new Merge(runs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill sort runs", e);
+        }
+    }
+
+    @Override
+    public List<Object> next() {
+        if (sorted != null) {
+            return sorted.hasNext() ? sorted.next() : null;
+        }
+        try {
+            return merge.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read sort runs", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        sorted = null;
+        try {
+            if (merge != null) {
+                merge.close();
+            }
+        } catch (IOException ignored) {
+            // the runs are deleted anyway
+        } finally {
+            merge = null;
+            runs.forEach(SpillFile::delete);
+            runs.clear();
+            child.close();
+        }
+    }
+
+    private SpillFile writeRun(List<List<Object>> rows) throws IOException {
+        rows.sort(order);
+        SpillFile run = new SpillFile("sort", columns);
+        try {
+            rows.forEach(run::add);
+            run.finish();
+        } catch (IOException | RuntimeException e) {
+            run.delete();
+            throw e;
+        }
+        return run;
+    }
+
+    // Merges each group of consecutive runs into one, so ties stay in input order.
+    private void mergePass() throws IOException {
+        List<SpillFile> merged = new ArrayList<>();
+        try {
+            for (int start = 0; start < runs.size(); start += MERGE_FAN_IN) {
+                List<SpillFile> group = runs.subList(start, Math.min(runs.size(), start + MERGE_FAN_IN));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                SpillFile run = new SpillFile("sort", columns);
+                merged.add(run);
+                try (Merge groupMerge = new Merge(group)) {
+                    for (List<Object> row = groupMerge.next(); row != null; row = groupMerge.next()) {
+                        run.add(row);
+                    }
+                }
+                run.finish();
+                group.forEach(SpillFile::delete);
+            }
+        } catch (IOException | RuntimeException e) {
+            merged.forEach(SpillFile::delete);
+            throw e;
+        }
+        runs.clear();
+        runs.addAll(merged);
+    }
+
+    /** A k-way merge of sorted runs; on a tie the earlier run's row comes first. */
+    private final class Merge implements AutoCloseable {
+        private record Head(List<Object> row, int run) {
+        }
+
+        private final List<SpillFile.Reader> readers = new ArrayList<>();
+        private final PriorityQueue<Head> heads;
+
+        Merge(List<SpillFile> runs) throws IOException {
+            heads = new PriorityQueue<>(runs.size(),
+                    Comparator.comparing(Head::row, order).thenComparingInt(Head::run));
+            try {
+                for (SpillFile run : runs) {
+                    readers.add(run.openReader());
+                }
+                for (int i = 0; i < readers.size(); i++) {
+                    advance(i);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        List<Object> next() throws IOException {
+            Head head = heads.poll();
+            if (head == null) {
+                return null;
+            }
+            advance(head.run());
+            return head.row();
+        }
+
+        private void advance(int run) throws IOException {
+            List<Object> row = readers.get(run).next();
+            if (row != null) {
+                heads.add(new Head(row, run));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (SpillFile.Reader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.catalog.ColumnMetadata;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * ORDER BY with a LIMIT: returns the first {@code count} rows of its child ordered on one
+ * column, as a {@link Sort} followed by a {@link Limit} would, while holding only
+ * {@code count} rows. Rows pass through a bounded heap whose top is the worst row kept, so
+ * each costs O(log count) and a row that cannot make the cut is dropped as it arrives. Rows
+ * that tie keep the order they arrived in, as with the stable {@link Sort}.
+ */
+public final class TopN implements Operator {
+    private record Entry(List<Object> row, long arrival) {
+    }
+
+    private final Operator child;
+    private final Comparator<Entry> order;
+    private final long count;
+    private Iterator<Entry> sorted;
+
+    /** {@code columns} describe the child's rows. */
+    public TopN(Operator child, List<ColumnMetadata> columns, int column, boolean ascending, long count) {
+        this.child = child;
+        Comparator<List<Object>> rows = Sort.comparator(column, columns.get(column).getType(), ascending);
+        this.order = Comparator.comparing(Entry::row, rows).thenComparingLong(Entry::arrival);
+        this.count = count;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        PriorityQueue<Entry> kept = new PriorityQueue<>((int) Math.min(count, 1024) + 1, order.reversed());
+        long arrival = 0;
+        for (List<Object> row = count > 0 ? child.next() : null; row != null; row = child.next()) {
+            Entry entry = new Entry(row, arrival++);
+            if (kept.size() < count) {
+                kept.add(entry);
+            } else if (order.compare(entry, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(entry);
+            }
+        }
+        List<Entry> rows = new ArrayList<>(kept);
+        rows.sort(order);
+        sorted = rows.iterator();
+    }
+
+    @Override
+    public List<Object> next() {
+        return sorted.hasNext() ? sorted.next().row() : null;
+    }
+
+    @Override
+    public void close() {
+        sorted = null;
+        child.close();
+    }
+}
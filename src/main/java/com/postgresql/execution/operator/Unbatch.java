@@ -0,0 +1,56 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.model.RowBuilder;
+
+import java.util.List;
+
+/**
+ * Turns the batches of a {@link BatchOperator} back into rows for the operators above it.
+ * Rows are only built for the positions left in each batch's selection, and a
+ * {@link RowBuilder} may build just the columns the query reads.
+ */
+public final class Unbatch implements Operator {
+    private final BatchOperator child;
+    private final RowBuilder rows;
+    private Batch batch;
+    private int position;
+
+    public Unbatch(BatchOperator child) {
+        this(child, null);
+    }
+
+    /** Builds the rows with {@code rows}, or in full when it is null. */
+    public Unbatch(BatchOperator child, RowBuilder rows) {
+        this.child = child;
+        this.rows = rows;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+        batch = null;
+    }
+
+    @Override
+    public List<Object> next() {
+        while (true) {
+            while (batch == null || position == batch.size()) {
+                batch = child.nextBatch();
+                position = 0;
+                if (batch == null) {
+                    return null;
+                }
+            }
+            List<Object> row = rows != null ? batch.getRow(position++, rows) : batch.getRow(position++);
+            if (row != null) {
+                return row;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        batch = null;
+        child.close();
+    }
+}
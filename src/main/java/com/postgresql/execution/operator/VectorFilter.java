@@ -0,0 +1,63 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.model.ColumnVector;
+import com.postgresql.model.Range;
+
+import java.util.function.Predicate;
+
+/**
+ * Narrows each batch of its child to the rows whose {@code column} value passes
+ * {@code test}, by writing their positions to a selection vector. A {@link Range} is checked
+ * by the column vector over its primitive values; other tests get each value boxed. Batches
+ * left empty are skipped.
+ */
+public final class VectorFilter implements BatchOperator {
+    private final BatchOperator child;
+    private final int column;
+    private final Predicate<Object> test;
+    private final int[] selection = new int[Batch.MAX_ROWS];
+
+    public VectorFilter(BatchOperator child, int column, Predicate<Object> test) {
+        this.child = child;
+        this.column = column;
+        this.test = test;
+    }
+
+    @Override
+    public void open() {
+        child.open();
+    }
+
+    @Override
+    public Batch nextBatch() {
+        for (Batch batch = child.nextBatch(); batch != null; batch = child.nextBatch()) {
+            int size = filter(batch);
+            if (size > 0) {
+                return batch.select(selection, size);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        child.close();
+    }
+
+    private int filter(Batch batch) {
+        ColumnVector vector = batch.getColumn(column);
+        if (test instanceof Range range) {
+            return batch.isDense()
+                    ? vector.filterRange(range, batch.getFrom(), batch.getTo(), selection)
+                    : vector.filterRange(range, batch.getSelection(), batch.size(), selection);
+        }
+        int kept = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            int row = batch.rowAt(i);
+            if (test.test(vector.get(row))) {
+                selection[kept++] = row;
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,45 @@
+package com.postgresql.execution.operator;
+
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableSnapshot;
+
+/** Reads a heap-mode table's snapshot in batches of {@link Batch#MAX_ROWS} rows. */
+public final class VectorScan implements BatchOperator {
+    private final Table table;
+    private TableSnapshot snapshot;
+    private int nextRow;
+
+    public VectorScan(Table table) {
+        this.table = table;
+    }
+
+    @Override
+    public void open() {
+        snapshot = table.snapshot();
+        if (snapshot.getStorageMode() != StorageMode.HEAP) {
+            close();
+            throw new IllegalStateException("Only heap snapshots hold column vectors: " + table.getName());
+        }
+        nextRow = 0;
+    }
+
+    @Override
+    public Batch nextBatch() {
+        if (nextRow >= snapshot.size()) {
+            return null;
+        }
+        int end = Math.min(snapshot.size(), nextRow + Batch.MAX_ROWS);
+        Batch batch = new Batch(snapshot, nextRow, end);
+        nextRow = end;
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        if (snapshot != null) {
+            snapshot.release();
+            snapshot = null;
+        }
+    }
+}
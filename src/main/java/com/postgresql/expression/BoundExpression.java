@@ -0,0 +1,193 @@
+package com.postgresql.expression;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.model.Range;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * A WHERE condition bound to a row: each test of one column knows the column's position and
+ * holds its literal already parsed as the column's type, and {@link #compile()} turns the
+ * whole condition into a {@link RowPredicate} that checks a row without allocating.
+ *
+ * NOT is applied while binding, by negating the tests beneath it ({@code NOT a < 1} becomes
+ * {@code a >= 1}), so a NULL fails every comparison, negated or not, as in SQL. Numbers are
+ * compared as numbers and strings regardless of case, as by {@link Range}.
+ */
+public sealed interface BoundExpression {
+    /**
+     * A test of the value of {@code column}. {@code test} is a {@link Range} for range
+     * comparisons and for equality with a number; {@code key} is the value an equality test
+     * accepts, for index lookups, and null for other tests.
+     */
+    record ColumnTest(int column, Predicate<Object> test, Object key) implements BoundExpression {
+        @Override
+        public RowPredicate compile() {
+            int position = column;
+            Predicate<Object> values = test;
+            return row -> values.test(row.get(position));
+        }
+    }
+
+    record And(List<BoundExpression> operands) implements BoundExpression {
+        @Override
+        public RowPredicate compile() {
+            RowPredicate[] all = operands.stream().map(BoundExpression::compile).toArray(RowPredicate[]::new);
+            return row -> {
+                for (RowPredicate operand : all) {
+                    if (!operand.test(row)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+    }
+
+    record Or(List<BoundExpression> operands) implements BoundExpression {
+        @Override
+        public RowPredicate compile() {
+            RowPredicate[] any = operands.stream().map(BoundExpression::compile).toArray(RowPredicate[]::new);
+            return row -> {
+                for (RowPredicate operand : any) {
+                    if (operand.test(row)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+    }
+
+    /** A predicate for the rows that meet this condition. */
+    RowPredicate compile();
+
+    /** The conditions that must all hold: the operands of an AND, or else this condition. */
+    default List<BoundExpression> conjuncts() {
+        return this instanceof And and ? and.operands() : List.of(this);
+    }
+
+    /** The columns this condition reads, in ascending order. */
+    default int[] columns() {
+        if (this instanceof ColumnTest test) {
+            return new int[]{test.column()};
+        }
+        List<BoundExpression> operands = this instanceof And and ? and.operands() : ((Or) this).operands();
+        return operands.stream().flatMapToInt(operand -> Arrays.stream(operand.columns())).distinct().sorted().toArray();
+    }
+
+    /** The AND of {@code conditions}: null for none, and the condition itself for one. */
+    static BoundExpression and(List<BoundExpression> conditions) {
+        return switch (conditions.size()) {
+            case 0 -> null;
+            case 1 -> conditions.get(0);
+            default -> new And(List.copyOf(conditions));
+        };
+    }
+
+    // Binds expression, or its negation when negated is set
+    static BoundExpression bind(Expression expression, List<ColumnMetadata> columns, ToIntFunction<String> indexOf,
+                                boolean negated) {
+        if (expression instanceof Expression.Not not) {
+            return bind(not.operand(), columns, indexOf, !negated);
+        }
+        if (expression instanceof Expression.And and) {
+            // NOT (a AND b) is NOT a OR NOT b
+            List<BoundExpression> operands = new ArrayList<>();
+            flatten(bind(and.left(), columns, indexOf, negated), negated, operands);
+            flatten(bind(and.right(), columns, indexOf, negated), negated, operands);
+            return negated ? new Or(operands) : new And(operands);
+        }
+        if (expression instanceof Expression.Or or) {
+            List<BoundExpression> operands = new ArrayList<>();
+            flatten(bind(or.left(), columns, indexOf, negated), !negated, operands);
+            flatten(bind(or.right(), columns, indexOf, negated), !negated, operands);
+            return negated ? new And(operands) : new Or(operands);
+        }
+        if (expression instanceof Expression.IsNull isNull) {
+            int column = indexOf.applyAsInt(isNull.column());
+            return new ColumnTest(column, isNull.not() != negated ? Objects::nonNull : Objects::isNull, null);
+        }
+        if (expression instanceof Expression.Between between) {
+            int column = indexOf.applyAsInt(between.column());
+            Range range = Range.parse(columns.get(column).getType(), "BETWEEN", between.low(), between.high());
+            return new ColumnTest(column, negated ? value -> value != null && !range.test(value) : range, null);
+        }
+        Expression.Comparison comparison = (Expression.Comparison) expression;
+        int column = indexOf.applyAsInt(comparison.column());
+        DataType type = columns.get(column).getType();
+        String operator = negated ? complement(comparison.operator()) : comparison.operator();
+        return switch (operator) {
+            case "=" -> {
+                Object key = parseLiteral(type, comparison.literal());
+                yield new ColumnTest(column, equality(type, key), key);
+            }
+            case "<>", "!=" -> {
+                Predicate<Object> equal = equality(type, parseLiteral(type, comparison.literal()));
+                yield new ColumnTest(column, value -> value != null && !equal.test(value), null);
+            }
+            default -> {
+                parseLiteral(type, comparison.literal());
+                yield new ColumnTest(column, Range.parse(type, operator, comparison.literal(), null), null);
+            }
+        };
+    }
+
+    // Adds the operands of a nested AND (or OR) to the operands of the one around it
+    private static void flatten(BoundExpression operand, boolean or, List<BoundExpression> operands) {
+        if (!or && operand instanceof And and) {
+            operands.addAll(and.operands());
+        } else if (or && operand instanceof Or nested) {
+            operands.addAll(nested.operands());
+        } else {
+            operands.add(operand);
+        }
+    }
+
+    private static String complement(String operator) {
+        return switch (operator) {
+            case "=" -> "<>";
+            case "<>", "!=" -> "=";
+            case "<" -> ">=";
+            case "<=" -> ">";
+            case ">" -> "<=";
+            case ">=" -> "<";
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+
+    private static Predicate<Object> equality(DataType type, Object key) {
+        return switch (type) {
+            case INT, FLOAT -> new Range(key, true, key, true);
+            case STRING -> {
+                String literal = (String) key;
+                yield value -> value != null && ((String) value).equalsIgnoreCase(literal);
+            }
+            case BOOLEAN -> key::equals;
+        };
+    }
+
+    private static Object parseLiteral(DataType type, String literal) {
+        try {
+            return switch (type) {
+                case INT -> Integer.parseInt(literal);
+                case FLOAT -> Float.parseFloat(literal);
+                case STRING -> literal;
+                case BOOLEAN -> switch (literal.toLowerCase(Locale.ROOT)) {
+                    case "true" -> Boolean.TRUE;
+                    case "false" -> Boolean.FALSE;
+                    default -> throw new NumberFormatException();
+                };
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + type + " value: " + literal);
+        }
+    }
+}
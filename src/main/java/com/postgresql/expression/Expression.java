@@ -0,0 +1,57 @@
+package com.postgresql.expression;
+
+import com.postgresql.catalog.ColumnMetadata;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A WHERE condition as written: comparisons of a column with a literal, BETWEEN and
+ * IS [NOT] NULL, combined with AND, OR and NOT. Columns and literals are kept as written
+ * until {@link #bind} looks the columns up and parses each literal as its column's type.
+ */
+public sealed interface Expression {
+    /** {@code column operator literal}, the operator one of {@code =, <>, !=, <, <=, >, >=}. */
+    record Comparison(String column, String operator, String literal) implements Expression {
+    }
+
+    record Between(String column, String low, String high) implements Expression {
+    }
+
+    /** {@code column IS NULL}, or {@code IS NOT NULL} when {@code not} is set. */
+    record IsNull(String column, boolean not) implements Expression {
+    }
+
+    record And(Expression left, Expression right) implements Expression {
+    }
+
+    record Or(Expression left, Expression right) implements Expression {
+    }
+
+    record Not(Expression operand) implements Expression {
+    }
+
+    /**
+     * The condition on one column that commands took before WHERE expressions: {@code value}
+     * is compared with {@code operator}, or is "IS NULL" or "IS NOT NULL", and BETWEEN also
+     * takes {@code upperValue}.
+     */
+    static Expression of(String column, String operator, String value, String upperValue) {
+        if (value.equalsIgnoreCase("IS NULL") || value.equalsIgnoreCase("IS NOT NULL")) {
+            return new IsNull(column, value.equalsIgnoreCase("IS NOT NULL"));
+        }
+        return operator.equalsIgnoreCase("BETWEEN")
+                ? new Between(column, value, upperValue)
+                : new Comparison(column, operator, value);
+    }
+
+    /**
+     * This condition over rows of {@code columns}, with column names looked up by
+     * {@code indexOf} and literals parsed as their column's type.
+     *
+     * @throws IllegalArgumentException if a column is unknown or a literal does not parse
+     */
+    default BoundExpression bind(List<ColumnMetadata> columns, ToIntFunction<String> indexOf) {
+        return BoundExpression.bind(this, columns, indexOf, false);
+    }
+}
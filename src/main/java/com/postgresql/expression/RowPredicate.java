@@ -0,0 +1,9 @@
+package com.postgresql.expression;
+
+import java.util.List;
+
+/** A compiled WHERE condition, checked against the values of one row at a time. */
+@FunctionalInterface
+public interface RowPredicate {
+    boolean test(List<Object> row);
+}
@@ -0,0 +1,536 @@
+package com.postgresql.index;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.storage.BufferPool;
+import com.postgresql.storage.HeapFile;
+import com.postgresql.storage.Page;
+import com.postgresql.storage.RecordId;
+import com.postgresql.storage.TupleCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A B+tree over one column of a table, mapping each value to the {@link RecordId}s of the
+ * rows that hold it. The tree lives in its own {@link HeapFile} and is read and written
+ * through the {@link BufferPool} like the table's pages.
+ *
+ * <pre>
+ * meta page (0):  magic (4) | root page (4)
+ * node page:      leaf (1) | entry count (2) | link (4) | entries...
+ * leaf entry:     key | rid page (4) | rid slot (2) [| covered length (2) | covered values]
+ * inner entry:    key | rid page (4) | rid slot (2) | child page (4)
+ * </pre>
+ *
+ * Entries are ordered by key and then by record id, so duplicate keys are allowed and every
+ * entry is unique. A leaf's link is its right sibling; an inner node's link is its leftmost
+ * child, and each entry's child holds the entries at or above it. Nodes split when they
+ * fill up but are never merged; emptied leaves stay in the chain until the index is rebuilt.
+ *
+ * Keys are stored as the column's {@link com.postgresql.storage.TupleCodec} encoding, except
+ * that strings are lowercased and cut to {@value #MAX_KEY_BYTES} bytes, so one lookup finds
+ * both the exact and the case-insensitive matches. A lookup therefore returns a superset of
+ * the matching rows, and callers recheck each row they fetch. NULLs are not indexed.
+ *
+ * A covering index also stores, in each leaf entry, the exact key and the values of its
+ * INCLUDE columns in the row format of {@link TupleCodec}, so {@link #searchCovered} can
+ * answer a query without reading the table. Values longer than {@value #MAX_COVERED_BYTES}
+ * bytes in all are left out, and that entry's row must be read from the table instead.
+ *
+ * Index pages are not logged. The table changes an index before it logs the row change
+ * the index mirrors, so after a crash any index change the last checkpoint missed is
+ * followed by a replayed record, and recovery rebuilds that table's indexes.
+ */
+public final class BTreeIndex {
+    private static final int MAGIC = 0x42545245; // "BTRE"
+    private static final int META_PAGE = 0;
+    private static final int NODE_HEADER = 7;
+    private static final int NODE_CAPACITY = Page.PAGE_SIZE - Page.HEADER_SIZE - NODE_HEADER;
+    private static final int RID_BYTES = 6;
+    private static final int CHILD_BYTES = 4;
+    private static final int LENGTH_BYTES = 2;
+    private static final int NOT_COVERED = 0xFFFF;
+
+    /** Longest string key prefix that is stored. */
+    public static final int MAX_KEY_BYTES = 1024;
+
+    /** Longest encoding of a covering entry's values that is stored; keeps entries under a third of a node. */
+    public static final int MAX_COVERED_BYTES = 1024;
+
+    private final String name;
+    private final int column;
+    private final DataType keyType;
+    private final int[] columns;
+    private final List<ColumnMetadata> coveredColumns;
+    private final HeapFile file;
+    private final BufferPool pool;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int root = -1; // changed under the write lock; -1 until the meta page has been read
+
+    private record Entry(Object key, RecordId rid, int child, byte[] covered) {
+    }
+
+    /** A row found by {@link #searchCovered}: its values for {@link #getColumns()}, or null if they were too long to store. */
+    public record Match(RecordId rid, List<Object> values) {
+    }
+
+    private static final class Node {
+        final int pageId;
+        final boolean leaf;
+        int link = -1;
+        final List<Entry> entries = new ArrayList<>();
+
+        Node(int pageId, boolean leaf) {
+            this.pageId = pageId;
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * An index on {@code columns[0]} of a table with {@code tableColumns}; any further
+     * {@code columns} are stored in the leaves, making it a covering index.
+     */
+    public BTreeIndex(String name, int[] columns, List<ColumnMetadata> tableColumns, HeapFile file) {
+        this.name = name;
+        this.columns = columns.clone();
+        this.column = columns[0];
+        this.keyType = tableColumns.get(column).getType();
+        List<ColumnMetadata> covered = new ArrayList<>();
+        for (int position : columns) {
+            covered.add(tableColumns.get(position));
+        }
+        this.coveredColumns = columns.length > 1 ? List.copyOf(covered) : null;
+        this.file = file;
+        this.pool = BufferPool.getInstance();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Position of the indexed column in the table's rows. */
+    public int getColumn() {
+        return column;
+    }
+
+    /** The indexed column followed by the INCLUDE columns, as positions in the table's rows. */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /** Whether the leaves hold INCLUDE columns, so {@link #searchCovered} can be used. */
+    public boolean isCovering() {
+        return coveredColumns != null;
+    }
+
+    public HeapFile getFile() {
+        return file;
+    }
+
+    /** Whether the index file holds a tree, as opposed to being missing or damaged. */
+    public boolean isValid() {
+        lock.writeLock().lock();
+        try {
+            return root() >= 0;
+        } catch (IllegalStateException e) {
+            return false; // torn meta page
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Empties the index, leaving a tree with a single empty leaf. */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            file.truncate();
+            Page meta = pool.newPage(file);
+            pool.unpinPage(file, meta.getPageId(), true);
+            Node leaf = allocate(true);
+            write(leaf);
+            setRoot(leaf.pageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void insert(Object value, RecordId rid) {
+        if (isCovering()) {
+            throw new IllegalStateException("Index " + name + " is covering; use insertCovered");
+        }
+        insert(toKey(value), rid, null);
+    }
+
+    /** Adds a row to a covering index; {@code values} are the row's values for {@link #getColumns()}. */
+    public void insertCovered(List<Object> values, RecordId rid) {
+        byte[] covered = TupleCodec.encode(values, coveredColumns);
+        insert(toKey(values.get(0)), rid, covered.length <= MAX_COVERED_BYTES ? covered : new byte[0]);
+    }
+
+    private void insert(Object key, RecordId rid, byte[] covered) {
+        if (key == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Node> path = new ArrayList<>();
+            Node node = findLeaf(key, rid, path);
+            node.entries.add(position(node, key, rid), new Entry(key, rid, -1, covered));
+            while (encodedSize(node) > NODE_CAPACITY) {
+                Entry separator = split(node);
+                if (path.isEmpty()) {
+                    Node newRoot = allocate(false);
+                    newRoot.link = node.pageId;
+                    newRoot.entries.add(separator);
+                    write(newRoot);
+                    setRoot(newRoot.pageId);
+                    return;
+                }
+                node = path.remove(path.size() - 1);
+                node.entries.add(position(node, separator.key(), separator.rid()), separator);
+            }
+            write(node);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes the entry for {@code rid} under {@code value}, if there is one. */
+    public void delete(Object value, RecordId rid) {
+        Object key = toKey(value);
+        if (key == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node leaf = findLeaf(key, rid, new ArrayList<>());
+            int pos = position(leaf, key, rid);
+            if (pos < leaf.entries.size() && compare(key, rid, leaf.entries.get(pos)) == 0) {
+                leaf.entries.remove(pos);
+                write(leaf);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The record ids of the rows whose value may equal {@code value}, in index order. Strings
+     * match regardless of case, and long strings only by their first {@value #MAX_KEY_BYTES}
+     * bytes. A null value matches nothing.
+     */
+    public List<RecordId> search(Object value) {
+        if (value == null) {
+            return new ArrayList<>();
+        }
+        return searchRange(value, value);
+    }
+
+    /**
+     * The record ids of the rows whose value may lie between {@code lower} and {@code upper},
+     * both inclusive, in index order; a null bound leaves that end open. Strings compare
+     * regardless of case, and long strings only by their first {@value #MAX_KEY_BYTES} bytes.
+     */
+    public List<RecordId> searchRange(Object lower, Object upper) {
+        List<RecordId> rids = new ArrayList<>();
+        for (Entry entry : scan(lower, upper)) {
+            rids.add(entry.rid());
+        }
+        return rids;
+    }
+
+    /**
+     * Like {@link #searchRange}, but returns each row's values for {@link #getColumns()} as
+     * stored in the index, with the key's exact value, so the table need not be read. Only
+     * for a covering index; the caller rechecks the key as with {@link #searchRange}.
+     */
+    public List<Match> searchCovered(Object lower, Object upper) {
+        if (!isCovering()) {
+            throw new IllegalStateException("Index " + name + " has no INCLUDE columns");
+        }
+        List<Match> matches = new ArrayList<>();
+        for (Entry entry : scan(lower, upper)) {
+            byte[] covered = entry.covered();
+            List<Object> values = covered.length > 0 ? TupleCodec.decode(ByteBuffer.wrap(covered), coveredColumns) : null;
+            matches.add(new Match(entry.rid(), values));
+        }
+        return matches;
+    }
+
+    private List<Entry> scan(Object lower, Object upper) {
+        List<Entry> entries = new ArrayList<>();
+        Object low = toKey(lower);
+        Object high = toKey(upper);
+        lock.readLock().lock();
+        try {
+            Node leaf = findLeaf(low, null, null);
+            while (true) {
+                for (Entry entry : leaf.entries) {
+                    if (high != null && compareKeys(entry.key(), high) > 0) {
+                        return entries;
+                    }
+                    if (low == null || compareKeys(entry.key(), low) >= 0) {
+                        entries.add(entry);
+                    }
+                }
+                if (leaf.link < 0) {
+                    return entries;
+                }
+                leaf = read(leaf.link);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Descends to the leaf where (key, rid) belongs, recording the inner nodes on the way
+    // when path is not null. A null rid sorts before every rid of the same key, and a null
+    // key before every key.
+    private Node findLeaf(Object key, RecordId rid, List<Node> path) {
+        Node node = read(root());
+        while (!node.leaf) {
+            if (path != null) {
+                path.add(node);
+            }
+            int child = node.link;
+            for (Entry entry : node.entries) {
+                if (key == null || compare(key, rid, entry) < 0) {
+                    break;
+                }
+                child = entry.child();
+            }
+            node = read(child);
+        }
+        return node;
+    }
+
+    // Moves the upper half of an overflowing node, by size, to a new right sibling and
+    // returns the entry that separates them in the parent.
+    private Entry split(Node node) {
+        int half = encodedSize(node) / 2;
+        int mid = 0;
+        for (int used = 0; used < half && mid < node.entries.size() - 1; mid++) {
+            used += entrySize(node, node.entries.get(mid));
+        }
+        Node right = allocate(node.leaf);
+        List<Entry> upper = node.entries.subList(mid, node.entries.size());
+        Entry separator;
+        if (node.leaf) {
+            right.entries.addAll(upper);
+            right.link = node.link;
+            node.link = right.pageId;
+            separator = new Entry(right.entries.get(0).key(), right.entries.get(0).rid(), right.pageId, null);
+        } else {
+            Entry middle = upper.get(0);
+            right.link = middle.child();
+            right.entries.addAll(upper.subList(1, upper.size()));
+            separator = new Entry(middle.key(), middle.rid(), right.pageId, null);
+        }
+        upper.clear();
+        write(node);
+        write(right);
+        return separator;
+    }
+
+    // Index of the first entry at or above (key, rid).
+    private int position(Node node, Object key, RecordId rid) {
+        int low = 0;
+        int high = node.entries.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(key, rid, node.entries.get(mid)) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compare(Object key, RecordId rid, Entry entry) {
+        int cmp = compareKeys(key, entry.key());
+        if (cmp != 0) {
+            return cmp;
+        }
+        if (rid == null) {
+            return -1;
+        }
+        cmp = Integer.compare(rid.pageId(), entry.rid().pageId());
+        return cmp != 0 ? cmp : Integer.compare(rid.slot(), entry.rid().slot());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private Object toKey(Object value) {
+        if (value == null || keyType != DataType.STRING) {
+            return value;
+        }
+        String key = value.toString().toLowerCase(Locale.ROOT);
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_KEY_BYTES) {
+            return key;
+        }
+        int end = MAX_KEY_BYTES;
+        while ((bytes[end] & 0xC0) == 0x80) {
+            end--; // don't cut a character in half
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private int root() {
+        if (root < 0 && file.getPageCount() > 0) {
+            Page meta = pool.fetchPage(file, META_PAGE);
+            meta.readLatch().lock();
+            try {
+                ByteBuffer data = meta.getData().position(Page.HEADER_SIZE);
+                if (data.getInt() == MAGIC) {
+                    root = data.getInt();
+                }
+            } finally {
+                meta.readLatch().unlock();
+                pool.unpinPage(file, META_PAGE, false);
+            }
+        }
+        if (root < 0) {
+            throw new IllegalStateException("Index " + name + " has not been built");
+        }
+        return root;
+    }
+
+    private void setRoot(int pageId) {
+        Page meta = pool.fetchPage(file, META_PAGE);
+        meta.writeLatch().lock();
+        try {
+            meta.getData().position(Page.HEADER_SIZE).putInt(MAGIC).putInt(pageId);
+            root = pageId;
+        } finally {
+            pool.unpinPage(file, META_PAGE, true);
+            meta.writeLatch().unlock();
+        }
+    }
+
+    private Node allocate(boolean leaf) {
+        Page page = pool.newPage(file);
+        pool.unpinPage(file, page.getPageId(), true);
+        return new Node(page.getPageId(), leaf);
+    }
+
+    private Node read(int pageId) {
+        Page page = pool.fetchPage(file, pageId);
+        page.readLatch().lock();
+        try {
+            ByteBuffer data = page.getData().position(Page.HEADER_SIZE);
+            Node node = new Node(pageId, data.get() == 1);
+            int count = Short.toUnsignedInt(data.getShort());
+            node.link = data.getInt();
+            for (int i = 0; i < count; i++) {
+                Object key = readKey(data);
+                RecordId rid = new RecordId(data.getInt(), Short.toUnsignedInt(data.getShort()));
+                if (!node.leaf) {
+                    node.entries.add(new Entry(key, rid, data.getInt(), null));
+                } else {
+                    node.entries.add(new Entry(key, rid, -1, isCovering() ? readCovered(data) : null));
+                }
+            }
+            return node;
+        } finally {
+            page.readLatch().unlock();
+            pool.unpinPage(file, pageId, false);
+        }
+    }
+
+    private void write(Node node) {
+        Page page = pool.fetchPage(file, node.pageId);
+        page.writeLatch().lock();
+        try {
+            ByteBuffer data = page.getData().position(Page.HEADER_SIZE);
+            data.put((byte) (node.leaf ? 1 : 0)).putShort((short) node.entries.size()).putInt(node.link);
+            for (Entry entry : node.entries) {
+                writeKey(data, entry.key());
+                data.putInt(entry.rid().pageId()).putShort((short) entry.rid().slot());
+                if (!node.leaf) {
+                    data.putInt(entry.child());
+                } else if (isCovering()) {
+                    writeCovered(data, entry.covered());
+                }
+            }
+        } finally {
+            pool.unpinPage(file, node.pageId, true);
+            page.writeLatch().unlock();
+        }
+    }
+
+    private int encodedSize(Node node) {
+        int size = 0;
+        for (Entry entry : node.entries) {
+            size += entrySize(node, entry);
+        }
+        return size;
+    }
+
+    private int entrySize(Node node, Entry entry) {
+        int size = keySize(entry.key()) + RID_BYTES;
+        if (!node.leaf) {
+            return size + CHILD_BYTES;
+        }
+        return isCovering() ? size + LENGTH_BYTES + entry.covered().length : size;
+    }
+
+    private int keySize(Object key) {
+        return switch (keyType) {
+            case INT, FLOAT -> 4;
+            case BOOLEAN -> 1;
+            case STRING -> 2 + ((String) key).getBytes(StandardCharsets.UTF_8).length;
+        };
+    }
+
+    private void writeKey(ByteBuffer data, Object key) {
+        switch (keyType) {
+            case INT -> data.putInt((Integer) key);
+            case FLOAT -> data.putFloat((Float) key);
+            case BOOLEAN -> data.put((byte) ((Boolean) key ? 1 : 0));
+            case STRING -> {
+                byte[] bytes = ((String) key).getBytes(StandardCharsets.UTF_8);
+                data.putShort((short) bytes.length).put(bytes);
+            }
+        }
+    }
+
+    // An empty array stands for values that were too long to store.
+    private static void writeCovered(ByteBuffer data, byte[] covered) {
+        if (covered.length == 0) {
+            data.putShort((short) NOT_COVERED);
+        } else {
+            data.putShort((short) covered.length).put(covered);
+        }
+    }
+
+    private static byte[] readCovered(ByteBuffer data) {
+        int length = Short.toUnsignedInt(data.getShort());
+        byte[] covered = new byte[length == NOT_COVERED ? 0 : length];
+        data.get(covered);
+        return covered;
+    }
+
+    private Object readKey(ByteBuffer data) {
+        return switch (keyType) {
+            case INT -> data.getInt();
+            case FLOAT -> data.getFloat();
+            case BOOLEAN -> data.get() == 1;
+            case STRING -> {
+                byte[] bytes = new byte[Short.toUnsignedInt(data.getShort())];
+                data.get(bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
@@ -0,0 +1,249 @@
+package com.postgresql.index;
+
+import com.postgresql.common.DataType;
+import com.postgresql.storage.RecordId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory hash index over one column, backing PRIMARY KEY and UNIQUE constraints. A
+ * duplicate check or an equality lookup is a single probe sequence rather than a scan.
+ *
+ * The table is open-addressed with linear probing and kept at most half full. INT keys are
+ * held in a primitive array, other types as objects, and each entry's {@link RecordId} is
+ * packed into a long. A delete shifts the rest of its probe run back instead of leaving a
+ * tombstone, so probe runs do not grow under churn.
+ *
+ * String keys are hashed lowercased: {@link #search} matches them regardless of case, like
+ * the WHERE clause, while {@link #find} compares exact values for the uniqueness check. NULLs
+ * are not indexed. Lookups share a read lock and run alongside each other.
+ *
+ * The index is not stored; the table builds it from its rows when it is first needed.
+ */
+public final class HashIndex {
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int column;
+    private final boolean intKeys;
+    private final boolean foldCase;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] ints;
+    private Object[] keys;
+    private String[] folded;
+    private long[] rids;
+    private int size;
+
+    public HashIndex(int column, DataType keyType) {
+        this.column = column;
+        this.intKeys = keyType == DataType.INT;
+        this.foldCase = keyType == DataType.STRING;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /** Position of the indexed column in the table's rows. */
+    public int getColumn() {
+        return column;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Object value, RecordId rid) {
+        if (value == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (2 * (size + 1) > rids.length) {
+                resize(2 * rids.length);
+            }
+            store(value, pack(rid));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes the entry for {@code rid} under {@code value}, if there is one. */
+    public void remove(Object value, RecordId rid) {
+        if (value == null) {
+            return;
+        }
+        long packed = pack(rid);
+        lock.writeLock().lock();
+        try {
+            Object probe = probeKey(value);
+            for (int slot = home(probe); rids[slot] != EMPTY; slot = next(slot)) {
+                if (rids[slot] == packed && matches(slot, probe)) {
+                    delete(slot);
+                    return;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** The row holding exactly {@code value}, or null if there is none. */
+    public RecordId find(Object value) {
+        if (value == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Object probe = probeKey(value);
+            for (int slot = home(probe); rids[slot] != EMPTY; slot = next(slot)) {
+                if (matches(slot, probe) && (intKeys || keys[slot].equals(value))) {
+                    return unpack(rids[slot]);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The rows whose value equals {@code value}, strings compared regardless of case. */
+    public List<RecordId> search(Object value) {
+        List<RecordId> result = new ArrayList<>();
+        if (value == null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Object probe = probeKey(value);
+            for (int slot = home(probe); rids[slot] != EMPTY; slot = next(slot)) {
+                if (matches(slot, probe)) {
+                    result.add(unpack(rids[slot]));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock and has made room.
+    private void store(Object value, long rid) {
+        Object probe = probeKey(value);
+        int slot = home(probe);
+        while (rids[slot] != EMPTY) {
+            slot = next(slot);
+        }
+        if (intKeys) {
+            ints[slot] = (Integer) value;
+        } else {
+            keys[slot] = value;
+            if (foldCase) {
+                folded[slot] = (String) probe;
+            }
+        }
+        rids[slot] = rid;
+        size++;
+    }
+
+    // Backward-shift deletion: pull later entries of the run into the hole when their home
+    // slot allows it, so every remaining entry is still reachable from its home.
+    private void delete(int slot) {
+        int hole = slot;
+        for (int next = next(hole); rids[next] != EMPTY; next = next(next)) {
+            int home = home(storedProbe(next));
+            int mask = rids.length - 1;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+        }
+        rids[hole] = EMPTY;
+        if (!intKeys) {
+            keys[hole] = null;
+            if (foldCase) {
+                folded[hole] = null;
+            }
+        }
+        size--;
+    }
+
+    private void move(int from, int to) {
+        if (intKeys) {
+            ints[to] = ints[from];
+        } else {
+            keys[to] = keys[from];
+            if (foldCase) {
+                folded[to] = folded[from];
+            }
+        }
+        rids[to] = rids[from];
+    }
+
+    private void resize(int capacity) {
+        int[] oldInts = ints;
+        Object[] oldKeys = keys;
+        long[] oldRids = rids;
+        allocate(capacity);
+        size = 0;
+        for (int slot = 0; slot < oldRids.length; slot++) {
+            if (oldRids[slot] != EMPTY) {
+                store(intKeys ? oldInts[slot] : oldKeys[slot], oldRids[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        rids = new long[capacity];
+        Arrays.fill(rids, EMPTY);
+        if (intKeys) {
+            ints = new int[capacity];
+        } else {
+            keys = new Object[capacity];
+            folded = foldCase ? new String[capacity] : null;
+        }
+    }
+
+    private boolean matches(int slot, Object probe) {
+        if (intKeys) {
+            return ints[slot] == (Integer) probe;
+        }
+        return (foldCase ? folded[slot] : keys[slot]).equals(probe);
+    }
+
+    private Object storedProbe(int slot) {
+        if (intKeys) {
+            return ints[slot];
+        }
+        return foldCase ? folded[slot] : keys[slot];
+    }
+
+    private Object probeKey(Object value) {
+        return foldCase ? ((String) value).toLowerCase(Locale.ROOT) : value;
+    }
+
+    private int home(Object probe) {
+        int h = intKeys ? (Integer) probe : probe.hashCode();
+        h *= 0x9E3779B9; // spread sequential ids across the table
+        return (h ^ (h >>> 16)) & (rids.length - 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (rids.length - 1);
+    }
+
+    private static long pack(RecordId rid) {
+        return ((long) rid.pageId() << 32) | rid.slot();
+    }
+
+    private static RecordId unpack(long rid) {
+        return new RecordId((int) (rid >>> 32), (int) rid);
+    }
+}
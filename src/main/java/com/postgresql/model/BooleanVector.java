@@ -0,0 +1,31 @@
+package com.postgresql.model;
+
+import java.util.BitSet;
+
+/** A BOOLEAN column as a bitset, one bit per row. */
+public final class BooleanVector extends ColumnVector {
+    private final BitSet values = new BitSet();
+
+    BooleanVector() {
+    }
+
+    public boolean getBoolean(int row) {
+        checkIndex(row);
+        return values.get(row);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    protected void appendValue(int row, Object value) {
+        values.set(row, (Boolean) value);
+    }
+
+    @Override
+    protected void appendNull(int row) {
+        // the bit stays clear
+    }
+}
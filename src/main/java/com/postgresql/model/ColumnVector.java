@@ -0,0 +1,133 @@
+package com.postgresql.model;
+
+import com.postgresql.common.DataType;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * One column of a {@link TableSnapshot}, stored as a primitive array rather than as a boxed
+ * value per row. NULLs are tracked in a bitset, so a row that is NULL keeps a placeholder
+ * slot in the values array.
+ *
+ * Vectors are filled once by {@link #append} while a snapshot is built and only read after.
+ */
+public abstract class ColumnVector {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final BitSet nulls = new BitSet();
+    private int size;
+
+    public static ColumnVector of(DataType type) {
+        return switch (type) {
+            case INT -> new IntVector(INITIAL_CAPACITY);
+            case FLOAT -> new FloatVector(INITIAL_CAPACITY);
+            case BOOLEAN -> new BooleanVector();
+            case STRING -> new StringVector(INITIAL_CAPACITY);
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /** The value at {@code row}, boxed, or null. */
+    public Object get(int row) {
+        checkIndex(row);
+        return nulls.get(row) ? null : getValue(row);
+    }
+
+    public void append(Object value) {
+        if (value == null) {
+            nulls.set(size);
+            appendNull(size);
+        } else {
+            appendValue(size, value);
+        }
+        size++;
+    }
+
+    /**
+     * Passes the position of every row whose value lies in {@code range} to {@code rows}, in
+     * row order. Numeric vectors compare their primitives directly; this default boxes each
+     * value.
+     */
+    public void selectRange(Range range, IntConsumer rows) {
+        selectRange(range, 0, size, rows);
+    }
+
+    /** Like {@link #selectRange(Range, IntConsumer)} for the rows from {@code from} up to {@code to} only. */
+    public void selectRange(Range range, int from, int to, IntConsumer rows) {
+        for (int row = from; row < to; row++) {
+            if (!nulls.get(row) && range.test(getValue(row))) {
+                rows.accept(row);
+            }
+        }
+    }
+
+    /**
+     * Writes the rows from {@code from} up to {@code to} whose value lies in {@code range} to
+     * {@code out}, in order, and returns how many there are. {@code out} needs room for
+     * {@code to - from} rows. Numeric vectors compare their primitives in a loop without
+     * branches or calls; this default boxes each value.
+     */
+    public int filterRange(Range range, int from, int to, int[] out) {
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if (!nulls.get(row) && range.test(getValue(row))) {
+                out[count++] = row;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Like {@link #filterRange(Range, int, int, int[])} for the {@code count} rows listed in
+     * {@code rows}. {@code out} may be {@code rows} itself.
+     */
+    public int filterRange(Range range, int[] rows, int count, int[] out) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            if (!nulls.get(row) && range.test(getValue(row))) {
+                out[kept++] = row;
+            }
+        }
+        return kept;
+    }
+
+    protected abstract Object getValue(int row);
+
+    protected abstract void appendValue(int row, Object value);
+
+    protected abstract void appendNull(int row);
+
+    // Removes the NULL rows from the first count of rows, for filters that compare the
+    // placeholder values of NULL rows too; returns how many are left.
+    protected int dropNulls(int[] rows, int count) {
+        if (nulls.isEmpty()) {
+            return count;
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!nulls.get(rows[i])) {
+                rows[kept++] = rows[i];
+            }
+        }
+        return kept;
+    }
+
+    protected void checkIndex(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range for column of " + size + " rows");
+        }
+    }
+
+    static int grow(int capacity, int needed) {
+        return Math.max(needed, capacity + (capacity >> 1) + 1);
+    }
+}
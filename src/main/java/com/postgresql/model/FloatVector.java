@@ -0,0 +1,109 @@
+package com.postgresql.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** A FLOAT column as a {@code float[]}. */
+public final class FloatVector extends ColumnVector {
+    private float[] values;
+
+    FloatVector(int capacity) {
+        values = new float[capacity];
+    }
+
+    public float getFloat(int row) {
+        checkIndex(row);
+        return values[row];
+    }
+
+    @Override
+    public void selectRange(Range range, int from, int to, IntConsumer rows) {
+        boolean hasLow = range.getLower() != null;
+        boolean hasHigh = range.getUpper() != null;
+        float low = hasLow ? ((Number) range.getLower()).floatValue() : 0f;
+        float high = hasHigh ? ((Number) range.getUpper()).floatValue() : 0f;
+        boolean lowInclusive = range.isLowerInclusive();
+        boolean highInclusive = range.isUpperInclusive();
+        for (int row = from; row < to; row++) {
+            // Float.compare orders the same way as the boxed values Range.test compares
+            float value = values[row];
+            if (hasLow) {
+                int cmp = Float.compare(value, low);
+                if (cmp < 0 || (cmp == 0 && !lowInclusive)) {
+                    continue;
+                }
+            }
+            if (hasHigh) {
+                int cmp = Float.compare(value, high);
+                if (cmp > 0 || (cmp == 0 && !highInclusive)) {
+                    continue;
+                }
+            }
+            if (!isNull(row)) {
+                rows.accept(row);
+            }
+        }
+    }
+
+    @Override
+    public int filterRange(Range range, int from, int to, int[] out) {
+        boolean hasLow = range.getLower() != null;
+        boolean hasHigh = range.getUpper() != null;
+        float low = hasLow ? ((Number) range.getLower()).floatValue() : 0f;
+        float high = hasHigh ? ((Number) range.getUpper()).floatValue() : 0f;
+        // Float.compare results that pass each bound: above it, or equal when inclusive
+        int lowMin = range.isLowerInclusive() ? 0 : 1;
+        int highMax = range.isUpperInclusive() ? 0 : -1;
+        float[] v = values;
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            float value = v[row];
+            out[count] = row;
+            boolean pass = (!hasLow | Float.compare(value, low) >= lowMin) & (!hasHigh | Float.compare(value, high) <= highMax);
+            count += pass ? 1 : 0;
+        }
+        return dropNulls(out, count);
+    }
+
+    @Override
+    public int filterRange(Range range, int[] rows, int count, int[] out) {
+        boolean hasLow = range.getLower() != null;
+        boolean hasHigh = range.getUpper() != null;
+        float low = hasLow ? ((Number) range.getLower()).floatValue() : 0f;
+        float high = hasHigh ? ((Number) range.getUpper()).floatValue() : 0f;
+        int lowMin = range.isLowerInclusive() ? 0 : 1;
+        int highMax = range.isUpperInclusive() ? 0 : -1;
+        float[] v = values;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            float value = v[row];
+            out[kept] = row;
+            boolean pass = (!hasLow | Float.compare(value, low) >= lowMin) & (!hasHigh | Float.compare(value, high) <= highMax);
+            kept += pass ? 1 : 0;
+        }
+        return dropNulls(out, kept);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void appendValue(int row, Object value) {
+        ensureCapacity(row + 1);
+        values[row] = ((Number) value).floatValue();
+    }
+
+    @Override
+    protected void appendNull(int row) {
+        ensureCapacity(row + 1);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, needed));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.postgresql.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** An INT column as an {@code int[]}. */
+public final class IntVector extends ColumnVector {
+    private int[] values;
+
+    IntVector(int capacity) {
+        values = new int[capacity];
+    }
+
+    public int getInt(int row) {
+        checkIndex(row);
+        return values[row];
+    }
+
+    @Override
+    public void selectRange(Range range, int from, int to, IntConsumer rows) {
+        long[] bounds = bounds(range);
+        long low = bounds[0];
+        long high = bounds[1];
+        for (int row = from; row < to; row++) {
+            int value = values[row];
+            if (value >= low && value <= high && !isNull(row)) {
+                rows.accept(row);
+            }
+        }
+    }
+
+    @Override
+    public int filterRange(Range range, int from, int to, int[] out) {
+        long[] bounds = bounds(range);
+        if (bounds[0] > bounds[1]) {
+            return 0;
+        }
+        int low = (int) bounds[0];
+        int high = (int) bounds[1];
+        int[] v = values;
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            int value = v[row];
+            out[count] = row;
+            count += (value >= low & value <= high) ? 1 : 0;
+        }
+        return dropNulls(out, count);
+    }
+
+    @Override
+    public int filterRange(Range range, int[] rows, int count, int[] out) {
+        long[] bounds = bounds(range);
+        if (bounds[0] > bounds[1]) {
+            return 0;
+        }
+        int low = (int) bounds[0];
+        int high = (int) bounds[1];
+        int[] v = values;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            int value = v[row];
+            out[kept] = row;
+            kept += (value >= low & value <= high) ? 1 : 0;
+        }
+        return dropNulls(out, kept);
+    }
+
+    // The inclusive bounds of range as longs, so exclusive bounds at the ends of the int
+    // range cannot overflow; the range is empty when the low bound is above the high one.
+    private static long[] bounds(Range range) {
+        long low = Integer.MIN_VALUE;
+        long high = Integer.MAX_VALUE;
+        if (range.getLower() != null) {
+            low = ((Number) range.getLower()).intValue() + (range.isLowerInclusive() ? 0L : 1L);
+        }
+        if (range.getUpper() != null) {
+            high = ((Number) range.getUpper()).intValue() - (range.isUpperInclusive() ? 0L : 1L);
+        }
+        return new long[]{low, high};
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void appendValue(int row, Object value) {
+        ensureCapacity(row + 1);
+        values[row] = ((Number) value).intValue();
+    }
+
+    @Override
+    protected void appendNull(int row) {
+        ensureCapacity(row + 1);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, needed));
+        }
+    }
+}
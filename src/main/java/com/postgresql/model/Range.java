@@ -0,0 +1,119 @@
+package com.postgresql.model;
+
+import com.postgresql.common.DataType;
+
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * A typed range predicate for {@code <}, {@code <=}, {@code >}, {@code >=} and
+ * {@code BETWEEN}: the values between an optional lower and an optional upper bound, each
+ * inclusive or not. Bounds are parsed as the column's type, so numbers compare as numbers;
+ * strings compare without regard to case, like the equality filter. NULL is never in range.
+ */
+public final class Range implements Predicate<Object> {
+    private final Object lower;
+    private final boolean lowerInclusive;
+    private final Object upper;
+    private final boolean upperInclusive;
+
+    public Range(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    /**
+     * The range for {@code column operator value}, or for {@code column BETWEEN value AND
+     * upperValue}, with the bounds parsed as {@code type}.
+     *
+     * @throws IllegalArgumentException if the operator is not a range operator or a bound does not parse
+     */
+    public static Range parse(DataType type, String operator, String value, String upperValue) {
+        Object bound = parseBound(type, value);
+        return switch (operator.toUpperCase(Locale.ROOT)) {
+            case "<" -> new Range(null, false, bound, false);
+            case "<=" -> new Range(null, false, bound, true);
+            case ">" -> new Range(bound, false, null, false);
+            case ">=" -> new Range(bound, true, null, false);
+            case "BETWEEN" -> new Range(bound, true, parseBound(type, upperValue), true);
+            default -> throw new IllegalArgumentException("Not a range operator: " + operator);
+        };
+    }
+
+    /** Lower bound, or null if there is none. */
+    public Object getLower() {
+        return lower;
+    }
+
+    public boolean isLowerInclusive() {
+        return lowerInclusive;
+    }
+
+    /** Upper bound, or null if there is none. */
+    public Object getUpper() {
+        return upper;
+    }
+
+    public boolean isUpperInclusive() {
+        return upperInclusive;
+    }
+
+    @Override
+    public boolean test(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (lower != null) {
+            int cmp = compare(value, lower);
+            if (cmp < 0 || (cmp == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+        if (upper != null) {
+            int cmp = compare(value, upper);
+            return cmp < 0 || (cmp == 0 && upperInclusive);
+        }
+        return true;
+    }
+
+    /** Orders two non-null values of the same column type, strings regardless of case. */
+    @SuppressWarnings("unchecked")
+    public static int compare(Object a, Object b) {
+        if (a instanceof String s && b instanceof String t) {
+            return compareIgnoringCase(s, t);
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    // Orders strings as their lower-case forms would be, a character at a time, so that
+    // comparing allocates nothing
+    private static int compareIgnoringCase(String s, String t) {
+        int length = Math.min(s.length(), t.length());
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            char d = t.charAt(i);
+            if (c != d) {
+                c = Character.toLowerCase(c);
+                d = Character.toLowerCase(d);
+                if (c != d) {
+                    return c - d;
+                }
+            }
+        }
+        return s.length() - t.length();
+    }
+
+    private static Object parseBound(DataType type, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing range bound");
+        }
+        return switch (type) {
+            case INT -> Integer.parseInt(value);
+            case FLOAT -> Float.parseFloat(value);
+            case BOOLEAN -> Boolean.parseBoolean(value);
+            case STRING -> value;
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package com.postgresql.model;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.expression.RowPredicate;
+import com.postgresql.storage.TupleCodec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the rows a scan returns from the rows that pass its column test, with only the
+ * columns the query reads boxed or decoded. The columns a {@code filter} reads are built
+ * first, and the other columns only for the rows it accepts. Rows keep the table's width,
+ * with the columns the query does not read left null, so column positions stay those of
+ * the table.
+ *
+ * Builders hold no per-row state, so the tasks of a parallel scan can share one.
+ */
+public final class RowBuilder {
+    private final int width;
+    private final int[] columns;
+    private final RowPredicate filter;
+    private final int[] filterColumns;
+    private final int[] otherColumns;
+
+    /** Builds the {@code columns} of rows {@code width} columns wide, keeping those that pass {@code filter} unless it is null. */
+    public RowBuilder(int width, int[] columns, RowPredicate filter, int[] filterColumns) {
+        this.width = width;
+        this.columns = columns.clone();
+        this.filter = filter;
+        this.filterColumns = filter != null ? filterColumns.clone() : new int[0];
+        this.otherColumns = Arrays.stream(columns)
+                .filter(column -> Arrays.stream(this.filterColumns).noneMatch(read -> read == column))
+                .toArray();
+    }
+
+    /** Builds every column of rows {@code width} columns wide, and keeps them all. */
+    public static RowBuilder all(int width) {
+        return new RowBuilder(width, IntStream.range(0, width).toArray(), null, null);
+    }
+
+    /** The columns built, in table order. */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /** Whether a row built in full, such as a tuple read through the buffer pool, passes the filter. */
+    public boolean accepts(List<Object> row) {
+        return filter == null || filter.test(row);
+    }
+
+    /** The row at {@code row} of {@code snapshot}, or null when the filter rejects it. */
+    public List<Object> build(TableSnapshot snapshot, int row) {
+        Object[] values = new Object[width];
+        snapshot.fill(row, filterColumns, values);
+        List<Object> built = Collections.unmodifiableList(Arrays.asList(values));
+        if (filter != null && !filter.test(built)) {
+            return null;
+        }
+        snapshot.fill(row, otherColumns, values);
+        return built;
+    }
+
+    /** The row encoded in {@code record}, laid out as {@code columns}, or null when the filter rejects it. */
+    public List<Object> build(ByteBuffer record, List<ColumnMetadata> columns) {
+        Object[] values = new Object[width];
+        TupleCodec.decodeColumnsInPlace(record, columns, filterColumns, values);
+        List<Object> built = Collections.unmodifiableList(Arrays.asList(values));
+        if (filter != null && !filter.test(built)) {
+            return null;
+        }
+        TupleCodec.decodeColumnsInPlace(record, columns, otherColumns, values);
+        return built;
+    }
+}
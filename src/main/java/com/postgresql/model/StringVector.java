@@ -0,0 +1,53 @@
+package com.postgresql.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A STRING column as one UTF-8 byte array holding every value back to back, with
+ * {@code offsets[row]} to {@code offsets[row + 1]} marking where each row's bytes are.
+ * A String is only created when a value is read.
+ */
+public final class StringVector extends ColumnVector {
+    private int[] offsets;
+    private byte[] bytes;
+
+    StringVector(int capacity) {
+        offsets = new int[capacity + 1];
+        bytes = new byte[capacity * 8];
+    }
+
+    public String getString(int row) {
+        checkIndex(row);
+        return isNull(row) ? null : (String) getValue(row);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        int start = offsets[row];
+        return new String(bytes, start, offsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void appendValue(int row, Object value) {
+        byte[] encoded = value.toString().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(row + 2, offsets[row] + encoded.length);
+        System.arraycopy(encoded, 0, bytes, offsets[row], encoded.length);
+        offsets[row + 1] = offsets[row] + encoded.length;
+    }
+
+    @Override
+    protected void appendNull(int row) {
+        ensureCapacity(row + 2, offsets[row]);
+        offsets[row + 1] = offsets[row];
+    }
+
+    private void ensureCapacity(int offsetCount, int byteCount) {
+        if (offsetCount > offsets.length) {
+            offsets = Arrays.copyOf(offsets, grow(offsets.length, offsetCount));
+        }
+        if (byteCount > bytes.length) {
+            bytes = Arrays.copyOf(bytes, grow(bytes.length, byteCount));
+        }
+    }
+}
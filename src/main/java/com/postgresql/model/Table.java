@@ -2,19 +2,34 @@ package com.postgresql.model;
 
 import com.postgresql.catalog.ColumnMetadata;
 import com.postgresql.catalog.TableMetadata;
+import com.postgresql.execution.MorselQueue;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.expression.BoundExpression;
+import com.postgresql.expression.RowPredicate;
+import com.postgresql.index.BTreeIndex;
+import com.postgresql.storage.BufferPool;
+import com.postgresql.storage.RecordId;
 import com.postgresql.storage.TableHeap;
 
-import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-public class Table implements Serializable {
-    private static final long serialVersionUID = 1L;
+public class Table {
+    // Re-analyze once the row count has moved by more than this many rows plus this fraction
+    // of the count the statistics saw, as PostgreSQL's autoanalyze does by default.
+    private static final long ANALYZE_BASE_ROWS = 50;
+    private static final double ANALYZE_FRACTION = 0.1;
 
     private final String name;
     private final TableMetadata metadata;
     private final TableHeap tableHeap;
+    private volatile TableSnapshot snapshot;
+    private volatile TableStatistics statistics;
 
     public Table(String name, TableMetadata metadata, TableHeap tableHeap) {
         this.name = name;
@@ -42,8 +57,215 @@ public class Table implements Serializable {
         return tableHeap.scanAllTuples();
     }
 
+    /**
+     * The table's rows as of now, with read-only values. Repeated calls share one snapshot
+     * until the table changes, as long as the table fits in the buffer pool; larger tables
+     * are read from their pages every time. The caller must {@link TableSnapshot#release()}
+     * the snapshot when done, so an off-heap one can close its arena once it is replaced.
+     */
+    public TableSnapshot snapshot() {
+        TableSnapshot cached = snapshot;
+        while (isCurrent(cached, tableHeap.getVersion())) {
+            if (cached.retain()) {
+                return cached;
+            }
+            cached = snapshot; // released while being replaced; look again
+        }
+
+        TableSnapshot fresh = tableHeap.scanSnapshot();
+        long scanned = fresh.getVersion();
+        // Only a scan that no writer overlapped is a true picture of that version.
+        boolean consistent = scanned % 2 == 0 && tableHeap.getVersion() == scanned;
+        if (consistent && fitsInBufferPool()) {
+            fresh.retain(); // the table's own reference
+            TableSnapshot replaced;
+            synchronized (this) {
+                replaced = snapshot;
+                snapshot = fresh;
+            }
+            if (replaced != null) {
+                replaced.release();
+            }
+        }
+        return fresh;
+    }
+
+    /** Whether {@link #snapshot()} would return a shared snapshot without reading the table. */
+    public boolean hasCurrentSnapshot() {
+        return isCurrent(snapshot, tableHeap.getVersion());
+    }
+
+    /**
+     * Passes every row to {@code action} without modifying it. Uses the current snapshot
+     * when there is one, and otherwise reads the table a page at a time.
+     */
+    public void forEachRow(Consumer<Tuple> action) {
+        if (fitsInBufferPool() || isCurrent(snapshot, tableHeap.getVersion())) {
+            forEachSnapshotMatch(-1, null, action);
+        } else {
+            tableHeap.forEachTuple(action);
+        }
+    }
+
+    /**
+     * Passes every row whose {@code column} value satisfies {@code test} to {@code action};
+     * a {@code column} of -1 passes every row. Tables too large for the buffer pool are
+     * scanned from the memory-mapped file, where rows that fail the test are never built.
+     */
+    public void forEachMatch(int column, Predicate<Object> test, Consumer<Tuple> action) {
+        if (fitsInBufferPool()) {
+            forEachSnapshotMatch(column, test, action);
+            return;
+        }
+        int[] allColumns = new int[metadata.getColumns().size()];
+        for (int i = 0; i < allColumns.length; i++) {
+            allColumns[i] = i;
+        }
+        tableHeap.scanMapped(column, test, allColumns,
+                values -> action.accept(new Tuple(Collections.unmodifiableList(Arrays.asList(values)))));
+    }
+
+    /**
+     * Like {@link #forEachMatch(int, Predicate, Consumer)}, but when {@code column} is indexed
+     * only the rows the index holds under {@code key} are read. {@code test} must accept only
+     * values equal to {@code key}, ignoring case; a null key always scans.
+     */
+    public void forEachMatch(int column, Object key, Predicate<Object> test, Consumer<Tuple> action) {
+        List<RecordId> indexed = key != null ? tableHeap.lookup(column, key) : null;
+        if (indexed != null) {
+            fetchMatches(indexed, column, test).forEach(action);
+        } else {
+            forEachMatch(column, test, action);
+        }
+    }
+
+    /**
+     * Like {@link #forEachMatch(int, Object, Predicate, Consumer)} for a query that reads only
+     * the {@code needed} columns. When a covering index on {@code column} stores all of them,
+     * the rows are answered from the index without reading the table, and the tuples passed
+     * to {@code action} hold only the columns the index stores, the others being null.
+     */
+    public void forEachMatch(int[] needed, int column, Object key, Predicate<Object> test, Consumer<Tuple> action) {
+        BTreeIndex covering = key != null ? tableHeap.getCoveringIndex(column, needed) : null;
+        if (covering != null) {
+            forEachCovered(covering, covering.searchCovered(key, key), test, action);
+        } else {
+            forEachMatch(column, key, test, action);
+        }
+    }
+
+    /**
+     * Like {@link #forEachInRange(int, Range, Consumer)} for a query that reads only the
+     * {@code needed} columns, answered from a covering index as with
+     * {@link #forEachMatch(int[], int, Object, Predicate, Consumer)} when there is one.
+     */
+    public void forEachInRange(int[] needed, int column, Range range, Consumer<Tuple> action) {
+        BTreeIndex covering = tableHeap.getCoveringIndex(column, needed);
+        if (covering != null) {
+            forEachCovered(covering, covering.searchCovered(range.getLower(), range.getUpper()), range, action);
+        } else {
+            forEachInRange(column, range, action);
+        }
+    }
+
+    /**
+     * Passes every row whose {@code column} value lies in {@code range} to {@code action}. A
+     * column with a B+tree index is read with an index range scan; otherwise the snapshot's
+     * column is filtered with typed comparisons, and tables too large for the buffer pool
+     * are scanned from the mapped file.
+     */
+    public void forEachInRange(int column, Range range, Consumer<Tuple> action) {
+        List<RecordId> indexed = tableHeap.lookupRange(column, range.getLower(), range.getUpper());
+        if (indexed != null) {
+            fetchMatches(indexed, column, range).forEach(action);
+        } else if (fitsInBufferPool()) {
+            TableSnapshot current = snapshot();
+            try {
+                current.forEachInRange(column, range, action);
+            } finally {
+                current.release();
+            }
+        } else {
+            forEachMatch(column, range, action);
+        }
+    }
+
+    /**
+     * The rows whose {@code column} value passes {@code test}, as tuples that may be changed
+     * and written back with {@link TableHeap#updateTuple}. When the column is indexed and
+     * {@code key} is not null, only the index entries for {@code key} are visited, so
+     * {@code test} must accept only values equal to {@code key}, ignoring case. Otherwise
+     * large tables are searched a morsel of pages per worker at a time; see {@link Parallelism}.
+     */
+    public List<Tuple> findTuples(int column, Object key, Predicate<Object> test) {
+        return searchTuples(column, key, row -> test.test(row.get(column)));
+    }
+
+    /**
+     * The rows that meet {@code condition}, found like {@link #findTuples(int, Object, Predicate)}:
+     * an equality that must hold on an indexed column narrows the search to its index entries.
+     */
+    public List<Tuple> findTuples(BoundExpression condition) {
+        RowPredicate test = condition.compile();
+        for (BoundExpression conjunct : condition.conjuncts()) {
+            if (conjunct instanceof BoundExpression.ColumnTest columnTest && columnTest.key() != null
+                    && tableHeap.hasIndex(columnTest.column())) {
+                return searchTuples(columnTest.column(), columnTest.key(), test);
+            }
+        }
+        return searchTuples(-1, null, test);
+    }
+
+    // The rows passing test; column and key are only used for an index lookup
+    private List<Tuple> searchTuples(int column, Object key, RowPredicate test) {
+        List<RecordId> indexed = key != null ? tableHeap.lookup(column, key) : null;
+        if (indexed != null) {
+            return fetchMatches(indexed, test);
+        }
+        // Collects matches first, so rows moved by an update are not visited twice.
+        int pageCount = tableHeap.getFile().getPageCount();
+        int workers = Parallelism.getWorkers();
+        if (workers == 1 || pageCount < 2 * Parallelism.MORSEL_PAGES) {
+            return findInPages(0, pageCount, test);
+        }
+        List<Tuple> matches = new ArrayList<>();
+        int morsels = Parallelism.morsels(pageCount, Parallelism.MORSEL_PAGES);
+        try (MorselQueue<List<Tuple>> queue = new MorselQueue<>(morsels, workers,
+                morsel -> findInPages(morsel * Parallelism.MORSEL_PAGES, Parallelism.MORSEL_PAGES, test))) {
+            while (queue.hasNext()) {
+                matches.addAll(queue.next());
+            }
+        }
+        return matches;
+    }
+
+    private List<Tuple> findInPages(int firstPage, int pageCount, RowPredicate test) {
+        List<Tuple> matches = new ArrayList<>();
+        tableHeap.forEachTuple(firstPage, pageCount, tuple -> {
+            if (test.test(tuple.getValues())) {
+                matches.add(tuple);
+            }
+        });
+        return matches;
+    }
+
     public int getRowCount() {
-        return tableHeap.scanAllTuples().size();
+        return (int) tableHeap.getRowCount();
+    }
+
+    /**
+     * The table's statistics for planning, gathered on first use and gathered again once
+     * enough rows have been inserted or deleted since, or a column has been added.
+     */
+    public TableStatistics getStatistics() {
+        TableStatistics current = statistics;
+        long rows = tableHeap.getRowCount();
+        if (current == null || current.getColumnCount() != metadata.getColumns().size()
+                || Math.abs(rows - current.getRowCount()) > ANALYZE_BASE_ROWS + ANALYZE_FRACTION * current.getRowCount()) {
+            current = TableStatistics.analyze(this);
+            statistics = current;
+        }
+        return current;
     }
 
     public int updateTuples(String targetColumn, String newValue, String whereColumn, String whereValue) {
@@ -53,36 +275,80 @@ public class Table implements Serializable {
         Object parsedWhereValue = parseValue(whereColumn, whereValue);
         Object parsedNewValue = parseValue(targetColumn, newValue);
 
-        List<Tuple> tuples = tableHeap.scanAllTuples();
-        int updated = 0;
-
-        for (Tuple tuple : tuples) {
-            Object actualValue = tuple.getValues().get(whereIndex);
-            if (Objects.equals(actualValue, parsedWhereValue)) {
-                tuple.getValues().set(targetIndex, parsedNewValue);
-                updated++;
-            }
+        List<Tuple> matches = findTuples(whereIndex, parsedWhereValue, value -> Objects.equals(value, parsedWhereValue));
+        for (Tuple tuple : matches) {
+            tuple.getValues().set(targetIndex, parsedNewValue);
+            tableHeap.updateTuple(tuple);
         }
 
-        return updated;
+        return matches.size();
     }
 
     public int deleteTuples(String whereColumn, String whereValue) {
         int whereIndex = metadata.getColumnIndex(whereColumn);
         Object parsedWhereValue = parseValue(whereColumn, whereValue);
 
-        List<Tuple> tuples = tableHeap.scanAllTuples();
-        List<Tuple> toRemove = new ArrayList<>();
+        List<Tuple> toRemove = findTuples(whereIndex, parsedWhereValue, value -> Objects.equals(value, parsedWhereValue));
+        tableHeap.deleteTuples(toRemove);
+        return toRemove.size();
+    }
+
+    private List<Tuple> fetchMatches(List<RecordId> rids, int column, Predicate<Object> test) {
+        return fetchMatches(rids, row -> test.test(row.get(column)));
+    }
 
-        for (Tuple tuple : tuples) {
-            Object actualValue = tuple.getValues().get(whereIndex);
-            if (Objects.equals(actualValue, parsedWhereValue)) {
-                toRemove.add(tuple);
+    private List<Tuple> fetchMatches(List<RecordId> rids, RowPredicate test) {
+        List<Tuple> matches = new ArrayList<>();
+        for (Tuple tuple : tableHeap.fetchTuples(rids)) {
+            if (test.test(tuple.getValues())) {
+                matches.add(tuple);
             }
         }
+        return matches;
+    }
 
-        tableHeap.deleteTuples(toRemove);
-        return toRemove.size();
+    // Rebuilds rows from a covering index's entries, rechecking the exact key. Entries whose
+    // values were too long to store in the index are read from the table.
+    private void forEachCovered(BTreeIndex index, List<BTreeIndex.Match> entries, Predicate<Object> test, Consumer<Tuple> action) {
+        int[] columns = index.getColumns();
+        List<RecordId> uncovered = new ArrayList<>();
+        for (BTreeIndex.Match entry : entries) {
+            if (entry.values() == null) {
+                uncovered.add(entry.rid());
+                continue;
+            }
+            if (test.test(entry.values().get(0))) {
+                Object[] row = new Object[metadata.getColumns().size()];
+                for (int i = 0; i < columns.length; i++) {
+                    row[columns[i]] = entry.values().get(i);
+                }
+                Tuple tuple = new Tuple(Collections.unmodifiableList(Arrays.asList(row)));
+                tuple.setRecordId(entry.rid());
+                action.accept(tuple);
+            }
+        }
+        if (!uncovered.isEmpty()) {
+            fetchMatches(uncovered, index.getColumn(), test).forEach(action);
+        }
+    }
+
+    private void forEachSnapshotMatch(int column, Predicate<Object> test, Consumer<Tuple> action) {
+        TableSnapshot current = snapshot();
+        try {
+            current.forEachMatch(column, test, action);
+        } finally {
+            current.release();
+        }
+    }
+
+    /** Whether the table's pages fit in the buffer pool, so that its snapshot is kept in memory. */
+    public boolean fitsInBufferPool() {
+        return tableHeap.getFile().getPageCount() <= BufferPool.getInstance().getCapacity();
+    }
+
+    private boolean isCurrent(TableSnapshot cached, long version) {
+        return cached != null && cached.getVersion() == version
+                && cached.getColumnCount() == metadata.getColumns().size();
     }
 
     private Object parseValue(String columnName, String value) {
@@ -0,0 +1,240 @@
+package com.postgresql.model;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.storage.OffHeapArena;
+import com.postgresql.storage.RecordId;
+import com.postgresql.storage.TupleCodec;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * The rows of a table as of one version of its heap file. Snapshots are immutable, so
+ * any number of readers can share one until the table changes.
+ *
+ * A {@link StorageMode#HEAP} snapshot holds its rows column by column in primitive
+ * {@link ColumnVector}s; an {@link StorageMode#OFF_HEAP} one keeps the encoded rows in an
+ * {@link OffHeapArena} and decodes them as they are read. Either way each row's
+ * {@link RecordId} is packed into a long. {@link #getRows()} offers the rows as tuples, built
+ * one at a time as they are read; {@link #forEachMatch} only decodes the filtered column
+ * until a row matches.
+ *
+ * Snapshots are reference counted like pinned pages: whoever obtains one releases it when
+ * done, and an off-heap snapshot closes its arena when the last reference is released, so
+ * the collector can reclaim the arena's memory once nothing else reaches it.
+ */
+public final class TableSnapshot {
+    private final long version;
+    private final List<ColumnMetadata> columns;
+    private final ColumnVector[] vectors;
+    private final OffHeapArena arena;
+    private final int[] allColumns;
+    private Object[] decoded;
+    private long[] addresses;
+    private long[] recordIds = new long[16];
+    private int size;
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final List<Tuple> rows = new RowView();
+
+    /** An empty snapshot holding one reference, for its creator to fill with {@link #append}. */
+    public TableSnapshot(long version, List<ColumnMetadata> columns, StorageMode storageMode) {
+        this.version = version;
+        this.columns = List.copyOf(columns);
+        this.allColumns = new int[this.columns.size()];
+        for (int i = 0; i < allColumns.length; i++) {
+            allColumns[i] = i;
+        }
+        if (storageMode == StorageMode.OFF_HEAP) {
+            this.vectors = null;
+            this.arena = new OffHeapArena();
+            this.addresses = new long[16];
+        } else {
+            this.vectors = new ColumnVector[allColumns.length];
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = ColumnVector.of(this.columns.get(i).getType());
+            }
+            this.arena = null;
+        }
+    }
+
+    /** Adds an encoded row while the snapshot is being built; not for use once it is shared. */
+    public void append(RecordId recordId, ByteBuffer record) {
+        if (size == recordIds.length) {
+            int capacity = ColumnVector.grow(size, size + 1);
+            recordIds = Arrays.copyOf(recordIds, capacity);
+            if (addresses != null) {
+                addresses = Arrays.copyOf(addresses, capacity);
+            }
+        }
+        recordIds[size] = ((long) recordId.pageId() << 32) | recordId.slot();
+        if (arena != null) {
+            addresses[size] = arena.put(record);
+        } else {
+            if (decoded == null) {
+                decoded = new Object[allColumns.length];
+            }
+            TupleCodec.decodeColumns(record, columns, allColumns, decoded);
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i].append(decoded[i]);
+            }
+        }
+        size++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public StorageMode getStorageMode() {
+        return arena != null ? StorageMode.OFF_HEAP : StorageMode.HEAP;
+    }
+
+    /** The vector holding one column of a {@link StorageMode#HEAP} snapshot. */
+    public ColumnVector getColumn(int index) {
+        if (vectors == null) {
+            throw new IllegalStateException("Off-heap snapshots are read by row, not by column");
+        }
+        return vectors[index];
+    }
+
+    /** The rows as read-only tuples, created on access. */
+    public List<Tuple> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the values of {@code columns} of the row at {@code row} to their positions in
+     * {@code values}, leaving its other entries as they are. Only those columns are boxed or
+     * decoded.
+     */
+    public void fill(int row, int[] columns, Object[] values) {
+        if (vectors != null) {
+            for (int column : columns) {
+                values[column] = vectors[column].get(row);
+            }
+        } else {
+            TupleCodec.decodeColumnsInPlace(arena.get(addresses[row]), this.columns, columns, values);
+        }
+    }
+
+    /**
+     * Passes every row whose {@code column} value satisfies {@code test} to {@code action};
+     * a {@code column} of -1 passes every row.
+     */
+    public void forEachMatch(int column, Predicate<Object> test, Consumer<Tuple> action) {
+        select(column, test, 0, size, row -> action.accept(rowAt(row)));
+    }
+
+    /**
+     * Passes the position of every row from {@code from} up to {@code to} whose {@code column}
+     * value satisfies {@code test} to {@code rows}; a {@code column} of -1 passes every row.
+     * A {@link Range} over a heap snapshot compares the column's primitive values.
+     */
+    public void select(int column, Predicate<Object> test, int from, int to, IntConsumer rows) {
+        if (column >= 0 && vectors != null && test instanceof Range range) {
+            vectors[column].selectRange(range, from, to, rows);
+            return;
+        }
+        int[] projection = {column};
+        Object[] value = new Object[1];
+        for (int row = from; row < to; row++) {
+            if (column >= 0) {
+                if (vectors != null) {
+                    value[0] = vectors[column].get(row);
+                } else {
+                    TupleCodec.decodeColumns(arena.get(addresses[row]), columns, projection, value);
+                }
+                if (!test.test(value[0])) {
+                    continue;
+                }
+            }
+            rows.accept(row);
+        }
+    }
+
+    /**
+     * Passes every row whose {@code column} value lies in {@code range} to {@code action}.
+     * Heap snapshots compare the column's primitive values without boxing them.
+     */
+    public void forEachInRange(int column, Range range, Consumer<Tuple> action) {
+        if (vectors == null) {
+            forEachMatch(column, range, action);
+            return;
+        }
+        vectors[column].selectRange(range, row -> action.accept(rowAt(row)));
+    }
+
+    /**
+     * Takes another reference, or returns false if the snapshot has already been released
+     * for good and must not be read.
+     */
+    public boolean retain() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Drops a reference; the last one closes an off-heap snapshot's arena. */
+    public void release() {
+        int remaining = references.decrementAndGet();
+        if (remaining < 0) {
+            throw new IllegalStateException("Snapshot released more times than it was retained");
+        }
+        if (remaining == 0 && arena != null) {
+            arena.close();
+        }
+    }
+
+    private Tuple rowAt(int row) {
+        Object[] values = new Object[allColumns.length];
+        if (vectors != null) {
+            for (int i = 0; i < vectors.length; i++) {
+                values[i] = vectors[i].get(row);
+            }
+        } else {
+            TupleCodec.decodeColumns(arena.get(addresses[row]), columns, allColumns, values);
+        }
+        Tuple tuple = new Tuple(Collections.unmodifiableList(Arrays.asList(values)));
+        long rid = recordIds[row];
+        tuple.setRecordId(new RecordId((int) (rid >>> 32), (int) rid));
+        return tuple;
+    }
+
+    private final class RowView extends AbstractList<Tuple> implements RandomAccess {
+        @Override
+        public Tuple get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Row " + index + " out of range for " + size + " rows");
+            }
+            return rowAt(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.postgresql.model;
+
+import com.postgresql.catalog.ColumnMetadata;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What the planner knows about a table's contents: how many rows it held when it was last
+ * analyzed and how many distinct non-null values each column held then. Statistics are
+ * gathered by one pass over the rows; PRIMARY KEY and UNIQUE columns are known to have one
+ * value per non-null row, so their values are not collected.
+ */
+public final class TableStatistics {
+    private final long rowCount;
+    private final long[] distinctCounts;
+
+    private TableStatistics(long rowCount, long[] distinctCounts) {
+        this.rowCount = rowCount;
+        this.distinctCounts = distinctCounts;
+    }
+
+    /** Reads every row of {@code table} to count its rows and each column's distinct values. */
+    public static TableStatistics analyze(Table table) {
+        List<ColumnMetadata> columns = table.getMetadata().getColumns();
+        int width = columns.size();
+        List<Set<Object>> values = new ArrayList<>(width);
+        for (ColumnMetadata column : columns) {
+            values.add(column.getConstraint().isUnique() ? null : new HashSet<>());
+        }
+        long[] nonNull = new long[width];
+        long[] rows = new long[1];
+        table.forEachRow(tuple -> {
+            rows[0]++;
+            List<Object> row = tuple.getValues();
+            for (int i = 0; i < width; i++) {
+                Object value = row.get(i);
+                if (value != null) {
+                    nonNull[i]++;
+                    if (values.get(i) != null) {
+                        values.get(i).add(value);
+                    }
+                }
+            }
+        });
+        long[] distinct = new long[width];
+        for (int i = 0; i < width; i++) {
+            distinct[i] = values.get(i) != null ? values.get(i).size() : nonNull[i];
+        }
+        return new TableStatistics(rows[0], distinct);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return distinctCounts.length;
+    }
+
+    /** Number of distinct non-null values in {@code column}. */
+    public long getDistinctCount(int column) {
+        return distinctCounts[column];
+    }
+}
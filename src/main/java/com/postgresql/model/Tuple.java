@@ -1,32 +1,40 @@
 package com.postgresql.model;
 
 import com.postgresql.catalog.TableMetadata;
+import com.postgresql.storage.RecordId;
 
-import java.io.Serializable;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class Tuple implements Serializable {
-    private static final long serialVersionUID = 1L;
-
+public class Tuple {
     private final List<Object> values;
-    private transient ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Created on first use; most tuples are read once and never locked.
+    private volatile ReentrantReadWriteLock lock;
+    private RecordId recordId;
 
     public Tuple(List<Object> values) {
         this.values = values;
-        this.lock = new ReentrantReadWriteLock();
     }
 
-    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
-        in.defaultReadObject();
-        this.lock = new java.util.concurrent.locks.ReentrantReadWriteLock();
+    public void acquireReadLock() { lock().readLock().lock(); }
+    public void releaseReadLock() { lock().readLock().unlock(); }
+    public void acquireWriteLock() { lock().writeLock().lock(); }
+    public void releaseWriteLock() { lock().writeLock().unlock(); }
+
+    private ReentrantReadWriteLock lock() {
+        ReentrantReadWriteLock current = lock;
+        if (current == null) {
+            synchronized (this) {
+                current = lock;
+                if (current == null) {
+                    current = new ReentrantReadWriteLock();
+                    lock = current;
+                }
+            }
+        }
+        return current;
     }
 
-    public void acquireReadLock() { lock.readLock().lock(); }
-    public void releaseReadLock() { lock.readLock().unlock(); }
-    public void acquireWriteLock() { lock.writeLock().lock(); }
-    public void releaseWriteLock() { lock.writeLock().unlock(); }
-
     public List<Object> getValues() {
         return values;
     }
@@ -36,6 +44,15 @@ public class Tuple implements Serializable {
         return values.get(index);
     }
 
+    /** Where this tuple is stored, or null if it has not been inserted yet. */
+    public RecordId getRecordId() {
+        return recordId;
+    }
+
+    public void setRecordId(RecordId recordId) {
+        this.recordId = recordId;
+    }
+
     @Override
     public String toString() {
         return values.toString();
@@ -1,11 +1,15 @@
 package com.postgresql.parser;
 
+import com.postgresql.catalog.ColumnConstraint;
 import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.StorageMode;
 import com.postgresql.cli.ConsoleUI;
 import com.postgresql.command.*;
 import com.postgresql.common.CommandConstants;
 import com.postgresql.common.DataType;
 import com.postgresql.exception.InvalidSyntaxException;
+import com.postgresql.execution.AggregateFunction;
+import com.postgresql.expression.Expression;
 
 import java.util.*;
 import java.util.function.Function;
@@ -18,10 +22,13 @@ public class CommandParser {
     static {
         parserMap.put(CommandConstants.ALTER, CommandParser::parseAlterTable);
         parserMap.put(CommandConstants.CREATE, CommandParser::parseCreateTable);
+        parserMap.put(CommandConstants.CREATE_INDEX, CommandParser::parseCreateIndex);
         parserMap.put(CommandConstants.INSERT, CommandParser::parseInsert);
         parserMap.put(CommandConstants.SELECT, CommandParser::parseSelect);
         parserMap.put(CommandConstants.UPDATE, CommandParser::parseUpdate);
         parserMap.put(CommandConstants.DELETE, CommandParser::parseDelete);
+        parserMap.put(CommandConstants.VACUUM, CommandParser::parseVacuum);
+        parserMap.put(CommandConstants.SET, CommandParser::parseSet);
     }
 
     public static Command parse(String input) {
@@ -43,9 +50,15 @@ public class CommandParser {
     }
 
     // -------------------------------
-    // CREATE TABLE users (id INT, name STRING)
+    // CREATE TABLE users (id INT PRIMARY KEY, email STRING UNIQUE, name STRING) [WITH (storage = off_heap)]
     private static Command parseCreateTable(String input) {
         try {
+            StorageMode storageMode = StorageMode.HEAP;
+            Matcher with = Pattern.compile("(?i)\\)\\s*WITH\\s*\\(\\s*storage\\s*=\\s*(\\w+)\\s*\\)\\s*;?\\s*$").matcher(input);
+            if (with.find()) {
+                storageMode = StorageMode.valueOf(with.group(1).toUpperCase());
+                input = input.substring(0, with.start() + 1);
+            }
             String[] parts = input.split("\\(", 2);
             String tableName = parts[0].trim().split("\\s+")[2];
             String[] columnDefs = parts[1].replaceAll("\\)", "").split(",");
@@ -53,24 +66,31 @@ public class CommandParser {
             List<ColumnMetadata> columns = new ArrayList<>();
             for (String def : columnDefs) {
                 String[] colParts = def.trim().split("\\s+");
-                if (colParts.length != 2) {
+                if (colParts.length < 2) {
                     ConsoleUI.printUnsupportedCommand(input);
                     throw new InvalidSyntaxException("Invalid column: " + def);
                 }
 
                 String columnName = colParts[0].trim();
                 String dataTypeStr = colParts[1].trim().toUpperCase();
+                String constraintStr = String.join(" ", Arrays.copyOfRange(colParts, 2, colParts.length)).toUpperCase();
+                ColumnConstraint constraint = switch (constraintStr) {
+                    case "" -> ColumnConstraint.NONE;
+                    case "UNIQUE" -> ColumnConstraint.UNIQUE;
+                    case "PRIMARY KEY" -> ColumnConstraint.PRIMARY_KEY;
+                    default -> throw new InvalidSyntaxException("Invalid column: " + def);
+                };
 
                 try {
                     DataType dataType = DataType.valueOf(dataTypeStr);
-                    columns.add(new ColumnMetadata(columnName, dataType));
+                    columns.add(new ColumnMetadata(columnName, dataType, constraint));
                 } catch (IllegalArgumentException e) {
                     ConsoleUI.printUnsupportedCommand(input);
                     throw new InvalidSyntaxException("Unsupported data type: " + dataTypeStr);
                 }
             }
 
-            return new CreateTableCommand(tableName, columns);
+            return new CreateTableCommand(tableName, columns, storageMode);
 
         } catch (Exception e) {
             ConsoleUI.printUnsupportedCommand(input);
@@ -78,6 +98,20 @@ public class CommandParser {
         }
     }
 
+    // -------------------------------
+    // CREATE INDEX [name] ON users (id) [INCLUDE (name, email)]
+    private static Command parseCreateIndex(String input) {
+        Matcher matcher = Pattern.compile("(?i)^CREATE\\s+INDEX\\s+(?:(\\w+)\\s+)?ON\\s+(\\w+)\\s*\\(\\s*(\\w+)\\s*\\)"
+                        + "(?:\\s*INCLUDE\\s*\\(\\s*(\\w+(?:\\s*,\\s*\\w+)*)\\s*\\))?\\s*;?$")
+                .matcher(input.trim());
+        if (!matcher.matches()) {
+            ConsoleUI.printUnsupportedCommand(input);
+            throw new InvalidSyntaxException("Syntax must be: CREATE INDEX [name] ON table (column) [INCLUDE (column, ...)]");
+        }
+        List<String> included = matcher.group(4) == null ? List.of() : Arrays.asList(matcher.group(4).split("\\s*,\\s*"));
+        return new CreateIndexCommand(matcher.group(1), matcher.group(2), matcher.group(3), included);
+    }
+
     // -------------------------------
     // INSERT INTO users VALUES ('Alice', 1)
     private static Command parseInsert(String input) {
@@ -101,160 +135,189 @@ public class CommandParser {
     }
 
     // -------------------------------
-    // SELECT * FROM users
+    // SELECT * FROM users [INNER|LEFT|RIGHT JOIN orders ON users.id = orders.user_id ...]
+    // SELECT city, COUNT(*), AVG(age) FROM users [WHERE ...] GROUP BY city [ORDER BY count(*) DESC]
     private static Command parseSelect(String input) {
-        String lower = input.toLowerCase();
-        if (!lower.startsWith("select * from")) {
+        Matcher listMatcher = Pattern.compile("(?is)^select\\s+(.+?)\\s+from\\s+(.*)$").matcher(input);
+        if (!listMatcher.matches()) {
             ConsoleUI.printUnsupportedCommand(input);
-            throw new InvalidSyntaxException("Only SELECT * FROM supported currently.");
+            throw new InvalidSyntaxException("Syntax must be: SELECT * | items FROM table ...");
         }
-
-        // Remove 'select * from'
-        String rest = input.substring(14).trim();
-        String whereColumn = null;
-        String whereValue = null;
+        List<SelectCommand.SelectItem> items = parseSelectList(input, listMatcher.group(1).trim());
+        String rest = listMatcher.group(2).trim();
+        Expression where = null;
+        List<String> groupBy = List.of();
         String orderByColumn = null;
         boolean orderByAsc = true;
         Integer limit = null;
         Integer offset = null;
 
-        // JOIN parsing (unchanged)
+        // JOIN parsing: any number of JOIN ... ON clauses, each joining a new table with one before it
         String mainTable = null;
-        String joinType = null;
-        String joinTable = null;
-        String joinLeftCol = null;
-        String joinRightCol = null;
-
-        Pattern joinPattern = Pattern.compile(
-            "^(\\w+)(?:\\s+(inner|left|right)\\s+join\\s+(\\w+)\\s+on\\s+(\\w+)\\.(\\w+)\\s*=\\s*(\\w+)\\.(\\w+))?(.*)$",
-            Pattern.CASE_INSENSITIVE);
-        Matcher joinMatcher = joinPattern.matcher(rest);
+        List<SelectCommand.JoinClause> joins = new ArrayList<>();
+
+        String joinClause = "\\s+(inner|left|right)\\s+join\\s+(\\w+)\\s+on\\s+(\\w+)\\.(\\w+)\\s*=\\s*(\\w+)\\.(\\w+)";
+        Pattern selectPattern = Pattern.compile("^(\\w+)((?:" + joinClause + ")*)(.*)$", Pattern.CASE_INSENSITIVE);
+        Matcher selectMatcher = selectPattern.matcher(rest);
         String afterJoin = null;
-        if (joinMatcher.matches()) {
-            mainTable = joinMatcher.group(1);
-            if (joinMatcher.group(2) != null) {
-                joinType = joinMatcher.group(2).toUpperCase();
-                joinTable = joinMatcher.group(3);
-                String leftTable = joinMatcher.group(4);
-                joinLeftCol = joinMatcher.group(5);
-                String rightTable = joinMatcher.group(6);
-                joinRightCol = joinMatcher.group(7);
-                if (!(mainTable.equalsIgnoreCase(leftTable) && joinTable.equalsIgnoreCase(rightTable))) {
+        if (selectMatcher.matches()) {
+            mainTable = selectMatcher.group(1);
+            List<String> joined = new ArrayList<>(List.of(mainTable.toLowerCase()));
+            Matcher joinMatcher = Pattern.compile(joinClause, Pattern.CASE_INSENSITIVE).matcher(selectMatcher.group(2));
+            while (joinMatcher.find()) {
+                String joinType = joinMatcher.group(1).toUpperCase();
+                String joinTable = joinMatcher.group(2);
+                if (joined.contains(joinTable.toLowerCase())) {
                     ConsoleUI.printUnsupportedCommand(input);
-                    throw new InvalidSyntaxException("ON clause table names must match FROM/JOIN tables");
+                    throw new InvalidSyntaxException("Table " + joinTable + " appears more than once");
                 }
+                // Either side of ON may name the new table; the other must name one already joined
+                boolean newTableFirst = joinTable.equalsIgnoreCase(joinMatcher.group(3));
+                String otherTable = joinMatcher.group(newTableFirst ? 5 : 3);
+                if (!joinTable.equalsIgnoreCase(joinMatcher.group(newTableFirst ? 3 : 5))
+                        || !joined.contains(otherTable.toLowerCase())) {
+                    ConsoleUI.printUnsupportedCommand(input);
+                    throw new InvalidSyntaxException("ON clause must compare " + joinTable + " with a table before it");
+                }
+                joins.add(new SelectCommand.JoinClause(joinType, joinTable, joinMatcher.group(newTableFirst ? 4 : 6),
+                        otherTable, joinMatcher.group(newTableFirst ? 6 : 4)));
+                joined.add(joinTable.toLowerCase());
             }
-            afterJoin = joinMatcher.group(8) != null ? joinMatcher.group(8).trim() : "";
+            afterJoin = selectMatcher.group(9) != null ? selectMatcher.group(9).trim() : "";
         } else {
             ConsoleUI.printUnsupportedCommand(input);
             throw new InvalidSyntaxException("Invalid SELECT/JOIN syntax.");
         }
 
-        // Enhanced clause pattern: support qualified columns and IS NULL/IS NOT NULL
+        // Clause pattern: a WHERE condition parsed on its own, qualified columns, and ORDER BY
+        // of an aggregate such as count(*)
+        String column = "\\w+(?:\\.\\w+)?";
         Pattern clausePattern = Pattern.compile(
-            "(?:where\\s+([\\w]+\\.?[\\w]*)\\s*(=|is)\\s*('?(.*?)'?)?)?(?:\\s+order\\s+by\\s+([\\w]+\\.?[\\w]*)(?:\\s+(asc|desc))?)?(?:\\s+limit\\s+(\\d+))?(?:\\s+offset\\s+(\\d+))?\\s*$",
-            Pattern.CASE_INSENSITIVE);
+            "^(?:where\\s+(.+?))?"
+                + "(?:\\s*\\bgroup\\s+by\\s+(" + column + "(?:\\s*,\\s*" + column + ")*))?"
+                + "(?:\\s*\\border\\s+by\\s+(\\w+\\s*\\(\\s*(?:\\*|" + column + ")\\s*\\)|" + column + ")(?:\\s+(asc|desc))?)?"
+                + "(?:\\s*\\blimit\\s+(\\d+))?(?:\\s*\\boffset\\s+(\\d+))?\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
         Matcher clauseMatcher = clausePattern.matcher(afterJoin);
-        if (clauseMatcher.find()) {
-            if (clauseMatcher.group(1) != null && clauseMatcher.group(2) != null) {
-                whereColumn = clauseMatcher.group(1).trim();
-                String op = clauseMatcher.group(2).trim().toUpperCase();
-                String val = clauseMatcher.group(3) != null ? clauseMatcher.group(3).trim() : null;
-                if (op.equals("IS")) {
-                    if (val != null && val.equalsIgnoreCase("NULL")) {
-                        whereValue = "IS NULL";
-                    } else if (val != null && val.equalsIgnoreCase("NOT NULL")) {
-                        whereValue = "IS NOT NULL";
-                    } else {
-                        ConsoleUI.printUnsupportedCommand(input);
-                        throw new InvalidSyntaxException("Invalid IS NULL/IS NOT NULL syntax");
-                    }
-                } else if (op.equals("=")) {
-                    if (val != null && val.startsWith("'")) val = val.replaceAll("^'(.*)'$", "$1");
-                    whereValue = val;
-                }
+        if (!clauseMatcher.matches()) {
+            ConsoleUI.printUnsupportedCommand(input);
+            throw new InvalidSyntaxException("Invalid WHERE, GROUP BY, ORDER BY, LIMIT or OFFSET clause.");
+        } else {
+            if (clauseMatcher.group(1) != null) {
+                where = parseWhere(input, clauseMatcher.group(1));
             }
-            if (clauseMatcher.group(5) != null) {
-                orderByColumn = clauseMatcher.group(5).trim();
-                if (clauseMatcher.group(6) != null) {
-                    orderByAsc = !clauseMatcher.group(6).equalsIgnoreCase("desc");
+            if (clauseMatcher.group(2) != null) {
+                groupBy = Arrays.asList(clauseMatcher.group(2).trim().split("\\s*,\\s*"));
+            }
+            if (clauseMatcher.group(3) != null) {
+                orderByColumn = clauseMatcher.group(3).trim();
+                if (clauseMatcher.group(4) != null) {
+                    orderByAsc = !clauseMatcher.group(4).equalsIgnoreCase("desc");
                 }
             }
-            if (clauseMatcher.group(7) != null) {
-                limit = Integer.parseInt(clauseMatcher.group(7));
+            if (clauseMatcher.group(5) != null) {
+                limit = Integer.parseInt(clauseMatcher.group(5));
             }
-            if (clauseMatcher.group(8) != null) {
-                offset = Integer.parseInt(clauseMatcher.group(8));
+            if (clauseMatcher.group(6) != null) {
+                offset = Integer.parseInt(clauseMatcher.group(6));
             }
         }
+        if (items.isEmpty() && !groupBy.isEmpty()) {
+            ConsoleUI.printUnsupportedCommand(input);
+            throw new InvalidSyntaxException("GROUP BY needs a list of columns and aggregates instead of *");
+        }
 
-        return new SelectCommand(mainTable, whereColumn, whereValue, orderByColumn, orderByAsc, limit, offset,
-            joinType, joinTable, joinLeftCol, joinRightCol);
+        return new SelectCommand(mainTable, items, where, groupBy, orderByColumn, orderByAsc, limit, offset, joins);
     }
 
-    // -------------------------------
-    // UPDATE users SET name = 'Bob' WHERE id = 1
-    private static Command parseUpdate(String input) {
-        try {
-            Pattern pattern = Pattern.compile(
-                    "(?i)^update\\s+(\\w+)\\s+set\\s+(\\w+)\\s*=\\s*('?[^']*'?)\\s+where\\s+(\\w+)\\s*=\\s*('?[^']*'?)$",
-                    Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(input.trim());
-
-            if (!matcher.matches()) {
+    // The items of a select list: none for *, otherwise columns such as orders.total and
+    // aggregates such as COUNT(*) or SUM(orders.total)
+    private static List<SelectCommand.SelectItem> parseSelectList(String input, String list) {
+        if (list.equals("*")) {
+            return List.of();
+        }
+        Pattern itemPattern = Pattern.compile("(?i)^(?:(\\w+)\\s*\\(\\s*(\\*|\\w+(?:\\.\\w+)?)\\s*\\)|(\\w+(?:\\.\\w+)?))$");
+        List<SelectCommand.SelectItem> items = new ArrayList<>();
+        for (String item : list.split(",")) {
+            Matcher itemMatcher = itemPattern.matcher(item.trim());
+            if (!itemMatcher.matches()) {
                 ConsoleUI.printUnsupportedCommand(input);
-                throw new InvalidSyntaxException("Invalid UPDATE syntax");
+                throw new InvalidSyntaxException("Invalid select list item: " + item.trim());
             }
+            if (itemMatcher.group(3) != null) {
+                items.add(new SelectCommand.SelectItem(null, itemMatcher.group(3)));
+                continue;
+            }
+            AggregateFunction function = AggregateFunction.parse(itemMatcher.group(1));
+            if (function == null || (itemMatcher.group(2).equals("*") && function != AggregateFunction.COUNT)) {
+                ConsoleUI.printUnsupportedCommand(input);
+                throw new InvalidSyntaxException("Unsupported aggregate: " + item.trim());
+            }
+            items.add(new SelectCommand.SelectItem(function.name(), itemMatcher.group(2)));
+        }
+        return items;
+    }
 
-            String tableName = matcher.group(1).trim();
-            String targetColumn = matcher.group(2).trim();
-            String newValue = unquote(matcher.group(3).trim());
-            String whereColumn = matcher.group(4).trim();
-            String whereValue = unquote(matcher.group(5).trim());
-
-            return new UpdateCommand(tableName, targetColumn, newValue, whereColumn, whereValue);
-
-        } catch (Exception e) {
+    // -------------------------------
+    // UPDATE users SET name = 'Bob' WHERE id = 1 AND active = true
+    private static Command parseUpdate(String input) {
+        Matcher matcher = Pattern.compile(
+                "(?is)^update\\s+(\\w+)\\s+set\\s+(\\w+)\\s*=\\s*('[^']*'|[^'\\s]+)\\s+where\\s+(.+?)\\s*;?$")
+                .matcher(input.trim());
+        if (!matcher.matches()) {
             ConsoleUI.printUnsupportedCommand(input);
-            throw new InvalidSyntaxException("Syntax error in UPDATE: " + e.getMessage());
+            throw new InvalidSyntaxException("Invalid UPDATE syntax");
         }
+
+        String tableName = matcher.group(1).trim();
+        String targetColumn = matcher.group(2).trim();
+        String newValue = unquote(matcher.group(3).trim());
+        return new UpdateCommand(tableName, targetColumn, newValue, parseWhere(input, matcher.group(4)));
     }
 
     // -------------------------------
-    // DELETE FROM users WHERE id = 1
+    // DELETE FROM users WHERE id = 1 OR name IS NULL
     private static Command parseDelete(String input) {
-        // Normalize and remove the command prefix
-        String lower = input.toLowerCase().trim();
-        if (!lower.startsWith("delete from")) {
+        Matcher matcher = Pattern.compile("(?is)^delete\\s+from\\s+(\\w+)(?:\\s+where\\s+(.+?))?\\s*;?$").matcher(input.trim());
+        if (!matcher.matches()) {
             ConsoleUI.printUnsupportedCommand(input);
             throw new InvalidSyntaxException("Invalid DELETE syntax");
         }
-
-        // Example: DELETE FROM users WHERE id = 1
-        String[] parts = input.split("(?i)where");
-        if (parts.length != 2) {
+        if (matcher.group(2) == null) {
             ConsoleUI.printUnsupportedCommand(input);
             throw new InvalidSyntaxException("Missing WHERE clause in DELETE");
         }
+        return new DeleteCommand(matcher.group(1), parseWhere(input, matcher.group(2)));
+    }
 
-        String[] deleteParts = parts[0].trim().split("\\s+");
-        if (deleteParts.length < 3) {
+    // The condition of the WHERE clause of input
+    private static Expression parseWhere(String input, String condition) {
+        try {
+            return ExpressionParser.parse(condition);
+        } catch (InvalidSyntaxException e) {
             ConsoleUI.printUnsupportedCommand(input);
-            throw new InvalidSyntaxException("Missing table name in DELETE");
+            throw e;
         }
+    }
 
-        String tableName = deleteParts[2].trim();
-
-        String[] conditionParts = parts[1].trim().split("=");
-        if (conditionParts.length != 2) {
+    // VACUUM [table]
+    private static Command parseVacuum(String input) {
+        String[] tokens = input.trim().replaceAll(";$", "").split("\\s+");
+        if (tokens.length > 2) {
             ConsoleUI.printUnsupportedCommand(input);
-            throw new InvalidSyntaxException("Invalid WHERE clause in DELETE");
+            throw new InvalidSyntaxException("Syntax must be: VACUUM [table]");
         }
+        return new VacuumCommand(tokens.length == 2 ? tokens[1] : null);
+    }
 
-        String column = conditionParts[0].trim();
-        String value = conditionParts[1].trim().replaceAll("'", "");
-
-        return new DeleteCommand(tableName, column, value);
+    // SET parallel_workers = 4 (or TO 4)
+    private static Command parseSet(String input) {
+        Matcher matcher = Pattern.compile("(?i)^set\\s+(\\w+)\\s*(?:=|\\s+to\\s+)\\s*('?[^';]*'?)\\s*;?$").matcher(input.trim());
+        if (!matcher.matches()) {
+            ConsoleUI.printUnsupportedCommand(input);
+            throw new InvalidSyntaxException("Syntax must be: SET <setting> = <value>");
+        }
+        return new SetCommand(matcher.group(1), unquote(matcher.group(2).trim()));
     }
 
     private static String unquote(String value) {
@@ -0,0 +1,152 @@
+package com.postgresql.parser;
+
+import com.postgresql.exception.InvalidSyntaxException;
+import com.postgresql.expression.Expression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the condition of a WHERE clause into an {@link Expression}:
+ * <pre>
+ * condition  := term (OR term)*
+ * term       := factor (AND factor)*
+ * factor     := NOT factor | ( condition ) | column [test]
+ * test       := operator literal | IS [NOT] NULL | [NOT] BETWEEN literal AND literal
+ * </pre>
+ * Literals are numbers, quoted strings ({@code ''} for a quote) or single words such as
+ * {@code true}. A column without a test, such as {@code active}, stands for
+ * {@code active = true}. Keywords are matched regardless of case.
+ */
+public final class ExpressionParser {
+    private static final Pattern TOKEN = Pattern.compile(
+            "\\s*(?:('(?:[^']|'')*')|(<=|>=|<>|!=|=|<|>|\\(|\\))|(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)|(\\w+(?:\\.\\w+)?))");
+
+    private final List<String> tokens;
+    private int position;
+
+    private ExpressionParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /** The condition written in {@code text}. */
+    public static Expression parse(String text) {
+        ExpressionParser parser = new ExpressionParser(tokenize(text));
+        Expression condition = parser.condition();
+        if (parser.position < parser.tokens.size()) {
+            throw new InvalidSyntaxException("Unexpected '" + parser.tokens.get(parser.position) + "' in WHERE clause");
+        }
+        return condition;
+    }
+
+    private Expression condition() {
+        Expression condition = term();
+        while (accept("or")) {
+            condition = new Expression.Or(condition, term());
+        }
+        return condition;
+    }
+
+    private Expression term() {
+        Expression term = factor();
+        while (accept("and")) {
+            term = new Expression.And(term, factor());
+        }
+        return term;
+    }
+
+    private Expression factor() {
+        if (accept("not")) {
+            return new Expression.Not(factor());
+        }
+        if (accept("(")) {
+            Expression condition = condition();
+            expect(")");
+            return condition;
+        }
+        String column = next("a column");
+        if (position == tokens.size() || atAny("and", "or", ")")) {
+            return new Expression.Comparison(column, "=", "true");
+        }
+        if (accept("is")) {
+            boolean not = accept("not");
+            expect("null");
+            return new Expression.IsNull(column, not);
+        }
+        boolean not = accept("not");
+        if (accept("between")) {
+            String low = literal();
+            expect("and");
+            Expression between = new Expression.Between(column, low, literal());
+            return not ? new Expression.Not(between) : between;
+        }
+        if (not) {
+            throw new InvalidSyntaxException("Expected BETWEEN after NOT in WHERE clause");
+        }
+        String operator = next("a comparison");
+        if (!operator.matches("<=|>=|<>|!=|=|<|>")) {
+            throw new InvalidSyntaxException("Expected a comparison after " + column + " in WHERE clause, got '" + operator + "'");
+        }
+        return new Expression.Comparison(column, operator, literal());
+    }
+
+    private String literal() {
+        String token = next("a value");
+        if (token.startsWith("'")) {
+            return token.substring(1, token.length() - 1).replace("''", "'");
+        }
+        if (token.equals("(") || token.equals(")")) {
+            throw new InvalidSyntaxException("Expected a value in WHERE clause, got '" + token + "'");
+        }
+        return token;
+    }
+
+    private boolean accept(String keyword) {
+        if (position < tokens.size() && tokens.get(position).toLowerCase(Locale.ROOT).equals(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean atAny(String... keywords) {
+        String token = tokens.get(position).toLowerCase(Locale.ROOT);
+        for (String keyword : keywords) {
+            if (token.equals(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void expect(String keyword) {
+        if (!accept(keyword)) {
+            String found = position < tokens.size() ? "'" + tokens.get(position) + "'" : "the end";
+            throw new InvalidSyntaxException("Expected " + keyword.toUpperCase(Locale.ROOT) + " in WHERE clause, got " + found);
+        }
+    }
+
+    private String next(String what) {
+        if (position == tokens.size()) {
+            throw new InvalidSyntaxException("Expected " + what + " at the end of WHERE clause");
+        }
+        return tokens.get(position++);
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(text);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            tokens.add(matcher.group().trim());
+            end = matcher.end();
+        }
+        if (!text.substring(end).isBlank()) {
+            throw new InvalidSyntaxException("Unexpected '" + text.substring(end).trim() + "' in WHERE clause");
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,70 @@
+package com.postgresql.storage;
+
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Background task that vacuums tables whose deleted rows have piled up. Every interval it
+ * checks each table's dead bytes against its size and runs {@link TableHeap#vacuum()} on
+ * those past the threshold, reporting how much space was reclaimed.
+ *
+ * The interval and threshold can be changed with
+ * {@code -Dpostgreslite.vacuum.interval.ms=<millis>} and
+ * {@code -Dpostgreslite.vacuum.threshold=<fraction of the table>}.
+ */
+public class AutoVacuum {
+    private static final long DEFAULT_INTERVAL_MS = 10000;
+    private static final double DEFAULT_THRESHOLD = 0.2;
+
+    private final Supplier<Collection<TableHeap>> tables;
+    private final long intervalMs;
+    private final double threshold;
+    private ScheduledExecutorService executor;
+
+    public AutoVacuum(Supplier<Collection<TableHeap>> tables) {
+        this(tables, Long.getLong("postgreslite.vacuum.interval.ms", DEFAULT_INTERVAL_MS),
+                Double.parseDouble(System.getProperty("postgreslite.vacuum.threshold", String.valueOf(DEFAULT_THRESHOLD))));
+    }
+
+    public AutoVacuum(Supplier<Collection<TableHeap>> tables, long intervalMs, double threshold) {
+        this.tables = tables;
+        this.intervalMs = intervalMs;
+        this.threshold = threshold;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autovacuum");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Vacuums every table past the threshold and returns the total bytes reclaimed. */
+    public long vacuumDueTables() {
+        long total = 0;
+        for (TableHeap heap : tables.get()) {
+            if (heap.needsVacuum(threshold)) {
+                long reclaimed = heap.vacuum();
+                System.out.println("🧹 Autovacuum reclaimed " + reclaimed + " bytes from " + heap.getFile().getFile().getName());
+                total += reclaimed;
+            }
+        }
+        return total;
+    }
+
+    private void runQuietly() {
+        try {
+            vacuumDueTables();
+        } catch (RuntimeException e) {
+            System.err.println("Autovacuum failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.postgresql.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A fixed budget of in-memory page frames shared by every {@link HeapFile}.
+ *
+ * Callers pin a page with {@link #fetchPage} or {@link #newPage} and must release it with
+ * {@link #unpinPage}, saying whether they changed it. A pinned page is never evicted. While
+ * pinned, a page is read under its read latch and changed under its write latch; writers
+ * unpin (marking the page dirty) before they release the write latch. A flush takes each
+ * page's read latch before it tests the dirty mark, so a change a writer has logged but not
+ * yet marked is waited for rather than missed.
+ *
+ * When every frame is in use, a victim is chosen by clock sweep: each access sets a frame's
+ * reference bit, and the sweeping hand clears bits until it finds an unpinned frame whose
+ * bit is already clear. A dirty victim is written back first, after the
+ * {@link WriteAheadLog} is flushed up to its LSN.
+ *
+ * The budget defaults to 1024 pages (8 MB) and can be changed with
+ * {@code -Dpostgreslite.buffer.pool.pages=<pages>}.
+ */
+public class BufferPool {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static volatile BufferPool instance;
+
+    private static final class Frame {
+        private ByteBuffer buffer;
+        private HeapFile file;
+        private int pageId;
+        private Page page;
+        private int pinCount;
+        private boolean dirty;
+        private boolean referenced;
+    }
+
+    private record PageKey(HeapFile file, int pageId) {
+    }
+
+    private final Frame[] frames;
+    private final Map<PageKey, Frame> pageTable = new HashMap<>();
+    private int clockHand;
+
+    public BufferPool(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Buffer pool needs at least one page");
+        }
+        frames = new Frame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    public static BufferPool getInstance() {
+        if (instance == null) {
+            synchronized (BufferPool.class) {
+                if (instance == null) {
+                    instance = new BufferPool(Integer.getInteger("postgreslite.buffer.pool.pages", DEFAULT_CAPACITY));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    /**
+     * Pins a page, reading it from the file if it is not resident.
+     *
+     * @throws IllegalStateException if the page on disk fails its checksum, or every frame is pinned
+     */
+    public synchronized Page fetchPage(HeapFile file, int pageId) {
+        if (pageId < 0 || pageId >= file.getPageCount()) {
+            throw new IllegalArgumentException("Page " + pageId + " out of range for " + file.getFile().getName());
+        }
+        Frame frame = pageTable.get(new PageKey(file, pageId));
+        if (frame == null) {
+            frame = claimFrame(file, pageId);
+            ByteBuffer buf = frame.buffer.clear();
+            try {
+                file.readPage(pageId, buf);
+                frame.page = Page.fromDisk(pageId, buf);
+            } catch (RuntimeException e) {
+                release(frame);
+                throw e;
+            }
+        }
+        return pin(frame);
+    }
+
+    /** Appends an empty page to the file and returns it pinned. */
+    public synchronized Page newPage(HeapFile file) {
+        return fetchPageZeroed(file, file.allocatePageId());
+    }
+
+    /**
+     * Pins an empty page in place of whatever the file holds for {@code pageId}, without
+     * reading it. Recovery uses this before restoring a full-page image over a page that
+     * may be torn on disk.
+     */
+    synchronized Page fetchPageZeroed(HeapFile file, int pageId) {
+        Frame frame = pageTable.get(new PageKey(file, pageId));
+        if (frame == null) {
+            frame = claimFrame(file, pageId);
+        }
+        frame.page = Page.empty(pageId, frame.buffer);
+        frame.dirty = true;
+        return pin(frame);
+    }
+
+    /** Releases a pin taken by {@link #fetchPage} or {@link #newPage}. */
+    public synchronized void unpinPage(HeapFile file, int pageId, boolean dirty) {
+        Frame frame = pageTable.get(new PageKey(file, pageId));
+        if (frame == null || frame.pinCount == 0) {
+            throw new IllegalStateException("Page " + pageId + " of " + file.getFile().getName() + " is not pinned");
+        }
+        frame.pinCount--;
+        frame.dirty |= dirty;
+        if (frame.pinCount == 0) {
+            notifyAll();
+        }
+    }
+
+    public synchronized int getDirtyPageCount() {
+        int count = 0;
+        for (Frame frame : frames) {
+            if (frame.file != null && frame.dirty) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes every dirty page of the file and fsyncs it. Other threads keep working meanwhile,
+     * but a page being changed is written only once its writer has released it.
+     */
+    public void flushFile(HeapFile file) {
+        // Every resident page is a candidate: one pinned for write may not be marked dirty yet
+        List<Frame> resident = new ArrayList<>();
+        synchronized (this) {
+            for (Frame frame : frames) {
+                if (frame.file == file) {
+                    frame.pinCount++;
+                    resident.add(frame);
+                }
+            }
+        }
+        if (resident.isEmpty()) {
+            return;
+        }
+        try {
+            boolean written = false;
+            for (Frame frame : resident) {
+                written |= writeBack(frame);
+            }
+            if (written) {
+                file.force();
+            }
+        } finally {
+            synchronized (this) {
+                for (Frame frame : resident) {
+                    frame.pinCount--;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /** Writes every dirty page of every file. */
+    public void flushAll() {
+        for (HeapFile file : HeapFile.openFiles()) {
+            flushFile(file);
+        }
+    }
+
+    /**
+     * Forgets every page of the file without writing it, e.g. because the file is being
+     * emptied. Waits for pages that are still pinned, such as by a running checkpoint.
+     */
+    public synchronized void discard(HeapFile file) {
+        while (isPinned(file)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while discarding " + file.getFile().getName(), e);
+            }
+        }
+        Iterator<Map.Entry<PageKey, Frame>> it = pageTable.entrySet().iterator();
+        while (it.hasNext()) {
+            Frame frame = it.next().getValue();
+            if (frame.file == file) {
+                it.remove();
+                clear(frame);
+            }
+        }
+    }
+
+    private boolean isPinned(HeapFile file) {
+        for (Frame frame : frames) {
+            if (frame.file == file && frame.pinCount > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Copies the page under its read latch if it is dirty, then writes the copy once the log covers it.
+    private boolean writeBack(Frame frame) {
+        Page page = frame.page;
+        ByteBuffer image;
+        long lsn;
+        page.readLatch().lock();
+        try {
+            synchronized (this) {
+                if (!frame.dirty) {
+                    return false;
+                }
+                frame.dirty = false;
+            }
+            image = page.toDiskImage();
+            lsn = page.getLsn();
+        } finally {
+            page.readLatch().unlock();
+        }
+        try {
+            WriteAheadLog.getInstance().flush(lsn);
+            frame.file.writePage(page.getPageId(), image);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                frame.dirty = true;
+            }
+            throw e;
+        }
+        return true;
+    }
+
+    private Page pin(Frame frame) {
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame.page;
+    }
+
+    // Finds a free or evictable frame and assigns it to the page. Caller holds the pool lock.
+    private Frame claimFrame(HeapFile file, int pageId) {
+        Frame victim = null;
+        for (int scanned = 0; scanned < frames.length * 2 && victim == null; scanned++) {
+            Frame frame = frames[clockHand];
+            clockHand = (clockHand + 1) % frames.length;
+            if (frame.file == null) {
+                victim = frame;
+            } else if (frame.pinCount == 0) {
+                if (frame.referenced) {
+                    frame.referenced = false;
+                } else {
+                    victim = frame;
+                }
+            }
+        }
+        if (victim == null) {
+            throw new IllegalStateException("Buffer pool exhausted: all " + frames.length + " pages are pinned");
+        }
+
+        if (victim.file != null) {
+            if (victim.dirty) {
+                writeBack(victim);
+            }
+            pageTable.remove(new PageKey(victim.file, victim.pageId));
+            clear(victim);
+        }
+        if (victim.buffer == null) {
+            victim.buffer = ByteBuffer.allocate(Page.PAGE_SIZE);
+        }
+        victim.file = file;
+        victim.pageId = pageId;
+        pageTable.put(new PageKey(file, pageId), victim);
+        return victim;
+    }
+
+    private void release(Frame frame) {
+        pageTable.remove(new PageKey(frame.file, frame.pageId));
+        clear(frame);
+    }
+
+    private static void clear(Frame frame) {
+        frame.file = null;
+        frame.page = null;
+        frame.pinCount = 0;
+        frame.dirty = false;
+        frame.referenced = false;
+    }
+}
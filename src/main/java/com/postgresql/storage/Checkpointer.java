@@ -0,0 +1,71 @@
+package com.postgresql.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for heap pages. Statements only append to the {@link WriteAheadLog};
+ * this task periodically writes the dirty pages they left behind to the table files, and
+ * once more when the JVM shuts down.
+ *
+ * Checkpoints are fuzzy: statements keep running while pages are written. The log position
+ * at the start of a checkpoint becomes its redo LSN, and once every page dirtied before it
+ * is on disk the WAL records it as the point {@link RecoveryManager} replays from.
+ *
+ * The interval can be changed with {@code -Dpostgreslite.checkpoint.interval.ms=<millis>}.
+ */
+public class Checkpointer {
+    private static final long DEFAULT_INTERVAL_MS = 5000;
+
+    private final long intervalMs;
+    private ScheduledExecutorService executor;
+    private long lastRedoLsn = -1;
+
+    public Checkpointer() {
+        this(Long.getLong("postgreslite.checkpoint.interval.ms", DEFAULT_INTERVAL_MS));
+    }
+
+    public Checkpointer(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::runQuietly, "checkpointer-shutdown"));
+    }
+
+    /** Writes every dirty page in the buffer pool and moves the redo point forward. */
+    public synchronized void checkpoint() {
+        WriteAheadLog wal = WriteAheadLog.getInstance();
+        long redoLsn = wal.beginCheckpoint();
+        BufferPool.getInstance().flushAll();
+        if (redoLsn == lastRedoLsn) {
+            return; // nothing was logged since the last checkpoint
+        }
+        try {
+            wal.completeCheckpoint(redoLsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record checkpoint", e);
+        }
+        lastRedoLsn = redoLsn;
+    }
+
+    private void runQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.postgresql.storage;
+
+/**
+ * Tracks roughly how much free space each page of a heap file has, so an insert can find a
+ * page with room without reading pages.
+ *
+ * Free space is kept per page as a one-byte category of {@value #CATEGORY_BYTES}-byte
+ * units, rounded down, so a page is never reported as having more room than it has. The
+ * categories sit at the leaves of a max-tree; each inner node holds the largest category
+ * below it, so finding the first page with enough room and updating a page are both
+ * O(log n) in the number of pages.
+ *
+ * The map is only a hint: it lives in memory, is rebuilt from the pages when a table is first
+ * written to, and callers must still check that the page they get really has room.
+ */
+final class FreeSpaceMap {
+    static final int CATEGORY_BYTES = Page.PAGE_SIZE / 256;
+
+    private int leaves = 1;
+    private byte[] tree = new byte[2];
+    private int pageCount;
+
+    int getPageCount() {
+        return pageCount;
+    }
+
+    /** Records that {@code pageId} has {@code freeBytes} available, growing the map if needed. */
+    void update(int pageId, int freeBytes) {
+        if (pageId >= leaves) {
+            grow(pageId + 1);
+        }
+        pageCount = Math.max(pageCount, pageId + 1);
+        int node = leaves + pageId;
+        tree[node] = (byte) Math.min(255, Math.max(0, freeBytes) / CATEGORY_BYTES);
+        for (node >>= 1; node > 0; node >>= 1) {
+            tree[node] = (byte) Math.max(category(2 * node), category(2 * node + 1));
+        }
+    }
+
+    /** The first page with at least {@code neededBytes} free, or -1 if there is none. */
+    int findPage(int neededBytes) {
+        int wanted = (neededBytes + CATEGORY_BYTES - 1) / CATEGORY_BYTES;
+        if (wanted > 255 || category(1) < wanted) {
+            return -1;
+        }
+        int node = 1;
+        while (node < leaves) {
+            node = category(2 * node) >= wanted ? 2 * node : 2 * node + 1;
+        }
+        return node - leaves;
+    }
+
+    private int category(int node) {
+        return Byte.toUnsignedInt(tree[node]);
+    }
+
+    private void grow(int needed) {
+        int newLeaves = leaves;
+        while (newLeaves < needed) {
+            newLeaves *= 2;
+        }
+        byte[] newTree = new byte[2 * newLeaves];
+        System.arraycopy(tree, leaves, newTree, newLeaves, leaves);
+        for (int node = newLeaves - 1; node > 0; node--) {
+            newTree[node] = (byte) Math.max(Byte.toUnsignedInt(newTree[2 * node]), Byte.toUnsignedInt(newTree[2 * node + 1]));
+        }
+        tree = newTree;
+        leaves = newLeaves;
+    }
+}
@@ -0,0 +1,180 @@
+package com.postgresql.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A table's data file: a plain sequence of {@link Page#PAGE_SIZE} pages addressed by
+ * page number. There is no file header, so page {@code n} lives at byte offset
+ * {@code n * PAGE_SIZE}.
+ *
+ * Heap files are shared: every {@link TableHeap} over the same path gets the same
+ * instance, and pages are cached in the {@link BufferPool}, keyed by that instance.
+ * This class only does the raw page I/O; pages reach the file when the pool evicts or
+ * flushes them, after the write-ahead log covering them is durable. Each page is
+ * checksummed as it is written and verified as it is read back.
+ *
+ * The file also carries a version that every row change moves forward, so readers can
+ * tell whether rows they cached are still current. It works like a sequence lock: the
+ * version is odd while a change is in progress.
+ */
+public class HeapFile {
+    private static final Map<String, HeapFile> OPEN_FILES = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final FileChannel channel;
+    private final AtomicInteger pageCount = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+
+    private HeapFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // A partially written trailing page is ignored.
+        this.pageCount.set((int) (channel.size() / Page.PAGE_SIZE));
+    }
+
+    public static HeapFile open(File file) {
+        String key = file.getAbsolutePath();
+        return OPEN_FILES.compute(key, (k, existing) -> {
+            // The file may have been removed behind our back; start over on a fresh one.
+            if (existing != null && existing.file.exists()) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.closeQuietly();
+            }
+            try {
+                return new HeapFile(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open heap file: " + file, e);
+            }
+        });
+    }
+
+    /** Every heap file opened so far. */
+    public static Collection<HeapFile> openFiles() {
+        return new ArrayList<>(OPEN_FILES.values());
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Number of pages, including new pages that have not been written yet. */
+    public int getPageCount() {
+        return pageCount.get();
+    }
+
+    /** The current version; odd while a change is in progress. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /** Makes sure the file has at least {@code count} pages, adding empty ones as needed. */
+    public void extendTo(int count) {
+        BufferPool pool = BufferPool.getInstance();
+        while (getPageCount() < count) {
+            Page page = pool.newPage(this);
+            pool.unpinPage(this, page.getPageId(), true);
+        }
+    }
+
+    /** Writes the file's dirty pages from the buffer pool and fsyncs it. */
+    public void flush() {
+        BufferPool.getInstance().flushFile(this);
+    }
+
+    /** Drops every page, leaving an empty file. */
+    public void truncate() {
+        version.addAndGet(2);
+        BufferPool.getInstance().discard(this);
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to truncate " + file.getName(), e);
+        }
+        pageCount.set(0);
+    }
+
+    public void close() {
+        OPEN_FILES.remove(file.getAbsolutePath(), this);
+        closeQuietly();
+    }
+
+    void beginChange() {
+        version.incrementAndGet();
+    }
+
+    void endChange() {
+        version.incrementAndGet();
+    }
+
+    int allocatePageId() {
+        return pageCount.getAndIncrement();
+    }
+
+    // Reads a page image as it is on disk; a page past the end of the file reads as zeros.
+    void readPage(int pageId, ByteBuffer buf) {
+        try {
+            long position = (long) pageId * Page.PAGE_SIZE;
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) {
+                    break;
+                }
+            }
+            while (buf.hasRemaining()) {
+                buf.put((byte) 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read page " + pageId + " of " + file.getName(), e);
+        }
+    }
+
+    void writePage(int pageId, ByteBuffer image) {
+        try {
+            long position = (long) pageId * Page.PAGE_SIZE;
+            while (image.hasRemaining()) {
+                position += channel.write(image, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write page " + pageId + " of " + file.getName(), e);
+        }
+    }
+
+    /** Maps {@code count} pages starting at {@code firstPage} read-only. */
+    ByteBuffer map(int firstPage, int count) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, (long) firstPage * Page.PAGE_SIZE, (long) count * Page.PAGE_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map " + file.getName(), e);
+        }
+    }
+
+    void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync " + file.getName(), e);
+        }
+    }
+
+    private void closeQuietly() {
+        BufferPool.getInstance().discard(this);
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+            // nothing useful to do
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.postgresql.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single change in the write-ahead log. Each record names the table and the
+ * {@link RecordId} it touched and, for inserts and updates, carries the new encoded row.
+ *
+ * Two records describe more than a row: {@code CREATE} marks the point where a table's heap
+ * file was emptied, and {@code PAGE_IMAGE} carries the whole page (slot 0 of its record id
+ * is unused). A page image is logged in place of the row change on the first change to a
+ * page after a checkpoint starts, so recovery can restore a page that was torn while being
+ * written.
+ *
+ * <pre>
+ * type (1) | table name (u16 len + UTF-8) | pageId (4) | slot (2) | data length (4) | data
+ * </pre>
+ */
+public class LogRecord {
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE,
+        CREATE,
+        PAGE_IMAGE
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final String tableName;
+    private final RecordId recordId;
+    private final byte[] data;
+
+    private LogRecord(Type type, String tableName, RecordId recordId, byte[] data) {
+        this.type = type;
+        this.tableName = tableName;
+        this.recordId = recordId;
+        this.data = data;
+    }
+
+    public static LogRecord insert(String tableName, RecordId recordId, byte[] row) {
+        return new LogRecord(Type.INSERT, tableName, recordId, row);
+    }
+
+    public static LogRecord update(String tableName, RecordId recordId, byte[] row) {
+        return new LogRecord(Type.UPDATE, tableName, recordId, row);
+    }
+
+    public static LogRecord delete(String tableName, RecordId recordId) {
+        return new LogRecord(Type.DELETE, tableName, recordId, new byte[0]);
+    }
+
+    public static LogRecord create(String tableName) {
+        return new LogRecord(Type.CREATE, tableName, new RecordId(0, 0), new byte[0]);
+    }
+
+    static LogRecord pageImage(String tableName, Page page) {
+        return new LogRecord(Type.PAGE_IMAGE, tableName, new RecordId(page.getPageId(), 0), page.toImage());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public RecordId getRecordId() {
+        return recordId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    byte[] serialize() {
+        byte[] name = tableName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(1 + 2 + name.length + 4 + 2 + 4 + data.length);
+        buf.put((byte) type.ordinal());
+        buf.putShort((short) name.length);
+        buf.put(name);
+        buf.putInt(recordId.pageId());
+        buf.putShort((short) recordId.slot());
+        buf.putInt(data.length);
+        buf.put(data);
+        return buf.array();
+    }
+
+    static LogRecord deserialize(ByteBuffer buf) {
+        Type type = TYPES[buf.get()];
+        byte[] name = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(name);
+        int pageId = buf.getInt();
+        int slot = Short.toUnsignedInt(buf.getShort());
+        byte[] data = new byte[buf.getInt()];
+        buf.get(data);
+        return new LogRecord(type, new String(name, StandardCharsets.UTF_8), new RecordId(pageId, slot), data);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + tableName + " " + recordId;
+    }
+}
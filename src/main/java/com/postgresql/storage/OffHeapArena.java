@@ -0,0 +1,61 @@
+package com.postgresql.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records copied into direct memory, outside the Java heap. Records are appended back to
+ * back into 1 MB chunks, each prefixed by its length, and addressed by chunk and offset.
+ *
+ * The arena is filled by one thread and may then be read by any number; {@link #close()}
+ * drops every chunk at once, after which reads fail. The direct memory itself is reclaimed
+ * by the collector once the dropped chunks are unreachable, not when the arena closes. The
+ * chunks are a handful of objects however many records they hold, so the collector's work
+ * does not grow with the data.
+ */
+public final class OffHeapArena {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private volatile boolean closed;
+
+    /** Copies the remaining bytes of {@code record} into the arena and returns their address. */
+    public long put(ByteBuffer record) {
+        ensureOpen();
+        int length = record.remaining();
+        if (current == null || current.remaining() < 4 + length) {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, 4 + length));
+            chunks.add(current);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | current.position();
+        current.putInt(length);
+        current.put(record.duplicate());
+        return address;
+    }
+
+    /** A read-only view of the record at {@code address}. */
+    public ByteBuffer get(long address) {
+        ensureOpen();
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int offset = (int) address;
+        return chunk.slice(offset + 4, chunk.getInt(offset)).asReadOnlyBuffer();
+    }
+
+    /**
+     * Drops the arena's chunks so their memory can be reclaimed once no view of them is
+     * reachable. Addresses handed out earlier must not be read again.
+     */
+    public void close() {
+        closed = true;
+        chunks.clear();
+        current = null;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Off-heap arena is closed");
+        }
+    }
+}
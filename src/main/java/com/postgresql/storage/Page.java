@@ -0,0 +1,437 @@
+package com.postgresql.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A fixed-size slotted page.
+ *
+ * <pre>
+ * +--------+-------+-------+-----+----------------+----------+-----+----------+
+ * | header | slot0 | slot1 | ... |  free space    | record1  | ... | record0  |
+ * +--------+-------+-------+-----+----------------+----------+-----+----------+
+ * </pre>
+ *
+ * The slot directory grows forward from the header and record data grows backward
+ * from the end of the page. Each slot stores the offset and length of its record;
+ * an offset of 0 marks an unused slot that can be handed out again. Slot numbers are
+ * stable for the lifetime of a record, so a {@link RecordId} stays valid when the page
+ * is compacted.
+ *
+ * Deleting a record only sets a tombstone bit in its slot's length; the record's bytes and
+ * slot stay in place until {@link #compact()} or {@link #vacuum()} reclaims them. An insert
+ * or update that compacts the page to make room reclaims them too; see
+ * {@link #takeReclaimedBytes()}.
+ *
+ * The header also records the LSN of the last {@link WriteAheadLog} record that changed
+ * the page, so the page is never written out ahead of the log that describes it, and a
+ * CRC32 of the rest of the page, stamped when the page is written, so that a page torn by
+ * a crash mid-write is detected when it is read back.
+ *
+ * <pre>
+ * lsn (8) | checksum (4) | slot count (2) | data start (2)
+ * </pre>
+ *
+ * Pages shared through the {@link BufferPool} are read under {@link #readLatch()} and
+ * changed under {@link #writeLatch()}.
+ */
+public class Page {
+    public static final int PAGE_SIZE = 8192;
+
+    private static final int LSN_OFFSET = 0;
+    private static final int CHECKSUM_OFFSET = 8;
+    private static final int SLOT_COUNT_OFFSET = 12;
+    private static final int DATA_START_OFFSET = 14;
+    public static final int HEADER_SIZE = 16;
+    static final int SLOT_SIZE = 4;
+    private static final int DEAD_FLAG = 0x8000; // tombstone bit in a slot's length
+
+    /** Largest record that fits on an otherwise empty page. */
+    public static final int MAX_RECORD_SIZE = PAGE_SIZE - HEADER_SIZE - SLOT_SIZE;
+
+    private final int pageId;
+    private final ByteBuffer data;
+    private final ReadWriteLock latch = new ReentrantReadWriteLock();
+    private int reclaimedBytes; // dead bytes dropped by inserts and updates; changed under the write latch
+
+    public Page(int pageId) {
+        this(pageId, ByteBuffer.allocate(PAGE_SIZE));
+        setSlotCount(0);
+        setDataStart(PAGE_SIZE);
+    }
+
+    public Page(int pageId, ByteBuffer data) {
+        if (data.capacity() != PAGE_SIZE) {
+            throw new IllegalArgumentException("Page buffer must be " + PAGE_SIZE + " bytes");
+        }
+        this.pageId = pageId;
+        this.data = data;
+    }
+
+    /** Formats {@code data} as an empty page. */
+    static Page empty(int pageId, ByteBuffer data) {
+        data.clear();
+        while (data.hasRemaining()) {
+            data.putLong(0L);
+        }
+        Page page = new Page(pageId, data.clear());
+        page.setDataStart(PAGE_SIZE);
+        return page;
+    }
+
+    /**
+     * Wraps a page image read from disk. An all-zero image is a page that was allocated but
+     * never written and comes back empty; anything else must carry a valid checksum.
+     *
+     * @throws IllegalStateException if the page is torn or otherwise corrupted
+     */
+    static Page fromDisk(int pageId, ByteBuffer data) {
+        Page page = new Page(pageId, data.clear());
+        if (page.isNeverWritten()) {
+            page.setDataStart(PAGE_SIZE);
+            return page;
+        }
+        page.verifyChecksum();
+        return page;
+    }
+
+    /**
+     * Wraps a read-only view of a page in a mapped file without copying it, or returns null
+     * for a page that was never written.
+     *
+     * @throws IllegalStateException if the page is torn or otherwise corrupted
+     */
+    static Page fromMapped(int pageId, ByteBuffer view) {
+        Page page = new Page(pageId, view);
+        if (page.isNeverWritten()) {
+            return null;
+        }
+        page.verifyChecksum();
+        return page;
+    }
+
+    /**
+     * Replaces the page contents with an image from {@link #toImage()}. The LSN in the
+     * image is stale; the caller sets the LSN of the record that carried it.
+     */
+    void restoreImage(byte[] image) {
+        data.put(0, new byte[PAGE_SIZE]);
+        data.put(0, image, 0, HEADER_SIZE);
+        int slotEnd = HEADER_SIZE + getSlotCount() * SLOT_SIZE;
+        int tail = image.length - slotEnd;
+        data.put(HEADER_SIZE, image, HEADER_SIZE, slotEnd - HEADER_SIZE);
+        data.put(PAGE_SIZE - tail, image, slotEnd, tail);
+    }
+
+    public int getPageId() {
+        return pageId;
+    }
+
+    /** The raw page image, positioned at 0. */
+    public ByteBuffer getData() {
+        return data.duplicate().clear();
+    }
+
+    /** An independent copy of this page. */
+    public Page copy() {
+        ByteBuffer copy = ByteBuffer.allocate(PAGE_SIZE);
+        copy.put(getData()).clear();
+        return new Page(pageId, copy);
+    }
+
+    public Lock readLatch() {
+        return latch.readLock();
+    }
+
+    public Lock writeLatch() {
+        return latch.writeLock();
+    }
+
+    public long getLsn() {
+        return data.getLong(LSN_OFFSET);
+    }
+
+    public void setLsn(long lsn) {
+        data.putLong(LSN_OFFSET, lsn);
+    }
+
+    /**
+     * The page contents without the free space between the slot directory and the record
+     * data, which is all a full-page image in the log needs to restore it.
+     */
+    byte[] toImage() {
+        int slotEnd = HEADER_SIZE + getSlotCount() * SLOT_SIZE;
+        int dataStart = getDataStart();
+        byte[] image = new byte[slotEnd + PAGE_SIZE - dataStart];
+        data.get(0, image, 0, slotEnd);
+        data.get(dataStart, image, slotEnd, PAGE_SIZE - dataStart);
+        return image;
+    }
+
+    /** A copy of the page image with its checksum stamped, ready to be written to disk. */
+    ByteBuffer toDiskImage() {
+        Page copy = copy();
+        copy.data.putInt(CHECKSUM_OFFSET, copy.computeChecksum());
+        return copy.getData();
+    }
+
+    public int getSlotCount() {
+        return Short.toUnsignedInt(data.getShort(SLOT_COUNT_OFFSET));
+    }
+
+    public boolean isLive(int slot) {
+        return slot >= 0 && slot < getSlotCount() && getSlotOffset(slot) != 0 && !isDead(slot);
+    }
+
+    /** Bytes available for a new record, including space that compaction would recover. */
+    public int getFreeSpace() {
+        int used = HEADER_SIZE + getSlotCount() * SLOT_SIZE;
+        for (int slot = 0; slot < getSlotCount(); slot++) {
+            if (isLive(slot)) {
+                used += getSlotLength(slot);
+            }
+        }
+        return PAGE_SIZE - used;
+    }
+
+    /** Bytes held by deleted records that have not been reclaimed yet. */
+    public int getDeadBytes() {
+        int dead = 0;
+        for (int slot = 0; slot < getSlotCount(); slot++) {
+            if (getSlotOffset(slot) != 0 && isDead(slot)) {
+                dead += getSlotLength(slot);
+            }
+        }
+        return dead;
+    }
+
+    /** Whether a record of the given length can be inserted, accounting for a new slot entry. */
+    public boolean hasRoomFor(int length) {
+        int needed = length + (findUnusedSlot() < 0 ? SLOT_SIZE : 0);
+        return getFreeSpace() >= needed;
+    }
+
+    /**
+     * Stores a record and returns its slot number, or -1 if the page is full.
+     */
+    public int insert(byte[] record) {
+        if (!hasRoomFor(record.length)) {
+            return -1;
+        }
+        int slot = findUnusedSlot();
+        int slotSpace = slot < 0 ? SLOT_SIZE : 0;
+        if (contiguousFreeSpace() < record.length + slotSpace) {
+            reclaimedBytes += compact();
+        }
+        if (slot < 0) {
+            slot = getSlotCount();
+            setSlotCount(slot + 1);
+        }
+        writeRecord(slot, record);
+        return slot;
+    }
+
+    /**
+     * Stores a record in a specific slot, growing the slot directory if needed. Recovery
+     * uses this to put a logged insert back exactly where it was.
+     */
+    void insertAt(int slot, byte[] record) {
+        if (isLive(slot)) {
+            throw new IllegalArgumentException("Slot " + slot + " of page " + pageId + " is in use");
+        }
+        int count = getSlotCount();
+        int needed = record.length + Math.max(0, slot + 1 - count) * SLOT_SIZE;
+        if (contiguousFreeSpace() < needed) {
+            reclaimedBytes += compact();
+        }
+        if (contiguousFreeSpace() < needed) {
+            throw new IllegalStateException("Record does not fit in slot " + slot + " of page " + pageId);
+        }
+        for (int unused = count; unused <= slot; unused++) {
+            setSlot(unused, 0, 0);
+        }
+        setSlotCount(Math.max(count, slot + 1));
+        writeRecord(slot, record);
+    }
+
+    /** Returns a read-only view of the record in the given slot. */
+    public ByteBuffer read(int slot) {
+        checkLive(slot);
+        int offset = getSlotOffset(slot);
+        return data.asReadOnlyBuffer().position(offset).limit(offset + getSlotLength(slot)).slice();
+    }
+
+    /**
+     * Replaces the record in the given slot. Returns false when the new record does not
+     * fit on this page; the caller must then move it elsewhere.
+     */
+    public boolean update(int slot, byte[] record) {
+        checkLive(slot);
+        int oldLength = getSlotLength(slot);
+        if (record.length <= oldLength) {
+            data.put(getSlotOffset(slot), record);
+            setSlot(slot, getSlotOffset(slot), record.length);
+            return true;
+        }
+        if (getFreeSpace() + oldLength < record.length) {
+            return false;
+        }
+        setSlot(slot, 0, 0);
+        if (contiguousFreeSpace() < record.length) {
+            reclaimedBytes += compact();
+        }
+        writeRecord(slot, record);
+        return true;
+    }
+
+    /** Marks the record in the given slot dead and returns its length. */
+    public int delete(int slot) {
+        checkLive(slot);
+        int length = getSlotLength(slot);
+        setSlot(slot, getSlotOffset(slot), length | DEAD_FLAG);
+        return length;
+    }
+
+    /**
+     * Moves all live records to the end of the page so that free space is contiguous. Dead
+     * records are dropped and their slots become unused. Returns the bytes the dead records
+     * held.
+     */
+    public int compact() {
+        int count = getSlotCount();
+        int dropped = 0;
+        byte[][] records = new byte[count][];
+        for (int slot = 0; slot < count; slot++) {
+            if (isLive(slot)) {
+                records[slot] = new byte[getSlotLength(slot)];
+                data.get(getSlotOffset(slot), records[slot]);
+            } else {
+                if (getSlotOffset(slot) != 0) {
+                    dropped += getSlotLength(slot);
+                }
+                setSlot(slot, 0, 0);
+            }
+        }
+        setDataStart(PAGE_SIZE);
+        for (int slot = 0; slot < count; slot++) {
+            if (records[slot] != null) {
+                writeRecord(slot, records[slot]);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * The bytes of dead records that inserts and updates have dropped by compacting the page
+     * since the last call, so a caller counting dead bytes can keep its count exact.
+     */
+    public int takeReclaimedBytes() {
+        int taken = reclaimedBytes;
+        reclaimedBytes = 0;
+        return taken;
+    }
+
+    /**
+     * Reclaims the space of dead records: compacts the page and drops unused slots from the
+     * end of the directory. Returns the number of bytes of contiguous free space gained.
+     */
+    public int vacuum() {
+        int before = contiguousFreeSpace();
+        compact();
+        int count = getSlotCount();
+        while (count > 0 && getSlotOffset(count - 1) == 0) {
+            count--;
+        }
+        setSlotCount(count);
+        return contiguousFreeSpace() - before;
+    }
+
+    private void writeRecord(int slot, byte[] record) {
+        int offset = getDataStart() - record.length;
+        data.put(offset, record);
+        setDataStart(offset);
+        setSlot(slot, offset, record.length);
+    }
+
+    private int contiguousFreeSpace() {
+        return getDataStart() - HEADER_SIZE - getSlotCount() * SLOT_SIZE;
+    }
+
+    private int findUnusedSlot() {
+        for (int slot = 0; slot < getSlotCount(); slot++) {
+            if (getSlotOffset(slot) == 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isNeverWritten() {
+        return getDataStart() == 0 && getChecksum() == 0 && isZero(data);
+    }
+
+    private void verifyChecksum() {
+        if (getChecksum() != computeChecksum()) {
+            throw new IllegalStateException("Checksum mismatch on page " + pageId + " (torn or corrupted page)");
+        }
+    }
+
+    private int getChecksum() {
+        return data.getInt(CHECKSUM_OFFSET);
+    }
+
+    private int computeChecksum() {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = getData();
+        crc.update(buf.limit(CHECKSUM_OFFSET));
+        crc.update(buf.limit(PAGE_SIZE).position(CHECKSUM_OFFSET + 4));
+        return (int) crc.getValue();
+    }
+
+    private static boolean isZero(ByteBuffer data) {
+        for (int i = 0; i < PAGE_SIZE; i += Long.BYTES) {
+            if (data.getLong(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkLive(int slot) {
+        if (!isLive(slot)) {
+            throw new IllegalArgumentException("No record at slot " + slot + " of page " + pageId);
+        }
+    }
+
+    private void setSlotCount(int count) {
+        data.putShort(SLOT_COUNT_OFFSET, (short) count);
+    }
+
+    private int getDataStart() {
+        return Short.toUnsignedInt(data.getShort(DATA_START_OFFSET));
+    }
+
+    private void setDataStart(int offset) {
+        data.putShort(DATA_START_OFFSET, (short) offset);
+    }
+
+    private int getSlotOffset(int slot) {
+        return Short.toUnsignedInt(data.getShort(HEADER_SIZE + slot * SLOT_SIZE));
+    }
+
+    private int getSlotLength(int slot) {
+        return Short.toUnsignedInt(data.getShort(HEADER_SIZE + slot * SLOT_SIZE + 2)) & ~DEAD_FLAG;
+    }
+
+    private boolean isDead(int slot) {
+        return (data.getShort(HEADER_SIZE + slot * SLOT_SIZE + 2) & DEAD_FLAG) != 0;
+    }
+
+    private void setSlot(int slot, int offset, int length) {
+        data.putShort(HEADER_SIZE + slot * SLOT_SIZE, (short) offset);
+        data.putShort(HEADER_SIZE + slot * SLOT_SIZE + 2, (short) length);
+    }
+}
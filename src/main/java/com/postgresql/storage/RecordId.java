@@ -0,0 +1,13 @@
+package com.postgresql.storage;
+
+/**
+ * Physical address of a tuple inside a heap file: the page it lives on and its slot
+ * in that page's slot directory.
+ */
+public record RecordId(int pageId, int slot) {
+
+    @Override
+    public String toString() {
+        return "(" + pageId + "," + slot + ")";
+    }
+}
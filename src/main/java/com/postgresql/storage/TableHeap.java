@@ -1,25 +1,877 @@
 package com.postgresql.storage;
 
+import com.postgresql.catalog.ColumnConstraint;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.IndexMetadata;
+import com.postgresql.catalog.TableMetadata;
+import com.postgresql.index.BTreeIndex;
+import com.postgresql.index.HashIndex;
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.TableSnapshot;
 import com.postgresql.model.Tuple;
 
-import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-public class TableHeap implements Serializable {
-    private static final long serialVersionUID = 1L;
+/**
+ * Row-level access to a table's {@link HeapFile}. Rows are encoded with {@link TupleCodec}
+ * and stored in slotted pages, so every change reads and writes only the pages it touches.
+ * Pages are read through the {@link BufferPool}; scans pin one page at a time, so only the
+ * rows a caller keeps stay in memory.
+ *
+ * Every change is appended to the {@link WriteAheadLog} and stamped on the page as its LSN;
+ * the first change to a page after a checkpoint starts logs the whole page instead. Callers make
+ * their changes durable with {@link WriteAheadLog#commit()}.
+ *
+ * Deletes leave tombstones in their pages; {@link #vacuum()} reclaims the space, and the
+ * table keeps a running count of dead bytes so {@link AutoVacuum} knows when to run it.
+ * Inserts go to the first page with room according to the table's {@link FreeSpaceMap}, so
+ * space freed by deletes is filled again before the file grows.
+ *
+ * The table's {@link BTreeIndex}es are kept in step with every change. Each index change
+ * happens before the row change is logged; see {@link BTreeIndex} for why that matters.
+ * PRIMARY KEY and UNIQUE columns also get a {@link HashIndex}, built in memory on first use,
+ * which rejects a change that would duplicate a value before anything is written.
+ */
+public class TableHeap {
+    // Map at most 1 GB at a time; a single mapping cannot exceed 2 GB.
+    private static final int MAPPED_CHUNK_PAGES = (1 << 30) / Page.PAGE_SIZE;
 
-    private final List<Tuple> tuples = new ArrayList<>();
+    private final TableMetadata metadata;
+    private final HeapFile file;
+    private final WriteAheadLog wal;
+    private final BufferPool pool;
+    private FreeSpaceMap freeSpace; // guarded by the file lock
+    private volatile long rowCount = -1; // changed under the file lock; -1 until first counted
+    private volatile long deadBytes = -1; // changed under the file lock; -1 until first counted
+    private final List<BTreeIndex> indexes = new CopyOnWriteArrayList<>(); // changed under the file lock
+    private volatile List<HashIndex> uniqueIndexes; // built under the file lock on first use
+
+    public TableHeap(TableMetadata metadata, HeapFile file) {
+        this.metadata = metadata;
+        this.file = file;
+        this.wal = WriteAheadLog.getInstance();
+        this.pool = BufferPool.getInstance();
+        for (IndexMetadata index : metadata.getIndexes()) {
+            indexes.add(openIndex(index));
+        }
+    }
+
+    public HeapFile getFile() {
+        return file;
+    }
+
+    /** Changes whenever a row is inserted, updated or deleted; odd while a change is in progress. */
+    public long getVersion() {
+        return file.getVersion();
+    }
 
     public void insertTuple(Tuple tuple) {
-        tuples.add(tuple);
+        byte[] record = encode(tuple);
+        synchronized (file) {
+            file.beginChange();
+            try {
+                Object[] keys = indexKeys(ByteBuffer.wrap(record));
+                checkUnique(keys, null);
+                tuple.setRecordId(insertRecord(record, keys));
+            } finally {
+                file.endChange();
+            }
+        }
+    }
+
+    /**
+     * Passes every row to {@code action}, one page at a time. The page is unpinned before
+     * its rows are handed out, so the action may change the table.
+     */
+    public void forEachTuple(Consumer<Tuple> action) {
+        forEachTuple(0, file.getPageCount(), action);
+    }
+
+    /**
+     * Like {@link #forEachTuple(Consumer)} for at most {@code pageCount} pages starting at
+     * {@code firstPage}. Scans of different page ranges may run at once.
+     */
+    public void forEachTuple(int firstPage, int pageCount, Consumer<Tuple> action) {
+        List<Tuple> pageTuples = new ArrayList<>();
+        int endPage = Math.min(file.getPageCount(), firstPage + pageCount);
+        for (int pageId = firstPage; pageId < endPage; pageId++) {
+            Page page = pool.fetchPage(file, pageId);
+            page.readLatch().lock();
+            try {
+                for (int slot = 0; slot < page.getSlotCount(); slot++) {
+                    if (page.isLive(slot)) {
+                        pageTuples.add(decode(page, slot));
+                    }
+                }
+            } finally {
+                page.readLatch().unlock();
+                pool.unpinPage(file, pageId, false);
+            }
+            pageTuples.forEach(action);
+            pageTuples.clear();
+        }
+    }
+
+    /**
+     * Read-only scan straight from the memory-mapped table file, for tables too large to
+     * pass through the {@link BufferPool}. Only {@code filterColumn} is decoded to test a
+     * row; rows that pass get the {@code projection} columns decoded into a fresh array,
+     * and nothing is built for rows that fail. A {@code filterColumn} of -1 accepts every row.
+     *
+     * The table's dirty pages are flushed first, and writers wait until the scan is done,
+     * so the file does not change underneath the mapping.
+     */
+    public void scanMapped(int filterColumn, Predicate<Object> filter, int[] projection, Consumer<Object[]> action) {
+        synchronized (file) {
+            scanMapped(0, file.getPageCount(), filterColumn, filter, projection, action);
+        }
+    }
+
+    /**
+     * Like {@link #scanMapped(int, Predicate, int[], Consumer)} for at most {@code pageCount}
+     * pages starting at {@code firstPage}, so a caller can read a large table a few pages at a
+     * time. Writers only wait while those pages are read.
+     */
+    public void scanMapped(int firstPage, int pageCount, int filterColumn, Predicate<Object> filter, int[] projection,
+                           Consumer<Object[]> action) {
+        mapPages(firstPage, pageCount, filterColumn, filter, decoding(projection, action));
+    }
+
+    /**
+     * Like {@link #scanMapped(int, int, int, Predicate, int[], Consumer)}, with each row that
+     * passes {@code filterColumn}'s test built by {@code rows} instead of a projection, so only
+     * the columns the builder needs are decoded and it may still reject the row.
+     */
+    public void scanMapped(int firstPage, int pageCount, int filterColumn, Predicate<Object> filter, RowBuilder rows,
+                           Consumer<List<Object>> action) {
+        mapPages(firstPage, pageCount, filterColumn, filter, building(rows, action));
+    }
+
+    /**
+     * Like {@link #scanMapped(int, int, int, Predicate, RowBuilder, Consumer)}, but the pages
+     * are copied out of the mapping while writers wait and built after, so several threads can
+     * filter different page ranges of the file at once.
+     */
+    public void scanCopied(int firstPage, int pageCount, int filterColumn, Predicate<Object> filter, RowBuilder rows,
+                           Consumer<List<Object>> action) {
+        copyPages(firstPage, pageCount, filterColumn, filter, building(rows, action));
+    }
+
+    private void mapPages(int firstPage, int pageCount, int filterColumn, Predicate<Object> filter,
+                          Consumer<ByteBuffer> records) {
+        synchronized (file) {
+            file.flush();
+            int endPage = Math.min(file.getPageCount(), firstPage + pageCount);
+            for (int chunkStart = firstPage; chunkStart < endPage; chunkStart += MAPPED_CHUNK_PAGES) {
+                int pages = Math.min(MAPPED_CHUNK_PAGES, endPage - chunkStart);
+                ByteBuffer chunk = file.map(chunkStart, pages);
+                for (int i = 0; i < pages; i++) {
+                    Page page = Page.fromMapped(chunkStart + i, chunk.slice(i * Page.PAGE_SIZE, Page.PAGE_SIZE));
+                    scanPage(page, filterColumn, filter, records);
+                }
+            }
+        }
+    }
+
+    private void copyPages(int firstPage, int pageCount, int filterColumn, Predicate<Object> filter,
+                           Consumer<ByteBuffer> records) {
+        List<Page> pages = new ArrayList<>();
+        synchronized (file) {
+            file.flush();
+            int endPage = Math.min(file.getPageCount(), firstPage + pageCount);
+            if (endPage > firstPage) {
+                ByteBuffer mapped = file.map(firstPage, endPage - firstPage);
+                for (int pageId = firstPage; pageId < endPage; pageId++) {
+                    ByteBuffer copy = ByteBuffer.allocate(Page.PAGE_SIZE);
+                    copy.put(0, mapped, (pageId - firstPage) * Page.PAGE_SIZE, Page.PAGE_SIZE);
+                    pages.add(Page.fromMapped(pageId, copy));
+                }
+            }
+        }
+        for (Page page : pages) {
+            scanPage(page, filterColumn, filter, records);
+        }
+    }
+
+    // Decodes the projection of each record into a fresh array
+    private Consumer<ByteBuffer> decoding(int[] projection, Consumer<Object[]> action) {
+        List<ColumnMetadata> columns = metadata.getColumns();
+        return record -> {
+            Object[] row = new Object[projection.length];
+            TupleCodec.decodeColumns(record, columns, projection, row);
+            action.accept(row);
+        };
+    }
+
+    // Builds each record's row with rows, skipping those it rejects
+    private Consumer<ByteBuffer> building(RowBuilder rows, Consumer<List<Object>> action) {
+        List<ColumnMetadata> columns = metadata.getColumns();
+        return record -> {
+            List<Object> row = rows.build(record, columns);
+            if (row != null) {
+                action.accept(row);
+            }
+        };
+    }
+
+    // Passes the live records of a page read outside the buffer pool whose filterColumn passes
+    // filter to records; null stands for a page never written.
+    private void scanPage(Page page, int filterColumn, Predicate<Object> filter, Consumer<ByteBuffer> records) {
+        if (page == null) {
+            return;
+        }
+        List<ColumnMetadata> columns = metadata.getColumns();
+        int[] filterProjection = {filterColumn};
+        Object[] filterValue = new Object[1];
+        for (int slot = 0; slot < page.getSlotCount(); slot++) {
+            if (!page.isLive(slot)) {
+                continue;
+            }
+            ByteBuffer record = page.read(slot);
+            if (filterColumn >= 0) {
+                TupleCodec.decodeColumns(record, columns, filterProjection, filterValue);
+                if (!filter.test(filterValue[0])) {
+                    continue;
+                }
+            }
+            records.accept(record);
+        }
+    }
+
+    /**
+     * Copies every row into a new {@link TableSnapshot} in the table's storage mode, one page
+     * at a time, without building a tuple per row. The snapshot carries the version read
+     * before the scan; a caller that compares it with {@link #getVersion()} afterwards knows
+     * whether a writer overlapped the scan. The caller owns the snapshot's one reference.
+     */
+    public TableSnapshot scanSnapshot() {
+        long version = file.getVersion();
+        TableSnapshot snapshot = new TableSnapshot(version, metadata.getColumns(), metadata.getStorageMode());
+        int pageCount = file.getPageCount();
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            Page page = pool.fetchPage(file, pageId);
+            page.readLatch().lock();
+            try {
+                for (int slot = 0; slot < page.getSlotCount(); slot++) {
+                    if (page.isLive(slot)) {
+                        snapshot.append(new RecordId(pageId, slot), page.read(slot));
+                    }
+                }
+            } finally {
+                page.readLatch().unlock();
+                pool.unpinPage(file, pageId, false);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * The live rows at the given record ids, read a page at a time, as tuples the caller may
+     * change and write back. Ids whose row has since been deleted are skipped.
+     */
+    public List<Tuple> fetchTuples(List<RecordId> rids) {
+        Map<Integer, List<Integer>> slotsByPage = groupByPage(rids);
+        List<Tuple> tuples = new ArrayList<>();
+        for (Map.Entry<Integer, List<Integer>> entry : slotsByPage.entrySet()) {
+            int pageId = entry.getKey();
+            if (pageId >= file.getPageCount()) {
+                continue; // the table was truncated
+            }
+            Page page = pool.fetchPage(file, pageId);
+            page.readLatch().lock();
+            try {
+                for (int slot : entry.getValue()) {
+                    if (slot < page.getSlotCount() && page.isLive(slot)) {
+                        tuples.add(decode(page, slot));
+                    }
+                }
+            } finally {
+                page.readLatch().unlock();
+                pool.unpinPage(file, pageId, false);
+            }
+        }
+        return tuples;
+    }
+
+    /** A usable index on {@code column}, or null if the column has none. */
+    public BTreeIndex getIndex(int column) {
+        for (BTreeIndex index : indexes) {
+            if (index.getColumn() == column) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /** Whether {@link #lookup} can answer for {@code column}: it has a B+tree index or is PRIMARY KEY or UNIQUE. */
+    public boolean hasIndex(int column) {
+        return getIndex(column) != null || metadata.getColumns().get(column).getConstraint().isUnique();
+    }
+
+    /**
+     * A covering index on {@code column} that stores every one of {@code needed}, or null if
+     * there is none, so a query reading only those columns never has to read the table.
+     */
+    public BTreeIndex getCoveringIndex(int column, int[] needed) {
+        for (BTreeIndex index : indexes) {
+            if (index.getColumn() == column && index.isCovering() && covers(index.getColumns(), needed)) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The record ids an index on {@code column} lists for {@code key}, or null if the column
+     * has no index. Strings match regardless of case, and a B+tree may also return rows that
+     * only share a long string's prefix, so callers recheck the rows they fetch.
+     */
+    public List<RecordId> lookup(int column, Object key) {
+        for (HashIndex index : uniqueIndexes()) {
+            if (index.getColumn() == column) {
+                return index.search(key);
+            }
+        }
+        BTreeIndex index = getIndex(column);
+        return index != null ? index.search(key) : null;
+    }
+
+    /**
+     * The record ids a B+tree index on {@code column} lists between {@code lower} and
+     * {@code upper}, both inclusive and either null for an open end, or null if the column
+     * has no B+tree index. Callers recheck the rows they fetch, as with {@link #lookup}.
+     */
+    public List<RecordId> lookupRange(int column, Object lower, Object upper) {
+        BTreeIndex index = getIndex(column);
+        return index != null ? index.searchRange(lower, upper) : null;
+    }
+
+    /** Builds a new index from the table's rows; writers wait until it is done. */
+    public void createIndex(IndexMetadata definition) {
+        BTreeIndex index = openIndex(definition);
+        synchronized (file) {
+            build(index);
+            indexes.add(index);
+        }
+    }
+
+    /**
+     * Rebuilds the indexes from the table's rows: all of them when {@code all} is set, such as
+     * after recovery replayed changes to the table, and otherwise only those whose file is
+     * missing or damaged. The in-memory unique indexes are always rebuilt on next use.
+     */
+    public void rebuildIndexes(boolean all) {
+        synchronized (file) {
+            uniqueIndexes = null;
+            for (BTreeIndex index : indexes) {
+                if (all || !index.isValid()) {
+                    build(index);
+                }
+            }
+        }
+    }
+
+    /** Number of live rows, counted from the pages on first use and kept up to date after that. */
+    public long getRowCount() {
+        long count = rowCount;
+        if (count >= 0) {
+            return count;
+        }
+        synchronized (file) {
+            countPages();
+            return rowCount;
+        }
     }
 
     public List<Tuple> scanAllTuples() {
-        return new ArrayList<>(tuples);
+        List<Tuple> tuples = new ArrayList<>();
+        forEachTuple(tuples::add);
+        return tuples;
+    }
+
+    /** Writes the tuple's current values back to its slot, moving it to another page if it grew. */
+    public void updateTuple(Tuple tuple) {
+        RecordId rid = requireRecordId(tuple);
+        byte[] record = encode(tuple);
+        synchronized (file) {
+            file.beginChange();
+            try {
+                Page page = pool.fetchPage(file, rid.pageId());
+                Object[] newKeys = indexKeys(ByteBuffer.wrap(record));
+                boolean inPlace;
+                page.writeLatch().lock();
+                try {
+                    Object[] oldKeys = indexKeys(page.read(rid.slot()));
+                    checkUnique(newKeys, rid);
+                    inPlace = page.update(rid.slot(), record);
+                    countDeadBytes(-page.takeReclaimedBytes());
+                    if (inPlace) {
+                        for (int i = 0; i < oldKeys.length; i++) {
+                            if (!Objects.equals(oldKeys[i], newKeys[i])) {
+                                removeFromIndex(i, oldKeys[i], rid);
+                                addToIndex(i, newKeys[i], rid);
+                            }
+                        }
+                        log(page, LogRecord.update(getTableName(), rid, record));
+                    } else {
+                        removeFromIndexes(oldKeys, rid);
+                        countDeadBytes(page.delete(rid.slot()));
+                        countRows(-1);
+                        log(page, LogRecord.delete(getTableName(), rid));
+                    }
+                    noteFreeSpace(page);
+                } finally {
+                    release(page, true);
+                }
+                if (!inPlace) {
+                    tuple.setRecordId(insertRecord(record, newKeys));
+                }
+            } finally {
+                file.endChange();
+            }
+        }
+    }
+
+    /**
+     * Rejects setting {@code column} to {@code value} on every one of {@code tuples} if that
+     * would break a PRIMARY KEY or UNIQUE constraint: another row holds the value, or more
+     * than one of the tuples would take it. Callers check before changing any row, so a
+     * rejected update writes nothing.
+     */
+    public void checkUniqueUpdate(List<Tuple> tuples, int column, Object value) {
+        if (tuples.isEmpty()) {
+            return;
+        }
+        synchronized (file) {
+            for (HashIndex index : uniqueIndexes()) {
+                if (index.getColumn() != column) {
+                    continue;
+                }
+                ColumnMetadata metadataColumn = metadata.getColumns().get(column);
+                if (value == null) {
+                    if (metadataColumn.getConstraint() == ColumnConstraint.PRIMARY_KEY) {
+                        throw new IllegalArgumentException("PRIMARY KEY column " + metadataColumn.getName() + " cannot be NULL");
+                    }
+                    return;
+                }
+                RecordId holder = index.find(value);
+                if (tuples.size() > 1 || holder != null && !holder.equals(requireRecordId(tuples.get(0)))) {
+                    throw new IllegalArgumentException("Duplicate key value violates unique constraint on "
+                            + metadataColumn.getName() + ": " + value);
+                }
+            }
+        }
     }
 
     public void deleteTuples(List<Tuple> toRemove) {
-        tuples.removeAll(toRemove);
+        List<RecordId> rids = new ArrayList<>();
+        for (Tuple tuple : toRemove) {
+            rids.add(requireRecordId(tuple));
+        }
+        Map<Integer, List<Integer>> slotsByPage = groupByPage(rids);
+
+        synchronized (file) {
+            file.beginChange();
+            try {
+                for (Map.Entry<Integer, List<Integer>> entry : slotsByPage.entrySet()) {
+                    Page page = pool.fetchPage(file, entry.getKey());
+                    page.writeLatch().lock();
+                    boolean changed = false;
+                    try {
+                        for (int slot : entry.getValue()) {
+                            if (page.isLive(slot)) {
+                                RecordId rid = new RecordId(page.getPageId(), slot);
+                                removeFromIndexes(indexKeys(page.read(slot)), rid);
+                                countDeadBytes(page.delete(slot));
+                                countRows(-1);
+                                log(page, LogRecord.delete(getTableName(), rid));
+                                changed = true;
+                            }
+                        }
+                        noteFreeSpace(page);
+                    } finally {
+                        release(page, changed);
+                    }
+                }
+            } finally {
+                file.endChange();
+            }
+        }
+    }
+
+    /**
+     * Bytes held by deleted rows that no vacuum or compaction has reclaimed yet, counted from
+     * the pages on first use and kept up to date after.
+     */
+    public long getDeadBytes() {
+        long dead = deadBytes;
+        if (dead >= 0) {
+            return dead;
+        }
+        synchronized (file) {
+            countPages();
+            return deadBytes;
+        }
+    }
+
+    /** Whether dead rows take up more than {@code threshold} of the table's pages. */
+    public boolean needsVacuum(double threshold) {
+        long size = (long) file.getPageCount() * Page.PAGE_SIZE;
+        return size > 0 && getDeadBytes() > threshold * size;
+    }
+
+    /**
+     * Compacts every page that holds dead rows and returns the bytes reclaimed. Rows keep
+     * their record ids, so the table's version and snapshots are unaffected. Each compacted
+     * page is logged as a full image, so recovery never has to repeat the compaction.
+     */
+    public long vacuum() {
+        long reclaimed = 0;
+        int pageCount = file.getPageCount();
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            // One page at a time, so writers and mapped scans only wait for a single page.
+            synchronized (file) {
+                Page page = pool.fetchPage(file, pageId);
+                page.writeLatch().lock();
+                boolean vacuumed = false;
+                try {
+                    int dead = page.getDeadBytes();
+                    if (dead > 0) {
+                        countDeadBytes(-dead);
+                        reclaimed += page.vacuum();
+                        log(page, LogRecord.pageImage(getTableName(), page));
+                        vacuumed = true;
+                    }
+                } finally {
+                    release(page, vacuumed);
+                }
+            }
+        }
+        return reclaimed;
+    }
+
+    // Inserts into the first page the free-space map says has room, or into a fresh page,
+    // and adds the row's keys to the indexes. Caller holds the file lock.
+    private RecordId insertRecord(byte[] record, Object[] keys) {
+        FreeSpaceMap map = freeSpaceMap();
+        int needed = record.length + Page.SLOT_SIZE;
+        for (int pageId = map.findPage(needed); pageId >= 0; pageId = map.findPage(needed)) {
+            // A failed attempt corrects the page's entry, so the same page is not offered again.
+            RecordId rid = tryInsert(pool.fetchPage(file, pageId), record, keys);
+            if (rid != null) {
+                return rid;
+            }
+        }
+        return tryInsert(pool.newPage(file), record, keys);
+    }
+
+    private RecordId tryInsert(Page page, byte[] record, Object[] keys) {
+        page.writeLatch().lock();
+        int slot = -1;
+        try {
+            slot = page.insert(record);
+            countDeadBytes(-page.takeReclaimedBytes());
+            if (slot < 0) {
+                return null;
+            }
+            RecordId rid = new RecordId(page.getPageId(), slot);
+            for (int i = 0; i < keys.length; i++) {
+                addToIndex(i, keys[i], rid);
+            }
+            countRows(1);
+            log(page, LogRecord.insert(getTableName(), rid, record));
+            return rid;
+        } finally {
+            noteFreeSpace(page);
+            release(page, slot >= 0);
+        }
+    }
+
+    // Builds the map from the pages on first use, and again if the file was truncated
+    // since. Caller holds the file lock.
+    private FreeSpaceMap freeSpaceMap() {
+        int pageCount = file.getPageCount();
+        if (freeSpace == null || freeSpace.getPageCount() > pageCount) {
+            FreeSpaceMap map = new FreeSpaceMap();
+            for (int pageId = 0; pageId < pageCount; pageId++) {
+                Page page = pool.fetchPage(file, pageId);
+                page.readLatch().lock();
+                try {
+                    map.update(pageId, page.getFreeSpace());
+                } finally {
+                    page.readLatch().unlock();
+                    pool.unpinPage(file, pageId, false);
+                }
+            }
+            freeSpace = map;
+        }
+        return freeSpace;
+    }
+
+    // Counts the live rows and dead bytes of every page, if not counted yet. Caller holds the file lock.
+    private void countPages() {
+        if (rowCount >= 0 && deadBytes >= 0) {
+            return;
+        }
+        long live = 0;
+        long dead = 0;
+        int pageCount = file.getPageCount();
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            Page page = pool.fetchPage(file, pageId);
+            page.readLatch().lock();
+            try {
+                for (int slot = 0; slot < page.getSlotCount(); slot++) {
+                    if (page.isLive(slot)) {
+                        live++;
+                    }
+                }
+                dead += page.getDeadBytes();
+            } finally {
+                page.readLatch().unlock();
+                pool.unpinPage(file, pageId, false);
+            }
+        }
+        rowCount = live;
+        deadBytes = dead;
+    }
+
+    // Caller holds the file lock.
+    private void countRows(int delta) {
+        if (rowCount >= 0) {
+            rowCount += delta;
+        }
+    }
+
+    // Caller holds the file lock.
+    private void countDeadBytes(long delta) {
+        if (deadBytes >= 0) {
+            deadBytes += delta;
+        }
+    }
+
+    // Caller holds the file lock and the page's latch.
+    private void noteFreeSpace(Page page) {
+        if (freeSpace != null) {
+            freeSpace.update(page.getPageId(), page.getFreeSpace());
+        }
+    }
+
+    private BTreeIndex openIndex(IndexMetadata index) {
+        List<String> included = index.getIncludedColumns();
+        int[] columns = new int[1 + included.size()];
+        columns[0] = metadata.getColumnIndex(index.getColumnName());
+        for (int i = 0; i < included.size(); i++) {
+            columns[1 + i] = metadata.getColumnIndex(included.get(i));
+        }
+        return new BTreeIndex(index.getName(), columns, metadata.getColumns(),
+                HeapFile.open(TableSerializer.indexFile(getTableName(), index.getName())));
+    }
+
+    // Caller holds the file lock.
+    private void build(BTreeIndex index) {
+        index.clear();
+        int[] projection = index.getColumns();
+        Object[] values = new Object[projection.length];
+        int pageCount = file.getPageCount();
+        for (int pageId = 0; pageId < pageCount; pageId++) {
+            Page page = pool.fetchPage(file, pageId);
+            page.readLatch().lock();
+            try {
+                for (int slot = 0; slot < page.getSlotCount(); slot++) {
+                    if (page.isLive(slot)) {
+                        TupleCodec.decodeColumns(page.read(slot), metadata.getColumns(), projection, values);
+                        RecordId rid = new RecordId(pageId, slot);
+                        if (index.isCovering()) {
+                            index.insertCovered(Arrays.asList(values.clone()), rid);
+                        } else {
+                            index.insert(values[0], rid);
+                        }
+                    }
+                }
+            } finally {
+                page.readLatch().unlock();
+                pool.unpinPage(file, pageId, false);
+            }
+        }
+        index.getFile().flush(); // index builds are not logged
+    }
+
+    // Builds the hash indexes of the PRIMARY KEY and UNIQUE columns from the rows.
+    private List<HashIndex> uniqueIndexes() {
+        List<HashIndex> built = uniqueIndexes;
+        if (built != null) {
+            return built;
+        }
+        synchronized (file) {
+            if (uniqueIndexes == null) {
+                List<HashIndex> created = new ArrayList<>();
+                List<ColumnMetadata> columns = metadata.getColumns();
+                for (int i = 0; i < columns.size(); i++) {
+                    if (columns.get(i).getConstraint().isUnique()) {
+                        created.add(new HashIndex(i, columns.get(i).getType()));
+                    }
+                }
+                if (!created.isEmpty()) {
+                    forEachTuple(tuple -> {
+                        for (HashIndex index : created) {
+                            index.put(tuple.getValues().get(index.getColumn()), tuple.getRecordId());
+                        }
+                    });
+                }
+                uniqueIndexes = List.copyOf(created);
+            }
+            return uniqueIndexes;
+        }
+    }
+
+    // The record's value for each B+tree index followed by each unique index; a covering index
+    // gets the list of its columns' values instead, so a change to an INCLUDE column rewrites
+    // its entry. Caller holds the file lock.
+    private Object[] indexKeys(ByteBuffer record) {
+        List<HashIndex> unique = uniqueIndexes();
+        List<int[]> indexColumns = new ArrayList<>(indexes.size());
+        int width = unique.size();
+        for (BTreeIndex index : indexes) {
+            indexColumns.add(index.getColumns());
+            width += indexColumns.get(indexColumns.size() - 1).length;
+        }
+        int[] projection = new int[width];
+        int next = 0;
+        for (int[] columns : indexColumns) {
+            for (int column : columns) {
+                projection[next++] = column;
+            }
+        }
+        for (HashIndex index : unique) {
+            projection[next++] = index.getColumn();
+        }
+        Object[] values = new Object[width];
+        TupleCodec.decodeColumns(record, metadata.getColumns(), projection, values);
+
+        Object[] keys = new Object[indexes.size() + unique.size()];
+        next = 0;
+        for (int i = 0; i < indexes.size(); i++) {
+            int count = indexColumns.get(i).length;
+            keys[i] = count > 1 ? Arrays.asList(Arrays.copyOfRange(values, next, next + count)) : values[next];
+            next += count;
+        }
+        for (int i = 0; i < unique.size(); i++) {
+            keys[indexes.size() + i] = values[next++];
+        }
+        return keys;
+    }
+
+    // Rejects keys that another row already holds; rid is the row being changed, or null for a new row.
+    private void checkUnique(Object[] keys, RecordId rid) {
+        List<HashIndex> unique = uniqueIndexes();
+        for (int i = 0; i < unique.size(); i++) {
+            Object key = keys[indexes.size() + i];
+            ColumnMetadata column = metadata.getColumns().get(unique.get(i).getColumn());
+            if (key == null) {
+                if (column.getConstraint() == ColumnConstraint.PRIMARY_KEY) {
+                    throw new IllegalArgumentException("PRIMARY KEY column " + column.getName() + " cannot be NULL");
+                }
+                continue;
+            }
+            RecordId holder = unique.get(i).find(key);
+            if (holder != null && !holder.equals(rid)) {
+                throw new IllegalArgumentException("Duplicate key value violates unique constraint on "
+                        + column.getName() + ": " + key);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addToIndex(int i, Object key, RecordId rid) {
+        if (i < indexes.size()) {
+            BTreeIndex index = indexes.get(i);
+            if (index.isCovering()) {
+                index.insertCovered((List<Object>) key, rid);
+            } else {
+                index.insert(key, rid);
+            }
+        } else {
+            uniqueIndexes().get(i - indexes.size()).put(key, rid);
+        }
+    }
+
+    private void removeFromIndex(int i, Object key, RecordId rid) {
+        if (i < indexes.size()) {
+            BTreeIndex index = indexes.get(i);
+            index.delete(index.isCovering() ? ((List<?>) key).get(0) : key, rid);
+        } else {
+            uniqueIndexes().get(i - indexes.size()).remove(key, rid);
+        }
+    }
+
+    private void removeFromIndexes(Object[] keys, RecordId rid) {
+        for (int i = 0; i < keys.length; i++) {
+            removeFromIndex(i, keys[i], rid);
+        }
+    }
+
+    private static boolean covers(int[] stored, int[] needed) {
+        for (int column : needed) {
+            if (Arrays.stream(stored).noneMatch(c -> c == column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<Integer, List<Integer>> groupByPage(List<RecordId> rids) {
+        Map<Integer, List<Integer>> slotsByPage = new TreeMap<>();
+        for (RecordId rid : rids) {
+            slotsByPage.computeIfAbsent(rid.pageId(), k -> new ArrayList<>()).add(rid.slot());
+        }
+        return slotsByPage;
+    }
+
+    private void log(Page page, LogRecord record) {
+        page.setLsn(wal.appendPageChange(getTableName(), page, record));
+    }
+
+    // Unpins while still holding the write latch, so a flush never sees the change without the dirty mark.
+    private void release(Page page, boolean dirty) {
+        try {
+            pool.unpinPage(file, page.getPageId(), dirty);
+        } finally {
+            page.writeLatch().unlock();
+        }
+    }
+
+    private String getTableName() {
+        return metadata.getTableName();
+    }
+
+    private byte[] encode(Tuple tuple) {
+        byte[] record = TupleCodec.encode(tuple.getValues(), metadata.getColumns());
+        if (record.length > Page.MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Row too large: " + record.length
+                    + " bytes (max " + Page.MAX_RECORD_SIZE + ")");
+        }
+        return record;
+    }
+
+    private Tuple decode(Page page, int slot) {
+        Tuple tuple = new Tuple(TupleCodec.decode(page.read(slot), metadata.getColumns()));
+        tuple.setRecordId(new RecordId(page.getPageId(), slot));
+        return tuple;
+    }
+
+    private static RecordId requireRecordId(Tuple tuple) {
+        if (tuple.getRecordId() == null) {
+            throw new IllegalArgumentException("Tuple is not stored in this table: " + tuple);
+        }
+        return tuple.getRecordId();
     }
 }
@@ -1,34 +1,132 @@
 package com.postgresql.storage;
 
+import com.postgresql.catalog.ColumnConstraint;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.IndexMetadata;
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.catalog.TableMetadata;
+import com.postgresql.common.DataType;
 import com.postgresql.model.Table;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * On-disk layout of a table:
+ * <ul>
+ *   <li>{@code <name>.table} - the catalog entry (table name, column definitions and constraints, storage mode and indexes)</li>
+ *   <li>{@code <name>.tbl} - the slotted-page {@link HeapFile} holding the rows</li>
+ *   <li>{@code <name>.<index>.idx} - one B+tree per secondary index, with its INCLUDE columns in the leaves</li>
+ * </ul>
+ *
+ * The catalog entry is written to a temporary file and renamed over the old one, so a crash
+ * leaves either the old or the new entry, never a torn one.
+ */
 public class TableSerializer {
 
     private static final String DATA_DIR = "data";
+    private static final int CATALOG_MAGIC = 0x50474C54; // "PGLT"
+    private static final int CATALOG_VERSION = 5; // version 1 had no storage mode, 2 no indexes, 3 no constraints, 4 no INCLUDE columns
 
+    /** Persists the catalog entry and forces the table's pages to disk. */
     public static void writeToDisk(Table table) throws IOException {
+        writeMetadata(table.getMetadata());
+        table.getTableHeap().getFile().flush();
+    }
+
+    public static Table readFromDisk(String tableName) throws IOException {
+        File file = catalogFile(tableName);
+        if (!file.exists()) {
+            return null; // table not persisted yet
+        }
+
+        TableMetadata metadata = readMetadata(file);
+        TableHeap heap = new TableHeap(metadata, HeapFile.open(heapFile(metadata.getTableName())));
+        return new Table(metadata.getTableName(), metadata, heap);
+    }
+
+    public static void writeMetadata(TableMetadata metadata) throws IOException {
         File dir = new File(DATA_DIR);
         if (!dir.exists()) {
             dir.mkdirs();
         }
 
-        String fileName = DATA_DIR + "/" + table.getMetadata().getTableName() + ".tbl";
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileName))) {
-            oos.writeObject(table);
+        File target = catalogFile(metadata.getTableName());
+        File temp = new File(DATA_DIR, target.getName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(CATALOG_MAGIC);
+            out.writeShort(CATALOG_VERSION);
+            out.writeUTF(metadata.getTableName());
+            out.writeShort(metadata.getColumns().size());
+            for (ColumnMetadata column : metadata.getColumns()) {
+                out.writeUTF(column.getName());
+                out.writeUTF(column.getType().name());
+                out.writeUTF(column.getConstraint().name());
+            }
+            out.writeUTF(metadata.getStorageMode().name());
+            out.writeShort(metadata.getIndexes().size());
+            for (IndexMetadata index : metadata.getIndexes()) {
+                out.writeUTF(index.getName());
+                out.writeUTF(index.getColumnName());
+                out.writeShort(index.getIncludedColumns().size());
+                for (String included : index.getIncludedColumns()) {
+                    out.writeUTF(included);
+                }
+            }
+            out.flush();
+            fileOut.getFD().sync();
         }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    public static Table readFromDisk(String tableName) throws IOException, ClassNotFoundException {
-        String fileName = DATA_DIR + "/" + tableName + ".tbl";
-        File file = new File(fileName);
-        if (!file.exists()) {
-            return null; // table not persisted yet
+    public static TableMetadata readMetadata(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CATALOG_MAGIC) {
+                throw new IOException("Not a catalog file: " + file.getName());
+            }
+            int version = in.readShort();
+            if (version < 1 || version > CATALOG_VERSION) {
+                throw new IOException("Unsupported catalog version " + version + " in " + file.getName());
+            }
+            String tableName = in.readUTF();
+            int columnCount = in.readShort();
+            List<ColumnMetadata> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                String name = in.readUTF();
+                DataType type = DataType.valueOf(in.readUTF());
+                ColumnConstraint constraint = version >= 4 ? ColumnConstraint.valueOf(in.readUTF()) : ColumnConstraint.NONE;
+                columns.add(new ColumnMetadata(name, type, constraint));
+            }
+            StorageMode storageMode = version >= 2 ? StorageMode.valueOf(in.readUTF()) : StorageMode.HEAP;
+            TableMetadata metadata = new TableMetadata(tableName, columns, storageMode);
+            int indexCount = version >= 3 ? in.readShort() : 0;
+            for (int i = 0; i < indexCount; i++) {
+                String indexName = in.readUTF();
+                String columnName = in.readUTF();
+                List<String> included = new ArrayList<>();
+                int includedCount = version >= 5 ? in.readShort() : 0;
+                for (int j = 0; j < includedCount; j++) {
+                    included.add(in.readUTF());
+                }
+                metadata.addIndex(new IndexMetadata(indexName, columnName, included));
+            }
+            return metadata;
         }
+    }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            return (Table) ois.readObject();
-        }
+    public static File catalogFile(String tableName) {
+        return new File(DATA_DIR, tableName + ".table");
+    }
+
+    public static File heapFile(String tableName) {
+        return new File(DATA_DIR, tableName + ".tbl");
+    }
+
+    public static File indexFile(String tableName, String indexName) {
+        return new File(DATA_DIR, tableName + "." + indexName + ".idx");
     }
 }
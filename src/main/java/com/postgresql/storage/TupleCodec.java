@@ -0,0 +1,179 @@
+package com.postgresql.storage;
+
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary encoding of a row as stored in a heap page.
+ *
+ * <pre>
+ * columnCount : u16
+ * nullBitmap  : ceil(columnCount / 8) bytes, bit i set when column i is NULL
+ * values      : one entry per non-null column, in column order
+ *               INT     -> 4 bytes
+ *               FLOAT   -> 4 bytes (IEEE 754)
+ *               BOOLEAN -> 1 byte
+ *               STRING  -> u16 length + UTF-8 bytes
+ * </pre>
+ *
+ * The column count is stored per record so that rows written before an
+ * {@code ALTER TABLE ... ADD COLUMN} decode with NULLs for the new columns.
+ */
+public final class TupleCodec {
+
+    private TupleCodec() {
+        // prevent instantiation
+    }
+
+    public static byte[] encode(List<Object> values, List<ColumnMetadata> columns) {
+        int columnCount = columns.size();
+        if (values.size() != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " values but got " + values.size());
+        }
+
+        int bitmapSize = (columnCount + 7) / 8;
+        int size = 2 + bitmapSize;
+        byte[][] strings = new byte[columnCount][];
+        for (int i = 0; i < columnCount; i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            DataType type = columns.get(i).getType();
+            if (type == DataType.STRING) {
+                strings[i] = value.toString().getBytes(StandardCharsets.UTF_8);
+                if (strings[i].length > 0xFFFF) {
+                    throw new IllegalArgumentException("String too long for column " + columns.get(i).getName());
+                }
+            }
+            size += encodedWidth(type, strings[i]);
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putShort((short) columnCount);
+        byte[] bitmap = new byte[bitmapSize];
+        for (int i = 0; i < columnCount; i++) {
+            if (values.get(i) == null) {
+                bitmap[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        buf.put(bitmap);
+
+        for (int i = 0; i < columnCount; i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            switch (columns.get(i).getType()) {
+                case INT -> buf.putInt(((Number) value).intValue());
+                case FLOAT -> buf.putFloat(((Number) value).floatValue());
+                case BOOLEAN -> buf.put((byte) (((Boolean) value) ? 1 : 0));
+                case STRING -> {
+                    buf.putShort((short) strings[i].length);
+                    buf.put(strings[i]);
+                }
+            }
+        }
+        return buf.array();
+    }
+
+    public static List<Object> decode(ByteBuffer record, List<ColumnMetadata> columns) {
+        ByteBuffer buf = record.duplicate();
+        int storedCount = Short.toUnsignedInt(buf.getShort());
+        int bitmapStart = buf.position();
+        buf.position(bitmapStart + (storedCount + 7) / 8);
+
+        int columnCount = columns.size();
+        List<Object> values = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            if (i >= storedCount || (buf.get(bitmapStart + (i >> 3)) & (1 << (i & 7))) != 0) {
+                values.add(null);
+                continue;
+            }
+            values.add(switch (columns.get(i).getType()) {
+                case INT -> buf.getInt();
+                case FLOAT -> buf.getFloat();
+                case BOOLEAN -> buf.get() != 0;
+                case STRING -> {
+                    byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+                    buf.get(bytes);
+                    yield new String(bytes, StandardCharsets.UTF_8);
+                }
+            });
+        }
+        return values;
+    }
+
+    /**
+     * Decodes only the columns listed in {@code projection}, writing column
+     * {@code projection[i]} to {@code out[i]}. Columns before the last one needed are
+     * skipped by width without being materialized.
+     */
+    public static void decodeColumns(ByteBuffer record, List<ColumnMetadata> columns, int[] projection, Object[] out) {
+        Arrays.fill(out, 0, projection.length, null);
+        decodeColumns(record, columns, projection, out, false);
+    }
+
+    /**
+     * Like {@link #decodeColumns(ByteBuffer, List, int[], Object[])}, but writes each column
+     * at its own position, {@code row[projection[i]]}, leaving the rest of {@code row} as it is.
+     */
+    public static void decodeColumnsInPlace(ByteBuffer record, List<ColumnMetadata> columns, int[] projection, Object[] row) {
+        for (int column : projection) {
+            row[column] = null;
+        }
+        decodeColumns(record, columns, projection, row, true);
+    }
+
+    private static void decodeColumns(ByteBuffer record, List<ColumnMetadata> columns, int[] projection, Object[] out,
+                                      boolean inPlace) {
+        int last = -1;
+        for (int column : projection) {
+            last = Math.max(last, column);
+        }
+
+        int storedCount = Short.toUnsignedInt(record.getShort(record.position()));
+        int bitmapStart = record.position() + 2;
+        int pos = bitmapStart + (storedCount + 7) / 8;
+        for (int i = 0; i <= last && i < storedCount; i++) {
+            if ((record.get(bitmapStart + (i >> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            DataType type = columns.get(i).getType();
+            int width = type == DataType.STRING ? 2 + Short.toUnsignedInt(record.getShort(pos)) : encodedWidth(type, null);
+            for (int j = 0; j < projection.length; j++) {
+                if (projection[j] == i) {
+                    out[inPlace ? i : j] = decodeValue(record, pos, type);
+                }
+            }
+            pos += width;
+        }
+    }
+
+    private static Object decodeValue(ByteBuffer record, int pos, DataType type) {
+        return switch (type) {
+            case INT -> record.getInt(pos);
+            case FLOAT -> record.getFloat(pos);
+            case BOOLEAN -> record.get(pos) != 0;
+            case STRING -> {
+                byte[] bytes = new byte[Short.toUnsignedInt(record.getShort(pos))];
+                record.get(pos + 2, bytes);
+                yield new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    private static int encodedWidth(DataType type, byte[] string) {
+        return switch (type) {
+            case INT, FLOAT -> 4;
+            case BOOLEAN -> 1;
+            case STRING -> 2 + string.length;
+        };
+    }
+}
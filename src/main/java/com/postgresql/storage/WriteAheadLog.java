@@ -0,0 +1,409 @@
+package com.postgresql.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential, append-only log of row changes.
+ *
+ * Every change to a heap page is appended here before the page itself is allowed to reach
+ * disk. A statement is durable once its records are flushed, so the cost of a write depends
+ * on the size of the change rather than the size of the table; data pages are written later
+ * by the {@link Checkpointer}.
+ *
+ * A record's LSN is the log position just past it. Records are framed as
+ * {@code length (4) | crc32 (4) | payload}.
+ *
+ * Commits use group commit: appends go to an in-memory buffer, and the first thread that
+ * needs its records on disk writes and fsyncs everything buffered so far. Threads that
+ * commit while that fsync is in progress wait for it and, if their records were not part of
+ * it, the next one of them flushes the whole batch that built up in the meantime.
+ *
+ * The log is split into segment files named after the LSN they start at. A completed
+ * checkpoint records its redo LSN in the {@code checkpoint} control file; recovery replays
+ * from there, and segments that end before it are deleted.
+ */
+public class WriteAheadLog {
+    private static final String DEFAULT_DIR = "data/wal";
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final String CONTROL_FILE = "checkpoint";
+    private static final int CONTROL_MAGIC = 0x50474C43; // "PGLC"
+    private static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private static volatile WriteAheadLog instance;
+
+    /** Receives each record found by {@link #replay}, together with its LSN. */
+    public interface RecordHandler {
+        void redo(long lsn, LogRecord record);
+    }
+
+    private final File dir;
+    private final long segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushDone = lock.newCondition();
+    private final ThreadLocal<Long> lastAppendedLsn = ThreadLocal.withInitial(() -> 0L);
+
+    private byte[] buffer = new byte[64 * 1024];
+    private byte[] spare = new byte[64 * 1024];
+    private int buffered;
+    private long appendedLsn;
+    private long flushedLsn;
+    private long redoLsn;
+    private boolean flushing;
+    private IOException failure;
+
+    // Only touched by the thread that is flushing.
+    private FileChannel segment;
+    private long segmentStart;
+
+    public WriteAheadLog(File dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public WriteAheadLog(File dir, long segmentSize) throws IOException {
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.redoLsn = readControlFile();
+
+        List<Long> segments = listSegments();
+        // With no segments left, continue from the last checkpoint so LSNs never go backwards.
+        this.segmentStart = segments.isEmpty() ? redoLsn : segments.get(segments.size() - 1);
+        this.segment = openSegment(segmentStart);
+        this.appendedLsn = segmentStart + segment.size();
+        this.flushedLsn = appendedLsn;
+    }
+
+    public static WriteAheadLog getInstance() {
+        if (instance == null) {
+            synchronized (WriteAheadLog.class) {
+                if (instance == null) {
+                    try {
+                        instance = new WriteAheadLog(new File(DEFAULT_DIR));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to open write-ahead log", e);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** Buffers a record and returns its LSN. The record is not durable until flushed. */
+    public long append(LogRecord record) {
+        lock.lock();
+        try {
+            return appendLocked(record.serialize());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs a change that has already been applied to {@code page} and returns its LSN. If
+     * this is the page's first change since the current checkpoint started, a full image of
+     * the page is logged instead, so a torn write of the page can be repaired by recovery.
+     */
+    long appendPageChange(String tableName, Page page, LogRecord change) {
+        lock.lock();
+        try {
+            // Decided under the lock so a checkpoint cannot start between the check and the append.
+            LogRecord record = page.getLsn() <= redoLsn ? LogRecord.pageImage(tableName, page) : change;
+            return appendLocked(record.serialize());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long appendLocked(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        int frameSize = FRAME_HEADER_SIZE + payload.length;
+        if (buffered + frameSize > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, buffered + frameSize));
+        }
+        ByteBuffer.wrap(buffer, buffered, frameSize)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload);
+        buffered += frameSize;
+        appendedLsn += frameSize;
+        lastAppendedLsn.set(appendedLsn);
+        return appendedLsn;
+    }
+
+    /** Makes every record appended by the calling thread durable. */
+    public void commit() {
+        flush(lastAppendedLsn.get());
+    }
+
+    /** Blocks until the log is durable at least up to {@code lsn}. */
+    public void flush(long lsn) {
+        lock.lock();
+        try {
+            lsn = Math.min(lsn, appendedLsn);
+            while (flushedLsn < lsn) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log is unavailable after an I/O error", failure);
+                }
+                if (flushing) {
+                    flushDone.awaitUninterruptibly();
+                    continue;
+                }
+
+                // Become the flusher for everything buffered so far.
+                flushing = true;
+                byte[] batch = buffer;
+                int length = buffered;
+                long batchStart = appendedLsn - buffered;
+                long batchEnd = appendedLsn;
+                buffer = spare;
+                buffered = 0;
+
+                lock.unlock();
+                IOException error = null;
+                try {
+                    write(batch, length, batchStart);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+
+                spare = batch;
+                flushing = false;
+                if (error == null) {
+                    flushedLsn = batchEnd;
+                } else {
+                    failure = error;
+                }
+                flushDone.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppendedLsn() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFlushedLsn() {
+        lock.lock();
+        try {
+            return flushedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Where recovery would start replaying if the process stopped now. */
+    public long getRedoLsn() {
+        lock.lock();
+        try {
+            return redoLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a checkpoint and returns its redo LSN: every change logged before it is on a
+     * page that is dirty now and will be written by the checkpoint. Pages changed from here
+     * on log a full image first.
+     */
+    long beginCheckpoint() {
+        lock.lock();
+        try {
+            redoLsn = appendedLsn;
+            return redoLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a checkpoint whose pages are all on disk, so recovery can start at
+     * {@code redo}, and deletes the segments that only hold older records.
+     */
+    void completeCheckpoint(long redo) throws IOException {
+        flush(redo);
+        File temp = new File(dir, CONTROL_FILE + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(fileOut)) {
+            out.writeInt(CONTROL_MAGIC);
+            out.writeLong(redo);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), new File(dir, CONTROL_FILE).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Long> segments = listSegments();
+        for (int i = 0; i + 1 < segments.size() && segments.get(i + 1) <= redo; i++) {
+            Files.deleteIfExists(segmentFile(segments.get(i)).toPath());
+        }
+    }
+
+    /**
+     * Reads the durable log from {@code fromLsn} and hands every intact record to
+     * {@code handler}. Reading stops at the first incomplete or corrupted record, which is
+     * where a crash interrupted the last write; the returned LSN is the end of the valid log.
+     */
+    public long replay(long fromLsn, RecordHandler handler) throws IOException {
+        List<Long> segments = listSegments();
+        long lsn = fromLsn;
+        for (int i = 0; i < segments.size(); i++) {
+            long start = segments.get(i);
+            long next = i + 1 < segments.size() ? segments.get(i + 1) : Long.MAX_VALUE;
+            if (next <= lsn) {
+                continue;
+            }
+            if (start > lsn) {
+                break; // a gap in the log; nothing after it can be trusted
+            }
+            try (FileChannel channel = FileChannel.open(segmentFile(start).toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel.position(lsn - start)), 64 * 1024));
+                while (lsn - start < size) {
+                    byte[] payload = readFrame(in, size - (lsn - start));
+                    if (payload == null) {
+                        return lsn;
+                    }
+                    lsn += FRAME_HEADER_SIZE + payload.length;
+                    handler.redo(lsn, LogRecord.deserialize(ByteBuffer.wrap(payload)));
+                }
+            }
+        }
+        return lsn;
+    }
+
+    /**
+     * Discards everything after {@code lsn}, the end of the valid log found by
+     * {@link #replay}, so new records are not appended behind a torn one. Only called
+     * during recovery, before anything is appended.
+     */
+    void truncate(long lsn) throws IOException {
+        lock.lock();
+        try {
+            List<Long> segments = listSegments();
+            for (int i = segments.size() - 1; i >= 0 && segments.get(i) > lsn; i--) {
+                Files.deleteIfExists(segmentFile(segments.get(i)).toPath());
+            }
+            long start = segments.stream().filter(s -> s <= lsn).reduce((a, b) -> b).orElse(lsn);
+            segment.close();
+            segmentStart = start;
+            segment = openSegment(start);
+            segment.truncate(lsn - start);
+            segment.force(true);
+            appendedLsn = lsn;
+            flushedLsn = lsn;
+            buffered = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] batch, int length, long position) throws IOException {
+        // A batch never spans segments: switch to a new one between batches.
+        if (position - segmentStart >= segmentSize) {
+            segment.close();
+            segmentStart = position;
+            segment = openSegment(position);
+        }
+        ByteBuffer buf = ByteBuffer.wrap(batch, 0, length);
+        long offset = position - segmentStart;
+        while (buf.hasRemaining()) {
+            offset += segment.write(buf, offset);
+        }
+        segment.force(false);
+    }
+
+    // Returns null when the frame is cut short or fails its checksum.
+    private static byte[] readFrame(DataInputStream in, long remaining) throws IOException {
+        if (remaining < FRAME_HEADER_SIZE) {
+            return null;
+        }
+        try {
+            int length = in.readInt();
+            int crc = in.readInt();
+            if (length < 0 || length > remaining - FRAME_HEADER_SIZE) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 actual = new CRC32();
+            actual.update(payload);
+            return (int) actual.getValue() == crc ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private long readControlFile() throws IOException {
+        File file = new File(dir, CONTROL_FILE);
+        if (!file.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            if (in.readInt() != CONTROL_MAGIC) {
+                throw new IOException("Not a checkpoint control file: " + file);
+            }
+            return in.readLong();
+        }
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    segments.add(Long.parseUnsignedLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()), 16));
+                } catch (NumberFormatException ignore) {
+                    // not one of ours
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private File segmentFile(long start) {
+        return new File(dir, String.format("%016x%s", start, SEGMENT_SUFFIX));
+    }
+
+    private FileChannel openSegment(long start) throws IOException {
+        return FileChannel.open(segmentFile(start).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,239 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.exception.InvalidSyntaxException;
+import com.postgresql.execution.AggregateFunction;
+import com.postgresql.execution.HashAggregation;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.execution.operator.HashAggregate;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseAggregateTest {
+    private static final String SALES = "test_agg_sales";
+    private static final String DATA_DIR = "data";
+    // Enough for the morsels of a parallel aggregation
+    private static final int ROWS = 3 * Parallelism.MORSEL_ROWS;
+
+    private int sessionWorkers;
+
+    @BeforeAll
+    void setup() {
+        sessionWorkers = Parallelism.getWorkers();
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(SALES) == null) {
+            catalog.createTable(SALES, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("region", DataType.STRING),
+                    new ColumnMetadata("qty", DataType.INT),
+                    new ColumnMetadata("amount", DataType.FLOAT)));
+        }
+        TableHeap heap = table().getTableHeap();
+        for (int i = 0; i < ROWS; i++) {
+            heap.insertTuple(new Tuple(Arrays.asList(i, region(i), i % 13, amount(i))));
+        }
+        WriteAheadLog.getInstance().commit();
+    }
+
+    @AfterAll
+    void cleanup() {
+        Parallelism.setWorkers(sessionWorkers);
+        new File(DATA_DIR + "/" + SALES + ".table").delete();
+        new File(DATA_DIR + "/" + SALES + ".tbl").delete();
+    }
+
+    @Test
+    void testGroupByComputesEachAggregate() {
+        String output = captureOutput(() -> CommandParser.parse("SELECT region, COUNT(*), COUNT(amount), SUM(qty), "
+                + "MIN(qty), MAX(amount), AVG(qty) FROM " + SALES + " GROUP BY region ORDER BY region").execute());
+        List<String> lines = output.lines().toList();
+        assertEquals("region | count(*) | count(amount) | sum(qty) | min(qty) | max(amount) | avg(qty)", lines.get(0));
+
+        // Expected values per region, with NULL regions as a group of their own
+        Map<String, long[]> totals = new TreeMap<>();
+        Map<String, Float> maxAmounts = new TreeMap<>();
+        for (int i = 0; i < ROWS; i++) {
+            String key = String.valueOf(region(i));
+            long[] total = totals.computeIfAbsent(key, k -> new long[]{0, 0, 0, Long.MAX_VALUE});
+            total[0]++;
+            total[1] += amount(i) != null ? 1 : 0;
+            total[2] += i % 13;
+            total[3] = Math.min(total[3], i % 13);
+            if (amount(i) != null) {
+                maxAmounts.merge(key, amount(i), Math::max);
+            }
+        }
+        List<String> rows = lines.subList(2, lines.size());
+        assertEquals(8, rows.size());
+        assertTrue(rows.get(0).startsWith("null | "), "NULLs sort first: " + rows.get(0));
+        for (String row : rows) {
+            String[] values = row.split(" \\| ");
+            long[] total = totals.get(values[0]);
+            assertEquals(total[0], Long.parseLong(values[1]), row);
+            assertEquals(total[1], Long.parseLong(values[2]), row);
+            assertEquals(total[2], Long.parseLong(values[3]), row);
+            assertEquals(total[3], Long.parseLong(values[4]), row);
+            assertEquals(maxAmounts.get(values[0]), Float.parseFloat(values[5]), row);
+            assertEquals((float) ((double) total[2] / total[0]), Float.parseFloat(values[6]), row);
+        }
+    }
+
+    @Test
+    void testAggregatesWithoutGroupBy() {
+        String count = captureOutput(() -> CommandParser.parse("SELECT COUNT(*) FROM " + SALES).execute());
+        assertEquals(List.of("count(*)", "--------", String.valueOf(ROWS)), count.lines().toList());
+
+        String filtered = captureOutput(() -> CommandParser.parse("SELECT COUNT(*), MAX(id), MIN(region) FROM " + SALES
+                + " WHERE qty = 5").execute());
+        long matches = java.util.stream.IntStream.range(0, ROWS).filter(i -> i % 13 == 5).count();
+        int last = java.util.stream.IntStream.range(0, ROWS).filter(i -> i % 13 == 5).max().orElseThrow();
+        assertEquals(matches + " | " + last + " | r0", filtered.lines().toList().get(2));
+
+        // No rows still make one group: COUNT is 0 and the other aggregates are NULL
+        String empty = captureOutput(() -> CommandParser.parse("SELECT COUNT(*), SUM(qty), AVG(amount) FROM " + SALES
+                + " WHERE id < 0").execute());
+        assertEquals("0 | null | null", empty.lines().toList().get(2));
+    }
+
+    @Test
+    void testOrderByAggregateWithLimit() {
+        String output = captureOutput(() -> CommandParser.parse("SELECT qty, COUNT(*) FROM " + SALES
+                + " WHERE id < 100 GROUP BY qty ORDER BY count(*) DESC LIMIT 3").execute());
+        // Values 0..8 of qty occur 8 times below 100 and 9..12 only 7, so the first three keep table order
+        assertEquals(List.of("0 | 8", "1 | 8", "2 | 8"), output.lines().skip(2).toList());
+    }
+
+    @Test
+    void testParallelAggregationMatchesSerial() {
+        String query = "SELECT SUM(amount), region, COUNT(*), MAX(qty) FROM " + SALES + " WHERE qty > 2 GROUP BY region";
+        Parallelism.setWorkers(1);
+        String serial;
+        String parallel;
+        try {
+            serial = captureOutput(() -> CommandParser.parse(query).execute());
+            Parallelism.setWorkers(4);
+            parallel = captureOutput(() -> CommandParser.parse(query).execute());
+        } finally {
+            Parallelism.setWorkers(sessionWorkers);
+        }
+        // Partials are merged in table order, so the groups come out in the same order too
+        assertEquals(serial, parallel);
+        assertEquals(10, serial.lines().count());
+    }
+
+    @Test
+    void testSpilledAggregationMatchesInMemory() {
+        // One group per row: far more groups than the budget holds
+        List<HashAggregation.Aggregate> aggregates = List.of(
+                new HashAggregation.Aggregate(AggregateFunction.COUNT, -1),
+                new HashAggregation.Aggregate(AggregateFunction.SUM, 3),
+                new HashAggregation.Aggregate(AggregateFunction.MAX, 1));
+        int[] groups = {2, 0};
+        List<List<Object>> inMemory = drain(aggregate(groups, aggregates, Long.MAX_VALUE));
+        assertEquals(ROWS, inMemory.size());
+
+        HashAggregate spilled = aggregate(groups, aggregates, 256 * 1024);
+        List<List<Object>> actual = new ArrayList<>();
+        try (spilled) {
+            spilled.open();
+            for (List<Object> row = spilled.next(); row != null; row = spilled.next()) {
+                actual.add(row);
+            }
+            assertTrue(spilled.getSpilledPartitions() > 16, "Partitions: " + spilled.getSpilledPartitions());
+        }
+        assertEquals(new HashSet<>(inMemory), new HashSet<>(actual));
+        assertEquals(inMemory.size(), actual.size());
+        assertNoSpillFilesLeft();
+
+        // Few groups with a small budget give the same result through SQL
+        String query = "SELECT qty, SUM(amount), MIN(region) FROM " + SALES + " GROUP BY qty ORDER BY qty";
+        String expected = captureOutput(() -> CommandParser.parse(query).execute());
+        System.setProperty("postgreslite.aggregate.memory.bytes", "512");
+        try {
+            assertEquals(expected, captureOutput(() -> CommandParser.parse(query).execute()));
+        } finally {
+            System.clearProperty("postgreslite.aggregate.memory.bytes");
+        }
+        assertEquals(15, expected.lines().count());
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    void testInvalidAggregates() {
+        assertThrows(InvalidSyntaxException.class, () -> CommandParser.parse("SELECT region, * FROM " + SALES));
+        assertThrows(InvalidSyntaxException.class, () -> CommandParser.parse("SELECT SUM(*) FROM " + SALES));
+        assertThrows(InvalidSyntaxException.class, () -> CommandParser.parse("SELECT * FROM " + SALES + " GROUP BY region"));
+        assertThrows(InvalidSyntaxException.class, () -> CommandParser.parse("SELECT MEDIAN(qty) FROM " + SALES));
+
+        String ungrouped = captureOutput(() -> CommandParser.parse("SELECT id, COUNT(*) FROM " + SALES + " GROUP BY region").execute());
+        assertTrue(ungrouped.contains("must appear in GROUP BY"), ungrouped);
+        String notNumeric = captureOutput(() -> CommandParser.parse("SELECT AVG(region) FROM " + SALES).execute());
+        assertTrue(notNumeric.contains("needs an INT or FLOAT column"), notNumeric);
+    }
+
+    private static String region(int i) {
+        return i % 10 == 0 ? null : "r" + (i % 7);
+    }
+
+    private static Float amount(int i) {
+        return i % 9 == 0 ? null : (i % 100) / 4f;
+    }
+
+    private static HashAggregate aggregate(int[] groups, List<HashAggregation.Aggregate> aggregates, long memoryBytes) {
+        return new HashAggregate(new SeqScan(table(), -1, null), table().getMetadata().getColumns(), groups,
+                aggregates, memoryBytes);
+    }
+
+    private static void assertNoSpillFilesLeft() {
+        File[] leftovers = new File(DATA_DIR, "tmp").listFiles((dir, name) -> name.startsWith("aggregate") && name.endsWith(".spill"));
+        assertTrue(leftovers == null || leftovers.length == 0, "Partitions should be removed once they are read");
+    }
+
+    private static List<List<Object>> drain(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(SALES);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.postgresql;
+
+import com.postgresql.storage.BufferPool;
+import com.postgresql.storage.HeapFile;
+import com.postgresql.storage.Page;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseBufferPoolTest {
+    private static final File POOL_FILE = new File("data/test_buffer_pool.tbl");
+
+    private BufferPool pool;
+    private HeapFile file;
+
+    @BeforeEach
+    void setup() {
+        if (POOL_FILE.exists()) POOL_FILE.delete();
+        pool = new BufferPool(3);
+        file = HeapFile.open(POOL_FILE);
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.discard(file);
+        file.close();
+        if (POOL_FILE.exists()) POOL_FILE.delete();
+    }
+
+    @Test
+    void testEvictedDirtyPagesAreWrittenAndReadBack() {
+        for (int i = 0; i < 10; i++) {
+            Page page = pool.newPage(file);
+            page.insert(("page-" + i).getBytes(StandardCharsets.UTF_8));
+            pool.unpinPage(file, page.getPageId(), true);
+        }
+        assertEquals(10, file.getPageCount());
+        assertTrue(pool.getDirtyPageCount() <= pool.getCapacity(), "Pool should never hold more than its budget");
+        assertTrue(POOL_FILE.length() >= 7L * Page.PAGE_SIZE, "Evicted pages should have been written to the file");
+
+        for (int i = 0; i < 10; i++) {
+            Page page = pool.fetchPage(file, i);
+            try {
+                assertEquals("page-" + i, StandardCharsets.UTF_8.decode(page.read(0)).toString());
+            } finally {
+                pool.unpinPage(file, i, false);
+            }
+        }
+    }
+
+    @Test
+    void testPinnedPagesAreNeverEvicted() {
+        Page first = pool.newPage(file);
+        first.insert("pinned".getBytes(StandardCharsets.UTF_8));
+        pool.newPage(file);
+        pool.newPage(file);
+
+        assertThrows(IllegalStateException.class, () -> pool.newPage(file), "All frames are pinned");
+
+        pool.unpinPage(file, 1, true);
+        Page fourth = pool.newPage(file);
+        assertEquals("pinned", StandardCharsets.UTF_8.decode(first.read(0)).toString(),
+                "A pinned page keeps its contents while others are evicted");
+        pool.unpinPage(file, first.getPageId(), true);
+        pool.unpinPage(file, 2, true);
+        pool.unpinPage(file, fourth.getPageId(), true);
+    }
+
+    @Test
+    void testFlushWritesDirtyPages() {
+        Page page = pool.newPage(file);
+        page.insert("flushed".getBytes(StandardCharsets.UTF_8));
+        pool.unpinPage(file, page.getPageId(), true);
+        assertEquals(1, pool.getDirtyPageCount());
+
+        pool.flushFile(file);
+        assertEquals(0, pool.getDirtyPageCount());
+        assertEquals(Page.PAGE_SIZE, POOL_FILE.length());
+    }
+
+    @Test
+    void testFlushWaitsForAWriterThatHasNotMarkedItsPage() throws InterruptedException {
+        Page page = pool.newPage(file);
+        page.insert("before".getBytes(StandardCharsets.UTF_8));
+        pool.unpinPage(file, page.getPageId(), true);
+        pool.flushFile(file);
+
+        // A writer has changed (and logged) the page but not yet unpinned it, as a checkpoint starts flushing
+        page = pool.fetchPage(file, 0);
+        page.writeLatch().lock();
+        page.insert("during".getBytes(StandardCharsets.UTF_8));
+        Thread checkpoint = new Thread(() -> pool.flushFile(file));
+        boolean waited;
+        try {
+            checkpoint.start();
+            checkpoint.join(200);
+            waited = checkpoint.isAlive();
+        } finally {
+            pool.unpinPage(file, 0, true);
+            page.writeLatch().unlock();
+        }
+        checkpoint.join();
+        assertTrue(waited, "The flush should wait for the writer's latch");
+        assertEquals(0, pool.getDirtyPageCount(), "The flush should write the change once the writer is done");
+
+        BufferPool reader = new BufferPool(1);
+        Page onDisk = reader.fetchPage(file, 0);
+        try {
+            assertEquals("during", StandardCharsets.UTF_8.decode(onDisk.read(1)).toString());
+        } finally {
+            reader.unpinPage(file, 0, false);
+            reader.discard(file);
+        }
+    }
+}
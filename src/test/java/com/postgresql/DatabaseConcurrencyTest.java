@@ -8,6 +8,7 @@ import com.postgresql.command.SelectCommand;
 import com.postgresql.command.UpdateCommand;
 import com.postgresql.model.Table;
 import com.postgresql.storage.TableSerializer;
+import com.postgresql.storage.WriteAheadLog;
 import org.junit.jupiter.api.*;
 
 import java.io.File;
@@ -83,4 +84,38 @@ public class DatabaseConcurrencyTest {
         String output = outContent.toString();
         assertTrue(output.contains("Charlie") || output.contains("Updated"), "Output should contain 'Charlie' or 'Updated'");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testConcurrentInsertsAreDurable() throws Exception {
+        int threads = 8;
+        int rowsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(1);
+        java.io.PrintStream originalOut = System.out;
+        System.setOut(new java.io.PrintStream(new java.io.ByteArrayOutputStream()));
+        try {
+            for (int t = 0; t < threads; t++) {
+                int base = 1000 + t * rowsPerThread;
+                executor.submit(() -> {
+                    latch.await();
+                    for (int i = 0; i < rowsPerThread; i++) {
+                        new InsertCommand(TEST_TABLE, Arrays.asList(String.valueOf(base + i), "Writer", "20")).execute();
+                    }
+                    return null;
+                });
+            }
+            latch.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, java.util.concurrent.TimeUnit.SECONDS));
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        WriteAheadLog wal = WriteAheadLog.getInstance();
+        assertEquals(wal.getAppendedLsn(), wal.getFlushedLsn(), "Every committed insert should be in the durable log");
+        long writers = TableSerializer.readFromDisk(TEST_TABLE).getAllTuples().stream()
+                .filter(t -> "Writer".equals(t.getValues().get(1)))
+                .count();
+        assertEquals(threads * rowsPerThread, writers, "All concurrent inserts should be visible");
+    }
+}
@@ -0,0 +1,132 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnConstraint;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.command.UpdateCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.index.HashIndex;
+import com.postgresql.model.Table;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.RecordId;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseConstraintTest {
+    private static final String KEYED_TABLE = "test_constraints";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        if (CatalogManager.getInstance().getTable(KEYED_TABLE) == null) {
+            CommandParser.parse("CREATE TABLE " + KEYED_TABLE + " (id INT PRIMARY KEY, email STRING UNIQUE, name STRING)").execute();
+        }
+        for (int i = 0; i < 1000; i++) {
+            new InsertCommand(KEYED_TABLE, Arrays.asList(String.valueOf(i), "user" + i + "@example.com", "user " + i)).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + KEYED_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + KEYED_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testConstraintsArePersisted() throws Exception {
+        var columns = TableSerializer.readMetadata(TableSerializer.catalogFile(KEYED_TABLE)).getColumns();
+        assertEquals(ColumnConstraint.PRIMARY_KEY, columns.get(0).getConstraint());
+        assertEquals(ColumnConstraint.UNIQUE, columns.get(1).getConstraint());
+        assertEquals(ColumnConstraint.NONE, columns.get(2).getConstraint());
+    }
+
+    @Test
+    void testDuplicateKeysAreRejected() {
+        int before = table().getRowCount();
+        assertThrows(IllegalArgumentException.class,
+                () -> new InsertCommand(KEYED_TABLE, Arrays.asList("5", "fresh@example.com", "dup id")).execute());
+        assertThrows(IllegalArgumentException.class,
+                () -> new InsertCommand(KEYED_TABLE, Arrays.asList("5000", "user5@example.com", "dup email")).execute());
+        assertThrows(IllegalArgumentException.class,
+                () -> new InsertCommand(KEYED_TABLE, Arrays.asList("NULL", "null@example.com", "no id")).execute());
+        assertThrows(IllegalArgumentException.class,
+                () -> new UpdateCommand(KEYED_TABLE, "id", "6", "id", "7").execute());
+        assertEquals(before, table().getRowCount(), "Rejected changes must not write anything");
+
+        // A UNIQUE column may hold any number of NULLs, and a row may keep its own value
+        new InsertCommand(KEYED_TABLE, Arrays.asList("2000", "", "no email")).execute();
+        new InsertCommand(KEYED_TABLE, Arrays.asList("2001", "", "no email either")).execute();
+        new UpdateCommand(KEYED_TABLE, "email", "user8@example.com", "id", "8").execute();
+    }
+
+    @Test
+    void testUpdateBreakingUniquenessChangesNoRow() {
+        // Three rows cannot all take one email, even though no other row holds it yet
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse("UPDATE " + KEYED_TABLE
+                + " SET email = 'shared@example.com' WHERE id >= 10 AND id <= 12").execute());
+        assertThrows(IllegalArgumentException.class, () -> CommandParser.parse("UPDATE " + KEYED_TABLE
+                + " SET email = 'user20@example.com' WHERE id = 21").execute());
+        for (int id = 10; id <= 12; id++) {
+            assertEquals("user" + id + "@example.com", emailOf(id), "A rejected update must not change any row");
+        }
+        assertEquals("user21@example.com", emailOf(21));
+
+        // Setting a UNIQUE column to NULL on many rows is fine
+        CommandParser.parse("UPDATE " + KEYED_TABLE + " SET email = '' WHERE id >= 13 AND id <= 14").execute();
+        assertNull(emailOf(14));
+    }
+
+    @Test
+    void testPrimaryKeyLookupIsASingleProbe() {
+        List<RecordId> rids = table().getTableHeap().lookup(0, 123);
+        assertEquals(1, rids.size());
+        assertEquals(1, table().getTableHeap().lookup(1, "USER123@EXAMPLE.COM").size(),
+                "Lookups match strings regardless of case, like WHERE");
+
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            new SelectCommand(KEYED_TABLE, "id", "123").execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertTrue(outContent.toString().contains("123 | user123@example.com | user 123"));
+    }
+
+    @Test
+    void testHashIndexSurvivesChurn() {
+        HashIndex index = new HashIndex(0, DataType.INT);
+        for (int i = 0; i < 10_000; i++) {
+            index.put(i, new RecordId(i / 100, i % 100));
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            index.remove(i, new RecordId(i / 100, i % 100));
+        }
+        assertEquals(5_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            RecordId expected = i % 2 == 0 ? null : new RecordId(i / 100, i % 100);
+            assertEquals(expected, index.find(i), "key " + i);
+        }
+    }
+
+    private static Object emailOf(int id) {
+        return table().getTableHeap().fetchTuples(table().getTableHeap().lookup(0, id)).get(0).getValues().get(1);
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(KEYED_TABLE);
+    }
+}
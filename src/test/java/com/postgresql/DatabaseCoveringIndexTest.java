@@ -0,0 +1,121 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.TableMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.UpdateCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.index.BTreeIndex;
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseCoveringIndexTest {
+    private static final String COVERING_TABLE = "test_covering";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 2000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(COVERING_TABLE) == null) {
+            catalog.createTable(COVERING_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("score", DataType.INT),
+                    new ColumnMetadata("note", DataType.STRING)));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            new InsertCommand(COVERING_TABLE, Arrays.asList(String.valueOf(i), "User-" + i, String.valueOf(i % 100), "n" + i)).execute();
+        }
+        CommandParser.parse("CREATE INDEX by_id ON " + COVERING_TABLE + " (id) INCLUDE (name)").execute();
+        CommandParser.parse("CREATE INDEX by_score ON " + COVERING_TABLE + " (score) INCLUDE (id, name, note)").execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + COVERING_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + COVERING_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+        for (String index : List.of("by_id", "by_score")) {
+            TableSerializer.indexFile(COVERING_TABLE, index).delete();
+        }
+    }
+
+    @Test
+    void testIncludedColumnsArePersistedInTheCatalog() throws Exception {
+        TableMetadata stored = TableSerializer.readMetadata(TableSerializer.catalogFile(COVERING_TABLE));
+        assertEquals(List.of("name"), stored.getIndex("by_id").getIncludedColumns());
+        assertEquals(List.of("id", "name", "note"), stored.getIndex("by_score").getIncludedColumns());
+        assertThrows(RuntimeException.class,
+                () -> CatalogManager.getInstance().createIndex(COVERING_TABLE, "bad", "id", List.of("id")));
+    }
+
+    @Test
+    void testCoveredLookupIsAnsweredFromTheIndex() {
+        BTreeIndex byId = table().getTableHeap().getIndex(0);
+        assertTrue(byId.isCovering());
+        BTreeIndex.Match match = byId.searchCovered(42, 42).get(0);
+        assertEquals(List.of(42, "User-42"), match.values(), "Leaves hold the exact key and the INCLUDE columns");
+
+        // Only the index stores id and name without the other columns, so nulls show the table was not read
+        List<Tuple> found = new ArrayList<>();
+        table().forEachMatch(new int[]{0, 1}, 0, 42, value -> value.equals(42), found::add);
+        assertEquals(1, found.size());
+        assertEquals(Arrays.asList(42, "User-42", null, null), found.get(0).getValues());
+
+        // A query that needs a column the index lacks reads the row from the table
+        found.clear();
+        table().forEachMatch(new int[]{0, 2}, 0, 42, value -> value.equals(42), found::add);
+        assertEquals(Arrays.asList(42, "User-42", 42, "n42"), found.get(0).getValues());
+    }
+
+    @Test
+    void testIndexOnlySelectFollowsUpdates() {
+        new UpdateCommand(COVERING_TABLE, "note", "renamed", "id", "1507").execute();
+        List<Tuple> found = new ArrayList<>();
+        table().forEachInRange(new int[]{0, 1, 2, 3}, 2, new Range(7, true, 7, true), found::add);
+        assertTrue(found.stream().anyMatch(t -> t.getValues().equals(Arrays.asList(1507, "User-1507", 7, "renamed"))),
+                "Changing an INCLUDE column must rewrite the covering entry");
+
+        // Values too long to store in the index are read from the table instead
+        String longNote = "x".repeat(BTreeIndex.MAX_COVERED_BYTES + 100);
+        new UpdateCommand(COVERING_TABLE, "note", longNote, "id", "1607").execute();
+        String output = captureOutput(() -> CommandParser.parse(
+                "SELECT * FROM " + COVERING_TABLE + " WHERE score BETWEEN 7 AND 7").execute());
+        assertEquals(ROWS / 100, output.lines().filter(line -> line.matches("\\d+ \\| .*")).count());
+        assertTrue(output.contains("1507 | User-1507 | 7 | renamed"));
+        assertTrue(output.contains("1607 | User-1607 | 7 | " + longNote));
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(COVERING_TABLE);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.execution.operator.Sort;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseExternalSortTest {
+    private static final String SCORES = "test_sort_scores";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 3000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(SCORES) == null) {
+            catalog.createTable(SCORES, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("score", DataType.FLOAT),
+                    new ColumnMetadata("name", DataType.STRING)));
+        }
+        TableHeap heap = table().getTableHeap();
+        for (int i = 0; i < ROWS; i++) {
+            // Only 50 distinct scores, so most rows tie with others, and every 9th is NULL
+            Float score = i % 9 == 0 ? null : (i % 50) / 4f;
+            heap.insertTuple(new Tuple(Arrays.asList(i, score, "name-" + (i * 7919) % ROWS)));
+        }
+        WriteAheadLog.getInstance().commit();
+    }
+
+    @AfterAll
+    void cleanup() {
+        new File(DATA_DIR + "/" + SCORES + ".table").delete();
+        new File(DATA_DIR + "/" + SCORES + ".tbl").delete();
+    }
+
+    @Test
+    void testSpilledSortMatchesInMemorySort() {
+        for (int column = 0; column < 3; column++) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                Sort inMemory = sort(column, ascending, Long.MAX_VALUE);
+                List<List<Object>> expected = drain(inMemory);
+                assertEquals(0, inMemory.getSpilledRuns());
+
+                // About 150 bytes a row: a run of roughly 25 rows, too many runs to merge at once
+                Sort spilled = sort(column, ascending, 4096);
+                List<List<Object>> actual = drain(spilled);
+                assertTrue(spilled.getSpilledRuns() > 64, "Runs: " + spilled.getSpilledRuns());
+                assertEquals(expected, actual, "column " + column + (ascending ? " ASC" : " DESC"));
+            }
+        }
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    void testTiesKeepInputOrderAndNullsComeFirst() {
+        List<List<Object>> rows = drain(sort(1, true, 2048));
+        assertEquals(ROWS, rows.size());
+        for (int i = 1; i < rows.size(); i++) {
+            Float previous = (Float) rows.get(i - 1).get(1);
+            Float current = (Float) rows.get(i).get(1);
+            if (Objects.equals(previous, current)) {
+                assertTrue((Integer) rows.get(i - 1).get(0) < (Integer) rows.get(i).get(0), "Ties keep input order");
+            } else {
+                assertTrue(previous == null || (current != null && previous < current), "NULLs first, then ascending");
+            }
+        }
+        assertNull(rows.get(0).get(1));
+    }
+
+    @Test
+    void testSelectOrderByWithSmallSortBudget() {
+        String query = "SELECT * FROM " + SCORES + " WHERE id < 500 ORDER BY name DESC";
+        String inMemory = captureOutput(() -> CommandParser.parse(query).execute());
+        System.setProperty("postgreslite.sort.memory.bytes", "2048");
+        String spilled;
+        try {
+            spilled = captureOutput(() -> CommandParser.parse(query).execute());
+        } finally {
+            System.clearProperty("postgreslite.sort.memory.bytes");
+        }
+        assertEquals(inMemory, spilled);
+        assertEquals(500, spilled.lines().filter(line -> line.contains("name-")).count());
+        assertNoSpillFilesLeft();
+    }
+
+    private Sort sort(int column, boolean ascending, long memoryBytes) {
+        return new Sort(new SeqScan(table(), -1, null), table().getMetadata().getColumns(), column, ascending, memoryBytes);
+    }
+
+    private static void assertNoSpillFilesLeft() {
+        File[] leftovers = new File(DATA_DIR, "tmp").listFiles((dir, name) -> name.startsWith("sort") && name.endsWith(".spill"));
+        assertTrue(leftovers == null || leftovers.length == 0, "Sort runs should be removed once the sort is closed");
+    }
+
+    private static List<List<Object>> drain(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(SCORES);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,188 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.HashJoin;
+import com.postgresql.execution.JoinPlanner;
+import com.postgresql.execution.JoinStrategy;
+import com.postgresql.execution.JoinType;
+import com.postgresql.model.Table;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseHashJoinTest {
+    private static final String CUSTOMERS = "test_hj_customers";
+    private static final String PURCHASES = "test_hj_purchases";
+    private static final String DATA_DIR = "data";
+    private static final List<ColumnMetadata> CUSTOMER_COLUMNS = Arrays.asList(
+            new ColumnMetadata("id", DataType.INT),
+            new ColumnMetadata("name", DataType.STRING));
+    private static final List<ColumnMetadata> PURCHASE_COLUMNS = Arrays.asList(
+            new ColumnMetadata("id", DataType.INT),
+            new ColumnMetadata("customer_id", DataType.INT),
+            new ColumnMetadata("item", DataType.STRING));
+
+    private final List<List<Object>> customers = new ArrayList<>();
+    private final List<List<Object>> purchases = new ArrayList<>();
+
+    @BeforeAll
+    void setup() {
+        // Customers 0..299, one with no id; purchases point at customers 150..449, some with none
+        for (int i = 0; i < 300; i++) {
+            customers.add(Arrays.asList(i, "customer-" + i));
+        }
+        customers.add(Arrays.asList(null, "anonymous"));
+        for (int i = 0; i < 900; i++) {
+            purchases.add(Arrays.asList(i, i % 7 == 0 ? null : 150 + i % 300, "item-" + i));
+        }
+
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(CUSTOMERS) == null) {
+            catalog.createTable(CUSTOMERS, CUSTOMER_COLUMNS);
+            catalog.createTable(PURCHASES, PURCHASE_COLUMNS);
+        }
+        new InsertCommand(CUSTOMERS, Arrays.asList("1", "Alice")).execute();
+        new InsertCommand(CUSTOMERS, Arrays.asList("2", "Bob")).execute();
+        new InsertCommand(PURCHASES, Arrays.asList("10", "1", "book")).execute();
+        new InsertCommand(PURCHASES, Arrays.asList("11", "1", "lamp")).execute();
+        new InsertCommand(PURCHASES, Arrays.asList("12", "3", "desk")).execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        for (String table : List.of(CUSTOMERS, PURCHASES)) {
+            new File(DATA_DIR + "/" + table + ".table").delete();
+            new File(DATA_DIR + "/" + table + ".tbl").delete();
+        }
+    }
+
+    @Test
+    void testHashJoinMatchesNestedLoopForEveryJoinType() {
+        for (JoinType type : JoinType.values()) {
+            HashJoin join = new HashJoin(type, CUSTOMER_COLUMNS, 0, PURCHASE_COLUMNS, 1);
+            List<List<Object>> joined = new ArrayList<>();
+            join.execute(customers, purchases, joined::add);
+            assertSameRows(nestedLoop(type), joined, type + " join");
+            assertEquals(0, join.getSpilledPartitions(), "Small inputs are joined in memory");
+        }
+    }
+
+    @Test
+    void testGraceHashJoinSpillsPartitionsOverBudget() {
+        for (JoinType type : JoinType.values()) {
+            HashJoin join = new HashJoin(type, CUSTOMER_COLUMNS, 0, PURCHASE_COLUMNS, 1, 4096);
+            List<List<Object>> joined = new ArrayList<>();
+            join.execute(customers, purchases, joined::add);
+            assertTrue(join.getSpilledPartitions() > 0, "Build side over the budget should be partitioned to disk");
+            assertSameRows(nestedLoop(type), joined, type + " join with spilling");
+        }
+        File[] leftovers = new File(DATA_DIR, "tmp").listFiles((dir, name) -> name.endsWith(".spill"));
+        assertTrue(leftovers == null || leftovers.length == 0, "Spill files should be removed after the join");
+    }
+
+    @Test
+    void testSelectJoinUsesHashJoin() {
+        String output = captureOutput(() -> new SelectCommand(CUSTOMERS, null, null, null, true, null, null,
+                "LEFT", PURCHASES, "id", "customer_id").execute());
+        assertTrue(output.contains("1 | Alice | 10 | 1 | book"));
+        assertTrue(output.contains("1 | Alice | 11 | 1 | lamp"));
+        assertTrue(output.contains("2 | Bob | null | null | null"));
+        assertFalse(output.contains("desk"));
+
+        output = captureOutput(() -> new SelectCommand(CUSTOMERS, null, null, null, true, null, null,
+                "FULL", PURCHASES, "id", "customer_id").execute());
+        assertTrue(output.contains("Unsupported JOIN type"));
+    }
+
+    @Test
+    void testJoinOfTablesSpillsRowsReadFromSnapshots() {
+        for (int i = 0; i < 300; i++) {
+            new InsertCommand(CUSTOMERS, Arrays.asList(String.valueOf(1000 + i), "spilled-" + i)).execute();
+        }
+        for (int i = 0; i < 900; i++) {
+            new InsertCommand(PURCHASES, Arrays.asList(String.valueOf(5000 + i), String.valueOf(1000 + i * 7 % 300), "part-" + i)).execute();
+        }
+        Table customerTable = CatalogManager.getInstance().getTable(CUSTOMERS);
+        Table purchaseTable = CatalogManager.getInstance().getTable(PURCHASES);
+        List<List<Object>> inMemory = new ArrayList<>();
+        new JoinPlanner(JoinType.LEFT, customerTable, 0, purchaseTable, 1, false).execute(inMemory::add);
+
+        List<List<Object>> spilled = new ArrayList<>();
+        boolean[] sawSpillFiles = {false};
+        System.setProperty("postgreslite.join.memory.bytes", "4096");
+        try {
+            JoinPlanner planner = new JoinPlanner(JoinType.LEFT, customerTable, 0, purchaseTable, 1, false);
+            planner.execute(row -> {
+                File[] files = new File(DATA_DIR, "tmp").listFiles((dir, name) -> name.endsWith(".spill"));
+                sawSpillFiles[0] |= files != null && files.length > 0;
+                spilled.add(row);
+            });
+            assertEquals(JoinStrategy.HASH, planner.getStrategy());
+        } finally {
+            System.clearProperty("postgreslite.join.memory.bytes");
+        }
+        assertTrue(sawSpillFiles[0], "Rows read from the snapshots should be joined partition by partition");
+        assertSameRows(inMemory, spilled, "Spilled join of tables");
+        assertEquals(900, inMemory.stream().filter(row -> (Integer) row.get(0) >= 1000).count());
+    }
+
+    private List<List<Object>> nestedLoop(JoinType type) {
+        List<List<Object>> rows = new ArrayList<>();
+        List<List<Object>> outer = type == JoinType.RIGHT ? purchases : customers;
+        List<List<Object>> inner = type == JoinType.RIGHT ? customers : purchases;
+        for (List<Object> o : outer) {
+            boolean matched = false;
+            for (List<Object> i : inner) {
+                List<Object> c = type == JoinType.RIGHT ? i : o;
+                List<Object> p = type == JoinType.RIGHT ? o : i;
+                if (c.get(0) != null && c.get(0).equals(p.get(1))) {
+                    rows.add(concat(c, p));
+                    matched = true;
+                }
+            }
+            if (!matched && type != JoinType.INNER) {
+                rows.add(type == JoinType.RIGHT ? concat(Arrays.asList(null, null), o) : concat(o, Arrays.asList(null, null, null)));
+            }
+        }
+        return rows;
+    }
+
+    private static List<Object> concat(List<Object> a, List<Object> b) {
+        List<Object> row = new ArrayList<>(a);
+        row.addAll(b);
+        return row;
+    }
+
+    private static void assertSameRows(List<List<Object>> expected, List<List<Object>> actual, String message) {
+        assertEquals(sorted(expected), sorted(actual), message);
+    }
+
+    private static List<String> sorted(List<List<Object>> rows) {
+        return rows.stream().map(row -> row.stream().map(Objects::toString).toList().toString()).sorted().toList();
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
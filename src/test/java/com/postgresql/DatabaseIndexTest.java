@@ -0,0 +1,137 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.catalog.TableMetadata;
+import com.postgresql.command.DeleteCommand;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.command.UpdateCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.index.BTreeIndex;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.RecordId;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseIndexTest {
+    private static final String INDEX_TABLE = "test_index";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 3000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(INDEX_TABLE) == null) {
+            catalog.createTable(INDEX_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING)));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            new InsertCommand(INDEX_TABLE, Arrays.asList(String.valueOf(i), "user-" + (i % 500))).execute();
+        }
+        CommandParser.parse("CREATE INDEX ON " + INDEX_TABLE + " (id)").execute();
+        CommandParser.parse("CREATE INDEX by_name ON " + INDEX_TABLE + "(name)").execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + INDEX_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + INDEX_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+        for (String index : List.of("test_index_id_idx", "by_name")) {
+            TableSerializer.indexFile(INDEX_TABLE, index).delete();
+        }
+    }
+
+    @Test
+    void testIndexesArePersistedInTheCatalog() throws Exception {
+        TableMetadata stored = TableSerializer.readMetadata(TableSerializer.catalogFile(INDEX_TABLE));
+        assertEquals("id", stored.getIndex("test_index_id_idx").getColumnName());
+        assertEquals("name", stored.getIndex("by_name").getColumnName());
+        assertTrue(TableSerializer.indexFile(INDEX_TABLE, "by_name").exists());
+    }
+
+    @Test
+    void testEqualityLookupProbesOnlyMatchingEntries() {
+        TableHeap heap = table().getTableHeap();
+        BTreeIndex byId = heap.getIndex(0);
+        assertNotNull(byId);
+        assertEquals(1, byId.search(1234).size());
+        assertTrue(byId.search(ROWS + 1).isEmpty());
+
+        List<RecordId> named = heap.getIndex(1).search("USER-42");
+        assertEquals(ROWS / 500, named.size(), "String keys match regardless of case");
+        for (Tuple tuple : heap.fetchTuples(named)) {
+            assertEquals("user-42", tuple.getValues().get(1));
+        }
+    }
+
+    @Test
+    void testSelectUpdateAndDeleteKeepIndexesInStep() {
+        new UpdateCommand(INDEX_TABLE, "id", "100000", "id", "7").execute();
+        assertTrue(table().getTableHeap().getIndex(0).search(7).isEmpty());
+        assertEquals(1, table().getTableHeap().getIndex(0).search(100000).size());
+
+        // Growing the row moves it to another page, so every index must follow the new record id
+        String longName = "moved-" + "x".repeat(3000);
+        new UpdateCommand(INDEX_TABLE, "name", longName, "id", "8").execute();
+        List<Tuple> moved = table().findTuples(1, longName, longName::equals);
+        assertEquals(1, moved.size());
+        assertEquals(8, moved.get(0).getValues().get(0));
+        assertEquals(List.of(moved.get(0).getRecordId()), table().getTableHeap().getIndex(0).search(8));
+
+        new DeleteCommand(INDEX_TABLE, "id", "9").execute();
+        assertTrue(table().getTableHeap().getIndex(0).search(9).isEmpty());
+
+        String output = captureOutput(new SelectCommand(INDEX_TABLE, "id", "100000")::execute);
+        assertTrue(output.contains("100000 | user-7"), "SELECT should find the updated row through the index");
+    }
+
+    @Test
+    void testRebuiltIndexMatchesMaintainedIndex() {
+        new InsertCommand(INDEX_TABLE, Arrays.asList("5000", "late")).execute();
+        TableHeap heap = table().getTableHeap();
+        List<Tuple> rows = heap.scanAllTuples();
+        assertIndexed(heap, rows);
+
+        heap.rebuildIndexes(true);
+        assertIndexed(heap, rows);
+    }
+
+    private static void assertIndexed(TableHeap heap, List<Tuple> rows) {
+        for (Tuple row : rows) {
+            assertTrue(heap.getIndex(0).search(row.getValues().get(0)).contains(row.getRecordId()),
+                    "Every row should be reachable through the index: " + row);
+        }
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(INDEX_TABLE);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
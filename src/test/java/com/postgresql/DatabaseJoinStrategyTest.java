@@ -0,0 +1,163 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnConstraint;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.HashJoin;
+import com.postgresql.execution.JoinPlanner;
+import com.postgresql.execution.JoinStrategy;
+import com.postgresql.execution.JoinType;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseJoinStrategyTest {
+    private static final String PRODUCTS = "test_js_products";
+    private static final String PRICES = "test_js_prices";
+    private static final String SALES = "test_js_sales";
+    private static final String DATA_DIR = "data";
+    private static final int PRODUCT_COUNT = 1000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(PRODUCTS) == null) {
+            catalog.createTable(PRODUCTS, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT, ColumnConstraint.PRIMARY_KEY),
+                    new ColumnMetadata("name", DataType.STRING)));
+            catalog.createTable(PRICES, Arrays.asList(
+                    new ColumnMetadata("product_id", DataType.INT),
+                    new ColumnMetadata("price", DataType.FLOAT)));
+            catalog.createTable(SALES, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("product_id", DataType.INT)));
+        }
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            new InsertCommand(PRODUCTS, Arrays.asList(String.valueOf(i), "product-" + i)).execute();
+            // Every other product has a price, some have two
+            if (i % 2 == 0) {
+                new InsertCommand(PRICES, Arrays.asList(String.valueOf(i), i + ".5")).execute();
+            }
+            if (i % 10 == 0) {
+                new InsertCommand(PRICES, Arrays.asList(String.valueOf(i), i + ".9")).execute();
+            }
+        }
+        // A few sales, out of product order, one for a product that does not exist
+        int[] productIds = {742, 17, 17, 905, 3, 2000, 420};
+        for (int i = 0; i < productIds.length; i++) {
+            new InsertCommand(SALES, Arrays.asList(String.valueOf(i), String.valueOf(productIds[i]))).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        for (String table : List.of(PRODUCTS, PRICES, SALES)) {
+            new File(DATA_DIR + "/" + table + ".table").delete();
+            new File(DATA_DIR + "/" + table + ".tbl").delete();
+        }
+    }
+
+    @Test
+    void testSmallOuterSideProbesTheIndexedTable() {
+        for (JoinType type : List.of(JoinType.INNER, JoinType.LEFT)) {
+            JoinPlanner planner = new JoinPlanner(type, table(SALES), 1, table(PRODUCTS), 0, false);
+            List<List<Object>> joined = run(planner);
+            assertEquals(JoinStrategy.INDEX_NESTED_LOOP, planner.getStrategy(), type + " join");
+            assertSameRows(hashJoin(type, SALES, 1, PRODUCTS, 0), joined, type + " join");
+        }
+        // The indexed side of a RIGHT join must be scanned in full, so it cannot be probed
+        JoinPlanner planner = new JoinPlanner(JoinType.RIGHT, table(SALES), 1, table(PRODUCTS), 0, false);
+        List<List<Object>> joined = run(planner);
+        assertEquals(JoinStrategy.HASH, planner.getStrategy());
+        assertSameRows(hashJoin(JoinType.RIGHT, SALES, 1, PRODUCTS, 0), joined, "RIGHT join");
+
+        // The indexed table may also be the left one
+        planner = new JoinPlanner(JoinType.INNER, table(PRODUCTS), 0, table(SALES), 1, false);
+        joined = run(planner);
+        assertEquals(JoinStrategy.INDEX_NESTED_LOOP, planner.getStrategy());
+        assertSameRows(hashJoin(JoinType.INNER, PRODUCTS, 0, SALES, 1), joined, "INNER join, index on the left");
+        assertTrue(joined.contains(Arrays.asList(17, "product-17", 1, 17)));
+    }
+
+    @Test
+    void testSortedInputsAreMergeJoinedInKeyOrder() {
+        for (JoinType type : JoinType.values()) {
+            JoinPlanner planner = new JoinPlanner(type, table(PRODUCTS), 0, table(PRICES), 0, false);
+            List<List<Object>> joined = run(planner);
+            assertEquals(JoinStrategy.MERGE, planner.getStrategy(), type + " join");
+            assertSameRows(hashJoin(type, PRODUCTS, 0, PRICES, 0), joined, type + " join");
+            for (int i = 1; i < joined.size(); i++) {
+                assertTrue((Integer) joined.get(i - 1).get(0) <= (Integer) joined.get(i).get(0), "Merge output follows the key");
+            }
+        }
+    }
+
+    @Test
+    void testOrderByJoinKeyPicksMergeJoin() {
+        JoinPlanner planner = new JoinPlanner(JoinType.RIGHT, table(SALES), 1, table(PRODUCTS), 0, true);
+        List<List<Object>> joined = run(planner);
+        assertEquals(JoinStrategy.MERGE, planner.getStrategy(), "Unsorted input is sorted once for the merge");
+        assertSameRows(hashJoin(JoinType.RIGHT, SALES, 1, PRODUCTS, 0), joined, "RIGHT join");
+
+        String output = captureOutput(() -> new SelectCommand(SALES, null, null, "product_id", true, null, null,
+                "INNER", PRODUCTS, "product_id", "id").execute());
+        List<String> rows = output.lines().filter(line -> line.matches("\\d+ \\| .*")).toList();
+        assertEquals(List.of("4 | 3 | 3 | product-3", "1 | 17 | 17 | product-17", "2 | 17 | 17 | product-17",
+                "6 | 420 | 420 | product-420", "0 | 742 | 742 | product-742", "3 | 905 | 905 | product-905"), rows);
+    }
+
+    private static List<List<Object>> run(JoinPlanner planner) {
+        List<List<Object>> joined = new ArrayList<>();
+        planner.execute(joined::add);
+        return joined;
+    }
+
+    private static List<List<Object>> hashJoin(JoinType type, String left, int leftKey, String right, int rightKey) {
+        List<List<Object>> joined = new ArrayList<>();
+        new HashJoin(type, table(left).getMetadata().getColumns(), leftKey, table(right).getMetadata().getColumns(), rightKey)
+                .execute(values(left), values(right), joined::add);
+        return joined;
+    }
+
+    private static List<List<Object>> values(String table) {
+        return table(table).getAllTuples().stream().map(Tuple::getValues).toList();
+    }
+
+    private static Table table(String name) {
+        return CatalogManager.getInstance().getTable(name);
+    }
+
+    private static void assertSameRows(List<List<Object>> expected, List<List<Object>> actual, String message) {
+        assertEquals(sorted(expected), sorted(actual), message);
+    }
+
+    private static List<String> sorted(List<List<Object>> rows) {
+        return rows.stream().map(row -> row.stream().map(Objects::toString).toList().toString()).sorted().toList();
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
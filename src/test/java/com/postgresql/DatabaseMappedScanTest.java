@@ -0,0 +1,83 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.UpdateCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.model.Tuple;
+import com.postgresql.storage.TableHeap;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseMappedScanTest {
+    private static final String MAPPED_TABLE = "test_mapped_scan";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(MAPPED_TABLE) == null) {
+            catalog.createTable(MAPPED_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("score", DataType.FLOAT),
+                    new ColumnMetadata("active", DataType.BOOLEAN)));
+        }
+        for (int i = 0; i < 400; i++) {
+            new InsertCommand(MAPPED_TABLE, Arrays.asList(
+                    String.valueOf(i), i % 10 == 0 ? "" : "name-" + "m".repeat(30) + i, i + ".25", String.valueOf(i % 3 == 0))).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + MAPPED_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + MAPPED_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testMappedScanFiltersAndProjects() {
+        TableHeap heap = CatalogManager.getInstance().getTable(MAPPED_TABLE).getTableHeap();
+        List<String> expected = heap.scanAllTuples().stream()
+                .filter(t -> (Integer) t.getValues().get(0) % 7 == 0)
+                .map(t -> Arrays.asList(t.getValues().get(3), t.getValues().get(1)).toString())
+                .collect(Collectors.toList());
+
+        List<String> actual = new ArrayList<>();
+        heap.scanMapped(0, value -> (Integer) value % 7 == 0, new int[]{3, 1},
+                row -> actual.add(Arrays.asList(row).toString()));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testMappedScanSeesUnflushedChanges() {
+        new UpdateCommand(MAPPED_TABLE, "name", "fresh", "id", "42").execute();
+        TableHeap heap = CatalogManager.getInstance().getTable(MAPPED_TABLE).getTableHeap();
+
+        List<Object> names = new ArrayList<>();
+        heap.scanMapped(0, value -> value.equals(42), new int[]{1}, row -> names.add(row[0]));
+        assertEquals(List.of("fresh"), names);
+
+        int[] count = {0};
+        heap.scanMapped(-1, null, new int[0], row -> count[0]++);
+        assertEquals(heap.scanAllTuples().size(), count[0], "No filter should visit every row");
+    }
+
+    @Test
+    void testForEachMatchAgreesWithFullScan() {
+        List<Tuple> matches = new ArrayList<>();
+        CatalogManager.getInstance().getTable(MAPPED_TABLE).forEachMatch(3, Boolean.TRUE::equals, matches::add);
+        assertEquals(134, matches.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.JoinOrderPlanner;
+import com.postgresql.execution.JoinType;
+import com.postgresql.model.Table;
+import com.postgresql.parser.CommandParser;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseMultiJoinTest {
+    private static final String ITEMS = "test_mj_items";
+    private static final String TAGS = "test_mj_tags";
+    private static final String PICKS = "test_mj_picks";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 200;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(ITEMS) == null) {
+            catalog.createTable(ITEMS, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("kind", DataType.INT)));
+            catalog.createTable(TAGS, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("kind", DataType.INT)));
+            catalog.createTable(PICKS, Arrays.asList(
+                    new ColumnMetadata("tag_id", DataType.INT),
+                    new ColumnMetadata("note", DataType.STRING)));
+        }
+        // Only two kinds, so joining items with tags on kind first would make 20,000 rows
+        for (int i = 0; i < ROWS; i++) {
+            new InsertCommand(ITEMS, Arrays.asList(String.valueOf(i), String.valueOf(i % 2))).execute();
+            new InsertCommand(TAGS, Arrays.asList(String.valueOf(i), String.valueOf(i % 2))).execute();
+        }
+        new InsertCommand(PICKS, Arrays.asList("7", "seven")).execute();
+        new InsertCommand(PICKS, Arrays.asList("500", "missing")).execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        for (String table : List.of(ITEMS, TAGS, PICKS)) {
+            new File(DATA_DIR + "/" + table + ".table").delete();
+            new File(DATA_DIR + "/" + table + ".tbl").delete();
+        }
+    }
+
+    @Test
+    void testInnerJoinsStartWithTheMostSelectiveJoin() {
+        JoinOrderPlanner planner = new JoinOrderPlanner(List.of(table(ITEMS), table(TAGS), table(PICKS)), List.of(
+                new JoinOrderPlanner.Join(JoinType.INNER, 1, 1, 0, 1),
+                new JoinOrderPlanner.Join(JoinType.INNER, 2, 0, 1, 0)), -1);
+        List<List<Object>> joined = new ArrayList<>();
+        planner.execute(joined::add);
+
+        int[] order = planner.getOrder();
+        assertEquals(0, order[2], "Items are joined last, after tags have been narrowed down by picks");
+        assertEquals(ROWS / 2, joined.size());
+        int[] written = planner.getWrittenColumns();
+        for (List<Object> row : joined) {
+            // Put back in the written order: items, tags, picks
+            List<Object> inWrittenOrder = Arrays.stream(written).mapToObj(row::get).toList();
+            assertEquals(Arrays.asList(inWrittenOrder.get(0), 1, 7, 1, 7, "seven"), inWrittenOrder);
+        }
+    }
+
+    @Test
+    void testThreeWayJoinFromSql() {
+        String output = captureOutput(() -> CommandParser.parse("SELECT * FROM " + PICKS
+                + " INNER JOIN " + TAGS + " ON " + TAGS + ".id = " + PICKS + ".tag_id"
+                + " INNER JOIN " + ITEMS + " ON " + TAGS + ".kind = " + ITEMS + ".kind"
+                + " WHERE " + ITEMS + ".id < 6 ORDER BY " + ITEMS + ".id").execute());
+        assertTrue(output.contains(PICKS + ".tag_id | " + PICKS + ".note | " + TAGS + ".id | " + TAGS + ".kind | "
+                + ITEMS + ".id | " + ITEMS + ".kind"), "Header lists the tables as written");
+        List<String> rows = output.lines().filter(line -> line.matches("\\d+ \\| .*")).toList();
+        assertEquals(List.of("7 | seven | 7 | 1 | 1 | 1", "7 | seven | 7 | 1 | 3 | 1", "7 | seven | 7 | 1 | 5 | 1"), rows);
+    }
+
+    @Test
+    void testOuterJoinsKeepTheWrittenOrder() {
+        JoinOrderPlanner planner = new JoinOrderPlanner(List.of(table(PICKS), table(TAGS), table(ITEMS)), List.of(
+                new JoinOrderPlanner.Join(JoinType.LEFT, 1, 0, 0, 0),
+                new JoinOrderPlanner.Join(JoinType.INNER, 2, 0, 1, 0)), -1);
+        List<List<Object>> joined = new ArrayList<>();
+        planner.execute(joined::add);
+
+        assertArrayEquals(new int[]{0, 1, 2}, planner.getOrder());
+        // The pick without a tag has no item either, so the INNER join drops it
+        assertEquals(List.of(Arrays.asList(7, "seven", 7, 1, 7, 1)), joined);
+
+        String output = captureOutput(() -> CommandParser.parse("SELECT * FROM " + PICKS
+                + " LEFT JOIN " + TAGS + " ON " + PICKS + ".tag_id = " + TAGS + ".id"
+                + " LEFT JOIN " + ITEMS + " ON " + TAGS + ".id = " + ITEMS + ".id ORDER BY " + PICKS + ".tag_id").execute());
+        List<String> rows = output.lines().filter(line -> line.matches("\\d+ \\| .*")).toList();
+        assertEquals(List.of("7 | seven | 7 | 1 | 7 | 1", "500 | missing | null | null | null | null"), rows);
+    }
+
+    private static Table table(String name) {
+        return CatalogManager.getInstance().getTable(name);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.StorageMode;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.model.Table;
+import com.postgresql.model.TableSnapshot;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseOffHeapTest {
+    private static final String OFF_HEAP_TABLE = "test_off_heap";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        if (CatalogManager.getInstance().getTable(OFF_HEAP_TABLE) == null) {
+            CommandParser.parse("CREATE TABLE " + OFF_HEAP_TABLE + " (id INT, name STRING) WITH (storage = off_heap)").execute();
+        }
+        new InsertCommand(OFF_HEAP_TABLE, Arrays.asList("1", "Alice")).execute();
+        new InsertCommand(OFF_HEAP_TABLE, Arrays.asList("2", "")).execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + OFF_HEAP_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + OFF_HEAP_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testStorageModeIsPersisted() throws Exception {
+        assertEquals(StorageMode.OFF_HEAP, table().getMetadata().getStorageMode());
+        assertEquals(StorageMode.OFF_HEAP,
+                TableSerializer.readMetadata(TableSerializer.catalogFile(OFF_HEAP_TABLE)).getStorageMode());
+    }
+
+    @Test
+    void testSelectReadsOffHeapRows() {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            new SelectCommand(OFF_HEAP_TABLE, "name", "IS NULL").execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        String output = outContent.toString();
+        assertTrue(output.contains("2") && !output.contains("Alice"), "Only the row with a NULL name should match");
+    }
+
+    @Test
+    void testReplacedSnapshotIsFreedAfterLastReader() {
+        TableSnapshot reading = table().snapshot();
+        assertEquals(StorageMode.OFF_HEAP, reading.getStorageMode());
+
+        new InsertCommand(OFF_HEAP_TABLE, Arrays.asList("3", "Charlie")).execute();
+        TableSnapshot newer = table().snapshot();
+        assertEquals(reading.size() + 1, newer.size());
+        assertEquals("Alice", reading.getRows().get(0).getValues().get(1),
+                "A snapshot stays readable while someone holds it");
+
+        reading.release();
+        assertThrows(IllegalStateException.class, () -> reading.getRows().get(0),
+                "The last release frees the replaced snapshot's memory");
+        assertEquals("Charlie", newer.getRows().get(2).getValues().get(1));
+        newer.release();
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(OFF_HEAP_TABLE);
+    }
+}
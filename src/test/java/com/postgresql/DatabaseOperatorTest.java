@@ -0,0 +1,167 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.JoinOrderPlanner;
+import com.postgresql.execution.JoinType;
+import com.postgresql.execution.operator.Filter;
+import com.postgresql.execution.operator.Join;
+import com.postgresql.execution.operator.Limit;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.execution.operator.Sort;
+import com.postgresql.execution.operator.TopN;
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseOperatorTest {
+    private static final String NUMBERS = "test_op_numbers";
+    private static final String PAIRS = "test_op_pairs";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 3000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(NUMBERS) == null) {
+            catalog.createTable(NUMBERS, Arrays.asList(
+                    new ColumnMetadata("n", DataType.INT),
+                    new ColumnMetadata("parity", DataType.INT)));
+            catalog.createTable(PAIRS, Arrays.asList(
+                    new ColumnMetadata("parity", DataType.INT),
+                    new ColumnMetadata("label", DataType.STRING)));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            new InsertCommand(NUMBERS, Arrays.asList(String.valueOf(i), String.valueOf(i % 2))).execute();
+        }
+        for (int i = 0; i < ROWS; i++) {
+            new InsertCommand(PAIRS, Arrays.asList(String.valueOf(i % 2), "label-" + i)).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        for (String table : List.of(NUMBERS, PAIRS)) {
+            new File(DATA_DIR + "/" + table + ".table").delete();
+            new File(DATA_DIR + "/" + table + ".tbl").delete();
+        }
+    }
+
+    @Test
+    void testLimitStopsPullingRows() {
+        AtomicInteger pulled = new AtomicInteger();
+        Operator counted = new Filter(new SeqScan(table(NUMBERS), -1, null), 0, value -> {
+            pulled.incrementAndGet();
+            return true;
+        });
+        List<List<Object>> rows = drain(new Limit(counted, 10, 5));
+        assertEquals(List.of(10, 11, 12, 13, 14), rows.stream().map(row -> row.get(0)).toList());
+        assertEquals(15, pulled.get(), "Only the skipped and returned rows are read");
+    }
+
+    @Test
+    void testScanFiltersAndSortOrders() {
+        Operator plan = new Sort(new SeqScan(table(NUMBERS), 0, new Range(100, false, 110, true)), columns(NUMBERS), 0, false);
+        List<Object> values = drain(plan).stream().map(row -> row.get(0)).toList();
+        assertEquals(List.of(110, 109, 108, 107, 106, 105, 104, 103, 102, 101), values);
+
+        // A block boundary falls inside the range
+        plan = new SeqScan(table(NUMBERS), 0, new Range(1000, true, 1100, false));
+        assertEquals(100, drain(plan).size());
+    }
+
+    @Test
+    void testTopNMatchesSortThenLimit() {
+        // Parity ties on every other row, so the order among ties matters too
+        for (int column : new int[]{0, 1}) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                Operator sort = new Sort(new SeqScan(table(NUMBERS), -1, null), columns(NUMBERS), column, ascending);
+                Operator top = new TopN(new SeqScan(table(NUMBERS), -1, null), columns(NUMBERS), column, ascending, 10);
+                assertEquals(drain(new Limit(sort, 3, 7)), drain(new Limit(top, 3, 7)));
+            }
+        }
+        assertTrue(drain(new TopN(new SeqScan(table(NUMBERS), -1, null), columns(NUMBERS), 0, true, 0)).isEmpty());
+    }
+
+    @Test
+    void testLimitWithoutOrderByReadsOnlyTheFirstPages() {
+        Table numbers = table(NUMBERS);
+        captureOutput(() -> new InsertCommand(NUMBERS, Arrays.asList(String.valueOf(ROWS), "2")).execute());
+        assertFalse(numbers.hasCurrentSnapshot());
+
+        String output = captureOutput(() -> new SelectCommand(NUMBERS, "parity", "=", "1", null, null, true, 3, 2,
+                null, null, null, null).execute());
+        List<String> rows = output.lines().filter(line -> line.matches("\\d+ \\| 1")).toList();
+        assertEquals(List.of("5 | 1", "7 | 1", "9 | 1"), rows);
+        assertFalse(numbers.hasCurrentSnapshot(), "The first rows were read without copying the table");
+
+        AtomicInteger pulled = new AtomicInteger();
+        Operator counted = new Filter(new SeqScan(numbers, -1, null, true), 0, value -> pulled.incrementAndGet() > 0);
+        assertEquals(2, drain(new Limit(counted, 2, 2)).size());
+        assertEquals(4, pulled.get());
+    }
+
+    @Test
+    void testJoinCanBeClosedBeforeItsLastRow() {
+        // Every number matches half the pairs: 4.5 million rows if read to the end
+        JoinOrderPlanner planner = new JoinOrderPlanner(List.of(table(NUMBERS), table(PAIRS)),
+                List.of(new JoinOrderPlanner.Join(JoinType.INNER, 1, 0, 0, 1)), -1);
+        List<List<Object>> rows = drain(new Limit(new Join(planner), 0, 3));
+        assertEquals(3, rows.size());
+        for (List<Object> row : rows) {
+            assertEquals(row.get(1), row.get(2));
+        }
+
+        // Reading everything still returns every row
+        planner = new JoinOrderPlanner(List.of(table(NUMBERS), table(PAIRS)),
+                List.of(new JoinOrderPlanner.Join(JoinType.INNER, 1, 0, 0, 1)), -1);
+        Operator all = new Filter(new Join(planner), 0, value -> (Integer) value < 2);
+        assertEquals(ROWS, drain(all).size());
+    }
+
+    private static List<List<Object>> drain(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+
+    private static List<ColumnMetadata> columns(String table) {
+        return table(table).getMetadata().getColumns();
+    }
+
+    private static Table table(String name) {
+        return CatalogManager.getInstance().getTable(name);
+    }
+}
@@ -0,0 +1,182 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.DeleteCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.HashJoin;
+import com.postgresql.execution.JoinType;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.execution.operator.Limit;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.ParallelScan;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseParallelTest {
+    private static final String EVENTS = "test_par_events";
+    private static final String DATA_DIR = "data";
+    // Enough for a few morsels of rows and of pages
+    private static final int ROWS = 3 * Parallelism.MORSEL_ROWS;
+
+    private int sessionWorkers;
+
+    @BeforeAll
+    void setup() {
+        sessionWorkers = Parallelism.getWorkers();
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(EVENTS) == null) {
+            catalog.createTable(EVENTS, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("bucket", DataType.INT),
+                    new ColumnMetadata("note", DataType.STRING)));
+        }
+        TableHeap heap = table().getTableHeap();
+        for (int i = 0; i < ROWS; i++) {
+            heap.insertTuple(new Tuple(Arrays.asList(i, i % 100, "event-" + i)));
+        }
+        WriteAheadLog.getInstance().commit();
+    }
+
+    @AfterAll
+    void cleanup() {
+        Parallelism.setWorkers(sessionWorkers);
+        new File(DATA_DIR + "/" + EVENTS + ".table").delete();
+        new File(DATA_DIR + "/" + EVENTS + ".tbl").delete();
+    }
+
+    @Test
+    void testParallelScanKeepsTableOrder() {
+        assertTrue(ParallelScan.isWorthSplitting(table()));
+        Range range = new Range(1000, true, 40000, false);
+        List<List<Object>> serial = drain(new SeqScan(table(), 0, range));
+        assertEquals(39000, serial.size());
+        assertEquals(serial, drain(new ParallelScan(table(), 0, range, 4)));
+        assertEquals(drain(new SeqScan(table(), 2, value -> value.toString().endsWith("7"))),
+                drain(new ParallelScan(table(), 2, value -> value.toString().endsWith("7"), 3)));
+
+        // Stopping after a few rows cancels the morsels not yet read
+        List<List<Object>> first = drain(new Limit(new ParallelScan(table(), -1, null, 4), 0, 3));
+        assertEquals(List.of(0, 1, 2), first.stream().map(row -> row.get(0)).toList());
+    }
+
+    @Test
+    void testSetChangesTheSessionsWorkers() {
+        SelectCommand query = new SelectCommand(EVENTS, "bucket", "BETWEEN", "10", "12", null, true, null, null,
+                null, null, null, null);
+        String parallel;
+        try {
+            String set = captureOutput(() -> CommandParser.parse("SET parallel_workers = 4").execute());
+            assertTrue(set.contains("parallel_workers = 4"));
+            assertEquals(4, Parallelism.getWorkers());
+            parallel = captureOutput(query::execute);
+            captureOutput(() -> CommandParser.parse("SET parallel_workers TO 1;").execute());
+            assertEquals(1, Parallelism.getWorkers());
+        } finally {
+            Parallelism.setWorkers(sessionWorkers);
+        }
+        Parallelism.setWorkers(1);
+        try {
+            assertEquals(captureOutput(query::execute), parallel);
+        } finally {
+            Parallelism.setWorkers(sessionWorkers);
+        }
+        long expected = IntStream.range(0, ROWS).filter(i -> i % 100 >= 10 && i % 100 <= 12).count();
+        assertEquals(expected, parallel.lines().filter(line -> line.contains("event-")).count());
+
+        String rejected = captureOutput(() -> CommandParser.parse("SET parallel_workers = 0").execute());
+        assertTrue(rejected.contains("at least 1"));
+        assertEquals(sessionWorkers, Parallelism.getWorkers());
+    }
+
+    @Test
+    void testParallelProbeMatchesSerialProbe() {
+        List<ColumnMetadata> columns = List.of(new ColumnMetadata("k", DataType.INT), new ColumnMetadata("v", DataType.STRING));
+        List<List<Object>> probe = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            probe.add(Arrays.asList(i % 500, "p" + i));
+        }
+        List<List<Object>> build = new ArrayList<>();
+        for (int i = 0; i < 600; i += 2) {
+            build.add(Arrays.asList(i, "b" + i));
+        }
+        for (JoinType type : JoinType.values()) {
+            List<List<Object>> serial = join(type, 1, columns, probe, build);
+            List<List<Object>> parallel = join(type, 4, columns, probe, build);
+            assertEquals(serial, parallel, type.name());
+        }
+        // Build rows 500..598 match nothing, so only the RIGHT join keeps them
+        assertEquals(ROWS / 2 + 50, join(JoinType.RIGHT, 4, columns, probe, build).size());
+    }
+
+    @Test
+    void testDeleteFindsMatchesInParallel() {
+        Parallelism.setWorkers(4);
+        try {
+            String output = captureOutput(() -> new DeleteCommand(EVENTS, "bucket", "99").execute());
+            long expected = IntStream.range(0, ROWS).filter(i -> i % 100 == 99).count();
+            assertTrue(output.contains("Deleted " + expected + " rows."), output);
+        } finally {
+            Parallelism.setWorkers(sessionWorkers);
+        }
+        assertTrue(drain(new SeqScan(table(), 1, new Range(99, true, 99, true))).isEmpty());
+    }
+
+    private static List<List<Object>> join(JoinType type, int workers, List<ColumnMetadata> columns,
+                                           List<List<Object>> left, List<List<Object>> right) {
+        int previous = Parallelism.getWorkers();
+        Parallelism.setWorkers(workers);
+        try {
+            List<List<Object>> joined = new ArrayList<>();
+            new HashJoin(type, columns, 0, columns, 0).execute(left, right, joined::add);
+            return joined;
+        } finally {
+            Parallelism.setWorkers(previous);
+        }
+    }
+
+    private static List<List<Object>> drain(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(EVENTS);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,177 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.Parallelism;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.ParallelScan;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.model.Range;
+import com.postgresql.model.RowBuilder;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.TableSerializer;
+import com.postgresql.storage.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseProjectionTest {
+    private static final String PEOPLE = "test_proj_people";
+    private static final String VISITS = "test_proj_visits";
+    private static final String DATA_DIR = "data";
+    // Enough for the morsels of a parallel scan
+    private static final int ROWS = 3 * Parallelism.MORSEL_ROWS;
+
+    private int sessionWorkers;
+
+    @BeforeAll
+    void setup() {
+        sessionWorkers = Parallelism.getWorkers();
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(PEOPLE) == null) {
+            catalog.createTable(PEOPLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("bio", DataType.STRING),
+                    new ColumnMetadata("score", DataType.FLOAT)));
+        }
+        if (catalog.getTable(VISITS) == null) {
+            catalog.createTable(VISITS, Arrays.asList(
+                    new ColumnMetadata("person_id", DataType.INT),
+                    new ColumnMetadata("page", DataType.STRING),
+                    new ColumnMetadata("notes", DataType.STRING)));
+        }
+        TableHeap people = table(PEOPLE).getTableHeap();
+        for (int i = 0; i < ROWS; i++) {
+            people.insertTuple(new Tuple(Arrays.asList(i, "p" + i, "bio-" + "x".repeat(i % 50), (i % 40) / 4f)));
+        }
+        TableHeap visits = table(VISITS).getTableHeap();
+        for (int i = 0; i < 300; i++) {
+            visits.insertTuple(new Tuple(Arrays.asList(i * 7 % 500, "/page/" + (i % 9), "note " + i)));
+        }
+        WriteAheadLog.getInstance().commit();
+        CommandParser.parse("CREATE INDEX by_id ON " + PEOPLE + " (id) INCLUDE (name)").execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        Parallelism.setWorkers(sessionWorkers);
+        for (String name : List.of(PEOPLE, VISITS)) {
+            new File(DATA_DIR + "/" + name + ".table").delete();
+            new File(DATA_DIR + "/" + name + ".tbl").delete();
+        }
+        TableSerializer.indexFile(PEOPLE, "by_id").delete();
+    }
+
+    @Test
+    void testSelectListReturnsColumnsInItsOrder() {
+        String output = captureOutput(() -> CommandParser.parse("SELECT score, name FROM " + PEOPLE
+                + " WHERE id < 40 AND name <> 'p3' ORDER BY id DESC LIMIT 3").execute());
+        // ORDER BY may name a column the select list leaves out
+        assertEquals(List.of("score | name", "------------", "9.75 | p39", "9.5 | p38", "9.25 | p37"),
+                output.lines().toList());
+
+        String indexed = captureOutput(() -> CommandParser.parse("SELECT name FROM " + PEOPLE + " WHERE id = 1234").execute());
+        assertEquals("p1234", indexed.lines().toList().get(2), "The covering index holds every column read");
+    }
+
+    @Test
+    void testProjectionIsTheSameAcrossScans() {
+        String query = "SELECT id, score FROM " + PEOPLE + " WHERE score >= 9 AND (name = 'p9' OR id > 5000)";
+        List<String> expected = IntStream.range(0, ROWS)
+                .filter(i -> (i % 40) / 4f >= 9 && (i == 9 || i > 5000))
+                .mapToObj(i -> i + " | " + (i % 40) / 4f)
+                .toList();
+        try {
+            Parallelism.setWorkers(1);
+            assertEquals(expected, rowsOf(query));
+            System.setProperty("postgreslite.execution.vectorized", "false");
+            assertEquals(expected, rowsOf(query));
+            System.clearProperty("postgreslite.execution.vectorized");
+            Parallelism.setWorkers(4);
+            assertEquals(expected, rowsOf(query));
+        } finally {
+            System.clearProperty("postgreslite.execution.vectorized");
+            Parallelism.setWorkers(sessionWorkers);
+        }
+    }
+
+    @Test
+    void testUnreadColumnsAreNotBuilt() {
+        Table table = table(PEOPLE);
+        // Columns 0 and 3 are read; the filter reads column 3 before column 0 is built
+        RowBuilder rows = new RowBuilder(4, new int[]{0, 3}, row -> (Float) row.get(3) == 2.5f, new int[]{3});
+        List<List<Object>> scanned = drain(new SeqScan(table, 0, new Range(0, true, 200, false), rows, false));
+        assertEquals(IntStream.range(0, 200).filter(i -> (i % 40) / 4f == 2.5f).boxed().toList(),
+                scanned.stream().map(row -> row.get(0)).toList());
+        for (List<Object> row : scanned) {
+            assertEquals(4, row.size(), "Rows keep the table's column positions");
+            assertNull(row.get(1));
+            assertNull(row.get(2));
+        }
+        assertEquals(scanned, drain(new ParallelScan(table, 0, new Range(0, true, 200, false), rows, 4)));
+
+        // Pages read from the file decode only the columns the builder asks for
+        List<List<Object>> mapped = new ArrayList<>();
+        table.getTableHeap().scanMapped(0, Integer.MAX_VALUE, 0, new Range(0, true, 200, false), rows, mapped::add);
+        assertEquals(scanned, mapped);
+    }
+
+    @Test
+    void testJoinReadsOnlyReferencedColumns() {
+        String output = captureOutput(() -> CommandParser.parse("SELECT " + VISITS + ".page, " + PEOPLE + ".name FROM "
+                + PEOPLE + " INNER JOIN " + VISITS + " ON " + PEOPLE + ".id = " + VISITS + ".person_id WHERE "
+                + VISITS + ".notes = 'note 12' OR " + PEOPLE + ".id = 497").execute());
+        List<String> lines = output.lines().toList();
+        assertEquals(VISITS + ".page | " + PEOPLE + ".name", lines.get(0));
+        // Visit 12 is person 84; person 497 is visit 71 (71 * 7 % 500)
+        assertEquals(List.of("/page/3 | p84", "/page/8 | p497"), lines.subList(2, lines.size()).stream().sorted().toList());
+
+        String unknown = captureOutput(() -> CommandParser.parse("SELECT nope FROM " + PEOPLE).execute());
+        assertTrue(unknown.contains("Column not found: nope"), unknown);
+    }
+
+    private static List<String> rowsOf(String query) {
+        return captureOutput(() -> CommandParser.parse(query).execute()).lines().skip(2).toList();
+    }
+
+    private static List<List<Object>> drain(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Table table(String name) {
+        return CatalogManager.getInstance().getTable(name);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseRangeTest {
+    private static final String RANGE_TABLE = "test_range";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(RANGE_TABLE) == null) {
+            catalog.createTable(RANGE_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("score", DataType.FLOAT),
+                    new ColumnMetadata("ts", DataType.INT)));
+        }
+        for (int i = 0; i < 200; i++) {
+            new InsertCommand(RANGE_TABLE, Arrays.asList(String.valueOf(i), "name" + (char) ('a' + i % 26),
+                    i % 10 == 0 ? "" : (i / 2) + ".5", String.valueOf(1000 + i))).execute();
+        }
+        CommandParser.parse("CREATE INDEX ON " + RANGE_TABLE + " (ts)").execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + RANGE_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + RANGE_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+        TableSerializer.indexFile(RANGE_TABLE, RANGE_TABLE + "_ts_idx").delete();
+    }
+
+    @Test
+    void testNumbersCompareAsNumbers() {
+        String output = select("SELECT * FROM " + RANGE_TABLE + " WHERE id < 10");
+        assertEquals(10, countRows(output), "Only ids 0-9, not 100-199");
+        assertEquals(190, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE id >= 10")));
+    }
+
+    @Test
+    void testBetweenAndExclusiveBounds() {
+        assertEquals(11, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE id BETWEEN 20 AND 30")));
+        assertEquals(9, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE id > 20 ORDER BY id LIMIT 9")));
+        assertEquals(5, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE score <= 2.5")),
+                "Ids 1-5; id 0 has a NULL score, which never matches");
+        assertEquals(16, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE name BETWEEN 'NAMEA' AND 'nameb'")),
+                "Strings compare regardless of case");
+    }
+
+    @Test
+    void testIndexRangeScanAgreesWithTypedScan() {
+        Table table = CatalogManager.getInstance().getTable(RANGE_TABLE);
+        assertNotNull(table.getTableHeap().lookupRange(3, 1050, 1060));
+        for (Range range : List.of(Range.parse(DataType.INT, ">", "1190", null),
+                Range.parse(DataType.INT, "<=", "1004", null),
+                Range.parse(DataType.INT, "BETWEEN", "1050", "1060"))) {
+            List<Object> indexed = new ArrayList<>();
+            table.forEachInRange(3, range, row -> indexed.add(row.getValues().get(0)));
+            List<Object> scanned = new ArrayList<>();
+            for (Tuple row : table.getAllTuples()) {
+                if (range.test(row.getValues().get(3))) {
+                    scanned.add(row.getValues().get(0));
+                }
+            }
+            indexed.sort(null);
+            assertEquals(scanned, indexed);
+        }
+        assertEquals(11, countRows(select("SELECT * FROM " + RANGE_TABLE + " WHERE ts BETWEEN 1050 AND 1060")));
+    }
+
+    private static String select(String sql) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            CommandParser.parse(sql).execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+
+    // Rows are the lines after the header and its underline
+    private static int countRows(String output) {
+        String[] lines = output.trim().split("\\R");
+        return lines.length - 2;
+    }
+}
@@ -0,0 +1,104 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.AlterTableCommand;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.model.*;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseSnapshotTest {
+    private static final String SNAPSHOT_TABLE = "test_snapshot";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(SNAPSHOT_TABLE) == null) {
+            catalog.createTable(SNAPSHOT_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING)));
+        }
+        new InsertCommand(SNAPSHOT_TABLE, Arrays.asList("1", "Alice")).execute();
+        new InsertCommand(SNAPSHOT_TABLE, Arrays.asList("2", "Bob")).execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + SNAPSHOT_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + SNAPSHOT_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testSnapshotIsSharedUntilTableChanges() {
+        Table table = CatalogManager.getInstance().getTable(SNAPSHOT_TABLE);
+        TableSnapshot first = table.snapshot();
+        assertSame(first, table.snapshot(), "An unchanged table should reuse its snapshot");
+        assertThrows(UnsupportedOperationException.class, () -> first.getRows().get(0).getValues().set(0, 99),
+                "Snapshot rows are shared and must be read-only");
+
+        new InsertCommand(SNAPSHOT_TABLE, Arrays.asList("3", "Charlie")).execute();
+        TableSnapshot second = table.snapshot();
+        assertNotSame(first, second);
+        assertEquals(first.size() + 1, second.size());
+
+        new AlterTableCommand(SNAPSHOT_TABLE, "email", DataType.STRING).execute();
+        assertTrue(table.snapshot().getRows().stream().allMatch(t -> t.getValues().size() == 3),
+                "Adding a column should invalidate the snapshot");
+    }
+
+    @Test
+    void testSnapshotStoresColumnsAsPrimitiveVectors() {
+        String typedTable = SNAPSHOT_TABLE + "_typed";
+        CatalogManager.getInstance().createTable(typedTable, Arrays.asList(
+                new ColumnMetadata("id", DataType.INT),
+                new ColumnMetadata("score", DataType.FLOAT),
+                new ColumnMetadata("active", DataType.BOOLEAN),
+                new ColumnMetadata("name", DataType.STRING)));
+        try {
+            new InsertCommand(typedTable, Arrays.asList("1", "2.5", "true", "Zoë")).execute();
+            new InsertCommand(typedTable, Arrays.asList("2", "", "", "")).execute();
+
+            TableSnapshot snapshot = CatalogManager.getInstance().getTable(typedTable).snapshot();
+            IntVector ids = (IntVector) snapshot.getColumn(0);
+            assertEquals(2, ids.getInt(1));
+            assertEquals(2.5f, ((FloatVector) snapshot.getColumn(1)).getFloat(0));
+            assertTrue(((BooleanVector) snapshot.getColumn(2)).getBoolean(0));
+            assertEquals("Zoë", ((StringVector) snapshot.getColumn(3)).getString(0));
+            assertTrue(snapshot.getColumn(1).isNull(1) && snapshot.getColumn(3).isNull(1));
+            assertEquals(Arrays.asList(2, null, null, null), snapshot.getRows().get(1).getValues());
+            assertNotNull(snapshot.getRows().get(1).getRecordId());
+        } finally {
+            new File(DATA_DIR + "/" + typedTable + ".table").delete();
+            new File(DATA_DIR + "/" + typedTable + ".tbl").delete();
+        }
+    }
+
+    @Test
+    void testSelectReadsFromCatalogNotCatalogFile() {
+        File catalogFile = new File(DATA_DIR + "/" + SNAPSHOT_TABLE + ".table");
+        File moved = new File(DATA_DIR + "/" + SNAPSHOT_TABLE + ".table.moved");
+        assertTrue(catalogFile.renameTo(moved));
+        java.io.ByteArrayOutputStream outContent = new java.io.ByteArrayOutputStream();
+        java.io.PrintStream originalOut = System.out;
+        System.setOut(new java.io.PrintStream(outContent));
+        try {
+            new SelectCommand(SNAPSHOT_TABLE).execute();
+        } finally {
+            System.setOut(originalOut);
+            moved.renameTo(catalogFile);
+        }
+        String output = outContent.toString();
+        assertTrue(output.contains("Alice") && output.contains("Bob"), "SELECT should be served from memory");
+    }
+}
@@ -0,0 +1,88 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.AlterTableCommand;
+import com.postgresql.command.DeleteCommand;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.UpdateCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.storage.Page;
+import com.postgresql.storage.TableSerializer;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseStorageTest {
+    private static final String STORAGE_TABLE = "test_storage";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() throws Exception {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(STORAGE_TABLE) == null) {
+            catalog.createTable(STORAGE_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("score", DataType.FLOAT),
+                    new ColumnMetadata("active", DataType.BOOLEAN)));
+        }
+        for (int i = 0; i < 500; i++) {
+            new InsertCommand(STORAGE_TABLE, Arrays.asList(
+                    String.valueOf(i), "user-" + "x".repeat(40) + i, i + ".5", String.valueOf(i % 2 == 0))).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + STORAGE_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + STORAGE_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testRowsRoundTripThroughPages() throws Exception {
+        TableSerializer.writeToDisk(CatalogManager.getInstance().getTable(STORAGE_TABLE));
+        File heapFile = new File(DATA_DIR + "/" + STORAGE_TABLE + ".tbl");
+        assertEquals(0, heapFile.length() % Page.PAGE_SIZE, "Heap file should be a whole number of pages");
+        assertTrue(heapFile.length() > Page.PAGE_SIZE, "500 rows should span several pages");
+
+        Table reloaded = TableSerializer.readFromDisk(STORAGE_TABLE);
+        Tuple row = reloaded.getAllTuples().stream()
+                .filter(t -> t.getValues().get(0).equals(7))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(Arrays.asList(7, "user-" + "x".repeat(40) + 7, 7.5f, false), row.getValues().subList(0, 4));
+    }
+
+    @Test
+    void testUpdateThatGrowsRowAndDelete() throws Exception {
+        String longName = "y".repeat(3000);
+        new UpdateCommand(STORAGE_TABLE, "name", longName, "id", "10").execute();
+        new DeleteCommand(STORAGE_TABLE, "id", "11").execute();
+
+        List<Tuple> tuples = TableSerializer.readFromDisk(STORAGE_TABLE).getAllTuples();
+        assertTrue(tuples.stream().anyMatch(t -> t.getValues().get(0).equals(10) && longName.equals(t.getValues().get(1))),
+                "Grown row should be readable after it moves to another page");
+        assertFalse(tuples.stream().anyMatch(t -> t.getValues().get(0).equals(11)), "Deleted row should be gone");
+    }
+
+    @Test
+    void testAddColumnReadsNullForExistingRows() throws Exception {
+        new AlterTableCommand(STORAGE_TABLE, "nickname", DataType.STRING).execute();
+        new InsertCommand(STORAGE_TABLE, Arrays.asList("1000", "new", "1.0", "true", "nick")).execute();
+
+        List<Tuple> tuples = TableSerializer.readFromDisk(STORAGE_TABLE).getAllTuples();
+        assertTrue(tuples.stream().allMatch(t -> t.getValues().size() == 5), "Every row should have the new column");
+        assertNull(tuples.get(0).getValues().get(4), "Existing rows should read null for the new column");
+        assertTrue(tuples.stream().anyMatch(t -> "nick".equals(t.getValues().get(4))));
+    }
+}
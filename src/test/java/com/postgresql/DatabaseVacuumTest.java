@@ -0,0 +1,156 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.storage.AutoVacuum;
+import com.postgresql.storage.BufferPool;
+import com.postgresql.storage.Page;
+import com.postgresql.storage.TableHeap;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseVacuumTest {
+    private static final String VACUUM_TABLE = "test_vacuum";
+    private static final String DATA_DIR = "data";
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(VACUUM_TABLE) == null) {
+            catalog.createTable(VACUUM_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING)));
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        File f1 = new File(DATA_DIR + "/" + VACUUM_TABLE + ".table");
+        File f2 = new File(DATA_DIR + "/" + VACUUM_TABLE + ".tbl");
+        if (f1.exists()) f1.delete();
+        if (f2.exists()) f2.delete();
+    }
+
+    @Test
+    void testDeleteLeavesTombstoneUntilVacuum() {
+        Page page = new Page(0);
+        int first = page.insert("first".getBytes(StandardCharsets.UTF_8));
+        int second = page.insert("second".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(5, page.delete(first));
+        assertFalse(page.isLive(first));
+        assertEquals(5, page.getDeadBytes());
+        assertNotEquals(first, page.insert("third".getBytes(StandardCharsets.UTF_8)),
+                "A tombstoned slot is not reused before vacuum");
+
+        assertTrue(page.vacuum() >= 5);
+        assertEquals(0, page.getDeadBytes());
+        assertEquals("second", StandardCharsets.UTF_8.decode(page.read(second)).toString(),
+                "Vacuum keeps live records in their slots");
+    }
+
+    @Test
+    void testVacuumReclaimsDeletedRowsAndKeepsTheRest() {
+        for (int i = 0; i < 400; i++) {
+            new InsertCommand(VACUUM_TABLE, Arrays.asList(String.valueOf(i), "row-" + "v".repeat(40) + i)).execute();
+        }
+        TableHeap heap = CatalogManager.getInstance().getTable(VACUUM_TABLE).getTableHeap();
+        heap.deleteTuples(heap.scanAllTuples().stream()
+                .filter(t -> (Integer) t.getValues().get(0) % 2 == 0)
+                .collect(Collectors.toList()));
+        List<String> survivors = rows(heap);
+        assertTrue(heap.needsVacuum(0.2), "Half the table is dead");
+        assertFalse(new AutoVacuum(List::of, 1000, 0.2).vacuumDueTables() > 0, "No tables, nothing to do");
+
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            CommandParser.parse("VACUUM " + VACUUM_TABLE).execute();
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertTrue(outContent.toString().contains("Vacuumed " + VACUUM_TABLE + ": reclaimed"));
+        assertFalse(heap.needsVacuum(0.2));
+        assertEquals(survivors, rows(heap), "Vacuum must not move or lose live rows");
+        assertEquals(0, heap.vacuum(), "A second vacuum has nothing left to reclaim");
+    }
+
+    @Test
+    void testInsertsReuseSpaceFreedByDeletes() {
+        TableHeap heap = CatalogManager.getInstance().getTable(VACUUM_TABLE).getTableHeap();
+        int firstRoundPages = -1;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 300; i++) {
+                heap.insertTuple(new Tuple(Arrays.asList(10000 + i, "churn-" + "c".repeat(60) + i)));
+            }
+            if (round == 0) {
+                firstRoundPages = heap.getFile().getPageCount();
+            }
+            assertEquals(firstRoundPages, heap.getFile().getPageCount(),
+                    "Churn should refill freed pages instead of growing the file");
+            heap.deleteTuples(heap.scanAllTuples().stream()
+                    .filter(t -> (Integer) t.getValues().get(0) >= 10000)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void testDeadBytesFollowCompactionAndRestarts() {
+        Page page = new Page(0);
+        for (int i = 0; i < 8; i++) {
+            page.insert(new byte[1000]);
+        }
+        page.delete(3);
+        assertTrue(page.insert(new byte[1000]) >= 0);
+        assertEquals(1000, page.takeReclaimedBytes(), "Making room compacted the tombstone away");
+        assertEquals(0, page.takeReclaimedBytes());
+
+        var table = CatalogManager.getInstance().getTable(VACUUM_TABLE);
+        TableHeap heap = table.getTableHeap();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 300; i++) {
+                heap.insertTuple(new Tuple(Arrays.asList(20000 + i, "dead-" + "d".repeat(60) + i)));
+            }
+            heap.deleteTuples(heap.scanAllTuples().stream()
+                    .filter(t -> (Integer) t.getValues().get(0) >= 20000)
+                    .collect(Collectors.toList()));
+            assertEquals(deadBytesOnPages(heap), heap.getDeadBytes(), "round " + round);
+        }
+        assertEquals(deadBytesOnPages(heap), new TableHeap(table.getMetadata(), heap.getFile()).getDeadBytes(),
+                "A reopened table counts the tombstones already on its pages");
+    }
+
+    private static long deadBytesOnPages(TableHeap heap) {
+        long dead = 0;
+        for (int pageId = 0; pageId < heap.getFile().getPageCount(); pageId++) {
+            Page page = BufferPool.getInstance().fetchPage(heap.getFile(), pageId);
+            try {
+                dead += page.getDeadBytes();
+            } finally {
+                BufferPool.getInstance().unpinPage(heap.getFile(), pageId, false);
+            }
+        }
+        return dead;
+    }
+
+    private static List<String> rows(TableHeap heap) {
+        return heap.scanAllTuples().stream()
+                .map(t -> t.getRecordId() + " " + t.getValues())
+                .collect(Collectors.toList());
+    }
+}
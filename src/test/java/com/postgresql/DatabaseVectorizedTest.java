@@ -0,0 +1,156 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.command.SelectCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.execution.operator.Batch;
+import com.postgresql.execution.operator.BatchOperator;
+import com.postgresql.execution.operator.Operator;
+import com.postgresql.execution.operator.SeqScan;
+import com.postgresql.execution.operator.Unbatch;
+import com.postgresql.execution.operator.VectorFilter;
+import com.postgresql.execution.operator.VectorScan;
+import com.postgresql.model.Range;
+import com.postgresql.model.Table;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseVectorizedTest {
+    private static final String MEASURES = "test_vec_measures";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 5000;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(MEASURES) == null) {
+            catalog.createTable(MEASURES, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("reading", DataType.FLOAT),
+                    new ColumnMetadata("site", DataType.STRING)));
+        }
+        for (int i = 0; i < ROWS; i++) {
+            // Every 7th reading is NULL, and so is every 11th id past the first few
+            String id = i > 20 && i % 11 == 0 ? "" : String.valueOf(i - ROWS / 2);
+            String reading = i % 7 == 0 ? "" : (i % 100) + ".5";
+            new InsertCommand(MEASURES, Arrays.asList(id, reading, "site-" + (i % 13))).execute();
+        }
+    }
+
+    @AfterAll
+    void cleanup() {
+        new File(DATA_DIR + "/" + MEASURES + ".table").delete();
+        new File(DATA_DIR + "/" + MEASURES + ".tbl").delete();
+    }
+
+    @Test
+    void testBatchFiltersMatchRowFilters() {
+        List<Range> intRanges = List.of(
+                new Range(-100, false, 100, true),
+                new Range(null, false, -2000, false),
+                new Range(Integer.MAX_VALUE, false, null, false),
+                new Range(null, false, Integer.MIN_VALUE, false),
+                new Range(0, true, 0, true));
+        for (Range range : intRanges) {
+            assertEquals(rows(new SeqScan(table(), 0, range)), rows(vectorized(0, range)), "id " + describe(range));
+        }
+        List<Range> floatRanges = List.of(
+                new Range(10.5f, true, 20.5f, false),
+                new Range(98.5f, false, null, false),
+                new Range(null, false, 0.5f, true));
+        for (Range range : floatRanges) {
+            assertEquals(rows(new SeqScan(table(), 1, range)), rows(vectorized(1, range)), "reading " + describe(range));
+        }
+        // Strings take the boxed path
+        Range sites = new Range("site-10", true, "site-12", true);
+        assertEquals(rows(new SeqScan(table(), 2, sites)), rows(vectorized(2, sites)));
+    }
+
+    @Test
+    void testChainedFiltersNarrowTheSelection() {
+        Range ids = new Range(-1000, true, 1000, false);
+        Range readings = new Range(50f, false, 60f, false);
+        BatchOperator plan = new VectorFilter(new VectorFilter(new VectorScan(table()), 0, ids), 1, readings);
+        List<List<Object>> actual = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (Batch batch = plan.nextBatch(); batch != null; batch = plan.nextBatch()) {
+                assertTrue(batch.size() > 0 && batch.size() <= Batch.MAX_ROWS);
+                for (int i = 0; i < batch.size(); i++) {
+                    actual.add(batch.getRow(i));
+                }
+            }
+        }
+        List<List<Object>> expected = rows(new SeqScan(table(), 0, ids)).stream()
+                .filter(row -> readings.test(row.get(1)))
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testSelectGivesTheSameRowsEitherWay() {
+        List<SelectCommand> queries = List.of(
+                new SelectCommand(MEASURES, "id", ">=", "2400", null, null, true, null, null, null, null, null, null),
+                new SelectCommand(MEASURES, "id", "=", "-7", null, null, true, null, null, null, null, null, null),
+                new SelectCommand(MEASURES, "reading", "BETWEEN", "3", "4", null, true, null, null, null, null, null, null),
+                new SelectCommand(MEASURES, "reading", "=", "IS NULL", null, "id", false, 5, 2, null, null, null, null));
+        for (SelectCommand query : queries) {
+            String vectorized = captureOutput(query::execute);
+            System.setProperty("postgreslite.execution.vectorized", "false");
+            try {
+                assertEquals(captureOutput(query::execute), vectorized);
+            } finally {
+                System.clearProperty("postgreslite.execution.vectorized");
+            }
+            assertTrue(vectorized.lines().count() > 2, "Each query finds some rows");
+        }
+    }
+
+    private static Operator vectorized(int column, Range range) {
+        return new Unbatch(new VectorFilter(new VectorScan(table()), column, range));
+    }
+
+    private static List<List<Object>> rows(Operator plan) {
+        List<List<Object>> rows = new ArrayList<>();
+        try (plan) {
+            plan.open();
+            for (List<Object> row = plan.next(); row != null; row = plan.next()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static String describe(Range range) {
+        return (range.isLowerInclusive() ? "[" : "(") + range.getLower() + ", " + range.getUpper()
+                + (range.isUpperInclusive() ? "]" : ")");
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(MEASURES);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.postgresql;
+
+import com.postgresql.catalog.CatalogManager;
+import com.postgresql.catalog.ColumnMetadata;
+import com.postgresql.command.InsertCommand;
+import com.postgresql.common.DataType;
+import com.postgresql.exception.InvalidSyntaxException;
+import com.postgresql.expression.BoundExpression;
+import com.postgresql.model.Table;
+import com.postgresql.model.Tuple;
+import com.postgresql.parser.CommandParser;
+import com.postgresql.parser.ExpressionParser;
+import com.postgresql.storage.TableHeap;
+import com.postgresql.storage.TableSerializer;
+import com.postgresql.storage.WriteAheadLog;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DatabaseWhereExpressionTest {
+    private static final String WHERE_TABLE = "test_where";
+    private static final String DATA_DIR = "data";
+    private static final int ROWS = 200;
+
+    @BeforeAll
+    void setup() {
+        CatalogManager catalog = CatalogManager.getInstance();
+        if (catalog.getTable(WHERE_TABLE) == null) {
+            catalog.createTable(WHERE_TABLE, Arrays.asList(
+                    new ColumnMetadata("id", DataType.INT),
+                    new ColumnMetadata("name", DataType.STRING),
+                    new ColumnMetadata("score", DataType.FLOAT),
+                    new ColumnMetadata("active", DataType.BOOLEAN)));
+        }
+        TableHeap heap = table().getTableHeap();
+        for (int i = 0; i < ROWS; i++) {
+            heap.insertTuple(new Tuple(Arrays.asList(i, name(i), score(i), i % 2 == 0)));
+        }
+        WriteAheadLog.getInstance().commit();
+        CommandParser.parse("CREATE INDEX ON " + WHERE_TABLE + " (id)").execute();
+    }
+
+    @AfterAll
+    void cleanup() {
+        new File(DATA_DIR + "/" + WHERE_TABLE + ".table").delete();
+        new File(DATA_DIR + "/" + WHERE_TABLE + ".tbl").delete();
+        TableSerializer.indexFile(WHERE_TABLE, WHERE_TABLE + "_id_idx").delete();
+    }
+
+    @Test
+    void testAndOrNotWithParentheses() {
+        assertEquals(expected(i -> (i < 10 || i >= 190) && i % 2 != 0),
+                selectIds("(id < 10 OR id >= 190) AND NOT active"));
+        // AND binds tighter than OR
+        assertEquals(expected(i -> i < 3 || i > 196 && i % 2 == 0),
+                selectIds("id < 3 or id > 196 and active = TRUE"));
+        assertEquals(expected(i -> !(i >= 5 && (i % 2 == 0 || i < 100))),
+                selectIds("NOT (id >= 5 AND (active = true OR id < 100))"));
+    }
+
+    @Test
+    void testNegationKeepsNullsOut() {
+        // NULL fails a comparison and its negation alike
+        assertEquals(expected(i -> name(i) != null && !name(i).equals("n1")), selectIds("NOT name = 'N1'"));
+        assertEquals(expected(i -> name(i) != null && !name(i).equals("n1")), selectIds("name <> 'n1'"));
+        assertEquals(expected(i -> score(i) != null && (score(i) < 1 || score(i) > 3)),
+                selectIds("NOT score BETWEEN 1 AND 3"));
+        assertEquals(expected(i -> name(i) == null || score(i) == null),
+                selectIds("name IS NULL OR NOT score IS NOT NULL"));
+    }
+
+    @Test
+    void testFloatEqualityComparesValues() {
+        // 2.50 prints as 2.5, and still matches
+        assertEquals(expected(i -> score(i) != null && score(i) == 2.5f), selectIds("score = 2.50"));
+        assertEquals(expected(i -> score(i) != null && score(i) != 2.5f), selectIds("score != 2.5"));
+    }
+
+    @Test
+    void testIndexedTestWithResidualCondition() {
+        assertEquals(expected(i -> i >= 50 && i <= 90 && "n3".equals(name(i)) && i % 2 == 0),
+                selectIds("name = 'N3' AND id BETWEEN 50 AND 90 AND active = true"));
+        assertEquals(expected(i -> i == 42 && score(i) != null), selectIds("score IS NOT NULL AND id = 42"));
+
+        // Only the indexed test narrows the search; the other conjuncts are checked on its rows
+        BoundExpression condition = ExpressionParser.parse("id >= 180 AND name IS NULL")
+                .bind(table().getMetadata().getColumns(), table().getMetadata()::getColumnIndex);
+        assertEquals(2, condition.conjuncts().size());
+        List<Integer> found = table().findTuples(condition).stream()
+                .map(tuple -> (Integer) tuple.getValues().get(0))
+                .sorted()
+                .toList();
+        assertEquals(expected(i -> i >= 180 && name(i) == null), found);
+    }
+
+    @Test
+    void testUpdateAndDeleteWithCompoundConditions() {
+        for (int i = 1000; i < 1010; i++) {
+            new InsertCommand(WHERE_TABLE, Arrays.asList(String.valueOf(i), "late", "0.5", String.valueOf(i % 2 == 0))).execute();
+        }
+        String updated = captureOutput(() -> CommandParser.parse("UPDATE " + WHERE_TABLE
+                + " SET name = 'hit' WHERE id >= 1000 AND active = true").execute());
+        assertTrue(updated.contains("Updated 5 rows"), updated);
+        String deleted = captureOutput(() -> CommandParser.parse("DELETE FROM " + WHERE_TABLE
+                + " WHERE id >= 1000 AND (name = 'hit' OR NOT active);").execute());
+        assertTrue(deleted.contains("Deleted 10 rows"), deleted);
+        assertEquals(List.of(), selectIds("id >= 1000"));
+    }
+
+    @Test
+    void testInvalidConditions() {
+        for (String condition : List.of("id = = 1", "(id = 1", "id BETWEEN 1", "NOT id 1", "id = 1 AND", "id ~ 1")) {
+            assertThrows(InvalidSyntaxException.class,
+                    () -> CommandParser.parse("SELECT * FROM " + WHERE_TABLE + " WHERE " + condition), condition);
+        }
+        assertThrows(InvalidSyntaxException.class, () -> CommandParser.parse("DELETE FROM " + WHERE_TABLE));
+
+        String badValue = captureOutput(() -> CommandParser.parse("SELECT * FROM " + WHERE_TABLE + " WHERE id = abc").execute());
+        assertTrue(badValue.contains("Invalid INT value: abc"), badValue);
+        String badColumn = captureOutput(() -> CommandParser.parse("DELETE FROM " + WHERE_TABLE + " WHERE nope = 1").execute());
+        assertTrue(badColumn.contains("Column not found: nope"), badColumn);
+    }
+
+    private static String name(int i) {
+        return i % 10 == 0 ? null : "n" + (i % 5);
+    }
+
+    private static Float score(int i) {
+        return i % 7 == 0 ? null : (i % 20) / 2f;
+    }
+
+    private static List<Integer> expected(IntPredicate matches) {
+        return IntStream.range(0, ROWS).filter(matches).boxed().toList();
+    }
+
+    // The ids SELECT returns for condition, in order
+    private static List<Integer> selectIds(String condition) {
+        String output = captureOutput(() -> CommandParser.parse("SELECT * FROM " + WHERE_TABLE + " WHERE " + condition
+                + " ORDER BY id").execute());
+        return output.lines().skip(2).map(line -> Integer.parseInt(line.split(" \\| ")[0])).toList();
+    }
+
+    private static Table table() {
+        return CatalogManager.getInstance().getTable(WHERE_TABLE);
+    }
+
+    private static String captureOutput(Runnable action) {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            action.run();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return outContent.toString();
+    }
+}